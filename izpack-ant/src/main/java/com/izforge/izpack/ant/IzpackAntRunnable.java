@@ -34,7 +34,10 @@ public class IzpackAntRunnable implements Runnable
         this.inheritAll = inheritAll;
         this.projectProps = antProjectProperties;
         this.logHandler = logHandler;
-        CompilerData.setIzpackHome(izPackDir);
+        if (izPackDir != null)
+        {
+            compilerData.setIzpackHomeDir(izPackDir);
+        }
     }
 
 
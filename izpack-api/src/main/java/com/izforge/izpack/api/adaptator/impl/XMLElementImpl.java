@@ -32,8 +32,10 @@ import javax.xml.parsers.ParserConfigurationException;
 
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.regex.Pattern;
 
@@ -65,6 +67,12 @@ public class XMLElementImpl implements IXMLElement
      */
     private List<IXMLElement> childrenList;
 
+    /**
+     * The children elements, indexed on name.
+     * It is generated from the childrenList as it is called.
+     */
+    private transient Map<String, List<IXMLElement>> childrenByName;
+
     /**
      * Create a new root element in a new document.
      *
@@ -171,6 +179,7 @@ public class XMLElementImpl implements IXMLElement
         if (hasChanged)
         {
             hasChanged = false;
+            childrenByName = null;
             childrenList = new ArrayList<IXMLElement>();
             for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling())
             {
@@ -218,15 +227,27 @@ public class XMLElementImpl implements IXMLElement
     @Override
     public List<IXMLElement> getChildrenNamed(String name)
     {
-        List<IXMLElement> res = new ArrayList<IXMLElement>();
-        for (IXMLElement child : getChildren())
+        initChildrenList();
+        if (childrenByName == null)
         {
-            if (child.getName() != null && child.getName().equals(name))
+            childrenByName = new HashMap<String, List<IXMLElement>>();
+            for (IXMLElement child : childrenList)
             {
-                res.add(new XMLElementImpl(child.getElement()));
+                String childName = child.getName();
+                if (childName != null)
+                {
+                    List<IXMLElement> named = childrenByName.get(childName);
+                    if (named == null)
+                    {
+                        named = new ArrayList<IXMLElement>(1);
+                        childrenByName.put(childName, named);
+                    }
+                    named.add(child);
+                }
             }
         }
-        return res;
+        List<IXMLElement> named = childrenByName.get(name);
+        return (named != null) ? new ArrayList<IXMLElement>(named) : new ArrayList<IXMLElement>();
     }
 
     @Override
@@ -0,0 +1,179 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.api.data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Reads and writes langpacks in the compiled, binary string table format.
+ * <p/>
+ * The compiler converts the XML langpacks to this format, so that the installer can load the messages without
+ * parsing XML. The format is:
+ * <pre>
+ * magic   : 4 bytes, "IZLP"
+ * version : 1 byte
+ * count   : int, the number of messages
+ * count x (key, value), where each string is an int byte length (-1 for null), followed by the UTF-8 bytes
+ * </pre>
+ */
+public final class CompiledLangpack
+{
+    /**
+     * The magic number prefixing compiled langpacks.
+     */
+    private static final byte[] MAGIC = {'I', 'Z', 'L', 'P'};
+
+    /**
+     * The format version.
+     */
+    private static final int VERSION = 1;
+
+    private CompiledLangpack()
+    {
+    }
+
+    /**
+     * Determines if a stream contains a compiled langpack.
+     * <p/>
+     * The stream must support {@link InputStream#mark(int)}; it is reset to its current position on return.
+     *
+     * @param in the stream
+     * @return {@code true} if the stream starts with the compiled langpack magic number
+     * @throws IOException for any I/O error
+     */
+    public static boolean isCompiled(InputStream in) throws IOException
+    {
+        in.mark(MAGIC.length);
+        try
+        {
+            for (byte b : MAGIC)
+            {
+                if (in.read() != b)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        finally
+        {
+            in.reset();
+        }
+    }
+
+    /**
+     * Writes messages as a compiled langpack.
+     *
+     * @param messages the messages, keyed on identifier
+     * @param out      the stream to write to. It is not closed
+     * @throws IOException for any I/O error
+     */
+    public static void write(Map<String, String> messages, OutputStream out) throws IOException
+    {
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        data.writeInt(messages.size());
+        for (Map.Entry<String, String> entry : messages.entrySet())
+        {
+            writeString(entry.getKey(), data);
+            writeString(entry.getValue(), data);
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads a compiled langpack.
+     *
+     * @param in       the stream to read from. It is not closed
+     * @param messages the map to add the messages to
+     * @throws IOException if the stream is not a compiled langpack, or cannot be read
+     */
+    public static void read(InputStream in, Map<String, String> messages) throws IOException
+    {
+        DataInputStream data = new DataInputStream(in);
+        byte[] magic = new byte[MAGIC.length];
+        data.readFully(magic);
+        for (int i = 0; i < MAGIC.length; ++i)
+        {
+            if (magic[i] != MAGIC[i])
+            {
+                throw new IOException("Not a compiled langpack");
+            }
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION)
+        {
+            throw new IOException("Unsupported compiled langpack version: " + version);
+        }
+        int count = data.readInt();
+        byte[] buffer = new byte[256];
+        for (int i = 0; i < count; ++i)
+        {
+            String key = readString(data, buffer);
+            String value = readString(data, buffer);
+            if (key == null)
+            {
+                throw new IOException("Invalid compiled langpack: null identifier");
+            }
+            messages.put(key, value);
+        }
+    }
+
+    private static void writeString(String value, DataOutputStream out) throws IOException
+    {
+        if (value == null)
+        {
+            out.writeInt(-1);
+        }
+        else
+        {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in, byte[] buffer) throws IOException
+    {
+        int length = in.readInt();
+        if (length < 0)
+        {
+            return null;
+        }
+        byte[] bytes = (length <= buffer.length) ? buffer : new byte[length];
+        try
+        {
+            in.readFully(bytes, 0, length);
+        }
+        catch (EOFException exception)
+        {
+            throw new IOException("Truncated compiled langpack", exception);
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
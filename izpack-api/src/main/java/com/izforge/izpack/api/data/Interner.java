@@ -0,0 +1,62 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.api.data;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Returns a canonical instance for each distinct value, so that equal values shared by many objects are only held once.
+ * <p/>
+ * Values are held weakly, so canonical instances are discarded once they are no longer referenced.
+ * The values must not be modified once interned.
+ *
+ * @param <T> the value type
+ */
+final class Interner<T>
+{
+    /**
+     * The canonical instances.
+     */
+    private final Map<T, WeakReference<T>> values = new WeakHashMap<T, WeakReference<T>>();
+
+    /**
+     * Returns the canonical instance of a value.
+     *
+     * @param value the value. May be {@code null}
+     * @return the canonical instance equal to {@code value}, or {@code null} if {@code value} is {@code null}
+     */
+    public synchronized T intern(T value)
+    {
+        if (value == null)
+        {
+            return null;
+        }
+        WeakReference<T> reference = values.get(value);
+        T result = (reference != null) ? reference.get() : null;
+        if (result == null)
+        {
+            values.put(value, new WeakReference<T>(value));
+            result = value;
+        }
+        return result;
+    }
+}
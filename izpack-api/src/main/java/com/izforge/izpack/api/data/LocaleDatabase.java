@@ -19,11 +19,15 @@
 
 package com.izforge.izpack.api.data;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
 import java.util.Collections;
+import java.util.Locale;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -60,6 +64,11 @@ public class LocaleDatabase extends TreeMap<String, String> implements Messages
      */
     private final Locales locales;
 
+    /**
+     * The parsed message formats, keyed on message identifier.
+     */
+    private transient Map<String, CachedFormat> formats;
+
     /**
      * The logger.
      */
@@ -108,13 +117,30 @@ public class LocaleDatabase extends TreeMap<String, String> implements Messages
 
     /**
      * Adds the contents of the given stream to the data base. The stream have to contain key value
-     * pairs as declared by the DTD langpack.dtd.
+     * pairs as declared by the DTD langpack.dtd, or a langpack compiled by {@link CompiledLangpack}.
      *
      * @param in an InputStream to read the translation from.
      * @throws ResourceException if the stream is not an IzPack langpack file or cannot be read
      */
     public void add(InputStream in)
     {
+        if (!in.markSupported())
+        {
+            in = new BufferedInputStream(in);
+        }
+        try
+        {
+            if (CompiledLangpack.isCompiled(in))
+            {
+                CompiledLangpack.read(in, this);
+                return;
+            }
+        }
+        catch (IOException exception)
+        {
+            throw new ResourceException("Failed to read langpack stream", exception);
+        }
+
         IXMLElement data;
 
         try
@@ -182,13 +208,21 @@ public class LocaleDatabase extends TreeMap<String, String> implements Messages
             {
                 try
                 {
-                    // replace all ' characters because MessageFormat.format() doesn't substitute quoted place
+                    // all ' characters are replaced because MessageFormat.format() doesn't substitute quoted place
                     // holders '{0}'
                     // TODO - fix quotes in langpacks to MessageFormat format
-                    pattern = pattern.replace('\'', TEMP_QUOTING_CHARACTER);
+                    pattern = format(id, pattern, args);
 
-                    pattern = MessageFormat.format(pattern, args);
-                    result = MessageFormat.format(pattern, args);
+                    // the formatted message is formatted again, to substitute place holders introduced by the
+                    // arguments. This can be skipped if there are none, as the result would be unchanged
+                    if (pattern.indexOf('{') != -1 || pattern.indexOf('\'') != -1)
+                    {
+                        result = MessageFormat.format(pattern, args);
+                    }
+                    else
+                    {
+                        result = pattern;
+                    }
 
                     // replace all ' characters back
                     result = result.replace(TEMP_QUOTING_CHARACTER, '\'');
@@ -294,12 +328,66 @@ public class LocaleDatabase extends TreeMap<String, String> implements Messages
 
         // replace all ' characters because MessageFormat.format()
         // don't substitute quoted place holders '{0}'
-        message = message.replace('\'', TEMP_QUOTING_CHARACTER);
-
-        message = MessageFormat.format(message, (Object[]) variables);
+        message = format(key, message, (Object[]) variables);
 
         // replace all ' characters back
         return message.replace(TEMP_QUOTING_CHARACTER, '\'');
     }
 
+    /**
+     * Formats a message pattern, after replacing its ' characters with {@link #TEMP_QUOTING_CHARACTER}.
+     * <p/>
+     * The parsed {@code MessageFormat} is cached on the message identifier, and reused until the pattern or the
+     * default locale changes.
+     *
+     * @param id      the message identifier
+     * @param pattern the message pattern
+     * @param args    the arguments
+     * @return the formatted message, with its ' characters still replaced
+     * @throws IllegalArgumentException if the pattern is invalid, or an argument is of the wrong type
+     */
+    private String format(String id, String pattern, Object... args)
+    {
+        Map<String, CachedFormat> cache = formats;
+        if (cache == null)
+        {
+            cache = new ConcurrentHashMap<>();
+            formats = cache;
+        }
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        CachedFormat format = cache.get(id);
+        if (format == null || !format.pattern.equals(pattern) || !format.format.getLocale().equals(locale))
+        {
+            format = new CachedFormat(pattern, new MessageFormat(pattern.replace('\'', TEMP_QUOTING_CHARACTER),
+                                                                 locale));
+            cache.put(id, format);
+        }
+        // MessageFormat is not thread safe
+        synchronized (format.format)
+        {
+            return format.format.format(args);
+        }
+    }
+
+    /**
+     * A parsed message format, and the pattern it was parsed from.
+     */
+    private static class CachedFormat
+    {
+        /**
+         * The message pattern.
+         */
+        private final String pattern;
+
+        /**
+         * The parsed pattern.
+         */
+        private final MessageFormat format;
+
+        public CachedFormat(String pattern, MessageFormat format)
+        {
+            this.pattern = pattern;
+            this.format = format;
+        }
+    }
 }
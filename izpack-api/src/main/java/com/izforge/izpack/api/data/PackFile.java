@@ -37,27 +37,61 @@ import java.util.concurrent.atomic.AtomicInteger;
 /**
  * Encloses information about a packed file. This class abstracts the way file data is stored to
  * package.
+ * <p/>
+ * Installers may contain millions of files, so paths are stored as a reference to their interned parent directory
+ * plus a name, and the OS constraints, additional attributes, Pack200 properties and conditions, which are typically
+ * the same for all files of a fileset, are interned.
  *
  * @author Johannes Lehtinen <johannes.lehtinen@iki.fi>
  */
 public class PackFile implements Serializable
 {
-    private static final long serialVersionUID = -834377078706854909L;
+    private static final long serialVersionUID = 993880569372203483L;
 
     @SuppressWarnings("unused")
     private static AtomicInteger nextInstanceId = new AtomicInteger(0);
+
+    /**
+     * The interned source directories.
+     */
+    private static final Interner<File> DIRECTORIES = new Interner<File>();
+
+    /**
+     * The interned OS constraints, attribute maps and strings.
+     */
+    private static final Interner<Object> VALUES = new Interner<Object>();
+
     private final int instanceId;
 
     /**
-     * The Path of the file relative to the given (compiletime's) basedirectory.
-     * Can be resolved while installing with either current working directory or directory of "installer.jar".
+     * The directory of the path of the file relative to the given (compiletime's) basedirectory.
+     */
+    private PackFilePath relativeDir = null;
+
+    /**
+     * The name of the file in the relative path.
+     */
+    private String relativeName = null;
+
+    /**
+     * The directory of the target file.
      */
-    private String relativePath = null;
+    private PackFilePath targetDir = null;
 
     /**
-     * The full path name of the target file
+     * The name of the target file.
      */
-    private String targetPath = null;
+    private String targetName = null;
+
+    /**
+     * The full path of the target file, joined on demand from {@link #targetDir} and {@link #targetName}.
+     */
+    private transient volatile String targetPath;
+
+    /**
+     * The relative path of the source file, joined on demand from {@link #relativeDir} and {@link #relativeName}.
+     */
+    private transient volatile String relativeSourcePath;
 
     /**
      * The target operating system constraints of this file
@@ -65,9 +99,14 @@ public class PackFile implements Serializable
     private List<OsModel> osConstraints = null;
 
     /**
-     * The packed file
+     * The directory of the packed file. May be {@code null}
+     */
+    private File packedDir;
+
+    /**
+     * The name of the packed file.
      */
-    private File packedFile;
+    private String packedName;
 
     /**
      * The length of the file in bytes
@@ -117,6 +156,11 @@ public class PackFile implements Serializable
 
     private PackFile linkedPackFile;
 
+    /**
+     * Locates the data if it isn't stored in a file of its own. Only available at compile time.
+     */
+    private transient PackFileLocator locator;
+
     /**
      * True if the file is a Jar and pack200 compression us activated.
      */
@@ -171,22 +215,14 @@ public class PackFile implements Serializable
             throw new FileNotFoundException("No such file: " + src);
         }
 
-        if ('/' != File.separatorChar)
-        {
-            target = target.replace(File.separatorChar, '/');
-        }
-        if (target.endsWith("/"))
-        {
-            target = target.substring(0, target.length() - 1);
-        }
-
-        this.packedFile = src;
-        this.relativePath = (relativeSourcePath != null) ? relativeSourcePath.replace(File.separatorChar, '/') : null;
+        setPackedFile(src);
+        setRelativeSourcePath((relativeSourcePath != null) ? relativeSourcePath.replace(File.separatorChar, '/')
+                                      : null);
 
-        this.targetPath = target.replace(File.separatorChar, '/');
-        this.osConstraints = osList;
+        setTargetPath(toTargetPath(target));
+        this.osConstraints = intern(osList);
         this.override = override;
-        this.overrideRenameTo = overrideRenameTo;
+        this.overrideRenameTo = intern(overrideRenameTo);
         this.blockable = blockable;
 
         this.mtime = src.lastModified();
@@ -196,11 +232,11 @@ public class PackFile implements Serializable
             this.length = src.length();
             this.size = this.length;
         }
-        this.additionals = additionals;
+        this.additionals = intern(additionals);
         if (pack200Properties != null)
         {
             this.pack200Jar = true;
-            this.pack200Properties = pack200Properties;
+            this.pack200Properties = intern(pack200Properties);
         }
 
         // File.length is undefined for directories - we don't add any data, so don't skip
@@ -230,6 +266,90 @@ public class PackFile implements Serializable
                 additionals, pack200Properties);
     }
 
+    /**
+     * Constructs and initializes from data located within another file, such as an archive entry.
+     * <p/>
+     * The data is read through the locator when packing, so it needn't be extracted to a file of its own.
+     *
+     * @param locator     locates the data which this PackFile describes
+     * @param target      the path to install the file to
+     * @param osList      OS constraints
+     * @param override    what to do when the file already exists
+     * @param additionals additional attributes
+     */
+    public PackFile(PackFileLocator locator, String target, List<OsModel> osList, OverrideType override,
+                    String overrideRenameTo, Blockable blockable, Map additionals,
+                    Map<String, String> pack200Properties)
+    {
+        instanceId = nextInstanceId.getAndIncrement();
+        this.locator = locator;
+        setPackedFile(locator.getFile());
+        setRelativeSourcePath(locator.getName());
+        setTargetPath(toTargetPath(target));
+        this.osConstraints = intern(osList);
+        this.override = override;
+        this.overrideRenameTo = intern(overrideRenameTo);
+        this.blockable = blockable;
+
+        this.mtime = locator.lastModified();
+        this.isDirectory = locator.isDirectory();
+        if (!isDirectory)
+        {
+            this.length = locator.length();
+            this.size = this.length;
+        }
+        this.additionals = intern(additionals);
+        if (pack200Properties != null)
+        {
+            this.pack200Jar = true;
+            this.pack200Properties = intern(pack200Properties);
+        }
+    }
+
+    /**
+     * Constructs a copy of another PackFile, without its Pack200 settings and stream location.
+     * <p/>
+     * The length and last-modification time of file based pack files are read from the file again.
+     *
+     * @param file the pack file to copy
+     * @throws FileNotFoundException if the file of a file based pack file does not exist
+     */
+    protected PackFile(PackFile file) throws FileNotFoundException
+    {
+        instanceId = nextInstanceId.getAndIncrement();
+        this.locator = file.locator;
+        this.packedDir = file.packedDir;
+        this.packedName = file.packedName;
+        this.relativeDir = file.relativeDir;
+        this.relativeName = file.relativeName;
+        this.targetDir = file.targetDir;
+        this.targetName = file.targetName;
+        this.osConstraints = file.osConstraints;
+        this.override = file.override;
+        this.overrideRenameTo = file.overrideRenameTo;
+        this.blockable = file.blockable;
+        this.additionals = file.additionals;
+        this.condition = file.condition;
+        if (locator != null)
+        {
+            this.mtime = file.mtime;
+            this.isDirectory = file.isDirectory;
+            this.length = file.length;
+        }
+        else
+        {
+            File packedFile = getFile();
+            if (!packedFile.exists())
+            {
+                throw new FileNotFoundException("No such file: " + packedFile);
+            }
+            this.mtime = packedFile.lastModified();
+            this.isDirectory = packedFile.isDirectory();
+            this.length = isDirectory ? 0 : packedFile.length();
+        }
+        this.size = this.length;
+    }
+
     /**
      * Get the unique ID compiled into this object
      * @return the unique ID
@@ -286,7 +406,21 @@ public class PackFile implements Serializable
      */
     public final File getFile()
     {
-        return packedFile;
+        if (packedName == null)
+        {
+            return null;
+        }
+        return (packedDir != null) ? new File(packedDir, packedName) : new File(packedName);
+    }
+
+    /**
+     * Returns the locator of the data, if it isn't stored in a file of its own.
+     *
+     * @return the locator, or {@code null} if the data is read from {@link #getFile()}, or once installing
+     */
+    public final PackFileLocator getLocator()
+    {
+        return locator;
     }
 
     /**
@@ -365,7 +499,13 @@ public class PackFile implements Serializable
      */
     public final String getTargetPath()
     {
-        return targetPath;
+        String result = targetPath;
+        if (result == null)
+        {
+            result = PackFilePath.toPath(targetDir, targetName);
+            targetPath = result;
+        }
+        return result;
     }
 
     /**
@@ -374,7 +514,13 @@ public class PackFile implements Serializable
      */
     public String getRelativeSourcePath()
     {
-        return relativePath;
+        String result = relativeSourcePath;
+        if (result == null)
+        {
+            result = PackFilePath.toPath(relativeDir, relativeName);
+            relativeSourcePath = result;
+        }
+        return result;
     }
 
     /**
@@ -402,7 +548,7 @@ public class PackFile implements Serializable
      */
     public void setCondition(String condition)
     {
-        this.condition = condition;
+        this.condition = intern(condition);
     }
 
     public boolean hasCondition()
@@ -429,10 +575,68 @@ public class PackFile implements Serializable
         }
     }
 
+    private void setPackedFile(File file)
+    {
+        if (file == null)
+        {
+            return;
+        }
+        packedDir = DIRECTORIES.intern(file.getParentFile());
+        packedName = file.getName();
+        if (packedDir == null || packedName.isEmpty())
+        {
+            // no parent, or a file system root
+            packedDir = null;
+            packedName = file.getPath();
+        }
+    }
+
+    private void setRelativeSourcePath(String path)
+    {
+        relativeDir = PackFilePath.getDirectory(path);
+        relativeName = PackFilePath.getName(path);
+        relativeSourcePath = null;
+    }
+
+    private void setTargetPath(String path)
+    {
+        targetDir = PackFilePath.getDirectory(path);
+        targetName = PackFilePath.getName(path);
+        targetPath = null;
+    }
+
+    /**
+     * Returns the canonical instance of a value shared by pack files, parsables and executables.
+     * <p/>
+     * The value must not be modified once interned.
+     *
+     * @param value the value. May be {@code null}
+     * @return the canonical instance equal to {@code value}
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T intern(T value)
+    {
+        return (T) VALUES.intern(value);
+    }
+
+    private static String toTargetPath(String target)
+    {
+        if ('/' != File.separatorChar)
+        {
+            target = target.replace(File.separatorChar, '/');
+        }
+        if (target.endsWith("/"))
+        {
+            target = target.substring(0, target.length() - 1);
+        }
+        return target;
+    }
+
     @Override
     public String toString()
     {
         return String.format("%s (length=%s, size=%s, streamOffset=%s, backReference=%s)",
-                packedFile, length, size, streamOffset, (linkedPackFile != null));
+                (locator != null) ? getFile() + "!/" + getRelativeSourcePath() : getFile(), length, size, streamOffset,
+                (linkedPackFile != null));
     }
 }
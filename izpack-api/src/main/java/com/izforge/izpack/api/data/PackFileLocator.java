@@ -0,0 +1,88 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.api.data;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Locates the data of a {@link PackFile} that isn't stored in a file of its own, such as an entry of an archive.
+ * <p/>
+ * Locators are only used at compile time. They allow the packager to read the data straight from its container,
+ * without extracting it to a temporary file first.
+ */
+public interface PackFileLocator extends Closeable
+{
+
+    /**
+     * Returns the file containing the data, e.g. the archive.
+     *
+     * @return the containing file
+     */
+    File getFile();
+
+    /**
+     * Returns the path of the data within the containing file, using '/' as separator.
+     *
+     * @return the path of the data
+     */
+    String getName();
+
+    /**
+     * Returns the length of the data in bytes.
+     *
+     * @return the length, or {@code 0} for a directory
+     */
+    long length();
+
+    /**
+     * Returns the last-modification time of the data.
+     *
+     * @return the last-modification time, in milliseconds since the epoch
+     */
+    long lastModified();
+
+    /**
+     * Determines if the data represents a directory.
+     *
+     * @return {@code true} if the data is a directory
+     */
+    boolean isDirectory();
+
+    /**
+     * Opens the data for reading.
+     * <p/>
+     * The caller is responsible for closing the returned stream.
+     *
+     * @return a new stream to read the data from
+     * @throws IOException for any I/O error
+     */
+    InputStream openStream() throws IOException;
+
+    /**
+     * Releases any resources held to read the data. The data may still be opened again afterwards.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,167 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.api.data;
+
+import java.io.Serializable;
+
+/**
+ * A '/' separated directory path, stored as a reference to its parent directory plus its name.
+ * <p/>
+ * Directories are interned, so the directories of the many files of a pack are held once, both when compiling and
+ * in the deserialized installation model.
+ */
+final class PackFilePath implements Serializable
+{
+    private static final long serialVersionUID = 2981413796232530187L;
+
+    /**
+     * The interned directories.
+     */
+    private static final Interner<PackFilePath> DIRECTORIES = new Interner<PackFilePath>();
+
+    /**
+     * The parent directory, or {@code null} if this is a top level directory.
+     */
+    private final PackFilePath parent;
+
+    /**
+     * The directory name. Empty for the root of an absolute path.
+     */
+    private final String name;
+
+    /**
+     * The hash code.
+     */
+    private final int hash;
+
+    private PackFilePath(PackFilePath parent, String name)
+    {
+        this.parent = parent;
+        this.name = name;
+        this.hash = 31 * (parent != null ? parent.hash : 0) + name.hashCode();
+    }
+
+    /**
+     * Returns the directory part of a path.
+     *
+     * @param path the '/' separated path. May be {@code null}
+     * @return the interned parent directory of the last path element, or {@code null} if there is none
+     */
+    static PackFilePath getDirectory(String path)
+    {
+        if (path == null)
+        {
+            return null;
+        }
+        int index = path.lastIndexOf('/');
+        return (index >= 0) ? valueOf(path.substring(0, index)) : null;
+    }
+
+    /**
+     * Returns the last element of a path.
+     *
+     * @param path the '/' separated path. May be {@code null}
+     * @return the last path element, or {@code null} if {@code path} is {@code null}
+     */
+    static String getName(String path)
+    {
+        if (path == null)
+        {
+            return null;
+        }
+        int index = path.lastIndexOf('/');
+        return (index >= 0) ? path.substring(index + 1) : path;
+    }
+
+    /**
+     * Returns the path of a file within a directory.
+     *
+     * @param directory the directory. May be {@code null}
+     * @param name      the file name. May be {@code null}
+     * @return the path, or {@code null} if {@code name} is {@code null}
+     */
+    static String toPath(PackFilePath directory, String name)
+    {
+        if (name == null)
+        {
+            return null;
+        }
+        if (directory == null)
+        {
+            return name;
+        }
+        StringBuilder result = new StringBuilder(64);
+        directory.appendTo(result);
+        return result.append('/').append(name).toString();
+    }
+
+    /**
+     * Returns the interned directory for a path.
+     *
+     * @param path the '/' separated directory path
+     * @return the interned directory
+     */
+    private static PackFilePath valueOf(String path)
+    {
+        int index = path.lastIndexOf('/');
+        PackFilePath parent = (index >= 0) ? valueOf(path.substring(0, index)) : null;
+        return DIRECTORIES.intern(new PackFilePath(parent, path.substring(index + 1)));
+    }
+
+    private void appendTo(StringBuilder builder)
+    {
+        if (parent != null)
+        {
+            parent.appendTo(builder);
+            builder.append('/');
+        }
+        builder.append(name);
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        if (this == other)
+        {
+            return true;
+        }
+        if (!(other instanceof PackFilePath))
+        {
+            return false;
+        }
+        PackFilePath path = (PackFilePath) other;
+        return hash == path.hash && name.equals(path.name)
+                && (parent == null ? path.parent == null : parent.equals(path.parent));
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hash;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder result = new StringBuilder(64);
+        appendTo(result);
+        return result.toString();
+    }
+}
@@ -40,7 +40,7 @@ public class PackInfo implements Serializable
     /**
      *
      */
-    private static final long serialVersionUID = -3604642858885697783L;
+    private static final long serialVersionUID = 4015058436557587619L;
 
     /**
      * The pack object serialized in the installer.
@@ -54,9 +54,15 @@ public class PackInfo implements Serializable
     public transient PackColor colour;
 
     /**
-     * Files of the Pack.
+     * Files of the Pack. The source file of each is available from {@link PackFile#getFile()}, so isn't held
+     * separately.
      */
-    private final Map<PackFile, File> files = new LinkedHashMap<PackFile, File>();
+    private final Set<PackFile> files = new LinkedHashSet<PackFile>();
+
+    /**
+     * The map view of the files, created on demand.
+     */
+    private transient Map<PackFile, File> filesMap;
 
     /**
      * Parsables files in this Pack.
@@ -159,7 +165,29 @@ public class PackInfo implements Serializable
                                          additionals, pack200Properties);
         packFile.setLoosePackInfo(pack.isLoose());
         packFile.setCondition(condition);
-        files.put(packFile, file);
+        files.add(packFile);
+    }
+
+    /**
+     * Add a file or directory to be installed, whose data is located within another file such as an archive.
+     * <p/>
+     * The data is read through the locator when the pack is written.
+     *
+     * @param locator    locates the file or directory to be installed
+     * @param targetfile path file will be installed to.
+     * @param osList     the target operation system(s) of this pack.
+     * @param override   what to do if the file already exists when installing
+     * @param condition  the condition to decide whether the file should be extracted
+     */
+    public void addFile(PackFileLocator locator, String targetfile, List<OsModel> osList, OverrideType override,
+                        String overrideRenameTo, Blockable blockable, Map additionals, String condition,
+                        Map<String, String> pack200Properties)
+    {
+        PackFile packFile = new PackFile(locator, targetfile, osList, override, overrideRenameTo, blockable,
+                                         additionals, pack200Properties);
+        packFile.setLoosePackInfo(pack.isLoose());
+        packFile.setCondition(condition);
+        files.add(packFile);
     }
 
     /**
@@ -167,16 +195,24 @@ public class PackInfo implements Serializable
      */
     public Set<PackFile> getPackFiles()
     {
-        return files.keySet();
+        return files;
     }
 
     /**
      * Provides the complete ordered map of PackFile -> File objects for being able to override entries.
+     * <p/>
+     * The map is a view of the pack files. The value of each entry is the source file of the pack file; values
+     * supplied when adding entries are ignored.
+     *
      * @return the PackFile map
      */
     public Map<PackFile, File> getPackFilesMap()
     {
-        return files;
+        if (filesMap == null)
+        {
+            filesMap = new PackFilesMap();
+        }
+        return filesMap;
     }
 
     /**
@@ -185,7 +221,7 @@ public class PackInfo implements Serializable
      */
     public File getFile(PackFile packFile)
     {
-        return files.get(packFile);
+        return files.contains(packFile) ? packFile.getFile() : null;
     }
 
     /**
@@ -210,6 +246,8 @@ public class PackInfo implements Serializable
      */
     public void addExecutable(ExecutableFile executable)
     {
+        // share equal OS constraints with other files, so that they are serialized and matched once
+        executable.osList = PackFile.intern(executable.osList);
         executables.add(executable);
     }
 
@@ -309,4 +347,86 @@ public class PackInfo implements Serializable
     {
         pack.setOnDeselect(name, condition);
     }
+
+    /**
+     * A map view of the pack files, keyed on pack file, with their source files as values.
+     */
+    private class PackFilesMap extends AbstractMap<PackFile, File>
+    {
+        @Override
+        public Set<Entry<PackFile, File>> entrySet()
+        {
+            return new AbstractSet<Entry<PackFile, File>>()
+            {
+                @Override
+                public Iterator<Entry<PackFile, File>> iterator()
+                {
+                    final Iterator<PackFile> iterator = files.iterator();
+                    return new Iterator<Entry<PackFile, File>>()
+                    {
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<PackFile, File> next()
+                        {
+                            PackFile packFile = iterator.next();
+                            return new SimpleImmutableEntry<PackFile, File>(packFile, packFile.getFile());
+                        }
+
+                        @Override
+                        public void remove()
+                        {
+                            iterator.remove();
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    return files.size();
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return files.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            return files.contains(key);
+        }
+
+        @Override
+        public File get(Object key)
+        {
+            return files.contains(key) ? ((PackFile) key).getFile() : null;
+        }
+
+        @Override
+        public File put(PackFile key, File value)
+        {
+            return files.add(key) ? null : key.getFile();
+        }
+
+        @Override
+        public File remove(Object key)
+        {
+            return files.remove(key) ? ((PackFile) key).getFile() : null;
+        }
+
+        @Override
+        public void clear()
+        {
+            files.clear();
+        }
+    }
 }
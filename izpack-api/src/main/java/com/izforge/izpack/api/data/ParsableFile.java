@@ -75,7 +75,7 @@ public class ParsableFile implements Serializable
         this.path = path;
         this.type = type;
         this.encoding = encoding;
-        this.osConstraints = osConstraints;
+        this.osConstraints = PackFile.intern(osConstraints);
     }
 
     /**
@@ -138,6 +138,35 @@ public interface Variables
      */
     Properties getProperties();
 
+    /**
+     * Returns the modification count of the variables.
+     * <p/>
+     * The count increases each time a variable is changed via {@link #set(String, String)}, or the overrides are
+     * replaced. Changes made directly to the {@link #getProperties() properties} aren't counted.
+     * <p/>
+     * This implementation returns {@code 0}, indicating that modifications aren't counted.
+     *
+     * @return the modification count, or {@code 0} if modifications aren't counted
+     */
+    default long getModCount()
+    {
+        return 0L;
+    }
+
+    /**
+     * Returns the modification count at which a variable was last changed.
+     * <p/>
+     * This implementation returns {@code 0}.
+     *
+     * @param name the variable name
+     * @return the modification count of the last change to the variable, or {@code 0} if it hasn't changed or
+     *         modifications aren't counted
+     */
+    default long getModCount(String name)
+    {
+        return 0L;
+    }
+
     /**
      * Register a set of variable names for blocking from further changes.
      *
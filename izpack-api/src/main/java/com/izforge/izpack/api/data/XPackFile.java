@@ -68,10 +68,8 @@ public class XPackFile extends PackFile implements Comparable<XPackFile>
      */
     public XPackFile(PackFile file) throws IOException
     {
-        super(file.getFile(), file.getRelativeSourcePath(), file.getTargetPath(), file.osConstraints(),
-              file.override(), file.overrideRenameTo(), file.blockable(), file.getAdditionals(), null);
+        super(file);
         this.position = 0;
-        this.setCondition(file.getCondition());
     }
 
     /**
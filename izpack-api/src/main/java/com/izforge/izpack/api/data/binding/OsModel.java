@@ -21,6 +21,12 @@ package com.izforge.izpack.api.data.binding;
 
 import java.io.Serializable;
 
+/**
+ * An OS constraint.
+ * <p/>
+ * OS models are immutable, and compare equal if all their attributes are equal, so that lists of equal constraints
+ * can be shared, and their results cached.
+ */
 public class OsModel implements Serializable
 {
     private static final long serialVersionUID = -736021339243205276L;
@@ -84,6 +90,32 @@ public class OsModel implements Serializable
         return version;
     }
 
+    @Override
+    public boolean equals(Object other)
+    {
+        if (this == other)
+        {
+            return true;
+        }
+        if (other == null || other.getClass() != getClass())
+        {
+            return false;
+        }
+        OsModel model = (OsModel) other;
+        return equals(arch, model.arch) && equals(family, model.family) && equals(jre, model.jre)
+                && equals(name, model.name) && equals(version, model.version);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = hashCode(arch);
+        result = 31 * result + hashCode(family);
+        result = 31 * result + hashCode(jre);
+        result = 31 * result + hashCode(name);
+        return 31 * result + hashCode(version);
+    }
+
     @Override
     public String toString()
     {
@@ -95,4 +127,14 @@ public class OsModel implements Serializable
                 ", version='" + version + '\'' +
                 '}';
     }
-}
\ No newline at end of file
+
+    private static boolean equals(String value1, String value2)
+    {
+        return (value1 == null) ? value2 == null : value1.equals(value2);
+    }
+
+    private static int hashCode(String value)
+    {
+        return (value != null) ? value.hashCode() : 0;
+    }
+}
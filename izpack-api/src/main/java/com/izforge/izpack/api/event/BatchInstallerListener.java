@@ -0,0 +1,50 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.api.event;
+
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.exception.IzPackException;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * An {@link InstallerListener} file listener that receives installed files and created directories in batches.
+ * <p/>
+ * For listeners implementing this interface, and returning {@code true} from {@link #isFileListener()}, the
+ * {@link #afterFile(File, PackFile, Pack)} and {@link #afterDir(File, PackFile, Pack)} notifications are replaced by
+ * calls to {@link #afterFiles(List)}. These are made in installation order, at least once per pack, after the pack's
+ * files have been extracted and before its parsable and executable files are processed.
+ * <p/>
+ * {@link #beforeFile(File, PackFile, Pack)} and {@link #beforeDir(File, PackFile, Pack)} are still invoked for each
+ * file and directory.
+ */
+public interface BatchInstallerListener extends InstallerListener
+{
+
+    /**
+     * Invoked after files have been installed and directories created.
+     *
+     * @param files the installed files and created directories, in installation order
+     * @throws IzPackException for any error
+     */
+    void afterFiles(List<InstalledFile> files);
+}
@@ -112,6 +112,17 @@ public abstract class CompareCondition extends Condition
     }
 
 
+    /**
+     * Compare conditions only depend on the variables referenced by their operands.
+     *
+     * @return {@code true}
+     */
+    @Override
+    public boolean isCacheable()
+    {
+        return true;
+    }
+
     @Override
     public void makeXMLData(IXMLElement conditionRoot)
     {
@@ -107,4 +107,20 @@ public abstract class Condition implements Serializable
      * @return  the names of all variables referenced by this condition 
      */
     public abstract Set<String> getVarRefs();
+
+    /**
+     * Determines if the result of this condition may be cached by the RulesEngine until one of the variables
+     * returned by {@link #getVarRefs()} changes.
+     * <p/>
+     * This is invoked after {@link #isTrue()}, so may take the current variable values into account.
+     * <p/>
+     * Conditions that depend on anything else, such as the file system or the selected packs, must return
+     * {@code false}. This is the default, so custom conditions are always re-evaluated.
+     *
+     * @return {@code true} if the result only depends on the variables referenced by this condition
+     */
+    public boolean isCacheable()
+    {
+        return false;
+    }
 }
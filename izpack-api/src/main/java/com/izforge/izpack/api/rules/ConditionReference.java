@@ -43,4 +43,15 @@ public abstract class ConditionReference extends Condition
     public Set<String> getVarRefs() {
         return referencedCondition.getVarRefs();
     }
+
+    /**
+     * Determines if the result of this condition may be cached.
+     *
+     * @return {@code true} if the referenced condition may be cached
+     */
+    @Override
+    public boolean isCacheable()
+    {
+        return referencedCondition != null && referencedCondition.isCacheable();
+    }
 }
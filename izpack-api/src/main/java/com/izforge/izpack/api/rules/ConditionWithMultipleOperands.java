@@ -49,4 +49,22 @@ public abstract class ConditionWithMultipleOperands extends Condition
         }
         return vars;
     }
+
+    /**
+     * Determines if the result of this condition may be cached.
+     *
+     * @return {@code true} if all of the operands may be cached
+     */
+    @Override
+    public boolean isCacheable()
+    {
+        for (Condition condition : nestedConditions)
+        {
+            if (!condition.isCacheable())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -128,4 +128,21 @@ public class XMLElementTest
         List<IXMLElement> list = element.getChildrenNamed("modifier");
         Assert.assertEquals(7, list.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetChildrenNamedAfterChange()
+    {
+        IXMLElement element = root.getChildAtIndex(2);
+        List<IXMLElement> list = element.getChildrenNamed("modifier");
+        list.clear();
+        Assert.assertEquals(7, element.getChildrenNamed("modifier").size());
+
+        IXMLElement modifier = element.getChildrenNamed("modifier").get(0);
+        element.removeChild(modifier);
+        Assert.assertEquals(6, element.getChildrenNamed("modifier").size());
+
+        element.addChild(new XMLElementImpl("modifier", element));
+        Assert.assertEquals(7, element.getChildrenNamed("modifier").size());
+        Assert.assertTrue(element.getChildrenNamed("unknown").isEmpty());
+    }
+}
@@ -20,6 +20,13 @@
 package com.izforge.izpack.api.data;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -68,4 +75,45 @@ public class LocaleDatabaseTest
                 "string.with.quoted.arguments", new String[]{"one", null}));
     }
 
+    /**
+     * Verifies that a langpack compiled by {@link CompiledLangpack} is read with the same messages as the XML.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCompiledLangpack() throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompiledLangpack.write(db, out);
+
+        InputStream xml = new BufferedInputStream(LocaleDatabaseTest.class.getResourceAsStream("testing-langpack.xml"));
+        assertFalse(CompiledLangpack.isCompiled(xml));
+        xml.close();
+        assertTrue(CompiledLangpack.isCompiled(new ByteArrayInputStream(out.toByteArray())));
+
+        LocaleDatabase compiled = new LocaleDatabase(new ByteArrayInputStream(out.toByteArray()),
+                                                     Mockito.mock(Locales.class));
+        assertEquals(db, compiled);
+        assertEquals("String Text", compiled.get("string"));
+        assertEquals("Argument1: 'one', Argument2: 'two'",
+                     compiled.get("string.with.quoted.arguments", "one", "two"));
+    }
+
+    /**
+     * Verifies that cached message formats are discarded when the message changes, and that arguments containing
+     * place holders and quotes are formatted as before.
+     */
+    @Test
+    public void testFormatCache()
+    {
+        assertEquals("Argument1: one, Argument2: two", db.get("string.with.arguments", "one", "two"));
+        assertEquals("Argument1: three, Argument2: four", db.get("string.with.arguments", "three", "four"));
+
+        db.put("string.with.arguments", "Changed: {1} {0}");
+        assertEquals("Changed: two one", db.get("string.with.arguments", "one", "two"));
+
+        // place holders introduced by the arguments are substituted too
+        assertEquals("Changed: two two", db.get("string.with.arguments", "{1}", "two"));
+        assertEquals("Changed: two one", db.get("string.with.arguments", "one", "two"));
+    }
 }
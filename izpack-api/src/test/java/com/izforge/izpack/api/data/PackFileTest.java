@@ -0,0 +1,162 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.api.data;
+
+import com.izforge.izpack.api.data.binding.OsModel;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the compact representation of {@link PackFile}.
+ */
+public class PackFileTest
+{
+    /**
+     * Temporary folder for the source files.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that the paths of a pack file are returned as supplied.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testPaths() throws Exception
+    {
+        File dir = temporaryFolder.newFolder("lib");
+        File src = new File(dir, "a.jar");
+        assertTrue(src.createNewFile());
+
+        PackFile file = createPackFile(src, "$INSTALL_PATH/lib/a.jar");
+        assertEquals(src, file.getFile());
+        assertEquals("lib/a.jar", file.getRelativeSourcePath());
+        assertEquals("$INSTALL_PATH/lib/a.jar", file.getTargetPath());
+
+        assertEquals("/opt/app/a.jar", createPackFile(src, "/opt/app/a.jar").getTargetPath());
+        assertEquals("a.jar", createPackFile(src, "a.jar").getTargetPath());
+        assertEquals("$INSTALL_PATH/lib", createPackFile(src, "$INSTALL_PATH/lib/").getTargetPath());
+    }
+
+    /**
+     * Verifies that equal OS constraints, attributes and conditions are shared by pack files, and that the sharing is
+     * preserved when the pack files are serialized.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testSharing() throws Exception
+    {
+        File dir = temporaryFolder.newFolder("lib");
+        File src1 = new File(dir, "a.jar");
+        File src2 = new File(dir, "b.jar");
+        assertTrue(src1.createNewFile());
+        assertTrue(src2.createNewFile());
+
+        OsModel unix = new OsModel(null, "unix", null, null, null);
+        Map<String, String> additionals1 = new HashMap<String, String>();
+        additionals1.put("permission.file", "0644");
+        Map<String, String> additionals2 = new HashMap<String, String>(additionals1);
+
+        PackFile file1 = new PackFile(temporaryFolder.getRoot(), src1, "$INSTALL_PATH/lib/a.jar",
+                                      new ArrayList<OsModel>(Arrays.asList(unix)), OverrideType.OVERRIDE_TRUE, null,
+                                      Blockable.BLOCKABLE_NONE, additionals1, null);
+        PackFile file2 = new PackFile(temporaryFolder.getRoot(), src2, "$INSTALL_PATH/lib/b.jar",
+                                      new ArrayList<OsModel>(Arrays.asList(unix)), OverrideType.OVERRIDE_TRUE, null,
+                                      Blockable.BLOCKABLE_NONE, additionals2, null);
+        file1.setCondition(new String("haveUnix"));
+        file2.setCondition(new String("haveUnix"));
+
+        assertSame(file1.osConstraints(), file2.osConstraints());
+        assertSame(file1.getAdditionals(), file2.getAdditionals());
+        assertSame(file1.getCondition(), file2.getCondition());
+
+        List<PackFile> files = deserialize(Arrays.asList(file1, file2));
+        PackFile copy1 = files.get(0);
+        PackFile copy2 = files.get(1);
+        assertEquals("$INSTALL_PATH/lib/a.jar", copy1.getTargetPath());
+        assertEquals("$INSTALL_PATH/lib/b.jar", copy2.getTargetPath());
+        assertEquals(src1, copy1.getFile());
+        assertEquals(src2, copy2.getFile());
+        assertSame(copy1.osConstraints(), copy2.osConstraints());
+        assertSame(copy1.getAdditionals(), copy2.getAdditionals());
+        assertSame(copy1.getCondition(), copy2.getCondition());
+    }
+
+    /**
+     * Verifies that the pack files of a {@link PackInfo} can be accessed as a map of pack file to source file.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testPackFilesMap() throws Exception
+    {
+        File src = temporaryFolder.newFile("a.txt");
+        PackInfo info = new PackInfo("pack", null, null, true, false, null, true, 0);
+        info.addFile(temporaryFolder.getRoot(), src, "$INSTALL_PATH/a.txt", null, OverrideType.OVERRIDE_TRUE, null,
+                     Blockable.BLOCKABLE_NONE, null, null, null);
+        PackFile file = info.getPackFiles().iterator().next();
+        assertEquals(src, info.getFile(file));
+        Map<PackFile, File> map = info.getPackFilesMap();
+        assertEquals(1, map.size());
+        assertEquals(src, map.get(file));
+
+        map.clear();
+        assertTrue(info.getPackFiles().isEmpty());
+        assertNull(info.getFile(file));
+        map.put(file, src);
+        assertSame(file, info.getPackFiles().iterator().next());
+    }
+
+    private PackFile createPackFile(File src, String target) throws Exception
+    {
+        return new PackFile(temporaryFolder.getRoot(), src, target, null, OverrideType.OVERRIDE_TRUE, null,
+                            Blockable.BLOCKABLE_NONE, null, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<PackFile> deserialize(List<PackFile> files) throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(new ArrayList<PackFile>(files));
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        return (List<PackFile>) in.readObject();
+    }
+}
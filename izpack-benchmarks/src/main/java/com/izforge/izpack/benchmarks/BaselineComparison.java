@@ -0,0 +1,193 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+
+/**
+ * Runs the benchmarks and compares the scores with those of a baseline run, to detect regressions.
+ * <p/>
+ * Usage:
+ * <pre>
+ * java -cp benchmarks.jar com.izforge.izpack.benchmarks.BaselineComparison
+ *     [-baseline &lt;file&gt;] [-save &lt;file&gt;] [-threshold &lt;percent&gt;] [JMH options] [benchmark regexp]
+ * </pre>
+ * <ul>
+ * <li>{@code -save} writes the scores of the run, to serve as a later baseline</li>
+ * <li>{@code -baseline} compares the scores of the run with those of the baseline, and exits with status 1 if
+ * any benchmark is more than the threshold worse. Benchmarks missing from the baseline are reported, but
+ * not treated as regressions</li>
+ * <li>{@code -threshold} the tolerated deterioration, in percent. Defaults to 10</li>
+ * </ul>
+ */
+public final class BaselineComparison
+{
+    /**
+     * The default tolerated deterioration, in percent.
+     */
+    private static final double DEFAULT_THRESHOLD = 10;
+
+    private BaselineComparison()
+    {
+    }
+
+    /**
+     * Main entry point.
+     *
+     * @param args the command line arguments
+     * @throws Exception for any error
+     */
+    public static void main(String[] args) throws Exception
+    {
+        File baseline = null;
+        File save = null;
+        double threshold = DEFAULT_THRESHOLD;
+        List<String> jmhArgs = new ArrayList<String>();
+        for (int i = 0; i < args.length; ++i)
+        {
+            String arg = args[i];
+            if ("-baseline".equals(arg) && i + 1 < args.length)
+            {
+                baseline = new File(args[++i]);
+            }
+            else if ("-save".equals(arg) && i + 1 < args.length)
+            {
+                save = new File(args[++i]);
+            }
+            else if ("-threshold".equals(arg) && i + 1 < args.length)
+            {
+                threshold = Double.parseDouble(args[++i]);
+            }
+            else
+            {
+                jmhArgs.add(arg);
+            }
+        }
+
+        Collection<RunResult> results = new Runner(
+                new CommandLineOptions(jmhArgs.toArray(new String[jmhArgs.size()]))).run();
+
+        Properties scores = new Properties();
+        for (RunResult result : results)
+        {
+            scores.setProperty(getKey(result.getParams()), Double.toString(result.getPrimaryResult().getScore()));
+        }
+        if (save != null)
+        {
+            try (OutputStream out = FileUtils.openOutputStream(save))
+            {
+                scores.store(out, "IzPack benchmark scores");
+            }
+            System.out.println("Scores saved to " + save);
+        }
+        if (baseline != null && compare(results, load(baseline), threshold) != 0)
+        {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Compares the results of a run with the baseline scores, and prints the comparison.
+     *
+     * @param results   the results of the run
+     * @param baseline  the baseline scores
+     * @param threshold the tolerated deterioration, in percent
+     * @return the number of regressions
+     */
+    private static int compare(Collection<RunResult> results, Properties baseline, double threshold)
+    {
+        int regressions = 0;
+        System.out.println();
+        System.out.println(String.format(Locale.ENGLISH, "%-90s %14s %14s %9s", "Benchmark", "Baseline", "Score",
+                                         "Change"));
+        for (RunResult result : results)
+        {
+            BenchmarkParams params = result.getParams();
+            String key = getKey(params);
+            double score = result.getPrimaryResult().getScore();
+            String value = baseline.getProperty(key);
+            if (value == null)
+            {
+                System.out.println(String.format(Locale.ENGLISH, "%-90s %14s %14.3f %9s", key, "-", score, "new"));
+                continue;
+            }
+            double base = Double.parseDouble(value);
+
+            // positive changes are improvements, whatever the benchmark mode
+            double change = (base == 0) ? 0 : (score - base) / base * 100;
+            if (params.getMode() != Mode.Throughput)
+            {
+                change = -change;
+            }
+            boolean regression = change < -threshold;
+            if (regression)
+            {
+                ++regressions;
+            }
+            System.out.println(String.format(Locale.ENGLISH, "%-90s %14.3f %14.3f %+8.1f%%%s", key, base, score,
+                                             change, regression ? " REGRESSION" : ""));
+        }
+        System.out.println();
+        System.out.println(regressions + " regression(s) beyond " + threshold + "%");
+        return regressions;
+    }
+
+    /**
+     * Returns the key of a benchmark, made up of the benchmark name, mode and parameters.
+     *
+     * @param params the benchmark parameters
+     * @return the key
+     */
+    private static String getKey(BenchmarkParams params)
+    {
+        StringBuilder result = new StringBuilder(params.getBenchmark());
+        result.append('[').append(params.getMode().shortLabel());
+        for (String name : params.getParamsKeys())
+        {
+            result.append(',').append(name).append('=').append(params.getParam(name));
+        }
+        return result.append(']').toString();
+    }
+
+    private static Properties load(File file) throws IOException
+    {
+        Properties result = new Properties();
+        try (InputStream in = FileUtils.openInputStream(file))
+        {
+            result.load(in);
+        }
+        return result;
+    }
+}
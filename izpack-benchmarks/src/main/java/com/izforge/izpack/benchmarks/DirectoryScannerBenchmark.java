@@ -0,0 +1,117 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.util.file.DirectoryScanner;
+import com.izforge.izpack.util.file.ParallelDirectoryScanner;
+
+/**
+ * Measures {@link DirectoryScanner#scan()} and {@link ParallelDirectoryScanner#scan()}, which select the files of
+ * every fileset at compile time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DirectoryScannerBenchmark
+{
+    /**
+     * The payload layout.
+     */
+    @Param({"SMALL_FILES", "MIXED"})
+    public Payloads.Layout layout;
+
+    /**
+     * The patterns: {@code all} includes everything, {@code selective} includes and excludes some files.
+     */
+    @Param({"all", "selective"})
+    public String patterns;
+
+    private File dir;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        dir = Payloads.createDirectory();
+        Payloads.create(dir, layout, Payloads.Entropy.LOW);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        Payloads.delete(dir);
+    }
+
+    /**
+     * Scans with the {@link DirectoryScanner}.
+     *
+     * @return the number of included files
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public int directoryScanner() throws Exception
+    {
+        return scan(new DirectoryScanner());
+    }
+
+    /**
+     * Scans with the {@link ParallelDirectoryScanner}.
+     *
+     * @return the number of included files
+     * @throws Exception for any error
+     */
+    @Benchmark
+    public int parallelDirectoryScanner() throws Exception
+    {
+        return scan(new ParallelDirectoryScanner());
+    }
+
+    private int scan(DirectoryScanner scanner) throws Exception
+    {
+        scanner.setBasedir(dir);
+        if ("selective".equals(patterns))
+        {
+            scanner.setIncludes(new String[]{"d0/**/*.dat", "d1/**/file1*.dat"});
+            scanner.setExcludes(new String[]{"**/d1?/**", "**/file*5.dat"});
+        }
+        scanner.addDefaultExcludes();
+        scanner.scan();
+        return scanner.getIncludedFilesCount();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarOutputStream;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.Info;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.PackCompression;
+import com.izforge.izpack.api.data.PackInfo;
+import com.izforge.izpack.compiler.data.CompilerData;
+import com.izforge.izpack.compiler.packager.impl.Packager;
+
+/**
+ * Measures {@link Packager#writePacks(JarOutputStream)}, which reads, compresses and writes the pack files to the
+ * installer jar.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PackagerBenchmark
+{
+    /**
+     * The payload layout.
+     */
+    @Param({"SMALL_FILES", "LARGE_FILES", "MIXED"})
+    public Payloads.Layout layout;
+
+    /**
+     * The payload entropy.
+     */
+    @Param({"LOW", "HIGH", "MIXED"})
+    public Payloads.Entropy entropy;
+
+    /**
+     * The pack compression.
+     */
+    @Param({"DEFAULT", "DEFLATE"})
+    public PackCompression compression;
+
+    private File dir;
+
+    private List<File> files;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        dir = Payloads.createDirectory();
+        files = Payloads.create(dir, layout, entropy);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        Payloads.delete(dir);
+    }
+
+    /**
+     * Writes the payload as a single pack.
+     *
+     * @return the number of bytes written
+     * @throws IOException for any I/O error
+     */
+    @Benchmark
+    public long writePacks() throws IOException
+    {
+        PackInfo packInfo = new PackInfo("Core", null, "", true, false, null, true, 0);
+        for (File file : files)
+        {
+            String target = "$INSTALL_PATH/" + dir.toPath().relativize(file.toPath()).toString().replace('\\', '/');
+            packInfo.addFile(dir, file, target, null, OverrideType.OVERRIDE_TRUE, null, Blockable.BLOCKABLE_NONE,
+                             Collections.emptyMap(), null, null);
+        }
+
+        CountingOutputStream out = new CountingOutputStream(NullOutputStream.INSTANCE);
+        try (JarOutputStream jar = new JarOutputStream(out))
+        {
+            BenchmarkPackager packager = new BenchmarkPackager(jar);
+            Info info = new Info();
+            info.setCompressionFormat(compression);
+            packager.setInfo(info);
+            packager.addPack(packInfo);
+            packager.write(jar);
+        }
+        return out.getByteCount();
+    }
+
+    /**
+     * Packager exposing {@link #writePacks(JarOutputStream)}.
+     */
+    private static class BenchmarkPackager extends Packager
+    {
+        BenchmarkPackager(JarOutputStream jar)
+        {
+            super(new Properties(), null, jar, null, null, null, new CompilerData("", "", "", true), null);
+        }
+
+        void write(JarOutputStream jar) throws IOException
+        {
+            writePacks(jar);
+        }
+    }
+}
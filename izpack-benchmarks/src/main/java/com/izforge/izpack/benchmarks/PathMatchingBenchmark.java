@@ -0,0 +1,197 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.benchmarks;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.izforge.izpack.compiler.util.AntPathMatcher;
+import com.izforge.izpack.util.file.types.selectors.PathPattern;
+import com.izforge.izpack.util.file.types.selectors.PathPatternSet;
+import com.izforge.izpack.util.file.types.selectors.SelectorUtils;
+
+/**
+ * Measures matching of relative paths against include and exclude patterns, as done for every file of a
+ * fileset by the directory scanners, the filename selector and the compiler's fileset filtering.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PathMatchingBenchmark
+{
+    /**
+     * Typical fileset patterns: the default excludes plus a few includes.
+     */
+    private static final String[] PATTERNS = {
+            "**/*~", "**/#*#", "**/.#*", "**/%*%", "**/._*", "**/CVS", "**/CVS/**", "**/.cvsignore",
+            "**/SCCS", "**/SCCS/**", "**/vssver.scc", "**/.svn", "**/.svn/**", "**/.DS_Store",
+            "lib/**/*.jar", "bin/*.sh", "conf/server.xml", "docs/**", "**/test/**/*Test.class"
+    };
+
+    private static final String[] NAMES = {
+            "lib", "bin", "conf", "docs", "src", "main", "test", "java", "com", "izforge", "izpack", "util"
+    };
+
+    private static final String[] LEAVES = {
+            "A.class", "ATest.class", "run.sh", "server.xml", "index.html", "izpack.jar", "readme.txt", ".DS_Store"
+    };
+
+    /**
+     * The number of paths to match.
+     */
+    @Param({"10000"})
+    public int paths;
+
+    /**
+     * Whether matching is case sensitive.
+     */
+    @Param({"true", "false"})
+    public boolean caseSensitive;
+
+    private String[] platformPatterns;
+
+    private String[] relativePaths;
+
+    private String[] slashPaths;
+
+    private String[][] segments;
+
+    private PathPatternSet patternSet;
+
+    private AntPathMatcher antPathMatcher;
+
+    @Setup
+    public void setUp()
+    {
+        Random random = new Random(42);
+        platformPatterns = new String[PATTERNS.length];
+        for (int i = 0; i < PATTERNS.length; i++)
+        {
+            platformPatterns[i] = PATTERNS[i].replace('/', File.separatorChar);
+        }
+        relativePaths = new String[paths];
+        slashPaths = new String[paths];
+        segments = new String[paths][];
+        for (int i = 0; i < paths; i++)
+        {
+            int depth = 1 + random.nextInt(8);
+            String[] names = new String[depth];
+            for (int j = 0; j < depth - 1; j++)
+            {
+                names[j] = NAMES[random.nextInt(NAMES.length)];
+            }
+            names[depth - 1] = LEAVES[random.nextInt(LEAVES.length)];
+            segments[i] = names;
+            relativePaths[i] = join(names, File.separator);
+            slashPaths[i] = join(names, "/");
+        }
+        patternSet = new PathPatternSet(platformPatterns, caseSensitive);
+        antPathMatcher = new AntPathMatcher();
+    }
+
+    /**
+     * Matches each path against each pattern using {@link SelectorUtils#matchPath(String, String, boolean)}.
+     */
+    @Benchmark
+    public void selectorUtilsMatchPath(Blackhole blackhole)
+    {
+        for (String path : relativePaths)
+        {
+            for (String pattern : platformPatterns)
+            {
+                blackhole.consume(SelectorUtils.matchPath(pattern, path, caseSensitive));
+            }
+        }
+    }
+
+    /**
+     * Matches each path against the compiled pattern set, as the directory scanners do.
+     */
+    @Benchmark
+    public void pathPatternSet(Blackhole blackhole)
+    {
+        for (String[] names : segments)
+        {
+            blackhole.consume(patternSet.matchPath(names, names.length));
+        }
+    }
+
+    /**
+     * Matches each path against each pattern separately, without the literal prefix index.
+     */
+    @Benchmark
+    public void pathPatterns(Blackhole blackhole)
+    {
+        for (String[] names : segments)
+        {
+            for (String pattern : platformPatterns)
+            {
+                PathPattern compiled = SelectorUtils.getPathPattern(pattern, caseSensitive);
+                blackhole.consume(compiled.matchPath(names, names.length));
+            }
+        }
+    }
+
+    /**
+     * Matches each path against each pattern using the compiler's {@link AntPathMatcher}.
+     */
+    @Benchmark
+    public void antPathMatcher(Blackhole blackhole)
+    {
+        for (String path : slashPaths)
+        {
+            for (String pattern : PATTERNS)
+            {
+                blackhole.consume(antPathMatcher.match(pattern, path, caseSensitive));
+            }
+        }
+    }
+
+    private static String join(String[] names, String separator)
+    {
+        StringBuilder result = new StringBuilder();
+        for (String name : names)
+        {
+            if (result.length() != 0)
+            {
+                result.append(separator);
+            }
+            result.append(name);
+        }
+        return result.toString();
+    }
+}
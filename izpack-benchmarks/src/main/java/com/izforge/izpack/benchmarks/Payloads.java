@@ -0,0 +1,268 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Generates synthetic payloads for the benchmarks.
+ * <p/>
+ * Payloads are generated from a fixed seed, so that every run of a benchmark works on the same data.
+ */
+public final class Payloads
+{
+    /**
+     * The shape of a payload.
+     */
+    public enum Layout
+    {
+        /**
+         * Many small files, spread over nested directories.
+         */
+        SMALL_FILES(2000, 4 * 1024),
+
+        /**
+         * A few huge files.
+         */
+        LARGE_FILES(4, 16 * 1024 * 1024),
+
+        /**
+         * Mostly small files, with a few large ones.
+         */
+        MIXED(500, 16 * 1024);
+
+        private final int files;
+
+        private final int fileSize;
+
+        Layout(int files, int fileSize)
+        {
+            this.files = files;
+            this.fileSize = fileSize;
+        }
+
+        /**
+         * Returns the number of files.
+         *
+         * @return the number of files
+         */
+        public int getFiles()
+        {
+            return files;
+        }
+
+        /**
+         * Returns the size of a file.
+         *
+         * @param index the file index
+         * @return the file size, in bytes
+         */
+        public int getFileSize(int index)
+        {
+            if (this == MIXED && index % 100 == 0)
+            {
+                // every 100th file is large
+                return 4 * 1024 * 1024;
+            }
+            return fileSize;
+        }
+    }
+
+    /**
+     * The entropy of the file content, which determines how well it compresses.
+     */
+    public enum Entropy
+    {
+        /**
+         * Repetitive text, which compresses well.
+         */
+        LOW,
+
+        /**
+         * Random bytes, which don't compress.
+         */
+        HIGH,
+
+        /**
+         * Alternating blocks of text and random bytes.
+         */
+        MIXED
+    }
+
+    /**
+     * The seed of the generated data.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * Words to build text from.
+     */
+    private static final String[] WORDS = {
+            "install", "pack", "panel", "variable", "condition", "file", "directory", "listener", "jar",
+            "compress", "unpack", "target", "source", "path", "the", "a", "of", "to", "and", "is"
+    };
+
+    /**
+     * The size of the blocks of {@link Entropy#MIXED} content.
+     */
+    private static final int BLOCK_SIZE = 8 * 1024;
+
+    private Payloads()
+    {
+    }
+
+    /**
+     * Creates a temporary directory for a payload.
+     *
+     * @return a new directory
+     * @throws IOException for any I/O error
+     */
+    public static File createDirectory() throws IOException
+    {
+        return Files.createTempDirectory("izpack-benchmark").toFile();
+    }
+
+    /**
+     * Deletes a directory created by {@link #createDirectory()}.
+     *
+     * @param dir the directory. May be {@code null}
+     */
+    public static void delete(File dir)
+    {
+        if (dir != null)
+        {
+            FileUtils.deleteQuietly(dir);
+        }
+    }
+
+    /**
+     * Writes a payload to a directory.
+     *
+     * @param dir     the directory
+     * @param layout  the payload layout
+     * @param entropy the content entropy
+     * @return the files, in creation order
+     * @throws IOException for any I/O error
+     */
+    public static List<File> create(File dir, Layout layout, Entropy entropy) throws IOException
+    {
+        Random random = new Random(SEED);
+        List<File> result = new ArrayList<File>(layout.getFiles());
+        byte[] buffer = new byte[64 * 1024];
+        for (int i = 0; i < layout.getFiles(); ++i)
+        {
+            // spread the files over a two level directory tree, 20 files per directory
+            String name = "d" + (i / 400) + File.separator + "d" + (i / 20) + File.separator + "file" + i + ".dat";
+            File file = new File(dir, name);
+            try (OutputStream out = FileUtils.openOutputStream(file))
+            {
+                int remaining = layout.getFileSize(i);
+                int offset = 0;
+                while (remaining > 0)
+                {
+                    int length = Math.min(remaining, buffer.length);
+                    fill(buffer, length, offset, entropy, random);
+                    out.write(buffer, 0, length);
+                    remaining -= length;
+                    offset += length;
+                }
+            }
+            result.add(file);
+        }
+        return result;
+    }
+
+    /**
+     * Generates text containing variable references.
+     *
+     * @param length     the approximate text length, in characters
+     * @param variables  the names of the variables to reference
+     * @param references the percentage of words to replace by a variable reference
+     * @return the text
+     */
+    public static String text(int length, String[] variables, int references)
+    {
+        Random random = new Random(SEED);
+        StringBuilder result = new StringBuilder(length + 64);
+        while (result.length() < length)
+        {
+            if (random.nextInt(100) < references)
+            {
+                result.append("${").append(variables[random.nextInt(variables.length)]).append('}');
+            }
+            else
+            {
+                result.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            result.append(random.nextInt(12) == 0 ? '\n' : ' ');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Fills a buffer.
+     *
+     * @param buffer  the buffer
+     * @param length  the number of bytes to fill
+     * @param offset  the offset of the buffer in the content, used to place {@link Entropy#MIXED} blocks
+     * @param entropy the content entropy
+     * @param random  the random number generator
+     */
+    private static void fill(byte[] buffer, int length, int offset, Entropy entropy, Random random)
+    {
+        int i = 0;
+        while (i < length)
+        {
+            int blockEnd = Math.min(length, i + BLOCK_SIZE - (offset + i) % BLOCK_SIZE);
+            boolean text = entropy == Entropy.LOW
+                    || (entropy == Entropy.MIXED && ((offset + i) / BLOCK_SIZE) % 2 == 0);
+            if (text)
+            {
+                while (i < blockEnd)
+                {
+                    String word = WORDS[random.nextInt(WORDS.length)];
+                    for (int j = 0; j < word.length() && i < blockEnd; ++j)
+                    {
+                        buffer[i++] = (byte) word.charAt(j);
+                    }
+                    if (i < blockEnd)
+                    {
+                        buffer[i++] = ' ';
+                    }
+                }
+            }
+            else
+            {
+                while (i < blockEnd)
+                {
+                    buffer[i++] = (byte) random.nextInt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.izforge.izpack.api.data.AutomatedInstallData;
+import com.izforge.izpack.api.rules.Condition;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.core.rules.RulesEngineImpl;
+import com.izforge.izpack.core.rules.process.VariableCondition;
+import com.izforge.izpack.util.Platform;
+import com.izforge.izpack.util.Platforms;
+
+/**
+ * Measures {@link RulesEngineImpl#isConditionTrue(String)}, which is evaluated for every pack, panel, field and
+ * file carrying a condition.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RulesBenchmark
+{
+    /**
+     * The number of conditions.
+     */
+    @Param({"100", "1000"})
+    public int conditions;
+
+    private RulesEngineImpl engine;
+
+    private String[] ids;
+
+    private String[] expressions;
+
+    @Setup
+    public void setUp()
+    {
+        Random random = new Random(42);
+        DefaultVariables variables = new DefaultVariables();
+        Platform platform = Platforms.LINUX;
+        engine = new RulesEngineImpl(new AutomatedInstallData(variables, platform), null, platform);
+        variables.setRules(engine);
+
+        Map<String, Condition> map = new HashMap<String, Condition>();
+        ids = new String[conditions];
+        for (int i = 0; i < conditions; ++i)
+        {
+            variables.set("variable." + i, random.nextBoolean() ? "yes" : "no");
+            ids[i] = "condition." + i;
+            VariableCondition condition = new VariableCondition("variable." + i, "yes");
+            condition.setId(ids[i]);
+            map.put(ids[i], condition);
+        }
+        engine.readConditionMap(map);
+
+        expressions = new String[conditions];
+        for (int i = 0; i < conditions; ++i)
+        {
+            expressions[i] = "@" + ids[i] + " && !" + ids[random.nextInt(conditions)]
+                    + " || " + ids[random.nextInt(conditions)];
+        }
+    }
+
+    /**
+     * Evaluates each condition by id.
+     *
+     * @param blackhole the blackhole
+     */
+    @Benchmark
+    public void conditionById(Blackhole blackhole)
+    {
+        for (String id : ids)
+        {
+            blackhole.consume(engine.isConditionTrue(id));
+        }
+    }
+
+    /**
+     * Evaluates complex condition expressions, which are parsed on each evaluation.
+     *
+     * @param blackhole the blackhole
+     */
+    @Benchmark
+    public void complexExpression(Blackhole blackhole)
+    {
+        for (String expression : expressions)
+        {
+            blackhole.consume(engine.isConditionTrue(expression));
+        }
+    }
+
+    /**
+     * Evaluates the built-in platform conditions.
+     *
+     * @param blackhole the blackhole
+     */
+    @Benchmark
+    public void builtinCondition(Blackhole blackhole)
+    {
+        for (int i = 0; i < conditions; ++i)
+        {
+            blackhole.consume(engine.isConditionTrue((i % 2 == 0) ? "izpack.linuxinstall" : "izpack.windowsinstall"));
+        }
+    }
+}
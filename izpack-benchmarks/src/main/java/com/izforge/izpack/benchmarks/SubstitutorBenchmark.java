@@ -0,0 +1,116 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.benchmarks;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.substitutor.SubstitutionType;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.core.substitutor.VariableSubstitutorReader;
+
+/**
+ * Measures {@link VariableSubstitutorReader}, which substitutes variables in parsable files at install time.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SubstitutorBenchmark
+{
+    /**
+     * The number of characters to substitute.
+     */
+    private static final int LENGTH = 1024 * 1024;
+
+    /**
+     * The number of variables.
+     */
+    private static final int VARIABLES = 200;
+
+    /**
+     * The substitution type.
+     */
+    @Param({"TYPE_PLAIN", "TYPE_JAVA_PROPERTIES", "TYPE_XML"})
+    public SubstitutionType type;
+
+    /**
+     * The percentage of words that are variable references.
+     */
+    @Param({"0", "10", "50"})
+    public int references;
+
+    private DefaultVariables variables;
+
+    private String text;
+
+    private char[] buffer;
+
+    @Setup
+    public void setUp()
+    {
+        variables = new DefaultVariables();
+        String[] names = new String[VARIABLES];
+        for (int i = 0; i < VARIABLES; ++i)
+        {
+            names[i] = "variable." + i;
+            variables.set(names[i], "value <" + i + "> & \"" + i + "\"");
+        }
+        text = Payloads.text(LENGTH, names, references);
+        buffer = new char[8192];
+    }
+
+    /**
+     * Substitutes the variables of the text.
+     *
+     * @return the number of characters read
+     * @throws IOException for any I/O error
+     */
+    @Benchmark
+    public long substitute() throws IOException
+    {
+        long count = 0;
+        try (Reader reader = new VariableSubstitutorReader(new StringReader(text), variables, type))
+        {
+            int read;
+            while ((read = reader.read(buffer, 0, buffer.length)) != -1)
+            {
+                count += read;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.PackCompression;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.exception.InstallerException;
+import com.izforge.izpack.installer.unpacker.Cancellable;
+import com.izforge.izpack.installer.unpacker.CompressedFileUnpacker;
+import com.izforge.izpack.util.StreamSupport;
+
+/**
+ * Measures {@link CompressedFileUnpacker}, which decompresses the pack files to their targets at install time.
+ * <p/>
+ * The pack streams are held in memory, so that only decompression and writing the targets are measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnpackerBenchmark
+{
+    /**
+     * The payload layout.
+     */
+    @Param({"SMALL_FILES", "LARGE_FILES", "MIXED"})
+    public Payloads.Layout layout;
+
+    /**
+     * The payload entropy.
+     */
+    @Param({"LOW", "HIGH", "MIXED"})
+    public Payloads.Entropy entropy;
+
+    /**
+     * The pack compression.
+     */
+    @Param({"DEFLATE", "XZ"})
+    public PackCompression compression;
+
+    private File dir;
+
+    private File targetDir;
+
+    private List<PackFile> packFiles;
+
+    private List<byte[]> streams;
+
+    private final Cancellable cancellable = new Cancellable()
+    {
+        @Override
+        public boolean isCancelled()
+        {
+            return false;
+        }
+    };
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        dir = Payloads.createDirectory();
+        targetDir = Payloads.createDirectory();
+        List<File> files = Payloads.create(dir, layout, entropy);
+        packFiles = new ArrayList<PackFile>(files.size());
+        streams = new ArrayList<byte[]>(files.size());
+        for (File file : files)
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (OutputStream out = StreamSupport.compressedOutput(compression, bytes))
+            {
+                Files.copy(file.toPath(), out);
+            }
+            String target = dir.toPath().relativize(file.toPath()).toString();
+            PackFile packFile = new PackFile(dir, file, target, null, OverrideType.OVERRIDE_TRUE, null,
+                                             Blockable.BLOCKABLE_NONE, null);
+            packFile.setSize(bytes.size());
+            packFiles.add(packFile);
+            streams.add(bytes.toByteArray());
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        Payloads.delete(dir);
+        Payloads.delete(targetDir);
+    }
+
+    /**
+     * Unpacks every file of the payload.
+     *
+     * @throws IOException        for any I/O error
+     * @throws InstallerException for any installer error
+     */
+    @Benchmark
+    public void unpack() throws IOException, InstallerException
+    {
+        for (int i = 0; i < packFiles.size(); ++i)
+        {
+            PackFile packFile = packFiles.get(i);
+            File target = new File(targetDir, packFile.getTargetPath());
+            if (!target.getParentFile().isDirectory() && !target.getParentFile().mkdirs())
+            {
+                throw new IOException("Failed to create " + target.getParentFile());
+            }
+            CompressedFileUnpacker unpacker = new CompressedFileUnpacker(cancellable, null, compression);
+            try (InputStream in = new ByteArrayInputStream(streams.get(i)))
+            {
+                unpacker.unpack(packFile, in, target);
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler;
+
+import com.izforge.izpack.compiler.container.CompilerContainer;
+import com.izforge.izpack.compiler.data.CompilerData;
+import com.izforge.izpack.merge.jar.JarEntryCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Handler;
+
+/**
+ * Compiles several installation descriptors concurrently.
+ * <p/>
+ * Each descriptor is compiled in its own {@link CompilerContainer}, so that compilations share no mutable state other
+ * than a read-only cache of the jar entries used when merging resources into the installers.
+ */
+public class BatchCompiler
+{
+    /**
+     * The maximum no. of concurrent compilations.
+     */
+    private final int threads;
+
+    /**
+     * The log handler passed to each compilation.
+     */
+    private final Handler handler;
+
+    /**
+     * The jar entry cache shared by the compilations.
+     */
+    private final JarEntryCache jarEntryCache = new JarEntryCache();
+
+    /**
+     * Constructs a <tt>BatchCompiler</tt> that uses one thread per available processor, logging to the console.
+     */
+    public BatchCompiler()
+    {
+        this(Runtime.getRuntime().availableProcessors(), new ConsoleHandler());
+    }
+
+    /**
+     * Constructs a <tt>BatchCompiler</tt>.
+     *
+     * @param threads the maximum no. of concurrent compilations
+     * @param handler the log handler passed to each compilation
+     */
+    public BatchCompiler(int threads, Handler handler)
+    {
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("Argument 'threads' must be positive: " + threads);
+        }
+        this.threads = threads;
+        this.handler = handler;
+    }
+
+    /**
+     * Compiles installation descriptors.
+     * <p/>
+     * A failure to compile one descriptor doesn't prevent the others being compiled.
+     *
+     * @param descriptors the compilation data of each descriptor
+     * @return the result of each compilation, in the order of <tt>descriptors</tt>
+     * @throws InterruptedException if interrupted while waiting for the compilations to complete
+     */
+    public List<Result> compile(List<CompilerData> descriptors) throws InterruptedException
+    {
+        List<Result> results = new ArrayList<Result>();
+        if (descriptors.isEmpty())
+        {
+            return results;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, descriptors.size()),
+                                                                new CompilerThreadFactory());
+        try
+        {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (final CompilerData data : descriptors)
+            {
+                futures.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws Exception
+                    {
+                        compile(data);
+                        return null;
+                    }
+                }));
+            }
+            for (int i = 0; i < descriptors.size(); ++i)
+            {
+                Throwable error = null;
+                try
+                {
+                    futures.get(i).get();
+                }
+                catch (ExecutionException exception)
+                {
+                    error = exception.getCause();
+                }
+                results.add(new Result(descriptors.get(i), error));
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Compiles a single installation descriptor.
+     *
+     * @param data the compilation data
+     * @throws Exception if the compilation fails
+     */
+    protected void compile(CompilerData data) throws Exception
+    {
+        CompilerContainer container = new SharedCacheCompilerContainer(jarEntryCache);
+        String installFile = data.getInstallFile();
+        container.addConfig("installFile", installFile == null ? "<config>" : installFile);
+        container.addComponent(CompilerData.class, data);
+        container.addComponent(Handler.class, handler);
+        container.getComponent(CompilerConfig.class).executeCompiler();
+    }
+
+    /**
+     * The result of compiling an installation descriptor.
+     */
+    public static class Result
+    {
+        /**
+         * The compilation data.
+         */
+        private final CompilerData data;
+
+        /**
+         * The compilation error, or <tt>null</tt> if the compilation succeeded.
+         */
+        private final Throwable error;
+
+        /**
+         * Constructs a <tt>Result</tt>.
+         *
+         * @param data  the compilation data
+         * @param error the compilation error. May be <tt>null</tt>
+         */
+        public Result(CompilerData data, Throwable error)
+        {
+            this.data = data;
+            this.error = error;
+        }
+
+        /**
+         * Returns the compilation data.
+         *
+         * @return the compilation data
+         */
+        public CompilerData getCompilerData()
+        {
+            return data;
+        }
+
+        /**
+         * Determines if the compilation succeeded.
+         *
+         * @return <tt>true</tt> if the compilation succeeded
+         */
+        public boolean isSuccess()
+        {
+            return error == null;
+        }
+
+        /**
+         * Returns the compilation error.
+         *
+         * @return the compilation error, or <tt>null</tt> if the compilation succeeded
+         */
+        public Throwable getError()
+        {
+            return error;
+        }
+    }
+
+    /**
+     * A compiler container that uses a shared jar entry cache.
+     */
+    private static class SharedCacheCompilerContainer extends CompilerContainer
+    {
+        private final JarEntryCache jarEntryCache;
+
+        public SharedCacheCompilerContainer(JarEntryCache jarEntryCache)
+        {
+            super(null);
+            this.jarEntryCache = jarEntryCache;
+            initialise();
+        }
+
+        @Override
+        protected JarEntryCache createJarEntryCache()
+        {
+            return jarEntryCache;
+        }
+    }
+
+    /**
+     * Creates named daemon threads for the compilations.
+     */
+    private static class CompilerThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "izpack-compiler-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -44,11 +44,14 @@ import com.izforge.izpack.compiler.helper.AssertionHelper;
 import com.izforge.izpack.compiler.helper.TargetFileSet;
 import com.izforge.izpack.compiler.helper.XmlCompilerHelper;
 import com.izforge.izpack.compiler.listener.CompilerListener;
+import com.izforge.izpack.compiler.logging.CompilationLogHandler;
 import com.izforge.izpack.compiler.merge.CompilerPathResolver;
 import com.izforge.izpack.compiler.packager.IPackager;
 import com.izforge.izpack.compiler.resource.ResourceFinder;
 import com.izforge.izpack.compiler.util.AntPathMatcher;
 import com.izforge.izpack.compiler.util.CompilerClassLoader;
+import com.izforge.izpack.compiler.util.compress.ArchiveEntryLocator;
+import com.izforge.izpack.compiler.util.compress.ArchiveSource;
 import com.izforge.izpack.compiler.util.compress.ArchiveStreamFactory;
 import com.izforge.izpack.compiler.xml.*;
 import com.izforge.izpack.core.data.DynamicInstallerRequirementValidatorImpl;
@@ -82,6 +85,7 @@ import com.izforge.izpack.util.FileUtil;
 import com.izforge.izpack.util.OsConstraintHelper;
 import com.izforge.izpack.util.PlatformModelMatcher;
 import com.izforge.izpack.util.file.DirectoryScanner;
+import com.izforge.izpack.util.file.ParallelDirectoryScanner;
 import com.izforge.izpack.util.helper.SpecHelper;
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.ArchiveException;
@@ -113,7 +117,7 @@ import static com.izforge.izpack.api.data.Info.EXPIRE_DATE_FORMAT;
  */
 public class CompilerConfig extends Thread
 {
-    private static Logger logger;
+    private static final Logger logger = Logger.getLogger(CompilerConfig.class.getName());
 
     private static final File TEMP_DIR = FileUtils.getTempDirectory();
 
@@ -217,6 +221,11 @@ public class CompilerConfig extends Thread
      */
     private final CompilerClassLoader classLoader;
 
+    /**
+     * The handler to log to. May be {@code null}.
+     */
+    private final Handler handler;
+
     private static final String TEMP_DIR_ELEMENT_NAME = "tempdir";
     private static final String TEMP_DIR_PREFIX_ATTRIBUTE = "prefix";
     private static final String DEFAULT_TEMP_DIR_PREFIX = "IzPack";
@@ -258,34 +267,10 @@ public class CompilerConfig extends Thread
         this.factory = factory;
         this.constraints = constraints;
         this.classLoader = classLoader;
+        this.handler = handler;
 
-        Logger rootLogger = Logger.getLogger("com.izforge.izpack");
-        rootLogger.setUseParentHandlers(false);
-
-        if (handler != null)
-        {
-            boolean found = false;
-            for (Handler rootHandler : rootLogger.getHandlers())
-            {
-                if (rootHandler.equals(handler))
-                {
-                    found = true;
-                    break;
-                }
-                else
-                {
-                    rootLogger.removeHandler(rootHandler);
-                }
-            }
-            if (!found)
-            {
-                rootLogger.addHandler(handler);
-            }
-            rootLogger.setLevel(handler.getLevel());
-        }
-
-        logger = Logger.getLogger(CompilerConfig.class.getName());
-        logger.info("Logging initialized at level '" + logger.getParent().getLevel() + "'");
+        // IzPack logs only go to the compilation handlers
+        Logger.getLogger("com.izforge.izpack").setUseParentHandlers(false);
     }
 
     /**
@@ -314,6 +299,32 @@ public class CompilerConfig extends Thread
      * @throws Exception Description of the Exception
      */
     public void executeCompiler() throws Exception
+    {
+        if (handler != null)
+        {
+            // route the log records of this compilation to its handler, without affecting concurrent compilations
+            CompilationLogHandler.begin(handler);
+            logger.info("Logging initialized at level '" + handler.getLevel() + "'");
+        }
+        try
+        {
+            compile();
+        }
+        finally
+        {
+            if (handler != null)
+            {
+                CompilationLogHandler.end(handler);
+            }
+        }
+    }
+
+    /**
+     * Compiles the installation.
+     *
+     * @throws Exception for any error
+     */
+    private void compile() throws Exception
     {
         // normalize and test: TODO: may allow failure if we require write
         // access
@@ -825,8 +836,9 @@ public class CompilerConfig extends Thread
             assertionHelper.parseError(root, "<packs> requires a <pack>, <refpack> or <refpackset>");
         }
 
-        for (IXMLElement packElement : packElements)
+        for (int index = 0; index < packElements.size(); ++index)
         {
+            IXMLElement packElement = packElements.get(index);
 
             // Trivial initialisations
             String name = xmlCompilerHelper.requireAttribute(packElement, "name");
@@ -942,6 +954,11 @@ public class CompilerConfig extends Thread
 
             // We add the pack
             packager.addPack(pack);
+
+            // The pack element is no longer required, so release it rather than holding the contents of every pack
+            // until the installer has been written
+            packElements.set(index, null);
+            root.removeChild(packElement);
         }
 
         for (IXMLElement refPackElement : refPackElements)
@@ -984,7 +1001,7 @@ public class CompilerConfig extends Thread
             String[] includes = includeString.split(", ");
 
             // scan for refpack files
-            DirectoryScanner ds = new DirectoryScanner();
+            DirectoryScanner ds = new ParallelDirectoryScanner();
             ds.setIncludes(includes);
             ds.setBasedir(dir);
             ds.setCaseSensitive(true);
@@ -1062,9 +1079,10 @@ public class CompilerConfig extends Thread
 
     private void processFileSetChildren(TargetFileSet fs, File baseDir, List<OsModel> parentOsList, PackInfo pack) throws Exception
     {
+        DirectoryScanner scanner = fs.getDirectoryScanner();
         String[][] includedFilesAndDirs = new String[][]{
-                fs.getDirectoryScanner().getIncludedDirectories(),
-                fs.getDirectoryScanner().getIncludedFiles()
+                scanner.getIncludedDirectories(),
+                scanner.getIncludedFiles()
         };
         for (String[] filesOrDirs : includedFilesAndDirs)
         {
@@ -1226,9 +1244,10 @@ public class CompilerConfig extends Thread
 
                 Map<String, String> pack200Properties = readPack200Properties(fileNode);
 
+                DirectoryScanner scanner = fs.getDirectoryScanner();
                 LinkedList<String> srcfiles = new LinkedList<String>();
-                Collections.addAll(srcfiles, fs.getDirectoryScanner().getIncludedDirectories());
-                Collections.addAll(srcfiles, fs.getDirectoryScanner().getIncludedFiles());
+                Collections.addAll(srcfiles, scanner.getIncludedDirectories());
+                Collections.addAll(srcfiles, scanner.getIncludedFiles());
                 for (String filePath : srcfiles)
                 {
                     if (!filePath.isEmpty())
@@ -1653,6 +1672,16 @@ public class CompilerConfig extends Thread
                                    Blockable blockable, PackInfo pack, Map<String, ?> additionals,
                                    String condition, Map<String, String> pack200Properties) throws Exception
     {
+        List<IXMLElement> filesetNodes = fileNode.getChildrenNamed("archivefileset");
+        final boolean hasNoFileSet = (filesetNodes == null || filesetNodes.isEmpty());
+        if (hasNoFileSet && !pack.getPack().isLoose())
+        {
+            streamArchiveContent(archive, targetDir, osList, override, overrideRenameTo, blockable, pack,
+                                 additionals, condition, pack200Properties);
+            return;
+        }
+
+        // archive filesets are scanned, and loose files installed from, the file system
         String archiveName = archive.getName();
 
         InputStream originalInputStream = IOUtils.buffer(FileUtils.openInputStream(archive));
@@ -1669,9 +1698,6 @@ public class CompilerConfig extends Thread
             uncompressedInputStream = originalInputStream;
         }
 
-        List<IXMLElement> filesetNodes = fileNode.getChildrenNamed("archivefileset");
-        final boolean hasNoFileSet = (filesetNodes == null || filesetNodes.isEmpty());
-
         ArchiveInputStream archiveInputStream = null;
         File baseTempDir = null;
         try
@@ -1773,6 +1799,42 @@ public class CompilerConfig extends Thread
         }
     }
 
+    /**
+     * Adds the content of an archive, or of a single compressed file, to a pack without extracting it.
+     * <p/>
+     * The packager reads the entries straight from the archive when writing the pack.
+     */
+    private void streamArchiveContent(File archive, String targetDir, List<OsModel> osList, OverrideType override,
+                                      String overrideRenameTo, Blockable blockable, PackInfo pack,
+                                      Map<String, ?> additionals, String condition,
+                                      Map<String, String> pack200Properties) throws Exception
+    {
+        String archiveName = archive.getName();
+        ArchiveSource source = new ArchiveSource(archive);
+        List<ArchiveEntryLocator> entries;
+        try
+        {
+            entries = source.getEntries();
+        }
+        catch (ArchiveException e)
+        {
+            if (!source.isCompressed())
+            {
+                throw new Exception("No compression or archiving format detected for file " + archive + " marked to be unpacked");
+            }
+            // uncompressed file is not an archive
+            entries = Collections.singletonList(source.getContent(FilenameUtils.getBaseName(archiveName)));
+        }
+
+        for (ArchiveEntryLocator entry : entries)
+        {
+            String target = targetDir + "/" + entry.getName();
+            logAddingFile(entry.getName() + " (" + archiveName + ")", target);
+            pack.addFile(entry, target, osList, override, overrideRenameTo, blockable, additionals, condition,
+                         entry.isDirectory() ? null : pack200Properties);
+        }
+    }
+
     private void updateLastModifiedDate(File target, ArchiveEntry entry)
     {
         target.setLastModified(entry.getLastModifiedDate().getTime());
@@ -2469,7 +2531,8 @@ public class CompilerConfig extends Thread
             String path;
 
             path = "com/izforge/izpack/bin/langpacks/installer/" + iso3 + ".xml";
-            URL iso3xmlURL = resourceFinder.findIzPackResource(path, "ISO3 file", localNode);
+            URL iso3xmlURL = compileLangpack(resourceFinder.findIzPackResource(path, "ISO3 file", localNode),
+                                             localNode);
 
             path = "com/izforge/izpack/bin/langpacks/flags/" + iso3 + ".gif";
             URL iso3FlagURL = resourceFinder.findIzPackResource(path, "ISO3 flag image", localNode);
@@ -2478,6 +2541,45 @@ public class CompilerConfig extends Thread
         }
         notifyCompilerListener("addLangpacks", CompilerListener.END, data);
     }
+
+    /**
+     * Compiles a langpack to the binary format read by {@link CompiledLangpack}, so that the installer doesn't need
+     * to parse XML to load its messages.
+     *
+     * @param url      the XML langpack
+     * @param langpack the langpack element, for error reporting
+     * @return the URL of the compiled langpack
+     * @throws CompilerException if the langpack cannot be read or compiled
+     */
+    private URL compileLangpack(URL url, IXMLElement langpack) throws CompilerException
+    {
+        Map<String, String> messages;
+        try (InputStream in = url.openStream())
+        {
+            messages = new LocaleDatabase(in, null);
+        }
+        catch (Exception exception)
+        {
+            assertionHelper.parseError(langpack, "Failed to read langpack " + url + ": " + exception.getMessage(),
+                                       exception);
+            return url;
+        }
+        try
+        {
+            File temp = File.createTempFile("izlang", null, TEMP_DIR);
+            temp.deleteOnExit();
+            try (OutputStream out = new BufferedOutputStream(FileUtils.openOutputStream(temp)))
+            {
+                CompiledLangpack.write(messages, out);
+            }
+            return temp.toURI().toURL();
+        }
+        catch (IOException exception)
+        {
+            throw new CompilerException("Unable to handle temporary resource file: " + exception.getMessage(),
+                                        exception);
+        }
+    }
     
     /**
      * Builds the Info class from the XML tree (part that sets just strings).
@@ -3334,7 +3436,10 @@ public class CompilerConfig extends Thread
     }
 
     /**
-     * Perform recursive substitution on all properties
+     * Perform recursive substitution on all properties.
+     * <p/>
+     * Only values that can contain a property reference are substituted and written back, to avoid rewriting every
+     * attribute of large descriptors.
      */
     private void substituteAllProperties(IXMLElement element) throws CompilerException
     {
@@ -3342,10 +3447,18 @@ public class CompilerConfig extends Thread
         while (attributes.hasMoreElements())
         {
             String name = attributes.nextElement();
+            String attribute = element.getAttribute(name);
+            if (!hasPropertyReference(attribute))
+            {
+                continue;
+            }
             try
             {
-                String value = variableSubstitutor.substitute(element.getAttribute(name), SubstitutionType.TYPE_AT);
-                element.setAttribute(name, value);
+                String value = variableSubstitutor.substitute(attribute, SubstitutionType.TYPE_AT);
+                if (!attribute.equals(value))
+                {
+                    element.setAttribute(name, value);
+                }
             }
             catch (Exception e)
             {
@@ -3355,11 +3468,15 @@ public class CompilerConfig extends Thread
         }
 
         String content = element.getContent();
-        if (content != null)
+        if (hasPropertyReference(content))
         {
             try
             {
-                element.setContent(variableSubstitutor.substitute(content, SubstitutionType.TYPE_AT));
+                String value = variableSubstitutor.substitute(content, SubstitutionType.TYPE_AT);
+                if (!content.equals(value))
+                {
+                    element.setContent(value);
+                }
             }
             catch (Exception e)
             {
@@ -3375,6 +3492,17 @@ public class CompilerConfig extends Thread
         }
     }
 
+    /**
+     * Determines if a value may contain an {@link SubstitutionType#TYPE_AT} property reference.
+     *
+     * @param value the value. May be {@code null}
+     * @return {@code true} if the value may contain a property reference
+     */
+    private static boolean hasPropertyReference(String value)
+    {
+        return value != null && value.indexOf('@') >= 0;
+    }
+
     private OverrideType getOverrideValue(IXMLElement fileElement) throws CompilerException
     {
         String override_val = fileElement.getAttribute("override");
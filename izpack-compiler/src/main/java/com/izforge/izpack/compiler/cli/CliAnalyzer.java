@@ -105,7 +105,7 @@ public class CliAnalyzer {
         out.format("-> Kind         : %s%n", result.getKind());
         out.format("-> Compression  : %s%n", result.getComprFormat());
         out.format("-> Compr. level : %s%n", result.getComprLevel());
-        out.format("-> IzPack home  : %s%n", CompilerData.IZPACK_HOME);
+        out.format("-> IzPack home  : %s%n", result.getIzpackHome());
         out.println();
     }
 
@@ -160,7 +160,7 @@ public class CliAnalyzer {
             compilerData.setComprLevel(Integer.parseInt(commandLine.getOptionValue(ARG_COMPRESSION_LEVEL).trim()));
         }
         if (commandLine.hasOption(ARG_IZPACK_HOME)) {
-            CompilerData.setIzpackHome(commandLine.getOptionValue(ARG_IZPACK_HOME).trim());
+            compilerData.setIzpackHomeDir(commandLine.getOptionValue(ARG_IZPACK_HOME).trim());
         }
         if (commandLine.hasOption(ARG_KIND)) {
             compilerData.setKind(commandLine.getOptionValue(ARG_KIND).trim());
@@ -36,6 +36,7 @@ import com.izforge.izpack.compiler.listener.CmdlinePackagerListener;
 import com.izforge.izpack.compiler.resource.ResourceFinder;
 import com.izforge.izpack.core.container.AbstractContainer;
 import com.izforge.izpack.core.container.PlatformProvider;
+import com.izforge.izpack.core.data.ConcurrentProperties;
 import com.izforge.izpack.core.data.DefaultVariables;
 import com.izforge.izpack.core.factory.DefaultObjectFactory;
 import com.izforge.izpack.core.rules.ConditionContainer;
@@ -43,6 +44,7 @@ import com.izforge.izpack.core.rules.RulesEngineImpl;
 import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
 import com.izforge.izpack.merge.MergeManager;
 import com.izforge.izpack.merge.MergeManagerImpl;
+import com.izforge.izpack.merge.jar.JarEntryCache;
 import com.izforge.izpack.util.Platform;
 import com.izforge.izpack.util.PlatformModelMatcher;
 import com.izforge.izpack.util.Platforms;
@@ -90,7 +92,8 @@ public class CompilerContainer extends AbstractContainer
     @Override
     protected void fillContainer(MutablePicoContainer container)
     {
-        addComponent(Properties.class);
+        addComponent(Properties.class, new ConcurrentProperties());
+        addComponent(JarEntryCache.class, createJarEntryCache());
         addComponent(DefaultVariables.class);
         addComponent(CompilerContainer.class, this);
         addComponent(CliAnalyzer.class);
@@ -119,6 +122,18 @@ public class CompilerContainer extends AbstractContainer
 
     }
 
+    /**
+     * Creates the cache of jar entry names.
+     * <p/>
+     * The cache holds no compilation state, so subclasses may share a single cache between containers.
+     *
+     * @return a new cache
+     */
+    protected JarEntryCache createJarEntryCache()
+    {
+        return new JarEntryCache();
+    }
+
     /**
      * Add CompilerDataComponent by processing command line args
      *
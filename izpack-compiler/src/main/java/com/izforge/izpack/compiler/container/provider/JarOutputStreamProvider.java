@@ -20,6 +20,7 @@
 package com.izforge.izpack.compiler.container.provider;
 
 import com.izforge.izpack.compiler.data.CompilerData;
+import com.izforge.izpack.util.compress.ParallelJarOutputStream;
 import org.picocontainer.injectors.Provider;
 
 import java.io.BufferedOutputStream;
@@ -47,7 +48,8 @@ public class JarOutputStreamProvider implements Provider
             {
                 Files.createDirectories(file.getParent());
             }
-            JarOutputStream jarOutputStream =  new JarOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+            JarOutputStream jarOutputStream = new ParallelJarOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(file)));
             int level = compilerData.getComprLevel();
             if (level >= 0 && level < 10)
             {
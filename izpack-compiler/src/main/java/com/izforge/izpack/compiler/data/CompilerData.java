@@ -30,9 +30,11 @@ import java.util.ResourceBundle;
 public class CompilerData
 {
     /**
-     * The IzPack home directory.
+     * The default IzPack home directory, used by compilations that don't specify their own.
+     * <p/>
+     * Compilations should use {@link #getIzpackHome()}, as this may be changed by concurrent compilations.
      */
-    public static String IZPACK_HOME = ".";
+    public static volatile String IZPACK_HOME = ".";
 
     /**
      * The compiler version.
@@ -91,6 +93,11 @@ public class CompilerData
      */
     private Info externalInfo = new Info();
 
+    /**
+     * The IzPack home directory.
+     */
+    private String izpackHome;
+
     /**
      * The IzPack version.
      */
@@ -109,18 +116,11 @@ public class CompilerData
     {
         // We get the IzPack home directory
         String izHome = System.getProperty("izpack.home");
-        if (izHome != null)
-        {
-            IZPACK_HOME = izHome;
-        }
-        else
+        if (izHome == null)
         {
             izHome = System.getenv("IZPACK_HOME");
-            if (izHome != null)
-            {
-                IZPACK_HOME = izHome;
-            }
         }
+        izpackHome = (izHome != null) ? izHome : IZPACK_HOME;
     }
 
     public CompilerData(String packCompression, String installFile, String basedir, String output, boolean mkdirs)
@@ -155,15 +155,37 @@ public class CompilerData
     }
 
     /**
-     * Set the IzPack home directory
+     * Set the default IzPack home directory, for compilations created after this call that don't specify their own.
      *
      * @param izHome - the izpack home directory
+     * @deprecated use {@link #setIzpackHomeDir(String)}, which isn't shared with concurrent compilations
      */
+    @Deprecated
     public static void setIzpackHome(String izHome)
     {
         IZPACK_HOME = izHome;
     }
 
+    /**
+     * Returns the IzPack home directory of this compilation.
+     *
+     * @return the IzPack home directory
+     */
+    public String getIzpackHome()
+    {
+        return izpackHome;
+    }
+
+    /**
+     * Sets the IzPack home directory of this compilation.
+     *
+     * @param izHome the IzPack home directory
+     */
+    public void setIzpackHomeDir(String izHome)
+    {
+        this.izpackHome = izHome;
+    }
+
     /**
      * Access the installation kind.
      *
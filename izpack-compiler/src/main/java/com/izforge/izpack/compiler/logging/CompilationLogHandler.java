@@ -0,0 +1,225 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.izforge.izpack.compiler.logging;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Routes the log records of the <em>com.izforge.izpack</em> loggers to the handler of the compilation that produced
+ * them.
+ * <p/>
+ * Logger configuration is global to the JVM, so rather than each compilation replacing the handlers of the IzPack
+ * root logger, this handler is installed while compilations are running, and each compilation registers its own
+ * handler with {@link #begin(Handler)} for the duration of the compilation. When the last compilation ends, this
+ * handler is removed and the previous configuration of the root logger is restored. Records are routed using the handler bound to the
+ * logging thread, which is inherited by threads the compilation starts. Records logged by threads that aren't bound
+ * to a running compilation, such as shared pool threads, are published to the handlers of all running compilations.
+ */
+public final class CompilationLogHandler extends Handler
+{
+    /**
+     * The IzPack root logger name.
+     */
+    private static final String LOGGER_NAME = "com.izforge.izpack";
+
+    /**
+     * The singleton instance.
+     */
+    private static final CompilationLogHandler INSTANCE = new CompilationLogHandler();
+
+    /**
+     * The IzPack root logger. A reference is held to prevent its configuration being garbage collected.
+     */
+    private final Logger logger = Logger.getLogger(LOGGER_NAME);
+
+    /**
+     * The handler of the compilation bound to the current thread.
+     */
+    private final InheritableThreadLocal<Handler> current = new InheritableThreadLocal<Handler>();
+
+    /**
+     * The handlers of the running compilations. A handler appears once for each compilation using it.
+     */
+    private final List<Handler> active = new CopyOnWriteArrayList<Handler>();
+
+    /**
+     * Determines if this has been added to the IzPack root logger.
+     */
+    private boolean installed;
+
+    /**
+     * The handlers of the IzPack root logger before this was installed.
+     */
+    private Handler[] previousHandlers;
+
+    /**
+     * The level of the IzPack root logger before this was installed.
+     */
+    private Level previousLevel;
+
+    /**
+     * Determines if the IzPack root logger used its parent handlers before this was installed.
+     */
+    private boolean previousUseParentHandlers;
+
+    private CompilationLogHandler()
+    {
+    }
+
+    /**
+     * Registers the handler of a compilation, and binds it to the current thread.
+     *
+     * @param handler the handler
+     */
+    public static void begin(Handler handler)
+    {
+        INSTANCE.attach(handler);
+    }
+
+    /**
+     * Deregisters the handler of a compilation, and unbinds it from the current thread.
+     *
+     * @param handler the handler
+     */
+    public static void end(Handler handler)
+    {
+        INSTANCE.detach(handler);
+    }
+
+    /**
+     * Publishes a record to the handler of the compilation bound to the current thread, or to the handlers of all
+     * running compilations if there is none.
+     *
+     * @param record the log record
+     */
+    @Override
+    public void publish(LogRecord record)
+    {
+        Handler handler = current.get();
+        if (handler != null && active.contains(handler))
+        {
+            publish(handler, record);
+        }
+        else
+        {
+            for (Handler other : new LinkedHashSet<Handler>(active))
+            {
+                publish(other, record);
+            }
+        }
+    }
+
+    /**
+     * Flushes the handlers of the running compilations.
+     */
+    @Override
+    public void flush()
+    {
+        for (Handler handler : active)
+        {
+            handler.flush();
+        }
+    }
+
+    /**
+     * No-op. The handlers are closed by their owners.
+     */
+    @Override
+    public void close()
+    {
+    }
+
+    private synchronized void attach(Handler handler)
+    {
+        if (!installed)
+        {
+            // replace any existing handlers until the last compilation ends
+            previousHandlers = logger.getHandlers();
+            previousLevel = logger.getLevel();
+            previousUseParentHandlers = logger.getUseParentHandlers();
+            for (Handler other : previousHandlers)
+            {
+                logger.removeHandler(other);
+            }
+            logger.setUseParentHandlers(false);
+            logger.addHandler(this);
+            installed = true;
+        }
+        active.add(handler);
+        current.set(handler);
+        updateLevel();
+    }
+
+    private synchronized void detach(Handler handler)
+    {
+        active.remove(handler);
+        if (current.get() == handler)
+        {
+            current.remove();
+        }
+        if (!active.isEmpty())
+        {
+            updateLevel();
+        }
+        else if (installed)
+        {
+            logger.removeHandler(this);
+            for (Handler other : previousHandlers)
+            {
+                logger.addHandler(other);
+            }
+            logger.setLevel(previousLevel);
+            logger.setUseParentHandlers(previousUseParentHandlers);
+            previousHandlers = null;
+            previousLevel = null;
+            installed = false;
+        }
+    }
+
+    /**
+     * Sets the level of the IzPack root logger to the most verbose level of the running compilations' handlers.
+     * Each handler filters records above its own level.
+     */
+    private void updateLevel()
+    {
+        Level level = null;
+        for (Handler handler : active)
+        {
+            if (level == null || handler.getLevel().intValue() < level.intValue())
+            {
+                level = handler.getLevel();
+            }
+        }
+        logger.setLevel(level);
+    }
+
+    private static void publish(Handler handler, LogRecord record)
+    {
+        if (handler.isLoggable(record))
+        {
+            handler.publish(record);
+        }
+    }
+}
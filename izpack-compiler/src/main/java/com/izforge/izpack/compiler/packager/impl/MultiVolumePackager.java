@@ -37,7 +37,7 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.InputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.util.*;
@@ -290,7 +290,7 @@ public class MultiVolumePackager extends PackagerBase
             {
                 if (!pack.isLoose())
                 {
-                    writePackFile(file, volumes, pf);
+                    writePackFile(packInfo, packfile, volumes, pf);
                 }
                 else
                 {
@@ -319,12 +319,14 @@ public class MultiVolumePackager extends PackagerBase
     /**
      * Writes a pack file to the volumes.
      *
-     * @param file     the file to write
+     * @param packInfo the pack information
+     * @param source   the pack file to write
      * @param volumes  the volumes
-     * @param packFile the pack file
+     * @param packFile the pack file, with its position in the volumes
      * @throws IOException for any I/O error
      */
-    private void writePackFile(File file, FileSpanningOutputStream volumes, XPackFile packFile) throws IOException
+    private void writePackFile(PackInfo packInfo, PackFile source, FileSpanningOutputStream volumes,
+                               XPackFile packFile) throws IOException
     {
         long beforePosition = volumes.getFilePointer();
         packFile.setArchiveFilePosition(beforePosition);
@@ -332,7 +334,7 @@ public class MultiVolumePackager extends PackagerBase
         // write the file to the volumes
         int volumeCount = volumes.getVolumes();
 
-        FileInputStream in = FileUtils.openInputStream(file);
+        InputStream in = openPackFile(packInfo, source);
         try
         {
             long bytesWritten = IOUtils.copyLarge(in, volumes);
@@ -341,7 +343,7 @@ public class MultiVolumePackager extends PackagerBase
 
             if (volumes.getFilePointer() != (beforePosition + bytesWritten))
             {
-                logger.fine("file: " + file.getName());
+                logger.fine("file: " + packFile.getRelativeSourcePath());
                 logger.fine("(Filepos/BytesWritten/ExpectedNewFilePos/NewFilePointer) ("
                         + beforePosition + "/" + bytesWritten + "/" + (beforePosition + bytesWritten)
                         + "/" + volumes.getFilePointer() + ")");
@@ -351,7 +353,7 @@ public class MultiVolumePackager extends PackagerBase
 
             if (bytesWritten != packFile.length())
             {
-                throw new IOException("File size mismatch when reading " + file);
+                throw new IOException("File size mismatch when reading " + packFile.getRelativeSourcePath());
             }
         }
         finally
@@ -34,21 +34,34 @@ import com.izforge.izpack.merge.MergeManager;
 import com.izforge.izpack.merge.resolve.MergeableResolver;
 import com.izforge.izpack.util.NoCloseOutputStream;
 import com.izforge.izpack.util.StreamSupport;
+import com.izforge.izpack.util.compress.ParallelJarOutputStream;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.DeferredFileOutputStream;
 
 import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.JarFile;
+import java.util.jar.JarInputStream;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Pack200;
 import java.util.logging.Logger;
@@ -66,6 +79,16 @@ public class Packager extends PackagerBase
 {
     private static final Logger logger = Logger.getLogger(Packager.class.getName());
 
+    /**
+     * The size in bytes above which a packed Pack200 jar is spilled to a temporary file.
+     */
+    private static final int PACK200_BUFFER_THRESHOLD = 4 * 1024 * 1024;
+
+    /**
+     * The number of Pack200 jars per thread that may be packed ahead of the jar being written.
+     */
+    private static final int PACK200_PENDING_PER_THREAD = 2;
+
     private final CompilerData compilerData;
 
     /**
@@ -96,7 +119,8 @@ public class Packager extends PackagerBase
             Files.createDirectories(jarFile.getParent());
         }
 
-        JarOutputStream jarOutputStream = new JarOutputStream(new BufferedOutputStream(Files.newOutputStream(jarFile)));
+        JarOutputStream jarOutputStream = new ParallelJarOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(jarFile)));
 
         int level = compilerData.getComprLevel();
         if (level >= 0 && level < 10)
@@ -122,8 +146,8 @@ public class Packager extends PackagerBase
         final int num = packs.size();
         sendMsg("Writing " + num + " Pack" + (num > 1 ? "s" : "") + " into installer");
 
-        // Map to remember pack number and bytes offsets of back references
-        Map<Path, PackFile> storedFiles = new HashMap<>();
+        // Map to remember pack number and bytes offsets of back references, keyed on the source file or locator
+        Map<Object, PackFile> storedFiles = new HashMap<>();
 
         List<PackFile> pack200Files = new ArrayList<>();
 
@@ -163,12 +187,13 @@ public class Packager extends PackagerBase
                 {
                     boolean addFile = !pack.isLoose();
                     Path file = packInfo.getFile(packFile).toPath();
+                    Object source = (packFile.getLocator() != null) ? packFile.getLocator() : file;
 
                     boolean pack200 = packFile.isPack200Jar();
 
                     // use a back reference if file was in previous pack, and in
                     // same jar
-                    PackFile linkedPackFile = storedFiles.get(file);
+                    PackFile linkedPackFile = storedFiles.get(source);
 
                     if (linkedPackFile != null && !packSeparateJars())
                     {
@@ -202,12 +227,13 @@ public class Packager extends PackagerBase
 
                             PackCompression comprFormat = getInfo().getCompressionFormat();
                             CountingOutputStream proxyOutputStream = new CountingOutputStream(new NoCloseOutputStream(packOutputStream));
-                            try (OutputStream finalStream = StreamSupport.compressedOutput(comprFormat, proxyOutputStream))
+                            try (InputStream in = openPackFile(packInfo, packFile);
+                                 OutputStream finalStream = StreamSupport.compressedOutput(comprFormat, proxyOutputStream))
                             {
-                                long bytesWritten = Files.copy(file, finalStream);
+                                long bytesWritten = IOUtils.copyLarge(in, finalStream);
                                 if (bytesWritten != packFile.length())
                                 {
-                                    throw new IOException("File size mismatch when reading " + file);
+                                    throw new IOException("File size mismatch when reading " + source);
                                 }
                             }
                             packFile.setSize(proxyOutputStream.getByteCount());
@@ -215,7 +241,7 @@ public class Packager extends PackagerBase
                                     + " (" + packFile.length() + " -> " + packFile.size() + " bytes)");
                         }
 
-                        storedFiles.put(file, packFile);
+                        storedFiles.put(source, packFile);
                     }
 
                     // even if not written, it counts towards pack size
@@ -263,38 +289,160 @@ public class Packager extends PackagerBase
         }
         installerJar.closeEntry();
 
-        for (PackFile pack200PackFile : pack200Files)
+        writePack200Files(installerJar, pack200Files);
+    }
+
+    /**
+     * Packs the Pack200 jars concurrently, and writes them to the installer jar in order.
+     * <p/>
+     * Each jar is packed into a buffer which spills to a temporary file once it exceeds
+     * {@link #PACK200_BUFFER_THRESHOLD} bytes. At most {@link #PACK200_PENDING_PER_THREAD} jars per thread are
+     * packed ahead of the one being written, which bounds the memory held by the buffers.
+     *
+     * @param installerJar  the installer jar
+     * @param pack200Files the jars to pack, in the order to write them
+     * @throws IOException for any I/O error
+     */
+    private void writePack200Files(JarOutputStream installerJar, List<PackFile> pack200Files) throws IOException
+    {
+        if (pack200Files.isEmpty())
         {
-            try
+            return;
+        }
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), pack200Files.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Deque<Future<DeferredFileOutputStream>> pending = new ArrayDeque<>();
+        try
+        {
+            int next = 0;
+            for (PackFile pack200PackFile : pack200Files)
             {
-                installerJar.putNextEntry(new ZipEntry(RESOURCES_PATH + pack200PackFile.getStreamResourceName()));
-                Path tmpfile = Files.createTempFile("izpack-compress", ".pack200");
-                try (OutputStream tmpOut = Files.newOutputStream(tmpfile);
-                     BufferedOutputStream bufferedOut = new BufferedOutputStream(tmpOut))
+                while (next < pack200Files.size() && pending.size() < threads * PACK200_PENDING_PER_THREAD)
                 {
-                    CountingOutputStream proxyOutputStream = new CountingOutputStream(bufferedOut);
-                    Pack200.Packer packer = createPack200Packer(pack200PackFile);
-                    try (JarFile jar = new JarFile(pack200PackFile.getFile()))
+                    final PackFile packFile = pack200Files.get(next++);
+                    pending.add(executor.submit(new Callable<DeferredFileOutputStream>()
                     {
-                        packer.pack(jar, proxyOutputStream);
-                    }
-                    pack200PackFile.setSize(proxyOutputStream.getByteCount());
+                        @Override
+                        public DeferredFileOutputStream call() throws IOException
+                        {
+                            return pack200(packFile);
+                        }
+                    }));
+                }
 
-                    Files.copy(tmpfile, installerJar);
+                DeferredFileOutputStream packed = getPacked(pending.remove(), pack200PackFile);
+                try
+                {
+                    installerJar.putNextEntry(new ZipEntry(RESOURCES_PATH + pack200PackFile.getStreamResourceName()));
+                    packed.writeTo(installerJar);
 
                     logger.fine("File " + pack200PackFile.getTargetPath() + " added compressed as Pack 200 ("
                             + pack200PackFile.length() + " -> " + pack200PackFile.size() + " bytes)");
                 }
                 finally
                 {
-                    Files.deleteIfExists(tmpfile);
+                    installerJar.closeEntry();
+                    installerJar.flush();
+                    if (!packed.isInMemory())
+                    {
+                        Files.deleteIfExists(packed.getFile().toPath());
+                    }
                 }
             }
-            finally
+        }
+        finally
+        {
+            executor.shutdownNow();
+            // release the spill files of jars packed ahead of a failure
+            for (Future<DeferredFileOutputStream> future : pending)
+            {
+                try
+                {
+                    DeferredFileOutputStream packed = future.get();
+                    if (!packed.isInMemory())
+                    {
+                        Files.deleteIfExists(packed.getFile().toPath());
+                    }
+                }
+                catch (Exception ignore)
+                {
+                    // packing was cancelled or failed
+                }
+            }
+        }
+    }
+
+    /**
+     * Packs a jar with Pack200.
+     * <p/>
+     * A new packer is created for each jar, so that the packer properties of the pack file aren't shared with
+     * other threads.
+     *
+     * @param packFile the jar to pack
+     * @return the buffer holding the packed jar
+     * @throws IOException for any I/O error
+     */
+    private DeferredFileOutputStream pack200(PackFile packFile) throws IOException
+    {
+        DeferredFileOutputStream packed = DeferredFileOutputStream.builder()
+                .setThreshold(PACK200_BUFFER_THRESHOLD)
+                .setPrefix("izpack-compress")
+                .setSuffix(".pack200")
+                .get();
+        try
+        {
+            Pack200.Packer packer = createPack200Packer(packFile);
+            if (packFile.getLocator() != null)
+            {
+                try (JarInputStream jar = new JarInputStream(packFile.getLocator().openStream()))
+                {
+                    packer.pack(jar, packed);
+                }
+            }
+            else
+            {
+                try (JarFile jar = new JarFile(packFile.getFile()))
+                {
+                    packer.pack(jar, packed);
+                }
+            }
+        }
+        finally
+        {
+            packed.close();
+        }
+        packFile.setSize(packed.getByteCount());
+        return packed;
+    }
+
+    /**
+     * Waits for a jar to be packed.
+     *
+     * @param future   the packing result
+     * @param packFile the jar being packed
+     * @return the buffer holding the packed jar
+     * @throws IOException if packing failed or was interrupted
+     */
+    private DeferredFileOutputStream getPacked(Future<DeferredFileOutputStream> future, PackFile packFile)
+            throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while packing " + packFile.getTargetPath());
+        }
+        catch (ExecutionException exception)
+        {
+            Throwable cause = exception.getCause();
+            if (cause instanceof IOException)
             {
-                installerJar.closeEntry();
-                installerJar.flush();
+                throw (IOException) cause;
             }
+            throw new IOException("Failed to pack " + packFile.getTargetPath() + " with Pack200", cause);
         }
     }
 
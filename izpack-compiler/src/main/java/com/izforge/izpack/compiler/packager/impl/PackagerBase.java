@@ -28,6 +28,8 @@ import com.izforge.izpack.api.data.DynamicVariable;
 import com.izforge.izpack.api.data.GUIPrefs;
 import com.izforge.izpack.api.data.Info;
 import com.izforge.izpack.api.data.InstallerRequirement;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.data.PackFileLocator;
 import com.izforge.izpack.api.data.PackInfo;
 import com.izforge.izpack.api.data.Panel;
 import com.izforge.izpack.api.exception.CompilerException;
@@ -372,6 +374,7 @@ public abstract class PackagerBase implements IPackager
         finally
         {
             installerJar.close();
+            closeLocators();
         }
     }
 
@@ -555,6 +558,40 @@ public abstract class PackagerBase implements IPackager
      */
     protected abstract void writePacks(JarOutputStream installerJar) throws IOException;
 
+    /**
+     * Opens the data of a pack file.
+     * <p/>
+     * The data is read through the pack file's locator if it has one, otherwise from the pack file's source file.
+     *
+     * @param packInfo the pack information
+     * @param packFile the pack file
+     * @return a new stream to read the data from
+     * @throws IOException for any I/O error
+     */
+    protected static InputStream openPackFile(PackInfo packInfo, PackFile packFile) throws IOException
+    {
+        PackFileLocator locator = packFile.getLocator();
+        if (locator != null)
+        {
+            return locator.openStream();
+        }
+        return Files.newInputStream(packInfo.getFile(packFile).toPath());
+    }
+
+    /**
+     * Releases the resources held by the locators of the pack files.
+     */
+    private void closeLocators()
+    {
+        for (PackInfo packInfo : packsList)
+        {
+            for (PackFile packFile : packInfo.getPackFiles())
+            {
+                IOUtils.closeQuietly(packFile.getLocator());
+            }
+        }
+    }
+
     /**
      * Dispatches a message to the listeners.
      *
@@ -125,7 +125,7 @@ public class ResourceFinder
 
             if (!resource.isAbsolute())
             {
-                resource = new File(CompilerData.IZPACK_HOME, path);
+                resource = new File(compilerData.getIzpackHome(), path);
             }
 
             if (resource.exists())
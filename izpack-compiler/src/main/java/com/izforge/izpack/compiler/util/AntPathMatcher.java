@@ -1,5 +1,7 @@
 package com.izforge.izpack.compiler.util;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -23,9 +25,22 @@ public class AntPathMatcher {
 
     private static final Pattern VAR_PATTERN = Pattern.compile("\\$\\{([^/]+?)\\}");
 
+    /**
+     * Compiled case sensitive patterns, keyed on the Ant-style pattern.
+     */
+    private final ConcurrentMap<String, Pattern> caseSensitivePatterns = new ConcurrentHashMap<String, Pattern>();
+
+    /**
+     * Compiled case insensitive patterns, keyed on the Ant-style pattern.
+     */
+    private final ConcurrentMap<String, Pattern> caseInsensitivePatterns = new ConcurrentHashMap<String, Pattern>();
+
     /**
      * Match the given <code>path</code> against the given <code>pattern</code>,
      * according to this PathMatcher's matching strategy.
+     * <p>
+     * Each pattern is translated and compiled once per matcher, so a matcher should be reused when matching many
+     * paths against the same patterns.
      * @param pattern the pattern to match against
      * @param path the path String to test
      * @param caseSensitive whether the test should be case-sensitive
@@ -33,25 +48,40 @@ public class AntPathMatcher {
      * <code>false</code> if it didn't
      */
     public boolean match(String pattern, String path, boolean caseSensitive) {
+        if (path.indexOf('$') != -1) {
+            path = unifyVarReferences(path);
+        }
+        return compile(pattern, caseSensitive).matcher(path).matches();
+    }
 
-        pattern = pattern.replaceAll("\\\\", "/");
-        pattern = pattern.replaceAll("\\.", "\\\\.");
-        pattern = pattern.replaceAll("\\*", "[^/]*");
-        pattern = pattern.replaceAll("(\\[\\^/\\]\\*){2}", ".*");
-        pattern = pattern.replaceAll("/\\.\\*", "(/.*)*");
-        pattern = unifyVarReferences(pattern);
-        pattern = pattern.replaceAll("\\$", "\\\\\\$");
-
-        path = unifyVarReferences(path);
+    /**
+     * Returns the compiled form of an Ant-style pattern.
+     *
+     * @param pattern the pattern
+     * @param caseSensitive whether the pattern should match case-sensitively
+     * @return the compiled pattern
+     */
+    Pattern compile(String pattern, boolean caseSensitive) {
+        ConcurrentMap<String, Pattern> cache = caseSensitive ? caseSensitivePatterns : caseInsensitivePatterns;
+        Pattern result = cache.get(pattern);
+        if (result == null) {
+            String regex = pattern.replaceAll("\\\\", "/");
+            regex = regex.replaceAll("\\.", "\\\\.");
+            regex = regex.replaceAll("\\*", "[^/]*");
+            regex = regex.replaceAll("(\\[\\^/\\]\\*){2}", ".*");
+            regex = regex.replaceAll("/\\.\\*", "(/.*)*");
+            regex = unifyVarReferences(regex);
+            regex = regex.replaceAll("\\$", "\\\\\\$");
 
-        int flags = 0;
-        if (!caseSensitive)
-        {
-            flags |= Pattern.CASE_INSENSITIVE;
+            int flags = 0;
+            if (!caseSensitive)
+            {
+                flags |= Pattern.CASE_INSENSITIVE;
+            }
+            result = Pattern.compile(regex, flags);
+            cache.put(pattern, result);
         }
-        Pattern p = Pattern.compile(pattern, flags);
-
-        return p.matcher(path).matches();
+        return result;
     }
 
     /**
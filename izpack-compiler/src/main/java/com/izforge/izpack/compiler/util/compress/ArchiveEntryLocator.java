@@ -0,0 +1,163 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.util.compress;
+
+import com.izforge.izpack.api.data.PackFileLocator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Locates an entry of an {@link ArchiveSource}, or the decompressed content of a compressed file.
+ * <p/>
+ * Two locators are equal if they refer to the same entry of the same file.
+ */
+public class ArchiveEntryLocator implements PackFileLocator
+{
+    /**
+     * The archive.
+     */
+    private final ArchiveSource source;
+
+    /**
+     * The entry index, or {@code -1} for the decompressed content of the file.
+     */
+    private final int index;
+
+    /**
+     * The entry name.
+     */
+    private final String name;
+
+    /**
+     * The entry length.
+     */
+    private final long length;
+
+    /**
+     * The entry last-modification time.
+     */
+    private final long lastModified;
+
+    /**
+     * Determines if the entry is a directory.
+     */
+    private final boolean directory;
+
+    /**
+     * Constructs an {@code ArchiveEntryLocator}.
+     *
+     * @param source       the archive
+     * @param index        the entry index, or {@code -1} for the decompressed content of the file
+     * @param name         the entry name
+     * @param length       the entry length
+     * @param lastModified the entry last-modification time
+     * @param directory    determines if the entry is a directory
+     */
+    ArchiveEntryLocator(ArchiveSource source, int index, String name, long length, long lastModified,
+                        boolean directory)
+    {
+        this.source = source;
+        this.index = index;
+        this.name = name;
+        this.length = length;
+        this.lastModified = lastModified;
+        this.directory = directory;
+    }
+
+    @Override
+    public File getFile()
+    {
+        return source.getFile();
+    }
+
+    @Override
+    public String getName()
+    {
+        return name;
+    }
+
+    @Override
+    public long length()
+    {
+        return length;
+    }
+
+    @Override
+    public long lastModified()
+    {
+        return lastModified;
+    }
+
+    @Override
+    public boolean isDirectory()
+    {
+        return directory;
+    }
+
+    /**
+     * Opens the entry for reading.
+     * <p/>
+     * Entries of the same archive share the archive stream, so the returned stream must be closed before
+     * another entry of the archive is opened.
+     *
+     * @return a new stream to read the entry from
+     * @throws IOException for any I/O error
+     */
+    @Override
+    public InputStream openStream() throws IOException
+    {
+        return source.open(index);
+    }
+
+    @Override
+    public void close()
+    {
+        source.close();
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (!(obj instanceof ArchiveEntryLocator))
+        {
+            return false;
+        }
+        ArchiveEntryLocator other = (ArchiveEntryLocator) obj;
+        return index == other.index && getFile().equals(other.getFile());
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * getFile().hashCode() + index;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getFile() + "!/" + name;
+    }
+}
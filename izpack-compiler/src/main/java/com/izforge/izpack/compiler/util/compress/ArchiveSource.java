@@ -0,0 +1,343 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.util.compress;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveException;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.compressors.CompressorException;
+import org.apache.commons.compress.compressors.CompressorStreamFactory;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * An archive, or a single compressed file, whose content is added to packs without extracting it.
+ * <p/>
+ * Archive entries can only be read sequentially. The archive stream is therefore kept open between reads, so that
+ * reading the entries in archive order takes a single pass, and is only reopened to read an earlier entry.
+ * An entry opened while another one is still being read gets an archive stream of its own.
+ */
+public class ArchiveSource implements Closeable
+{
+    /**
+     * The archive file.
+     */
+    private final File file;
+
+    /**
+     * Determines if the file is compressed. Only valid once the file has been opened.
+     */
+    private boolean compressed;
+
+    /**
+     * The decompressed stream the archive stream reads from, or {@code null} if the archive isn't open.
+     */
+    private InputStream uncompressed;
+
+    /**
+     * The open archive stream, or {@code null} if the archive isn't open.
+     */
+    private ArchiveInputStream archive;
+
+    /**
+     * The index of the entry the archive stream is positioned at.
+     */
+    private int position;
+
+    /**
+     * The index of the last entry holding data.
+     */
+    private int last = -1;
+
+    /**
+     * Determines if an entry is being read from the shared archive stream.
+     */
+    private boolean busy;
+
+    /**
+     * Constructs an {@code ArchiveSource}.
+     *
+     * @param file the archive or compressed file
+     */
+    public ArchiveSource(File file)
+    {
+        this.file = file;
+    }
+
+    /**
+     * Returns the archive file.
+     *
+     * @return the archive file
+     */
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * Determines if the file is compressed.
+     * <p/>
+     * This is only valid after {@link #getEntries()} or {@link #getContent(String)} has been invoked.
+     *
+     * @return {@code true} if the file is compressed
+     */
+    public boolean isCompressed()
+    {
+        return compressed;
+    }
+
+    /**
+     * Lists the entries of the archive.
+     * <p/>
+     * This reads the archive once, to determine the entries and any lengths the archive doesn't record up front.
+     *
+     * @return the archive entries, in archive order
+     * @throws ArchiveException if the file isn't an archive
+     * @throws IOException      for any I/O error
+     */
+    public List<ArchiveEntryLocator> getEntries() throws ArchiveException, IOException
+    {
+        List<ArchiveEntryLocator> result = new ArrayList<ArchiveEntryLocator>();
+        InputStream in = openUncompressed();
+        ArchiveInputStream archiveIn = null;
+        try
+        {
+            archiveIn = new ArchiveStreamFactory().createArchiveInputStream(file, in);
+            int index = 0;
+            ArchiveEntry entry;
+            while ((entry = archiveIn.getNextEntry()) != null)
+            {
+                Date date = entry.getLastModifiedDate();
+                long lastModified = (date != null) ? date.getTime() : file.lastModified();
+                if (entry.isDirectory())
+                {
+                    String name = FilenameUtils.normalizeNoEndSeparator(entry.getName(), true);
+                    result.add(new ArchiveEntryLocator(this, index, name, 0, lastModified, true));
+                }
+                else
+                {
+                    long length = entry.getSize();
+                    if (length < 0)
+                    {
+                        // length not known up front, e.g. for ZIP entries followed by a data descriptor
+                        length = IOUtils.consume(archiveIn);
+                    }
+                    result.add(new ArchiveEntryLocator(this, index, entry.getName(), length, lastModified, false));
+                    last = index;
+                }
+                ++index;
+            }
+        }
+        finally
+        {
+            IOUtils.closeQuietly(archiveIn);
+            IOUtils.closeQuietly(in);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the decompressed content of a compressed file that isn't an archive.
+     *
+     * @param name the name of the decompressed file
+     * @return the decompressed content
+     * @throws IOException for any I/O error
+     */
+    public ArchiveEntryLocator getContent(String name) throws IOException
+    {
+        long length;
+        try (InputStream in = openUncompressed())
+        {
+            length = IOUtils.consume(in);
+        }
+        return new ArchiveEntryLocator(this, -1, name, length, file.lastModified(), false);
+    }
+
+    /**
+     * Closes the archive stream, if it is open.
+     */
+    @Override
+    public synchronized void close()
+    {
+        if (busy)
+        {
+            // released once the entry being read is closed
+            return;
+        }
+        IOUtils.closeQuietly(archive);
+        IOUtils.closeQuietly(uncompressed);
+        archive = null;
+        uncompressed = null;
+    }
+
+    /**
+     * Opens an entry.
+     * <p/>
+     * The entry is read from the shared archive stream, unless another entry is still being read from it.
+     *
+     * @param index the entry index, or {@code -1} to open the decompressed content of the file
+     * @return the entry data
+     * @throws IOException for any I/O error
+     */
+    InputStream open(int index) throws IOException
+    {
+        if (index < 0)
+        {
+            return openUncompressed();
+        }
+        synchronized (this)
+        {
+            if (!busy)
+            {
+                if (archive == null || position >= index)
+                {
+                    close();
+                    uncompressed = openUncompressed();
+                    archive = openArchive(uncompressed);
+                    position = -1;
+                }
+                try
+                {
+                    position = skip(archive, position, index);
+                }
+                catch (IOException exception)
+                {
+                    close();
+                    throw exception;
+                }
+                busy = true;
+                final boolean lastEntry = (index >= last);
+                return new FilterInputStream(archive)
+                {
+                    @Override
+                    public void close()
+                    {
+                        synchronized (ArchiveSource.this)
+                        {
+                            busy = false;
+                            if (lastEntry)
+                            {
+                                // no more data to read, so release the archive
+                                ArchiveSource.this.close();
+                            }
+                        }
+                    }
+                };
+            }
+        }
+
+        // read concurrently with another entry
+        final InputStream in = openUncompressed();
+        final ArchiveInputStream archiveIn = openArchive(in);
+        try
+        {
+            skip(archiveIn, -1, index);
+        }
+        catch (IOException exception)
+        {
+            IOUtils.closeQuietly(archiveIn);
+            IOUtils.closeQuietly(in);
+            throw exception;
+        }
+        return new FilterInputStream(archiveIn)
+        {
+            @Override
+            public void close()
+            {
+                IOUtils.closeQuietly(archiveIn);
+                IOUtils.closeQuietly(in);
+            }
+        };
+    }
+
+    /**
+     * Opens the archive stream.
+     *
+     * @param in the decompressed file. This is closed if the archive can't be opened
+     * @return the archive stream
+     * @throws IOException if the archive can't be opened
+     */
+    private ArchiveInputStream openArchive(InputStream in) throws IOException
+    {
+        try
+        {
+            return new ArchiveStreamFactory().createArchiveInputStream(file, in);
+        }
+        catch (ArchiveException exception)
+        {
+            IOUtils.closeQuietly(in);
+            throw new IOException("Failed to reopen archive " + file, exception);
+        }
+    }
+
+    /**
+     * Advances an archive stream to an entry.
+     *
+     * @param in       the archive stream
+     * @param position the index of the entry the stream is positioned at
+     * @param index    the index of the entry to advance to
+     * @return the new position
+     * @throws IOException if the archive doesn't contain the entry
+     */
+    private int skip(ArchiveInputStream in, int position, int index) throws IOException
+    {
+        while (position < index)
+        {
+            if (in.getNextEntry() == null)
+            {
+                throw new IOException("Archive " + file + " no longer contains entry " + index);
+            }
+            ++position;
+        }
+        return position;
+    }
+
+    /**
+     * Opens the file, decompressing it if it is compressed.
+     *
+     * @return a stream to read the decompressed file
+     * @throws IOException for any I/O error
+     */
+    private InputStream openUncompressed() throws IOException
+    {
+        InputStream in = IOUtils.buffer(FileUtils.openInputStream(file));
+        try
+        {
+            compressed = true;
+            return IOUtils.buffer(new CompressorStreamFactory().createCompressorInputStream(in));
+        }
+        catch (CompressorException e)
+        {
+            // file is not a single compressed file, may be an uncompressed archive
+            compressed = false;
+            return in;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler;
+
+import com.izforge.izpack.compiler.data.CompilerData;
+import com.izforge.izpack.util.FileUtil;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Level;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link BatchCompiler}.
+ */
+public class BatchCompilerTest
+{
+    /**
+     * Temporary folder for the installers.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that several descriptors can be compiled concurrently, and that a failing compilation doesn't affect
+     * the others.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCompile() throws Exception
+    {
+        List<CompilerData> descriptors = new ArrayList<CompilerData>();
+        descriptors.add(createData("samples/izpack.xml", "izpack1.jar"));
+        descriptors.add(createData("samples/helloAndFinish.xml", "hello.jar"));
+        descriptors.add(createData("samples/izpack.xml", "izpack2.jar"));
+        File missing = new File(temporaryFolder.getRoot(), "missing.xml");
+        descriptors.add(new CompilerData(missing.getAbsolutePath(), temporaryFolder.getRoot().getAbsolutePath(),
+                                         new File(temporaryFolder.getRoot(), "missing.jar").getAbsolutePath(),
+                                         false));
+
+        ConsoleHandler handler = new ConsoleHandler();
+        handler.setLevel(Level.WARNING);
+        BatchCompiler compiler = new BatchCompiler(3, handler);
+        List<BatchCompiler.Result> results = compiler.compile(descriptors);
+
+        assertEquals(4, results.size());
+        for (int i = 0; i < 3; ++i)
+        {
+            BatchCompiler.Result result = results.get(i);
+            assertSame(descriptors.get(i), result.getCompilerData());
+            assertTrue(result.isSuccess());
+            checkInstaller(new File(result.getCompilerData().getOutput()));
+        }
+        assertFalse(results.get(3).isSuccess());
+        assertNotNull(results.get(3).getError());
+    }
+
+    /**
+     * Creates the compilation data for a descriptor.
+     *
+     * @param descriptor the descriptor resource path
+     * @param output     the installer file name
+     * @return the compilation data
+     */
+    private CompilerData createData(String descriptor, String output)
+    {
+        File file = FileUtil.convertUrlToFile(getClass().getClassLoader().getResource(descriptor));
+        File out = new File(temporaryFolder.getRoot(), output);
+        return new CompilerData(file.getAbsolutePath(), file.getParentFile().getAbsolutePath(),
+                                out.getAbsolutePath(), false);
+    }
+
+    /**
+     * Verifies an installer contains the installer classes and resources.
+     *
+     * @param file the installer
+     * @throws Exception for any error
+     */
+    private void checkInstaller(File file) throws Exception
+    {
+        assertTrue(file.exists());
+        JarFile jar = new JarFile(file);
+        try
+        {
+            assertNotNull(jar.getEntry("com/izforge/izpack/installer/bootstrap/Installer.class"));
+            assertNotNull(jar.getEntry("resources/vars"));
+        }
+        finally
+        {
+            jar.close();
+        }
+    }
+}
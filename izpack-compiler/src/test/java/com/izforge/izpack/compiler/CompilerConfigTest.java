@@ -22,6 +22,7 @@ package com.izforge.izpack.compiler;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import java.io.File;
+import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -35,6 +36,7 @@ import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import com.izforge.izpack.api.data.Info;
 import com.izforge.izpack.compiler.container.TestCompilerContainer;
 import com.izforge.izpack.compiler.merge.CompilerPathResolver;
 import com.izforge.izpack.core.container.AbstractContainer;
@@ -80,6 +82,25 @@ public class CompilerConfigTest
                 "com/izforge/izpack/img/JFrameIcon.png"));
     }
 
+    /**
+     * Verifies that properties defined by {@code <property>} elements are substituted in the installation
+     * descriptor.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    @InstallFile("samples/propertySubstitution.xml")
+    public void propertiesShouldBeSubstituted() throws Exception
+    {
+        compilerConfig.executeCompiler();
+        jar = testContainer.getComponent(JarFile.class);
+        try (ObjectInputStream in = new ObjectInputStream(jar.getInputStream(jar.getEntry("resources/info"))))
+        {
+            Info info = (Info) in.readObject();
+            Assert.assertEquals("Property Installation", info.getAppName());
+        }
+    }
+
     @Test
     public void mergeManagerShouldGetTheMergeableFromPanel() throws Exception
     {
@@ -60,7 +60,7 @@ public class CliAnalyzerTest
     {
         CompilerData data = analyzer.parseArgs(new String[]{"myInstall.xml", "-h/mon/che min/"});
         assertThat(data.getInstallFile(), Is.is("myInstall.xml"));
-        assertThat(CompilerData.IZPACK_HOME, Is.is("/mon/che min/"));
+        assertThat(data.getIzpackHome(), Is.is("/mon/che min/"));
     }
 
     @Test
@@ -0,0 +1,109 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.logging;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+
+/**
+ * Tests the {@link CompilationLogHandler}.
+ */
+public class CompilationLogHandlerTest
+{
+    /**
+     * Verifies that records are routed to the handler of the compilation while it runs, and that the configuration
+     * of the IzPack root logger is restored when it ends.
+     */
+    @Test
+    public void testBeginEnd()
+    {
+        Logger root = Logger.getLogger("com.izforge.izpack");
+        List<Handler> handlers = new ArrayList<Handler>(Arrays.asList(root.getHandlers()));
+        RecordingHandler existing = new RecordingHandler();
+        root.addHandler(existing);
+        handlers.add(existing);
+        Level level = root.getLevel();
+        boolean useParentHandlers = root.getUseParentHandlers();
+        try
+        {
+            RecordingHandler handler = new RecordingHandler();
+            handler.setLevel(Level.FINE);
+            CompilationLogHandler.begin(handler);
+            try
+            {
+                assertFalse(Arrays.asList(root.getHandlers()).contains(existing));
+                Logger.getLogger(CompilationLogHandlerTest.class.getName()).fine("during");
+            }
+            finally
+            {
+                CompilationLogHandler.end(handler);
+            }
+            Logger.getLogger(CompilationLogHandlerTest.class.getName()).warning("after");
+
+            assertEquals(Arrays.asList("during"), handler.messages);
+            assertEquals(Arrays.asList("after"), existing.messages);
+            assertEquals(handlers, Arrays.asList(root.getHandlers()));
+            assertEquals(level, root.getLevel());
+            assertEquals(useParentHandlers, root.getUseParentHandlers());
+        }
+        finally
+        {
+            root.removeHandler(existing);
+        }
+    }
+
+    /**
+     * Handler that records the messages published to it.
+     */
+    private static class RecordingHandler extends Handler
+    {
+        private final List<String> messages = new ArrayList<String>();
+
+        @Override
+        public void publish(LogRecord record)
+        {
+            if (isLoggable(record))
+            {
+                messages.add(record.getMessage());
+            }
+        }
+
+        @Override
+        public void flush()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
@@ -22,6 +22,7 @@ package com.izforge.izpack.compiler.packager.impl;
 import com.izforge.izpack.api.data.Blockable;
 import com.izforge.izpack.api.data.Info;
 import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.PackFile;
 import com.izforge.izpack.api.data.PackInfo;
 import com.izforge.izpack.api.rules.RulesEngine;
 import com.izforge.izpack.compiler.data.CompilerData;
@@ -30,17 +31,32 @@ import com.izforge.izpack.compiler.packager.IPackager;
 import com.izforge.izpack.merge.MergeManager;
 import com.izforge.izpack.merge.resolve.MergeableResolver;
 import com.izforge.izpack.test.util.TestHelper;
+import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.jar.JarInputStream;
 import java.util.jar.JarOutputStream;
+import java.util.jar.Pack200;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 
 /**
@@ -101,6 +117,73 @@ public class PackagerTest extends AbstractPackagerTest
         System.out.println("Writing pack of " + packSize + " KiB took " + timeDiff + "ms");
     }
 
+    /**
+     * Verifies that jars packed concurrently with Pack200 are written in order, and unpack to the original content.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testPack200() throws Exception
+    {
+        File installerJar = temporaryFolder.newFile("installer.jar");
+        PackInfo packInfo = new PackInfo("Core", null, "", true, false, null, true, 0);
+        List<PackFile> packFiles = new ArrayList<PackFile>();
+        for (int i = 0; i < 10; ++i)
+        {
+            File jar = temporaryFolder.newFile("lib" + i + ".jar");
+            try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar)))
+            {
+                out.putNextEntry(new ZipEntry("entry" + i + ".txt"));
+                out.write(("content " + i).getBytes(StandardCharsets.UTF_8));
+            }
+            Map<String, String> properties = new HashMap<String, String>();
+            properties.put(Pack200.Packer.EFFORT, Integer.toString(i % 10));
+            packInfo.addFile(jar.getParentFile(), jar, "$INSTALL_DIR/" + jar.getName(), null,
+                             OverrideType.OVERRIDE_TRUE, "", Blockable.BLOCKABLE_NONE, Collections.emptyMap(),
+                             "", properties);
+        }
+        packFiles.addAll(packInfo.getPackFiles());
+
+        JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(installerJar));
+        IPackager packager = createPackager(jarOutputStream, mock(MergeManager.class));
+        packager.addPack(packInfo);
+        packager.createInstaller();
+
+        List<String> names = new ArrayList<String>();
+        try (ZipFile zip = new ZipFile(installerJar))
+        {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements())
+            {
+                String name = entries.nextElement().getName();
+                if (name.startsWith("resources/packs/pack200-"))
+                {
+                    names.add(name);
+                }
+            }
+            assertEquals(packFiles.size(), names.size());
+            for (int i = 0; i < packFiles.size(); ++i)
+            {
+                PackFile packFile = packFiles.get(i);
+                ZipEntry entry = zip.getEntry(PackagerBase.RESOURCES_PATH + packFile.getStreamResourceName());
+                assertEquals(entry.getName(), names.get(i));
+                assertEquals(entry.getSize(), packFile.size());
+
+                ByteArrayOutputStream unpacked = new ByteArrayOutputStream();
+                try (InputStream in = zip.getInputStream(entry);
+                     JarOutputStream out = new JarOutputStream(unpacked))
+                {
+                    Pack200.newUnpacker().unpack(in, out);
+                }
+                try (JarInputStream in = new JarInputStream(new ByteArrayInputStream(unpacked.toByteArray())))
+                {
+                    assertEquals("entry" + i + ".txt", in.getNextJarEntry().getName());
+                    assertEquals("content " + i, IOUtils.toString(in, StandardCharsets.UTF_8));
+                }
+            }
+        }
+    }
+
     private PackInfo createPackInfo(String name, File... files) throws IOException {
 
         PackInfo packInfo = new PackInfo(name, null, "", true, false, null, true, calculateTotalSize(files));
@@ -0,0 +1,174 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.compiler.util.compress;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.commons.compress.archivers.ArchiveException;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests {@link ArchiveSource} and {@link ArchiveEntryLocator}.
+ */
+public class ArchiveSourceTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that the entries of a compressed tar archive can be listed and read in any order.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testTarGz() throws Exception
+    {
+        File file = temporaryFolder.newFile("test.tar.gz");
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(
+                new GzipCompressorOutputStream(FileUtils.openOutputStream(file))))
+        {
+            out.putArchiveEntry(new TarArchiveEntry("dir/"));
+            out.closeArchiveEntry();
+            addTarEntry(out, "dir/a.txt", "a");
+            addTarEntry(out, "dir/b.txt", "bb");
+            addTarEntry(out, "c.txt", "ccc");
+        }
+
+        ArchiveSource source = new ArchiveSource(file);
+        List<ArchiveEntryLocator> entries = source.getEntries();
+        assertTrue(source.isCompressed());
+        assertEquals(4, entries.size());
+        assertEquals("dir", entries.get(0).getName());
+        assertTrue(entries.get(0).isDirectory());
+        assertEquals("dir/b.txt", entries.get(2).getName());
+        assertEquals(2, entries.get(2).length());
+        assertFalse(entries.get(2).isDirectory());
+
+        assertEquals("a", read(entries.get(1)));
+        assertEquals("bb", read(entries.get(2)));
+        assertEquals("a", read(entries.get(1)));
+        assertEquals("ccc", read(entries.get(3)));
+
+        // entries read concurrently get an archive stream of their own
+        try (InputStream first = entries.get(3).openStream())
+        {
+            assertEquals("a", read(entries.get(1)));
+            assertEquals("ccc", IOUtils.toString(first, StandardCharsets.UTF_8));
+        }
+        source.close();
+    }
+
+    /**
+     * Verifies that the entries of a ZIP archive can be read, including those whose length is only recorded after
+     * the data.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testZip() throws Exception
+    {
+        File file = temporaryFolder.newFile("test.zip");
+        try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(FileUtils.openOutputStream(file)))
+        {
+            out.putArchiveEntry(new ZipArchiveEntry("x.txt"));
+            out.write("xyz".getBytes(StandardCharsets.UTF_8));
+            out.closeArchiveEntry();
+        }
+
+        ArchiveSource source = new ArchiveSource(file);
+        List<ArchiveEntryLocator> entries = source.getEntries();
+        assertFalse(source.isCompressed());
+        assertEquals(1, entries.size());
+        assertEquals(3, entries.get(0).length());
+        assertEquals("xyz", read(entries.get(0)));
+        assertEquals(entries.get(0), new ArchiveSource(file).getEntries().get(0));
+    }
+
+    /**
+     * Verifies that a compressed file that isn't an archive can be read as a whole.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCompressedFile() throws Exception
+    {
+        File file = temporaryFolder.newFile("test.txt.gz");
+        try (OutputStream out = new GzipCompressorOutputStream(FileUtils.openOutputStream(file)))
+        {
+            out.write("hello".getBytes(StandardCharsets.UTF_8));
+        }
+
+        ArchiveSource source = new ArchiveSource(file);
+        try
+        {
+            source.getEntries();
+            fail("Expected ArchiveException");
+        }
+        catch (ArchiveException expected)
+        {
+            // not an archive
+        }
+        assertTrue(source.isCompressed());
+        ArchiveEntryLocator content = source.getContent("test.txt");
+        assertEquals(5, content.length());
+        assertEquals("hello", read(content));
+    }
+
+    private static void addTarEntry(TarArchiveOutputStream out, String name, String content) throws IOException
+    {
+        byte[] data = content.getBytes(StandardCharsets.UTF_8);
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(data.length);
+        out.putArchiveEntry(entry);
+        out.write(data);
+        out.closeArchiveEntry();
+    }
+
+    private static String read(ArchiveEntryLocator locator) throws IOException
+    {
+        try (InputStream in = locator.openStream())
+        {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.data;
+
+import java.io.ObjectStreamException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+
+/**
+ * {@link Properties} backed by a {@link ConcurrentHashMap}.
+ * <p/>
+ * {@code Properties} inherits the synchronized methods of {@code Hashtable}, so readers contend with each other and
+ * with writers. Here, reads don't lock, and writes only lock the affected bin of the map. Iteration is weakly
+ * consistent: it never throws {@code ConcurrentModificationException}, and reflects the entries at some point at or
+ * since the creation of the iterator.
+ * <p/>
+ * Every method that reads or writes the inherited table is overridden, so that the table is never used.
+ * Default properties aren't supported.
+ * <p/>
+ * Instances are serialized as a plain {@code Properties}, so that readers don't need this class.
+ */
+public class ConcurrentProperties extends Properties
+{
+    private static final long serialVersionUID = 7166239870342316512L;
+
+    /**
+     * The properties.
+     */
+    private final ConcurrentHashMap<Object, Object> map;
+
+    /**
+     * Constructs an empty {@code ConcurrentProperties}.
+     */
+    public ConcurrentProperties()
+    {
+        map = new ConcurrentHashMap<Object, Object>();
+    }
+
+    /**
+     * Constructs a {@code ConcurrentProperties}, populated from existing properties.
+     * <p/>
+     * Only entries with string keys and values are copied, including those from the defaults of {@code properties}.
+     *
+     * @param properties the properties to copy
+     */
+    public ConcurrentProperties(Properties properties)
+    {
+        map = new ConcurrentHashMap<Object, Object>(Math.max(16, properties.size() * 2));
+        for (String name : properties.stringPropertyNames())
+        {
+            String value = properties.getProperty(name);
+            if (value != null)
+            {
+                map.put(name, value);
+            }
+        }
+    }
+
+    @Override
+    public String getProperty(String key)
+    {
+        Object value = map.get(key);
+        return (value instanceof String) ? (String) value : null;
+    }
+
+    @Override
+    public String getProperty(String key, String defaultValue)
+    {
+        String value = getProperty(key);
+        return (value == null) ? defaultValue : value;
+    }
+
+    @Override
+    public Object setProperty(String key, String value)
+    {
+        return map.put(key, value);
+    }
+
+    @Override
+    public Enumeration<?> propertyNames()
+    {
+        return Collections.enumeration(stringPropertyNames());
+    }
+
+    @Override
+    public Set<String> stringPropertyNames()
+    {
+        Set<String> result = new HashSet<String>();
+        for (Map.Entry<Object, Object> entry : map.entrySet())
+        {
+            if (entry.getKey() instanceof String && entry.getValue() instanceof String)
+            {
+                result.add((String) entry.getKey());
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    @Override
+    public int size()
+    {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return map.isEmpty();
+    }
+
+    @Override
+    public Enumeration<Object> keys()
+    {
+        return map.keys();
+    }
+
+    @Override
+    public Enumeration<Object> elements()
+    {
+        return map.elements();
+    }
+
+    @Override
+    public boolean contains(Object value)
+    {
+        return map.contains(value);
+    }
+
+    @Override
+    public boolean containsValue(Object value)
+    {
+        return map.containsValue(value);
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key)
+    {
+        return map.get(key);
+    }
+
+    @Override
+    public Object put(Object key, Object value)
+    {
+        return map.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key)
+    {
+        return map.remove(key);
+    }
+
+    @Override
+    public void putAll(Map<?, ?> t)
+    {
+        map.putAll(t);
+    }
+
+    @Override
+    public void clear()
+    {
+        map.clear();
+    }
+
+    @Override
+    public Set<Object> keySet()
+    {
+        return map.keySet();
+    }
+
+    @Override
+    public Collection<Object> values()
+    {
+        return map.values();
+    }
+
+    @Override
+    public Set<Map.Entry<Object, Object>> entrySet()
+    {
+        return map.entrySet();
+    }
+
+    @Override
+    public Object getOrDefault(Object key, Object defaultValue)
+    {
+        return map.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super Object, ? super Object> action)
+    {
+        map.forEach(action);
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super Object, ? super Object, ?> function)
+    {
+        map.replaceAll(function);
+    }
+
+    @Override
+    public Object putIfAbsent(Object key, Object value)
+    {
+        return map.putIfAbsent(key, value);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value)
+    {
+        return map.remove(key, value);
+    }
+
+    @Override
+    public boolean replace(Object key, Object oldValue, Object newValue)
+    {
+        return map.replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public Object replace(Object key, Object value)
+    {
+        return map.replace(key, value);
+    }
+
+    @Override
+    public Object computeIfAbsent(Object key, Function<? super Object, ?> mappingFunction)
+    {
+        return map.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public Object computeIfPresent(Object key, BiFunction<? super Object, ? super Object, ?> remappingFunction)
+    {
+        return map.computeIfPresent(key, remappingFunction);
+    }
+
+    @Override
+    public Object compute(Object key, BiFunction<? super Object, ? super Object, ?> remappingFunction)
+    {
+        return map.compute(key, remappingFunction);
+    }
+
+    @Override
+    public Object merge(Object key, Object value, BiFunction<? super Object, ? super Object, ?> remappingFunction)
+    {
+        return map.merge(key, value, remappingFunction);
+    }
+
+    /**
+     * Returns a copy of these properties.
+     *
+     * @return a new {@code ConcurrentProperties}, independent of this
+     */
+    @Override
+    public Object clone()
+    {
+        ConcurrentProperties result = new ConcurrentProperties();
+        result.map.putAll(map);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        return (other == this) || map.equals(other);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return map.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return map.toString();
+    }
+
+    /**
+     * Replaces this with a plain {@code Properties} when serializing.
+     *
+     * @return a copy of the properties
+     * @throws ObjectStreamException never
+     */
+    protected Object writeReplace() throws ObjectStreamException
+    {
+        Properties result = new Properties();
+        result.putAll(map);
+        return result;
+    }
+}
@@ -32,12 +32,19 @@ import com.izforge.izpack.core.substitutor.VariableSubstitutorImpl;
 import com.izforge.izpack.core.variable.utils.ValueUtils;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 
 /**
  * Default implementation of the {@link Variables} interface.
+ * <p/>
+ * Variables are held in the properties supplied at construction, which are shared rather than copied, and are
+ * returned by {@link #getProperties()}. When these are a {@link ConcurrentProperties}, as registered by the compiler
+ * and installer containers, variables may be read concurrently with changes without locking, and each read sees the
+ * latest completed change to the variable. Readers needing to detect changes between reads can compare {@link #getModCount() modification counts}.
+ * Refreshes of dynamic variables are serialized with each other.
  *
  * @author Tim Anderson
  */
@@ -52,7 +59,7 @@ public class DefaultVariables implements Variables
     /**
      * The forced override values.
      */
-    private Overrides overrides;
+    private volatile Overrides overrides;
 
     /**
      * The dynamic variables.
@@ -74,6 +81,21 @@ public class DefaultVariables implements Variables
      */
     private transient Map<String, Deque<Object>> blockedVariableNameStacks = new HashMap<String, Deque<Object>>();
 
+    /**
+     * The modification count. This starts at 1, as 0 indicates that modifications aren't counted.
+     */
+    private final AtomicLong modCount = new AtomicLong(1);
+
+    /**
+     * The modification count of the last change to each variable. Updates are made holding the lock on this, after
+     * the count is incremented.
+     */
+    private final Map<String, Long> modCounts = new HashMap<String, Long>();
+
+    /**
+     * The modification count at which the overrides were last replaced.
+     */
+    private long overridesModCount;
 
     /**
      * The logger.
@@ -85,11 +107,14 @@ public class DefaultVariables implements Variables
      */
     public DefaultVariables()
     {
-        this(new Properties());
+        this(new ConcurrentProperties());
     }
 
     /**
      * Constructs a <tt>DefaultVariables</tt>, from properties.
+     * <p/>
+     * The properties aren't copied: changes made to them by others, such as properties defined by the compiler, are
+     * reflected in the variables. Supply a {@link ConcurrentProperties} for reads that don't lock.
      *
      * @param properties the properties
      */
@@ -136,6 +161,10 @@ public class DefaultVariables implements Variables
             properties.remove(name);
             logger.fine("Dynamic variable '" + name + "' unset");
         }
+        synchronized (modCounts)
+        {
+            modCounts.put(name, modCount.incrementAndGet());
+        }
     }
 
     /**
@@ -405,6 +434,9 @@ public class DefaultVariables implements Variables
 
     /**
      * Exposes the variables as properties.
+     * <p/>
+     * This is a live view of the variables, excluding overrides. If it is a {@link ConcurrentProperties}, it may be
+     * read and iterated concurrently with changes; use {@link Properties#clone()} to take a copy.
      *
      * @return the variables
      */
@@ -414,6 +446,35 @@ public class DefaultVariables implements Variables
         return properties;
     }
 
+    /**
+     * Returns the modification count of the variables.
+     *
+     * @return the modification count
+     */
+    @Override
+    public long getModCount()
+    {
+        return modCount.get();
+    }
+
+    /**
+     * Returns the modification count at which a variable was last changed.
+     * <p/>
+     * Replacing the overrides counts as a change to every variable.
+     *
+     * @param name the variable name
+     * @return the modification count of the last change to the variable, or {@code 0} if it hasn't changed
+     */
+    @Override
+    public long getModCount(String name)
+    {
+        synchronized (modCounts)
+        {
+            Long result = modCounts.get(name);
+            return (result != null) ? Math.max(result, overridesModCount) : overridesModCount;
+        }
+    }
+
     @Override
     public boolean containsOverride(String name)
     {
@@ -424,6 +485,10 @@ public class DefaultVariables implements Variables
     public void setOverrides(Overrides overrides)
     {
         this.overrides = overrides;
+        synchronized (modCounts)
+        {
+            overridesModCount = modCount.incrementAndGet();
+        }
     }
 
     @Override
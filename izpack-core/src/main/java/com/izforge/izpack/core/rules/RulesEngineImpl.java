@@ -46,6 +46,8 @@ import java.io.OutputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Logger;
 
 
@@ -67,6 +69,11 @@ public class RulesEngineImpl implements RulesEngine
 
     private final Set<ConditionReference> refConditions = new HashSet<ConditionReference>();
 
+    /**
+     * The cached results of registered conditions.
+     */
+    private final ConcurrentMap<Condition, CachedResult> results = new ConcurrentHashMap<Condition, CachedResult>();
+
     private final InstallData installData;
 
     private final ConditionContainer container;
@@ -325,6 +332,16 @@ public class RulesEngineImpl implements RulesEngine
         return false;
     }
 
+    /**
+     * Determines if a condition is true.
+     * <p/>
+     * The results of registered, {@link Condition#isCacheable() cacheable} conditions are cached against the
+     * {@link Variables#getModCount() modification count} of the variables. A cached result is reused until one of
+     * the variables the condition {@link Condition#getVarRefs() refers} to changes.
+     *
+     * @param cond the condition
+     * @return the result of the condition
+     */
     @Override
     public boolean isConditionTrue(Condition cond)
     {
@@ -332,7 +349,40 @@ public class RulesEngineImpl implements RulesEngine
         {
             cond.setInstallData(this.installData);
         }
-        return cond.isTrue();
+        InstallData data = cond.getInstallData();
+        Variables variables = (data != null) ? data.getVariables() : null;
+        if (variables == null || variables.getModCount() == 0 || conditionsMap.get(cond.getId()) != cond)
+        {
+            return cond.isTrue();
+        }
+
+        // read the count before evaluating, so that changes made during evaluation invalidate the result
+        long modCount = variables.getModCount();
+        CachedResult cached = results.get(cond);
+        if (cached != null && cached.variables == variables)
+        {
+            if (cached.modCount == modCount)
+            {
+                return cached.result;
+            }
+            else if (!cached.isModified())
+            {
+                results.put(cond, new CachedResult(variables, modCount, cached.varRefs, cached.result));
+                return cached.result;
+            }
+        }
+
+        boolean result = cond.isTrue();
+        Set<String> varRefs = cond.isCacheable() ? cond.getVarRefs() : null;
+        if (varRefs != null && !refersToSystemProperties(varRefs))
+        {
+            results.put(cond, new CachedResult(variables, modCount, varRefs, result));
+        }
+        else if (cached != null)
+        {
+            results.remove(cond);
+        }
+        return result;
     }
 
     /**
@@ -352,7 +402,7 @@ public class RulesEngineImpl implements RulesEngine
             return true;
         }
         Condition condition = getCondition(this.panelConditions.get(panelId));
-        boolean b = condition.isTrue();
+        boolean b = isConditionTrue(condition);
         logger.fine("Panel " + panelId + ": activation depends on condition "
                             + condition.getId() + " -> " + b);
         return b;
@@ -403,7 +453,7 @@ public class RulesEngineImpl implements RulesEngine
             return true;
         }
         Condition condition = getCondition(this.packConditions.get(packid));
-        boolean b = condition.isTrue();
+        boolean b = isConditionTrue(condition);
         logger.fine("Package " + packid + ": installation depends on condition "
                 + condition.getId() + " -> " + b);
         return b;
@@ -889,6 +939,76 @@ public class RulesEngineImpl implements RulesEngine
         }
     }
 
+    /**
+     * Determines if any of the variables a condition refers to are system properties. As changes to these aren't
+     * counted, conditions referring to them aren't cached.
+     *
+     * @param varRefs the variables referred to by a condition
+     * @return {@code true} if any of the variables are system properties
+     */
+    private static boolean refersToSystemProperties(Set<String> varRefs)
+    {
+        for (String name : varRefs)
+        {
+            if (name.startsWith("SYSTEM[") || name.startsWith("SYSTEM_"))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The cached result of a condition.
+     */
+    private static class CachedResult
+    {
+        /**
+         * The variables the condition was evaluated against.
+         */
+        private final Variables variables;
+
+        /**
+         * The modification count of the variables when the result was determined.
+         */
+        private final long modCount;
+
+        /**
+         * The variables the condition refers to.
+         */
+        private final Set<String> varRefs;
+
+        /**
+         * The result of the condition.
+         */
+        private final boolean result;
+
+        public CachedResult(Variables variables, long modCount, Set<String> varRefs, boolean result)
+        {
+            this.variables = variables;
+            this.modCount = modCount;
+            this.varRefs = varRefs;
+            this.result = result;
+        }
+
+        /**
+         * Determines if any of the variables the condition refers to have changed since the result was determined.
+         *
+         * @return {@code true} if the result is stale
+         */
+        public boolean isModified()
+        {
+            for (String name : varRefs)
+            {
+                if (variables.getModCount(name) > modCount)
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
     /**
      * A built-in condition, created by the RulesEngine. These are not intended to be serialized - the RulesEngine
      * will replace any instance of a built in condition with its own version.
@@ -932,5 +1052,11 @@ public class RulesEngineImpl implements RulesEngine
             return new HashSet<String>(0);
         }
 
+        @Override
+        public boolean isCacheable()
+        {
+            return true;
+        }
+
     }
 }
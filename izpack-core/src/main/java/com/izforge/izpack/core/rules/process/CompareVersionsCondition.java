@@ -24,6 +24,7 @@ import com.izforge.izpack.core.variable.utils.ValueUtils;
 
 import java.util.*;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 
 public class CompareVersionsCondition extends CompareCondition
 {
@@ -32,7 +33,8 @@ public class CompareVersionsCondition extends CompareCondition
     private static final transient Logger logger = Logger.getLogger(CompareVersionsCondition.class.getName());
 
     private static final Set<String> EMPTY_STRINGS = Collections.singleton("");
-    private static final String VERSION_DELIMITER = "[^\\d]+";
+    private static final Pattern VERSION_DELIMITER = Pattern.compile("[^\\d]+");
+    private static final Pattern VERSION_FORMAT = Pattern.compile("[^\\d]*[\\d]+([^\\d]+[\\d]+)*[^\\d]*");
 
     /**
      * Don't assume missing minor parts of some operand as 0 during comparison.
@@ -147,7 +149,7 @@ public class CompareVersionsCondition extends CompareCondition
         public Version(String version) {
             if(version == null)
                 throw new IllegalArgumentException("Version can not be null");
-            if(!version.matches("[^\\d]*[\\d]+([^\\d]+[\\d]+)*[^\\d]*"))
+            if(!VERSION_FORMAT.matcher(version).matches())
                 throw new IllegalArgumentException("Invalid version format: '" + version + "'");
             this.version = version;
         }
@@ -156,10 +158,10 @@ public class CompareVersionsCondition extends CompareCondition
         public int compareTo(Version version) {
             if(version == null)
                 return 1;
-            String[] parts1 = this.get().split(VERSION_DELIMITER);
+            String[] parts1 = VERSION_DELIMITER.split(this.get());
             List<String> leftOps =  new ArrayList<String>(Arrays.asList(parts1));
             leftOps.removeAll(EMPTY_STRINGS); // avoid NumberFormatException
-            String[] parts2 = version.get().split(VERSION_DELIMITER);
+            String[] parts2 = VERSION_DELIMITER.split(version.get());
             List<String> rightOps = new ArrayList<String>(Arrays.asList(parts2));
             rightOps.removeAll(EMPTY_STRINGS); // avoid NumberFormatException
             int length = hasFlag(NOT_ASSUME_MISSING_MINOR_PARTS_AS_0)
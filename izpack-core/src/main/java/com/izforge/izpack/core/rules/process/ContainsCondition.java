@@ -35,7 +35,10 @@ public class ContainsCondition extends Condition {
   private boolean isRegEx = false;
   private boolean isCaseInsensitive = false;
 
-  private Pattern pattern = null;
+  /**
+   * The last compiled regular expression. Only recompiled if the resolved value changes.
+   */
+  private volatile Pattern pattern = null;
 
   public ContainsCondition() {
   }
@@ -55,10 +58,7 @@ public class ContainsCondition extends Condition {
     // must be done on each call again, because content could change 
     String resolvedValue = variables.replace(this.value);
 
-    if (isRegEx)
-    {
-        pattern = Pattern.compile(resolvedValue,Pattern.MULTILINE);
-    }
+    Pattern regex = isRegEx ? getPattern(resolvedValue) : null;
 
     switch (contentType) {
     case STRING:
@@ -101,12 +101,29 @@ public class ContainsCondition extends Condition {
     if (content == null)
       return false;
 
-    return matchesString(content, resolvedValue);
+    return matchesString(content, resolvedValue, regex);
   }
 
-  private boolean matchesString(String line, String value)
+  /**
+   * Returns the compiled regular expression for a resolved value.
+   *
+   * @param regex the resolved value
+   * @return the compiled expression
+   */
+  private Pattern getPattern(String regex)
   {
-      if (isRegEx)
+      Pattern result = pattern;
+      if (result == null || !result.pattern().equals(regex))
+      {
+          result = Pattern.compile(regex, Pattern.MULTILINE);
+          pattern = result;
+      }
+      return result;
+  }
+
+  private boolean matchesString(String line, String value, Pattern pattern)
+  {
+      if (pattern != null)
       {
           Matcher matcher = pattern.matcher(line);
           if (matcher.find())
@@ -263,7 +280,20 @@ public class ContainsCondition extends Condition {
                 break;
             default: throw new CompilerException("Unimplemented contentType");
         }
+        // variables are resolved in the value as well
+        vars.addAll(ValueUtils.parseUnresolvedVariableNames(this.value));
         return vars;
     }
 
+    /**
+     * Determines if the result of this condition may be cached.
+     *
+     * @return {@code true} if this checks a variable or string, {@code false} if it checks a file
+     */
+    @Override
+    public boolean isCacheable()
+    {
+        return contentType != null && contentType != ContentType.FILE;
+    }
+
 }
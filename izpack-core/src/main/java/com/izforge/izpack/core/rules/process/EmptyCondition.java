@@ -227,4 +227,15 @@ public class EmptyCondition extends Condition
         }
         return vars;
     }
+
+    /**
+     * Determines if the result of this condition may be cached.
+     *
+     * @return {@code true} if this checks a variable or string, {@code false} if it checks the file system
+     */
+    @Override
+    public boolean isCacheable()
+    {
+        return contentType == ContentType.VARIABLE || contentType == ContentType.STRING;
+    }
 }
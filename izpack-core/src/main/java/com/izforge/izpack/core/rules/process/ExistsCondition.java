@@ -178,6 +178,17 @@ public class ExistsCondition extends Condition
         return vars;
     }
 
+    /**
+     * Determines if the result of this condition may be cached.
+     *
+     * @return {@code true} if this checks a variable, {@code false} if it checks the file system
+     */
+    @Override
+    public boolean isCacheable()
+    {
+        return contentType == ContentType.VARIABLE;
+    }
+
     public enum ContentType
     {
         VARIABLE("variable"), FILE("file");
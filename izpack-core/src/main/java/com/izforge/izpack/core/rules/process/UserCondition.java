@@ -115,4 +115,15 @@ public class UserCondition extends Condition
         return new HashSet<String>(1);
     }
 
+    /**
+     * The user running the installer doesn't change, so the result of this condition may be cached.
+     *
+     * @return {@code true}
+     */
+    @Override
+    public boolean isCacheable()
+    {
+        return true;
+    }
+
 }
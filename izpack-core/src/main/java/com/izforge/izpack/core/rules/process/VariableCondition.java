@@ -29,6 +29,7 @@ import com.izforge.izpack.api.adaptator.impl.XMLElementImpl;
 import com.izforge.izpack.api.data.InstallData;
 import com.izforge.izpack.api.data.Variables;
 import com.izforge.izpack.api.rules.Condition;
+import com.izforge.izpack.core.variable.utils.ValueUtils;
 
 /**
  * @author Dennis Reil, <izpack@reil-online.de>
@@ -145,4 +146,20 @@ public class VariableCondition extends Condition
         // in this.value no variable substition is made, therefore not added here 
         return vars;
     }
+
+    /**
+     * Determines if the result of this condition may be cached.
+     * <p/>
+     * Both the variable value and the expected value are substituted when compared, so the result can only be cached
+     * if neither refers to other variables.
+     *
+     * @return {@code true} if the result only depends on the referenced variable
+     */
+    @Override
+    public boolean isCacheable()
+    {
+        InstallData installData = getInstallData();
+        String val = (installData != null) ? installData.getVariable(variablename) : null;
+        return (value == null || !ValueUtils.isUnresolved(value)) && (val == null || !ValueUtils.isUnresolved(val));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.merge.jar;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Caches the entry names of jars, so that resolving and merging resources doesn't need to re-read the central
+ * directory of the same jar for each lookup.
+ * <p/>
+ * The cache is thread safe and holds only immutable data, so a single instance may be shared by concurrent
+ * compilations. An entry is discarded if the jar's size or modification time changes.
+ */
+public class JarEntryCache
+{
+    /**
+     * The cached entry names, keyed on jar path.
+     */
+    private final ConcurrentMap<String, Entries> cache = new ConcurrentHashMap<String, Entries>();
+
+    /**
+     * Returns the names of the entries of a jar.
+     *
+     * @param jarPath the jar path
+     * @return the entry names, in jar order
+     * @throws IOException if the jar cannot be read
+     */
+    public List<String> getEntryNames(String jarPath) throws IOException
+    {
+        File file = new File(jarPath);
+        long length = file.length();
+        long lastModified = file.lastModified();
+        Entries entries = cache.get(jarPath);
+        if (entries == null || entries.length != length || entries.lastModified != lastModified)
+        {
+            entries = new Entries(read(jarPath), length, lastModified);
+            cache.put(jarPath, entries);
+        }
+        return entries.names;
+    }
+
+    /**
+     * Reads the entry names of a jar.
+     *
+     * @param jarPath the jar path
+     * @return the entry names
+     * @throws IOException if the jar cannot be read
+     */
+    static List<String> read(String jarPath) throws IOException
+    {
+        List<String> result = new ArrayList<String>();
+        try (JarFile jarFile = new JarFile(jarPath))
+        {
+            Enumeration<JarEntry> jarEntries = jarFile.entries();
+            while (jarEntries.hasMoreElements())
+            {
+                result.add(jarEntries.nextElement().getName());
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * The entry names of a jar, and the jar attributes they were read for.
+     */
+    private static class Entries
+    {
+        private final List<String> names;
+
+        private final long length;
+
+        private final long lastModified;
+
+        public Entries(List<String> names, long length, long lastModified)
+        {
+            this.names = names;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -49,6 +49,11 @@ public class JarMerge extends AbstractMerge
     private final String regexp;
     private final String destination;
 
+    /**
+     * The cache of jar entry names. May be {@code null}.
+     */
+    private JarEntryCache entryCache;
+
 
     /**
      * Create a new JarMerge with a destination
@@ -106,11 +111,21 @@ public class JarMerge extends AbstractMerge
     }
 
 
+    /**
+     * Sets the cache to look up the jar entry names in.
+     *
+     * @param entryCache the cache. May be {@code null}
+     */
+    public void setEntryCache(JarEntryCache entryCache)
+    {
+        this.entryCache = entryCache;
+    }
+
     public File find(FileFilter fileFilter)
     {
         try
         {
-            ArrayList<String> fileNameInZip = getFileNameInJar();
+            List<String> fileNameInZip = getFileNameInJar();
             for (String fileName : fileNameInZip)
             {
                 File file = new File(jarPath + "!/" + fileName);
@@ -131,7 +146,7 @@ public class JarMerge extends AbstractMerge
     {
         try
         {
-            ArrayList<String> fileNameInZip = getFileNameInJar();
+            List<String> fileNameInZip = getFileNameInJar();
             ArrayList<File> result = new ArrayList<File>();
             ArrayList<File> filteredResult = new ArrayList<File>();
             for (String fileName : fileNameInZip)
@@ -153,17 +168,9 @@ public class JarMerge extends AbstractMerge
         }
     }
 
-    private ArrayList<String> getFileNameInJar() throws IOException
+    private List<String> getFileNameInJar() throws IOException
     {
-        JarFile jarFile = new JarFile(jarPath);
-        ArrayList<String> arrayList = new ArrayList<String>();
-        Enumeration<JarEntry> jarEntries = jarFile.entries();
-        while (jarEntries.hasMoreElements())
-        {
-            JarEntry jarEntry = jarEntries.nextElement();
-            arrayList.add(jarEntry.getName());
-        }
-        return arrayList;
+        return (entryCache != null) ? entryCache.getEntryNames(jarPath) : JarEntryCache.read(jarPath);
     }
 
 
@@ -180,6 +187,10 @@ public class JarMerge extends AbstractMerge
         JarEntry jarEntry;
         try
         {
+            if (entryCache != null && !hasEntriesToMerge(pattern, mergeList))
+            {
+                return;
+            }
             jarFile = new JarFile(jarPath);
             Enumeration<JarEntry> jarFileEntries = jarFile.entries();
 
@@ -235,6 +246,27 @@ public class JarMerge extends AbstractMerge
         }
     }
 
+    /**
+     * Determines if the jar has entries matching the pattern that haven't already been merged, using the cached
+     * entry names. This avoids opening jars with nothing to contribute.
+     *
+     * @param pattern   the entry pattern
+     * @param mergeList the entries already merged
+     * @return {@code true} if there are entries to merge
+     * @throws IOException if the jar cannot be read
+     */
+    private boolean hasEntriesToMerge(Pattern pattern, List<String> mergeList) throws IOException
+    {
+        for (String name : entryCache.getEntryNames(jarPath))
+        {
+            if (!isManifest(name) && !mergeList.contains(name) && pattern.matcher(name).matches())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public String toString()
     {
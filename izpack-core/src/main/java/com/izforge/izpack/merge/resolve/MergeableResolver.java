@@ -27,6 +27,7 @@ import java.util.Map;
 
 import com.izforge.izpack.api.merge.Mergeable;
 import com.izforge.izpack.merge.file.FileMerge;
+import com.izforge.izpack.merge.jar.JarEntryCache;
 import com.izforge.izpack.merge.jar.JarMerge;
 
 /**
@@ -38,8 +39,24 @@ public class MergeableResolver
 {
     private Map<OutputStream, List<String>> mergeContent = new HashMap<OutputStream, List<String>>();
 
+    /**
+     * The cache of jar entry names. May be {@code null}.
+     */
+    private final JarEntryCache entryCache;
+
     public MergeableResolver()
     {
+        this(null);
+    }
+
+    /**
+     * Constructs a {@code MergeableResolver}.
+     *
+     * @param entryCache the cache of jar entry names, which may be shared with other resolvers. May be {@code null}
+     */
+    public MergeableResolver(JarEntryCache entryCache)
+    {
+        this.entryCache = entryCache;
     }
 
     public Mergeable getMergeableFromURL(URL url)
@@ -48,14 +65,14 @@ public class MergeableResolver
         {
             return new FileMerge(url, mergeContent);
         }
-        return new JarMerge(url, ResolveUtils.processUrlToJarPath(url), mergeContent);
+        return withEntryCache(new JarMerge(url, ResolveUtils.processUrlToJarPath(url), mergeContent));
     }
 
     public Mergeable getMergeableFromURL(URL url, String resourcePath)
     {
         if (ResolveUtils.isJar(url))
         {            
-            return new JarMerge(url, ResolveUtils.processUrlToJarPath(url), mergeContent);
+            return withEntryCache(new JarMerge(url, ResolveUtils.processUrlToJarPath(url), mergeContent));
         }
         else
         {
@@ -69,13 +86,19 @@ public class MergeableResolver
         {
             if (ResolveUtils.isFileInJar(url))
             {
-                return new JarMerge(ResolveUtils.processUrlToJarPath(url), ResolveUtils.processUrlToInsidePath(url), destination, mergeContent);
+                return withEntryCache(new JarMerge(ResolveUtils.processUrlToJarPath(url), ResolveUtils.processUrlToInsidePath(url), destination, mergeContent));
             }
-            return new JarMerge(ResolveUtils.processUrlToJarPath(url), ResolveUtils.processUrlToJarPackage(url), destination, mergeContent);
+            return withEntryCache(new JarMerge(ResolveUtils.processUrlToJarPath(url), ResolveUtils.processUrlToJarPackage(url), destination, mergeContent));
         }
         else
         {
             return new FileMerge(url, destination, mergeContent);
         }
     }
+
+    private JarMerge withEntryCache(JarMerge merge)
+    {
+        merge.setEntryCache(entryCache);
+        return merge;
+    }
 }
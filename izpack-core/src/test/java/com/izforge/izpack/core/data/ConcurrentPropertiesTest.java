@@ -0,0 +1,135 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.core.data;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Tests the {@link ConcurrentProperties}.
+ */
+public class ConcurrentPropertiesTest
+{
+    /**
+     * Verifies that the inherited {@code Properties} methods operate on the concurrent map.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testProperties() throws Exception
+    {
+        Properties properties = new ConcurrentProperties();
+        properties.setProperty("a", "1");
+        properties.put("b", "2");
+        properties.put("c", 3);
+        assertEquals("1", properties.getProperty("a"));
+        assertEquals("2", properties.getProperty("b", "x"));
+        assertNull(properties.getProperty("c"));
+        assertEquals("x", properties.getProperty("d", "x"));
+        assertEquals(3, properties.size());
+
+        assertEquals(new HashSet<String>(Arrays.asList("a", "b")), properties.stringPropertyNames());
+        List<?> names = Collections.list(properties.propertyNames());
+        assertEquals(2, names.size());
+
+        properties.remove("c");
+        StringWriter writer = new StringWriter();
+        properties.store(writer, null);
+        Properties loaded = new ConcurrentProperties();
+        loaded.load(new StringReader(writer.toString()));
+        assertEquals(properties, loaded);
+        assertEquals(properties.hashCode(), loaded.hashCode());
+
+        assertEquals("1", properties.putIfAbsent("a", "x"));
+        assertTrue(properties.replace("a", "1", "12"));
+        assertEquals("12", properties.getOrDefault("a", "x"));
+    }
+
+    /**
+     * Verifies that properties can be changed while being iterated.
+     */
+    @Test
+    public void testModifyWhileIterating()
+    {
+        Properties properties = new ConcurrentProperties();
+        for (int i = 0; i < 100; ++i)
+        {
+            properties.setProperty("key" + i, "value" + i);
+        }
+        Iterator<Map.Entry<Object, Object>> iterator = properties.entrySet().iterator();
+        int count = 0;
+        while (iterator.hasNext())
+        {
+            iterator.next();
+            properties.remove("key" + count);
+            properties.setProperty("new" + count, "value");
+            ++count;
+        }
+        assertTrue(count >= 1);
+        assertFalse(properties.containsKey("key0"));
+    }
+
+    /**
+     * Verifies that clones are independent copies, and that the properties are serialized as plain
+     * {@code Properties}.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCloneAndSerialize() throws Exception
+    {
+        Properties properties = new ConcurrentProperties();
+        properties.setProperty("a", "1");
+
+        Properties clone = (Properties) properties.clone();
+        assertSame(ConcurrentProperties.class, clone.getClass());
+        clone.setProperty("a", "2");
+        assertEquals("1", properties.getProperty("a"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(properties);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Object read = in.readObject();
+        assertSame(Properties.class, read.getClass());
+        assertEquals(properties, read);
+    }
+}
@@ -43,6 +43,7 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 
 import static org.junit.Assert.*;
@@ -86,6 +87,68 @@ public class DefaultVariablesTest
         assertEquals("default", variables.get("nonExistingVariable", "default"));
     }
 
+    /**
+     * Tests the {@link Variables#getModCount()} and {@link Variables#getModCount(String)} methods.
+     */
+    @Test
+    public void testModCount()
+    {
+        long start = variables.getModCount();
+        assertTrue(start > 0);
+        assertEquals(0, variables.getModCount("var1"));
+
+        variables.set("var1", "value1");
+        variables.set("var2", "value2");
+        assertEquals(start + 2, variables.getModCount());
+        assertEquals(start + 1, variables.getModCount("var1"));
+        assertEquals(start + 2, variables.getModCount("var2"));
+
+        // unsetting is a change
+        variables.set("var1", null);
+        assertEquals(start + 3, variables.getModCount("var1"));
+
+        // replacing the overrides changes every variable
+        variables.setOverrides(null);
+        assertEquals(start + 4, variables.getModCount());
+        assertEquals(start + 4, variables.getModCount("var2"));
+        assertEquals(start + 4, variables.getModCount("nonExistingVariable"));
+    }
+
+    /**
+     * Verifies that {@link DefaultVariables#getProperties()} is a live view of the variables, and that properties
+     * supplied at construction are copied.
+     */
+    @Test
+    public void testProperties()
+    {
+        Properties properties = variables.getProperties();
+        variables.set("var1", "value1");
+        assertEquals("value1", properties.getProperty("var1"));
+
+        properties.setProperty("var2", "value2");
+        assertEquals("value2", variables.get("var2"));
+
+        variables.set("var1", null);
+        assertFalse(properties.containsKey("var1"));
+
+        // variables constructed from the view share it
+        DefaultVariables shared = new DefaultVariables(properties);
+        shared.set("var3", "value3");
+        assertEquals("value3", variables.get("var3"));
+
+        // other properties are shared too, including defaults
+        Properties defaults = new Properties();
+        defaults.setProperty("var4", "value4");
+        Properties other = new Properties(defaults);
+        other.setProperty("var5", "value5");
+        DefaultVariables plain = new DefaultVariables(other);
+        assertEquals("value4", plain.get("var4"));
+        assertEquals("value5", plain.get("var5"));
+        other.setProperty("var5", "changed");
+        assertEquals("changed", plain.get("var5"));
+        assertSame(other, plain.getProperties());
+    }
+
     /**
      * Tests the {@link Variables#getBoolean(String)} and {@link Variables#getBoolean(String, boolean)} methods.
      */
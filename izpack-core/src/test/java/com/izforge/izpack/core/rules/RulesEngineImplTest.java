@@ -676,6 +676,59 @@ public class RulesEngineImplTest
         assertTrue(rules2.isConditionTrue("izpack.windowsinstall.nt5OrHigher"));
     }
 
+    /**
+     * Verifies that the results of cacheable conditions are cached until a variable they refer to changes, and that
+     * other conditions are always evaluated.
+     */
+    @Test
+    public void testCachedResults()
+    {
+        InstallData installData = new AutomatedInstallData(new DefaultVariables(), Platforms.UNIX);
+        RulesEngine rules = createRulesEngine(installData);
+        CountingVariableCondition cacheable = new CountingVariableCondition("a", "1");
+        CountingVariableCondition uncacheable = new CountingVariableCondition("a", "1")
+        {
+            @Override
+            public boolean isCacheable()
+            {
+                return false;
+            }
+        };
+        cacheable.setId("cacheable");
+        uncacheable.setId("uncacheable");
+        Map<String, Condition> conditions = new HashMap<String, Condition>();
+        conditions.put("cacheable", cacheable);
+        conditions.put("uncacheable", uncacheable);
+        rules.readConditionMap(conditions);
+
+        installData.setVariable("a", "1");
+        assertTrue(rules.isConditionTrue("cacheable"));
+        assertTrue(rules.isConditionTrue("cacheable"));
+        assertTrue(rules.isConditionTrue("uncacheable"));
+        assertTrue(rules.isConditionTrue("uncacheable"));
+        assertEquals(1, cacheable.count);
+        assertEquals(2, uncacheable.count);
+
+        // changing an unrelated variable doesn't invalidate the result
+        installData.setVariable("b", "2");
+        assertTrue(rules.isConditionTrue("cacheable"));
+        assertEquals(1, cacheable.count);
+
+        // changing the referenced variable does
+        installData.setVariable("a", "2");
+        assertFalse(rules.isConditionTrue("cacheable"));
+        assertFalse(rules.isConditionTrue("cacheable"));
+        assertEquals(2, cacheable.count);
+
+        // values referring to other variables can't be cached
+        installData.setVariable("a", "${b}");
+        installData.setVariable("b", "1");
+        assertTrue(rules.isConditionTrue("cacheable"));
+        installData.setVariable("b", "3");
+        assertFalse(rules.isConditionTrue("cacheable"));
+        assertEquals(4, cacheable.count);
+    }
+
     /**
      * Checks conditions read from the test <em>conditions.xml</em> file.
      *
@@ -775,6 +828,28 @@ public class RulesEngineImplTest
         return rules;
     }
 
+    /**
+     * A variable condition that counts the number of times it is evaluated.
+     */
+    private static class CountingVariableCondition extends VariableCondition
+    {
+        private static final long serialVersionUID = 1L;
+
+        private int count;
+
+        public CountingVariableCondition(String name, String value)
+        {
+            super(name, value);
+        }
+
+        @Override
+        public boolean isTrue()
+        {
+            ++count;
+            return super.isTrue();
+        }
+    }
+
 }
 
 
@@ -0,0 +1,91 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.merge.jar;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests the {@link JarEntryCache}.
+ */
+public class JarEntryCacheTest
+{
+    /**
+     * Temporary folder for the jars.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that entry names are cached, and re-read when the jar changes.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testGetEntryNames() throws Exception
+    {
+        File file = temporaryFolder.newFile("test.jar");
+        createJar(file, "a/", "a/b.txt");
+
+        JarEntryCache cache = new JarEntryCache();
+        List<String> names = cache.getEntryNames(file.getPath());
+        assertEquals(Arrays.asList("a/", "a/b.txt"), names);
+        assertSame(names, cache.getEntryNames(file.getPath()));
+
+        createJar(file, "a/", "a/b.txt", "a/c.txt");
+        assertEquals(Arrays.asList("a/", "a/b.txt", "a/c.txt"), cache.getEntryNames(file.getPath()));
+    }
+
+    /**
+     * Creates a jar containing empty entries.
+     *
+     * @param file  the jar file
+     * @param names the entry names
+     * @throws IOException for any I/O error
+     */
+    private static void createJar(File file, String... names) throws IOException
+    {
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(file));
+        try
+        {
+            for (String name : names)
+            {
+                out.putNextEntry(new ZipEntry(name));
+                out.closeEntry();
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+}
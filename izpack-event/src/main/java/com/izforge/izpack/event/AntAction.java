@@ -21,7 +21,6 @@ import com.izforge.izpack.api.exception.IzPackException;
 import com.izforge.izpack.api.handler.Prompt;
 import org.apache.commons.io.IOUtils;
 import org.apache.tools.ant.*;
-import org.apache.tools.ant.taskdefs.Ant;
 import org.apache.tools.ant.util.JavaEnvUtils;
 
 import java.io.File;
@@ -94,6 +93,17 @@ public class AntAction extends ActionBase
         performAction(false);
     }
 
+    /**
+     * Performs all defined install actions, reusing parsed build files.
+     *
+     * @param cache the project cache. May be {@code null}
+     * @throws IzPackException for any error
+     */
+    public void performInstallAction(AntProjectCache cache) throws IzPackException
+    {
+        performAction(false, cache);
+    }
+
     /**
      * Performs all defined uninstall actions.
      * <p/>
@@ -106,6 +116,17 @@ public class AntAction extends ActionBase
         performAction(true);
     }
 
+    /**
+     * Performs all defined uninstall actions, reusing parsed build files.
+     *
+     * @param cache the project cache. May be {@code null}
+     * @throws IzPackException for any error
+     */
+    public void performUninstallAction(AntProjectCache cache) throws IzPackException
+    {
+        performAction(true, cache);
+    }
+
     /**
      * Performs all defined actions.
      *
@@ -117,6 +138,29 @@ public class AntAction extends ActionBase
      */
     public void performAction(boolean uninstall) throws IzPackException
     {
+        performAction(uninstall, null);
+    }
+
+    /**
+     * Performs all defined actions.
+     * <p/>
+     * Each target is executed in the project parsed from the build file. Before each target, the project is reset and
+     * the top-level tasks of the build file are run again, so that properties and references set by one target aren't
+     * seen by the next.
+     *
+     * @param uninstall An install/uninstall switch. If this is <tt>true</tt> only the uninstall
+     *                  actions, otherwise only the install actions are being performed.
+     * @param cache     the cache to obtain the parsed build file from. If {@code null}, the build file is parsed
+     *                  for this call only
+     * @throws IzPackException for any error
+     */
+    public void performAction(boolean uninstall, AntProjectCache cache) throws IzPackException
+    {
+        List<String> choosenTargets = (uninstall) ? uninstallTargets : targets;
+        if (choosenTargets.isEmpty())
+        {
+            return;
+        }
         if (verbose)
         {
             System.out.print("Calling ANT with buildfile: " + buildFile);
@@ -130,11 +174,18 @@ public class AntAction extends ActionBase
         }
         PrintStream err = System.err;
         PrintStream out = System.out;
-        Project antProj = new Project();
+        Properties allProperties = new Properties();
+        allProperties.putAll(getProperties());
+        allProperties.putAll(getPropertiesFromPropertyFiles());
+        AntProjectCache.CachedProject cached = (cache != null)
+                ? cache.acquire(buildFile, buildDir, allProperties)
+                : AntProjectCache.create(buildFile, buildDir, allProperties);
+        Project antProj = cached.getProject();
+        List<BuildListener> buildListeners = new ArrayList<BuildListener>();
+        boolean success = false;
         try
         {
             antProj.setInputHandler(new AntActionInputHandler());
-            antProj.setName("antcallproject");
             if (verbose)
             {
                 logLevel = AntLogLevel.VERBOSE;
@@ -144,46 +195,28 @@ public class AntAction extends ActionBase
                 logLevel = AntLogLevel.WARNING;
             }
             final int antLogLevel = logLevel.getLevel();
-            antProj.addBuildListener(new AntSystemLogBuildListener(antLogLevel));
+            buildListeners.add(new AntSystemLogBuildListener(antLogLevel));
             if (logFile != null)
             {
-                antProj.addBuildListener(new AntActionLogBuildListener(logFile, logFileAppend, antLogLevel));
+                buildListeners.add(new AntActionLogBuildListener(logFile, logFileAppend, antLogLevel));
+            }
+            for (BuildListener buildListener : buildListeners)
+            {
+                antProj.addBuildListener(buildListener);
             }
-            antProj.setSystemProperties();
-            addProperties(antProj, getProperties());
-            addPropertiesFromPropertyFiles(antProj);
-            // TODO: propertyfiles, logFile
             antProj.fireBuildStarted();
-            antProj.init();
-            List<Ant> antcalls = new ArrayList<Ant>();
-            List<String> choosenTargets = (uninstall) ? uninstallTargets : targets;
-            if (choosenTargets.size() > 0)
+            System.setOut(new PrintStream(new DemuxOutputStream(antProj, false)));
+            System.setErr(new PrintStream(new DemuxOutputStream(antProj, true)));
+            if (!cached.isConfigured())
             {
-                Ant antcall;
-                for (String choosenTarget : choosenTargets)
-                {
-                    antcall = (Ant) antProj.createTask("ant");
-                    if (buildDir != null)
-                    {
-                        antcall.setDir(buildDir);
-                    }
-                    antcall.setAntfile(buildFile.getAbsolutePath());
-                    antcall.setTarget(choosenTarget);
-                    antcalls.add(antcall);
-                }
+                cached.configure();
             }
-            Target target = new Target();
-            target.setName("calltarget");
-
-            for (Ant antcall : antcalls)
+            for (String choosenTarget : choosenTargets)
             {
-                target.addTask(antcall);
+                cached.executeTarget(choosenTarget);
             }
-            antProj.addTarget(target);
-            System.setOut(new PrintStream(new DemuxOutputStream(antProj, false)));
-            System.setErr(new PrintStream(new DemuxOutputStream(antProj, true)));
-            antProj.executeTarget("calltarget");
             antProj.fireBuildFinished(null);
+            success = true;
         }
         catch (BuildException exception)
         {
@@ -198,6 +231,14 @@ public class AntAction extends ActionBase
             }
             System.setOut(out);
             System.setErr(err);
+            for (BuildListener buildListener : buildListeners)
+            {
+                antProj.removeBuildListener(buildListener);
+            }
+            if (success && cache != null)
+            {
+                cache.release(cached);
+            }
         }
     }
 
@@ -488,28 +529,8 @@ public class AntAction extends ActionBase
         this.verbose = verbose;
     }
 
-    private void addProperties(Project proj, Properties props)
+    private Properties getPropertiesFromPropertyFiles()
     {
-        if (proj == null)
-        {
-            return;
-        }
-        if (props.size() > 0)
-        {
-            for (Object o : props.keySet())
-            {
-                String key = (String) o;
-                proj.setProperty(key, props.getProperty(key));
-            }
-        }
-    }
-
-    private void addPropertiesFromPropertyFiles(Project proj)
-    {
-        if (proj == null)
-        {
-            return;
-        }
         Properties props = new Properties();
         FileInputStream fis = null;
         try
@@ -537,7 +558,7 @@ public class AntAction extends ActionBase
         {
             IOUtils.closeQuietly(fis);
         }
-        addProperties(proj, props);
+        return props;
     }
 
     /**
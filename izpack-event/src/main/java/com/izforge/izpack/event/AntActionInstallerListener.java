@@ -87,6 +87,11 @@ public class AntActionInstallerListener extends AbstractProgressInstallerListene
      */
     private final SpecHelper spec;
 
+    /**
+     * The parsed build files, shared by the actions.
+     */
+    private final AntProjectCache cache = new AntProjectCache();
+
     /**
      * The logger.
      */
@@ -225,6 +230,7 @@ public class AntActionInstallerListener extends AbstractProgressInstallerListene
             String currentPack = pack.getName();
             performAllActions(currentPack, ActionBase.AFTERPACKS, listener);
         }
+        cache.clear();
         if (!uninstActions.isEmpty())
         {
             uninstallData.addAdditionalData("antActions", uninstActions);
@@ -299,7 +305,7 @@ public class AntActionInstallerListener extends AbstractProgressInstallerListene
                 String conditionId = act.getConditionId();
                 if (conditionId == null || rules.isConditionTrue(conditionId))
                 {
-                    act.performInstallAction();
+                    act.performInstallAction(cache);
                 }
             }
             catch (IzPackException e)
@@ -51,6 +51,11 @@ public class AntActionUninstallerListener extends AbstractUninstallerListener
      */
     private List<AntAction> antActions = new ArrayList<AntAction>();
 
+    /**
+     * The parsed build files, shared by the actions.
+     */
+    private final AntProjectCache cache = new AntProjectCache();
+
     /**
      * Default constructor
      */
@@ -168,7 +173,7 @@ public class AntActionUninstallerListener extends AbstractUninstallerListener
         {
             try
             {
-                act.performUninstallAction();
+                act.performUninstallAction(cache);
             }
             catch (IzPackException e)
             {
@@ -191,13 +196,14 @@ public class AntActionUninstallerListener extends AbstractUninstallerListener
         {
             try
             {
-                act.performUninstallAction();
+                act.performUninstallAction(cache);
             }
             catch (IzPackException e)
             {
                 act.throwBuildException(e);
             }
         }
+        cache.clear();
     }
 
     private String getBuildResource()
@@ -0,0 +1,522 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.event;
+
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.MagicNames;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.ProjectHelper;
+import org.apache.tools.ant.PropertyHelper;
+import org.apache.tools.ant.Target;
+import org.apache.tools.ant.helper.AntXMLContext;
+import org.apache.tools.ant.helper.ProjectHelper2;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * A cache of initialised and parsed Ant projects, used to avoid initialising Ant and parsing the same build file for
+ * each {@link AntAction}.
+ * <p/>
+ * Projects are keyed on build file, build directory and properties. The key includes the last modification time and
+ * length of the build file, so that a project isn't reused once its build file has been overwritten, e.g. by a later
+ * pack. A project is removed from the cache while it is in use, and returned to it once the properties and references
+ * created by the executed targets have been discarded.
+ * <p/>
+ * Only the parsed targets are reused. The top-level tasks of the build file, such as {@code <property file="..."/>}
+ * or {@code <available/>}, are run again before each target, as they would be if the build file was parsed for it.
+ * <p/>
+ * The cache is bounded by the total number of targets held. The least recently used projects are evicted first, and
+ * projects with more targets than the bound aren't cached at all.
+ */
+public class AntProjectCache
+{
+    /**
+     * The default maximum number of targets held by the cache.
+     */
+    public static final int DEFAULT_MAX_TARGETS = 1000;
+
+    /**
+     * The reference to the parsing context used by {@link ProjectHelper2}.
+     */
+    private static final String REFID_CONTEXT = "ant.parsing.context";
+
+    /**
+     * The maximum number of targets held by the cache.
+     */
+    private final int maxTargets;
+
+    /**
+     * The cached projects, in least recently used order.
+     */
+    private final Map<Key, CachedProject> projects = new LinkedHashMap<Key, CachedProject>(16, 0.75f, true);
+
+    /**
+     * The total number of targets held by the cached projects.
+     */
+    private int targets;
+
+
+    /**
+     * Constructs an {@code AntProjectCache} holding up to {@link #DEFAULT_MAX_TARGETS} targets.
+     */
+    public AntProjectCache()
+    {
+        this(DEFAULT_MAX_TARGETS);
+    }
+
+    /**
+     * Constructs an {@code AntProjectCache}.
+     *
+     * @param maxTargets the maximum number of targets held by the cache
+     */
+    public AntProjectCache(int maxTargets)
+    {
+        this.maxTargets = maxTargets;
+    }
+
+    /**
+     * Returns a project for a build file.
+     * <p/>
+     * If a matching project is cached, it is removed from the cache and returned. Otherwise, a new project is
+     * returned, which must be {@link CachedProject#configure() configured} before use.
+     *
+     * @param buildFile  the build file
+     * @param buildDir   the base directory, or {@code null} to use the current directory
+     * @param properties the properties to set before the build file is parsed
+     * @return the project
+     */
+    public synchronized CachedProject acquire(File buildFile, File buildDir, Properties properties)
+    {
+        Key key = new Key(buildFile, buildDir, properties);
+        CachedProject result = projects.remove(key);
+        if (result != null)
+        {
+            targets -= result.getWeight();
+        }
+        else
+        {
+            result = new CachedProject(key);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a project to the cache.
+     * <p/>
+     * The project is reset to its state before the top-level tasks of the build file ran. It is discarded if it wasn't
+     * configured, or if it is too large to cache.
+     *
+     * @param project the project
+     */
+    public synchronized void release(CachedProject project)
+    {
+        if (!project.isConfigured() || project.getWeight() > maxTargets)
+        {
+            return;
+        }
+        project.reset();
+        CachedProject existing = projects.put(project.key, project);
+        if (existing != null)
+        {
+            targets -= existing.getWeight();
+        }
+        targets += project.getWeight();
+        Iterator<CachedProject> iterator = projects.values().iterator();
+        while (targets > maxTargets && iterator.hasNext())
+        {
+            targets -= iterator.next().getWeight();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Evicts all projects for a build file.
+     *
+     * @param buildFile the build file
+     */
+    public synchronized void evict(File buildFile)
+    {
+        String path = buildFile.getAbsolutePath();
+        Iterator<CachedProject> iterator = projects.values().iterator();
+        while (iterator.hasNext())
+        {
+            CachedProject project = iterator.next();
+            if (project.key.buildFile.equals(path))
+            {
+                targets -= project.getWeight();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Evicts all projects.
+     */
+    public synchronized void clear()
+    {
+        projects.clear();
+        targets = 0;
+    }
+
+    /**
+     * Returns the number of cached projects.
+     *
+     * @return the number of cached projects
+     */
+    public synchronized int size()
+    {
+        return projects.size();
+    }
+
+    /**
+     * Creates an uncached project.
+     *
+     * @param buildFile  the build file
+     * @param buildDir   the base directory, or {@code null} to use the current directory
+     * @param properties the properties to set before the build file is parsed
+     * @return a new project, which must be {@link CachedProject#configure() configured} before use
+     */
+    public static CachedProject create(File buildFile, File buildDir, Properties properties)
+    {
+        return new CachedProject(new Key(buildFile, buildDir, properties));
+    }
+
+    /**
+     * An Ant project, with the state needed to reset it after targets have been executed.
+     */
+    public static final class CachedProject
+    {
+        /**
+         * The cache key.
+         */
+        private final Key key;
+
+        /**
+         * The project.
+         */
+        private final Project project;
+
+        /**
+         * The property helper, used to reset properties.
+         */
+        private final ResettablePropertyHelper helper;
+
+        /**
+         * The target holding the top-level tasks of the build file.
+         */
+        private final ImplicitTarget implicitTarget;
+
+        /**
+         * The references before the top-level tasks first ran, or {@code null} if they haven't run.
+         */
+        private Set<String> references;
+
+        /**
+         * Determines if the build file has been parsed.
+         */
+        private boolean configured;
+
+        /**
+         * Determines if the top-level tasks have run since the project was last reset.
+         */
+        private boolean prepared;
+
+        /**
+         * The number of targets.
+         */
+        private int weight;
+
+        private CachedProject(Key key)
+        {
+            this.key = key;
+            project = new Project();
+            helper = new ResettablePropertyHelper();
+            helper.setProject(project);
+            project.addReference(MagicNames.REFID_PROPERTY_HELPER, helper);
+            implicitTarget = new ImplicitTarget();
+            implicitTarget.setProject(project);
+            implicitTarget.setName("");
+        }
+
+        /**
+         * Returns the project.
+         *
+         * @return the project
+         */
+        public Project getProject()
+        {
+            return project;
+        }
+
+        /**
+         * Determines if the build file has been parsed.
+         *
+         * @return {@code true} if the build file has been parsed
+         */
+        public boolean isConfigured()
+        {
+            return configured;
+        }
+
+        /**
+         * Initialises the project and parses the build file, running its top-level tasks.
+         * <p/>
+         * This sets the system properties, the base directory and the properties supplied at construction, so that
+         * they take precedence over properties defined in the build file.
+         *
+         * @throws BuildException if the build file cannot be parsed
+         */
+        public void configure()
+        {
+            project.init();
+            project.setSystemProperties();
+            for (Map.Entry<String, String> entry : key.properties.entrySet())
+            {
+                project.setProperty(entry.getKey(), entry.getValue());
+            }
+            if (key.buildDir != null)
+            {
+                project.setBaseDir(new File(key.buildDir));
+            }
+            else
+            {
+                project.setBasedir(".");
+            }
+            File file = new File(key.buildFile);
+            project.setUserProperty(MagicNames.ANT_FILE, file.getAbsolutePath());
+
+            // supply the parsing context, so that the state before the top-level tasks run can be recorded
+            AntXMLContext context = new AntXMLContext(project);
+            context.getTargets().set(context.getTargets().indexOf(context.getImplicitTarget()), implicitTarget);
+            context.setImplicitTarget(implicitTarget);
+            project.addReference(REFID_CONTEXT, context);
+            project.addReference(ProjectHelper2.REFID_TARGETS, context.getTargets());
+
+            ProjectHelper.configureProject(project, file);
+            if (references == null)
+            {
+                // parsed by a different helper, so the top-level tasks can't be run again
+                snapshot();
+            }
+            weight = project.getTargets().size() + 1;
+            configured = true;
+            prepared = true;
+        }
+
+        /**
+         * Executes a target.
+         * <p/>
+         * Unless the project was configured since it was last reset, it is reset and the top-level tasks of the build
+         * file are run first.
+         *
+         * @param name the target name
+         * @throws BuildException if the target fails
+         */
+        public void executeTarget(String name)
+        {
+            if (!prepared)
+            {
+                reset();
+                implicitTarget.execute();
+            }
+            prepared = false;
+            project.executeTarget(name);
+        }
+
+        /**
+         * Resets the properties and references to their state before the top-level tasks of the build file ran.
+         */
+        public void reset()
+        {
+            if (references != null)
+            {
+                helper.reset();
+                project.getReferences().keySet().retainAll(references);
+            }
+            prepared = false;
+        }
+
+        /**
+         * Records the properties and references.
+         */
+        private void snapshot()
+        {
+            helper.snapshot();
+            references = new HashSet<String>(project.getReferences().keySet());
+        }
+
+        /**
+         * The target holding the top-level tasks of the build file. This records the state of the project before
+         * its tasks first run.
+         */
+        private final class ImplicitTarget extends Target
+        {
+            @Override
+            public void execute()
+            {
+                if (references == null)
+                {
+                    snapshot();
+                }
+                super.execute();
+            }
+        }
+
+        /**
+         * Returns the weight of the project, used to bound the cache.
+         *
+         * @return the number of targets
+         */
+        private int getWeight()
+        {
+            return weight;
+        }
+    }
+
+    /**
+     * A property helper that can restore the properties present when {@link #snapshot()} was called.
+     */
+    private static class ResettablePropertyHelper extends PropertyHelper
+    {
+        /**
+         * The properties.
+         */
+        private Hashtable<String, Object> properties;
+
+        /**
+         * The user properties.
+         */
+        private Hashtable<String, Object> userProperties;
+
+        /**
+         * The inherited properties.
+         */
+        private Hashtable<String, Object> inheritedProperties;
+
+        /**
+         * Records the current properties.
+         */
+        public synchronized void snapshot()
+        {
+            properties = new Hashtable<String, Object>(getInternalProperties());
+            userProperties = new Hashtable<String, Object>(getInternalUserProperties());
+            inheritedProperties = new Hashtable<String, Object>(getInternalInheritedProperties());
+        }
+
+        /**
+         * Restores the properties recorded by {@link #snapshot()}.
+         */
+        public synchronized void reset()
+        {
+            restore(getInternalProperties(), properties);
+            restore(getInternalUserProperties(), userProperties);
+            restore(getInternalInheritedProperties(), inheritedProperties);
+        }
+
+        private static void restore(Hashtable<String, Object> current, Hashtable<String, Object> snapshot)
+        {
+            if (!current.equals(snapshot))
+            {
+                current.clear();
+                current.putAll(snapshot);
+            }
+        }
+    }
+
+    /**
+     * The cache key.
+     */
+    private static final class Key
+    {
+        /**
+         * The absolute path of the build file.
+         */
+        private final String buildFile;
+
+        /**
+         * The absolute path of the build directory. May be {@code null}.
+         */
+        private final String buildDir;
+
+        /**
+         * The last modification time of the build file, when the key was created.
+         */
+        private final long lastModified;
+
+        /**
+         * The length of the build file, when the key was created.
+         */
+        private final long length;
+
+        /**
+         * The properties.
+         */
+        private final Map<String, String> properties = new HashMap<String, String>();
+
+        private Key(File buildFile, File buildDir, Properties properties)
+        {
+            this.buildFile = buildFile.getAbsolutePath();
+            this.buildDir = (buildDir != null) ? buildDir.getAbsolutePath() : null;
+            this.lastModified = buildFile.lastModified();
+            this.length = buildFile.length();
+            for (String name : properties.stringPropertyNames())
+            {
+                this.properties.put(name, properties.getProperty(name));
+            }
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            if (this == other)
+            {
+                return true;
+            }
+            if (!(other instanceof Key))
+            {
+                return false;
+            }
+            Key key = (Key) other;
+            return buildFile.equals(key.buildFile)
+                    && lastModified == key.lastModified
+                    && length == key.length
+                    && (buildDir == null ? key.buildDir == null : buildDir.equals(key.buildDir))
+                    && properties.equals(key.properties);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = buildFile.hashCode();
+            result = 31 * result + (buildDir != null ? buildDir.hashCode() : 0);
+            result = 31 * result + (int) (lastModified ^ (lastModified >>> 32));
+            result = 31 * result + (int) (length ^ (length >>> 32));
+            return 31 * result + properties.hashCode();
+        }
+    }
+}
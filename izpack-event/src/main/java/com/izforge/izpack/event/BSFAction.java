@@ -27,9 +27,20 @@ import org.apache.bsf.BSFEngine;
 import org.apache.bsf.BSFException;
 import org.apache.bsf.BSFManager;
 
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.Invocable;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.lang.reflect.Modifier;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -58,12 +69,43 @@ public class BSFAction extends ActionBase
     public static final String BEFOREDELETION = "beforedeletion";
     public static final String AFTERDELETION = "afterdeletion";
 
+    /**
+     * System property listing additional languages, separated by commas, whose scripts are run by their
+     * {@code javax.script} engine rather than by BSF.
+     * <p/>
+     * By default, only Groovy scripts are, as the Groovy {@code javax.script} and BSF engines are the same
+     * implementation. For other languages, the {@code javax.script} engine may differ from the one registered with BSF,
+     * e.g. Nashorn rather than Rhino for JavaScript, so scripts could behave differently.
+     */
+    public static final String SCRIPT_ENGINE_LANGUAGES = "izpack.bsfaction.scriptEngineLanguages";
+
+    /**
+     * The languages whose scripts are run by their {@code javax.script} engine by default.
+     */
+    private static final String DEFAULT_SCRIPT_ENGINE_LANGUAGES = "groovy";
+
     private String script = null;
     private String language = null;
     private String scriptName = null;
 
     private transient BSFManager manager = null;
     private transient BSFEngine engine = null;
+
+    /**
+     * The script engine, if the script is compiled using {@code javax.script} rather than run by BSF.
+     */
+    private transient ScriptEngine scriptEngine = null;
+
+    /**
+     * Determines if the script defines each hook method, keyed on method name.
+     */
+    private transient Map<String, Boolean> definedMethods;
+
+    /**
+     * The hook timings, keyed on method name.
+     */
+    private transient Map<String, HookTiming> timings;
+
     private static final Map<String, MethodDescriptor> orderMethodMap;
 
     private final Properties variables = new Properties();
@@ -152,28 +194,30 @@ public class BSFAction extends ActionBase
 
     public void init()
     {
-        if (manager == null)
+        if (timings == null)
         {
-            manager = new BSFManager();
+            timings = new LinkedHashMap<String, HookTiming>();
+            definedMethods = new HashMap<String, Boolean>();
         }
-
-        if (engine == null)
+        if (scriptEngine == null && engine == null)
         {
-            try
-            {
-                engine = manager.loadScriptingEngine(language);
-                scriptName = "script." + language;
-                engine.exec(scriptName, 1, 1, script);
-            }
-            catch (BSFException exception)
+            scriptName = "script." + language;
+            if (!isScriptEngineLanguage(language) || !initScriptEngine())
             {
-                throw new IzPackException("Failed to initialise BSF", exception);
+                initBSFEngine();
             }
         }
     }
 
     public void destroy()
     {
+        logTimings();
+        scriptEngine = null;
+        if (definedMethods != null)
+        {
+            definedMethods.clear();
+        }
+
         if (engine != null)
         {
             engine.terminate();
@@ -187,91 +231,282 @@ public class BSFAction extends ActionBase
         }
     }
 
+    /**
+     * Returns the number of invocations and the time spent in each script hook since the action was initialised.
+     *
+     * @return the hook timings, keyed on hook method name
+     */
+    public Map<String, HookTiming> getTimings()
+    {
+        Map<String, HookTiming> result = new LinkedHashMap<String, HookTiming>();
+        if (timings != null)
+        {
+            for (Map.Entry<String, HookTiming> entry : timings.entrySet())
+            {
+                HookTiming timing = entry.getValue();
+                result.put(entry.getKey(), new HookTiming(timing.count, timing.time));
+            }
+        }
+        return result;
+    }
+
     public void executeUninstall(String order, Object... params)
     {
         MethodDescriptor desc = orderMethodMap.get(order);
 
         if (desc != null)
         {
-            try
+            invoke(desc, params, "variables", variables, Properties.class);
+        }
+    }
+
+    public void execute(String order, Object[] params, InstallData installData)
+    {
+        MethodDescriptor desc = orderMethodMap.get(order);
+        if (desc != null)
+        {
+            invoke(desc, params, "installData", installData, InstallData.class);
+        }
+
+    }
+
+    /**
+     * Determines if scripts in a language should be run by its {@code javax.script} engine rather than by BSF.
+     *
+     * @param language the script language
+     * @return {@code true} if the language is listed by default, or by the {@link #SCRIPT_ENGINE_LANGUAGES} system
+     *         property
+     */
+    static boolean isScriptEngineLanguage(String language)
+    {
+        if (language == null)
+        {
+            return false;
+        }
+        String languages = DEFAULT_SCRIPT_ENGINE_LANGUAGES + "," + System.getProperty(SCRIPT_ENGINE_LANGUAGES, "");
+        for (String name : languages.split(","))
+        {
+            if (name.trim().equalsIgnoreCase(language.trim()))
             {
-                for (int i = 0; i < desc.argNames.length; i++)
-                {
-                    if (params[i] != null)
-                    {
-                        manager.declareBean(desc.argNames[i], params[i], params[i].getClass());
-                    }
-                }
+                return true;
+            }
+        }
+        return false;
+    }
 
-                manager.declareBean("variables", variables, Properties.class);
+    /**
+     * Compiles and evaluates the script using a {@code javax.script} engine, if one that supports compilation and
+     * function invocation is available for the language.
+     *
+     * @return {@code true} if the script engine was initialised, {@code false} if BSF should be used instead
+     * @throws IzPackException if the script fails to evaluate
+     */
+    private boolean initScriptEngine()
+    {
+        ScriptEngine candidate;
+        CompiledScript compiled;
+        try
+        {
+            candidate = new ScriptEngineManager(getClass().getClassLoader()).getEngineByName(language);
+            if (!(candidate instanceof Compilable) || !(candidate instanceof Invocable)
+                    || Modifier.isAbstract(candidate.getClass().getMethod(
+                    "invokeFunction", String.class, Object[].class).getModifiers()))
+            {
+                return false;
+            }
+            compiled = ((Compilable) candidate).compile(script);
+        }
+        catch (Exception exception)
+        {
+            logger.log(Level.FINE, "Cannot compile " + scriptName + ", using BSF: " + exception.getMessage(),
+                       exception);
+            return false;
+        }
+        catch (LinkageError error)
+        {
+            // engines that don't implement compilation, or are linked against an older javax.script
+            logger.log(Level.FINE, "Cannot compile " + scriptName + ", using BSF: " + error.getMessage(), error);
+            return false;
+        }
+        try
+        {
+            compiled.eval();
+        }
+        catch (ScriptException exception)
+        {
+            throw new IzPackException("Failed to initialise script " + scriptName, exception);
+        }
+        scriptEngine = candidate;
+        logger.fine("Running " + scriptName + " with javax.script engine "
+                            + candidate.getFactory().getEngineName() + " " + candidate.getFactory().getEngineVersion());
+        return true;
+    }
 
-                MethodExistenceChecker checker = langToMethodCheckerMap.get(language);
-                if (checker != null)
-                {
-                    if (checker.isNotMethodDefined(desc.name, scriptName, engine, manager))
-                    {
-                        return;
-                    }
-                }
-                else
+    /**
+     * Evaluates the script using BSF.
+     *
+     * @throws IzPackException if the script fails to evaluate
+     */
+    private void initBSFEngine()
+    {
+        if (manager == null)
+        {
+            manager = new BSFManager();
+        }
+        try
+        {
+            engine = manager.loadScriptingEngine(language);
+            engine.exec(scriptName, 1, 1, script);
+        }
+        catch (BSFException exception)
+        {
+            throw new IzPackException("Failed to initialise BSF", exception);
+        }
+    }
+
+    /**
+     * Invokes a hook method, if the script defines it.
+     *
+     * @param desc      the method descriptor
+     * @param params    the method parameters, declared to the script using the descriptor argument names
+     * @param name      the name of an additional variable to declare
+     * @param value     the value of the additional variable
+     * @param valueType the type of the additional variable
+     * @throws IzPackException if the method fails
+     */
+    private void invoke(MethodDescriptor desc, Object[] params, String name, Object value, Class<?> valueType)
+    {
+        long start = System.nanoTime();
+        try
+        {
+            if (scriptEngine != null)
+            {
+                invokeScriptEngine(desc, params, name, value);
+            }
+            else
+            {
+                invokeBSF(desc, params, name, value, valueType);
+            }
+        }
+        finally
+        {
+            HookTiming timing = timings.get(desc.name);
+            if (timing == null)
+            {
+                timing = new HookTiming(0, 0);
+                timings.put(desc.name, timing);
+            }
+            ++timing.count;
+            timing.time += System.nanoTime() - start;
+        }
+    }
+
+    private void invokeScriptEngine(MethodDescriptor desc, Object[] params, String name, Object value)
+    {
+        Bindings bindings = scriptEngine.getBindings(ScriptContext.ENGINE_SCOPE);
+        try
+        {
+            for (int i = 0; i < desc.argNames.length; i++)
+            {
+                if (params[i] != null)
                 {
-                    engine.eval(scriptName, 1, 1, desc.name);
+                    bindings.put(desc.argNames[i], params[i]);
                 }
+            }
+            bindings.put(name, value);
 
-                engine.exec(scriptName, 1, 1, desc.name + "()");
+            if (Boolean.FALSE.equals(definedMethods.get(desc.name)))
+            {
+                return;
             }
-            catch (BSFException exception)
+            try
             {
-                throw new IzPackException("Failed to execute BSF action: " + desc.name, exception);
+                ((Invocable) scriptEngine).invokeFunction(desc.name);
+                definedMethods.put(desc.name, Boolean.TRUE);
+            }
+            catch (NoSuchMethodException exception)
+            {
+                if (definedMethods.containsKey(desc.name))
+                {
+                    throw new IzPackException("Failed to execute script action: " + desc.name, exception);
+                }
+                // the script doesn't define the hook
+                definedMethods.put(desc.name, Boolean.FALSE);
             }
-            finally
+        }
+        catch (ScriptException exception)
+        {
+            throw new IzPackException("Failed to execute script action: " + desc.name, exception);
+        }
+        finally
+        {
+            for (String argName : desc.argNames)
             {
-                undeclareBeans(desc, "variables");
+                bindings.remove(argName);
             }
+            bindings.remove(name);
         }
     }
 
-    public void execute(String order, Object[] params, InstallData installData)
+    private void invokeBSF(MethodDescriptor desc, Object[] params, String name, Object value, Class<?> valueType)
     {
-        MethodDescriptor desc = orderMethodMap.get(order);
-        if (desc != null)
+        try
         {
-            try
+            for (int i = 0; i < desc.argNames.length; i++)
             {
-                for (int i = 0; i < desc.argNames.length; i++)
+                if (params[i] != null)
                 {
-                    if (params[i] != null)
-                    {
-                        manager.declareBean(desc.argNames[i], params[i], params[i].getClass());
-                    }
+                    manager.declareBean(desc.argNames[i], params[i], params[i].getClass());
                 }
-                manager.declareBean("installData", installData, InstallData.class);
+            }
+            manager.declareBean(name, value, valueType);
 
+            Boolean defined = definedMethods.get(desc.name);
+            if (defined == null)
+            {
                 MethodExistenceChecker checker = langToMethodCheckerMap.get(language);
                 if (checker != null)
                 {
-                    if (checker.isNotMethodDefined(desc.name, scriptName, engine, manager))
-                    {
-                        return;
-                    }
+                    defined = !checker.isNotMethodDefined(desc.name, scriptName, engine, manager);
                 }
                 else
                 {
                     engine.eval(scriptName, 1, 1, desc.name);
+                    defined = true;
                 }
-
-                engine.exec(scriptName, 1, 1, desc.name + "()");
+                definedMethods.put(desc.name, defined);
             }
-            catch (BSFException exception)
+            if (!defined)
             {
-                throw new IzPackException("Failed to execute BSF action: " + desc.name, exception);
+                return;
             }
-            finally
+
+            engine.exec(scriptName, 1, 1, desc.name + "()");
+        }
+        catch (BSFException exception)
+        {
+            throw new IzPackException("Failed to execute BSF action: " + desc.name, exception);
+        }
+        finally
+        {
+            undeclareBeans(desc, name);
+        }
+    }
+
+    /**
+     * Logs the hook timings.
+     */
+    private void logTimings()
+    {
+        if (timings != null && logger.isLoggable(Level.FINE))
+        {
+            for (Map.Entry<String, HookTiming> entry : timings.entrySet())
             {
-                undeclareBeans(desc, "installData", "idata");
+                HookTiming timing = entry.getValue();
+                logger.fine(scriptName + ": " + entry.getKey() + " invoked " + timing.getCount() + " times in "
+                                    + timing.getTime(TimeUnit.MILLISECONDS) + " ms");
             }
         }
-
     }
 
     /**
@@ -298,4 +533,47 @@ public class BSFAction extends ActionBase
             logger.log(Level.INFO, "Failed to undeclare beans: " + exception.getMessage(), exception);
         }
     }
+
+    /**
+     * The number of invocations of a script hook, and the time spent in them.
+     */
+    public static final class HookTiming
+    {
+        /**
+         * The number of invocations.
+         */
+        private int count;
+
+        /**
+         * The total time, in nanoseconds.
+         */
+        private long time;
+
+        private HookTiming(int count, long time)
+        {
+            this.count = count;
+            this.time = time;
+        }
+
+        /**
+         * Returns the number of invocations.
+         *
+         * @return the number of invocations
+         */
+        public int getCount()
+        {
+            return count;
+        }
+
+        /**
+         * Returns the total time spent in the hook.
+         *
+         * @param unit the time unit
+         * @return the time spent in the hook
+         */
+        public long getTime(TimeUnit unit)
+        {
+            return unit.convert(time, TimeUnit.NANOSECONDS);
+        }
+    }
 }
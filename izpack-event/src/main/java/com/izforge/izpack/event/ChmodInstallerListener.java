@@ -22,10 +22,17 @@
 package com.izforge.izpack.event;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import com.izforge.izpack.api.data.InstallData;
 import com.izforge.izpack.api.data.Pack;
 import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.event.BatchInstallerListener;
+import com.izforge.izpack.api.event.InstalledFile;
 import com.izforge.izpack.api.exception.InstallerException;
 import com.izforge.izpack.event.AbstractProgressInstallerListener;
 import com.izforge.izpack.util.FileExecutor;
@@ -34,12 +41,24 @@ import com.izforge.izpack.util.OsVersion;
 /**
  * <p>InstallerListener for file and directory permissions
  * on Unix.</p>
+ * <p>Installed files are received in batches, and paths requiring the same
+ * permissions are changed by a single chmod command.</p>
  *
  * @author Klaus Bartz
  */
-public class ChmodInstallerListener extends AbstractProgressInstallerListener
+public class ChmodInstallerListener extends AbstractProgressInstallerListener implements BatchInstallerListener
 {
 
+    /**
+     * The maximum no. of paths to pass to a single chmod command.
+     */
+    private static final int MAX_PATHS = 256;
+
+    /**
+     * The maximum total length of the paths passed to a single chmod command, to stay within command line limits.
+     */
+    private static final int MAX_LENGTH = 65536;
+
     /**
      * Constructs an {@code ChmodInstallerListener}.
      *
@@ -66,10 +85,71 @@ public class ChmodInstallerListener extends AbstractProgressInstallerListener
      */
     @Override
     public void afterFile(File filePath, PackFile pf, Pack pack)
+    {
+        int fileVal = getFilePermissions(pf);
+        if (fileVal != -1)
+        {
+            chmod(Collections.singletonList(filePath), fileVal);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterDir(File dirPath, PackFile pf, Pack pack)
+    {
+        int dirVal = getDirPermissions(dirPath, pf);
+        if (dirVal != -1)
+        {
+            chmod(Collections.singletonList(dirPath), dirVal);
+        }
+    }
+
+    /**
+     * Sets the permissions of installed files and created directories.
+     * <p/>
+     * Paths requiring the same permissions are changed with a single command.
+     *
+     * @param files the installed files and created directories
+     */
+    @Override
+    public void afterFiles(List<InstalledFile> files)
+    {
+        Map<Integer, List<File>> paths = new LinkedHashMap<Integer, List<File>>();
+        for (InstalledFile file : files)
+        {
+            int permissions = file.isDirectory()
+                    ? getDirPermissions(file.getFile(), file.getPackFile())
+                    : getFilePermissions(file.getPackFile());
+            if (permissions != -1)
+            {
+                List<File> list = paths.get(permissions);
+                if (list == null)
+                {
+                    list = new ArrayList<File>();
+                    paths.put(permissions, list);
+                }
+                list.add(file.getFile());
+            }
+        }
+        for (Map.Entry<Integer, List<File>> entry : paths.entrySet())
+        {
+            chmod(entry.getValue(), entry.getKey());
+        }
+    }
+
+    /**
+     * Returns the permissions to apply to an installed file.
+     *
+     * @param pf the pack file
+     * @return the permissions, or {@code -1} if none are specified
+     */
+    private int getFilePermissions(PackFile pf)
     {
         if (pf.getAdditionals() == null)
         {
-            return;
+            return -1;
         }
         Object file = pf.getAdditionals().get("permission.file");
         int fileVal = -1;
@@ -77,25 +157,26 @@ public class ChmodInstallerListener extends AbstractProgressInstallerListener
         {
             fileVal = (Integer) file;
         }
-        if (fileVal != -1)
-        {
-            chmod(filePath, fileVal);
-        }
+        return fileVal;
     }
 
     /**
-     * {@inheritDoc}
+     * Returns the permissions to apply to a created directory.
+     *
+     * @param dirPath the directory
+     * @param pf      the pack file
+     * @return the permissions, or {@code -1} if none are specified
+     * @throws InstallerException if the permissions don't give the owner full rights
      */
-    @Override
-    public void afterDir(File dirPath, PackFile pf, Pack pack)
+    private int getDirPermissions(File dirPath, PackFile pf)
     {
         if (pf.getAdditionals() == null)
         {
-            return;
+            return -1;
         }
         if (dirPath == null)
         {
-            return;
+            return -1;
         }
         Object dir = pf.getAdditionals().get("permission.dir");
         int dirVal = -1;
@@ -110,26 +191,50 @@ public class ChmodInstallerListener extends AbstractProgressInstallerListener
                 throw new InstallerException("Bad owner permission for directory "
                                                      + dirPath.getAbsolutePath() + "; at installation time the owner needs full rights");
             }
-            chmod(dirPath, dirVal);
         }
+        return dirVal;
     }
 
-    private void chmod(File path, int permissions)
+    private void chmod(List<File> paths, int permissions)
     {
-        String pathSep = System.getProperty("path.separator");
         if (OsVersion.IS_WINDOWS)
         {
             throw new InstallerException("Sorry, chmod not supported yet on windows; use this class OS dependant.");
         }
-        if (path == null)
-        // Oops this is an error, but in this example we ignore it ...
+        String permStr = Integer.toOctalString(permissions);
+        List<String> params = new ArrayList<String>();
+        int length = 0;
+        for (File path : paths)
+        {
+            if (path == null)
+            // Oops this is an error, but in this example we ignore it ...
+            {
+                continue;
+            }
+            String absolutePath = path.getAbsolutePath();
+            if (!params.isEmpty() && (params.size() >= MAX_PATHS || length + absolutePath.length() > MAX_LENGTH))
+            {
+                chmod(permStr, params);
+                params.clear();
+                length = 0;
+            }
+            params.add(absolutePath);
+            length += absolutePath.length() + 1;
+        }
+        if (!params.isEmpty())
         {
-            return;
+            chmod(permStr, params);
         }
-        String permStr = Integer.toOctalString(permissions);
-        String[] params = {"chmod", permStr, path.getAbsolutePath()};
+    }
+
+    private void chmod(String permStr, List<String> paths)
+    {
+        List<String> params = new ArrayList<String>(paths.size() + 2);
+        params.add("chmod");
+        params.add(permStr);
+        params.addAll(paths);
         String[] output = new String[2];
         FileExecutor fe = new FileExecutor();
-        fe.executeCommand(params, output);
+        fe.executeCommand(params.toArray(new String[params.size()]), output);
     }
 }
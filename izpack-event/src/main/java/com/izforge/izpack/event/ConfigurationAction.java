@@ -38,6 +38,11 @@ public class ConfigurationAction extends ActionBase
 
     private List<ConfigurationActionTask> actionTasks = null;
 
+    /**
+     * Determines if tasks that touch different files may be executed concurrently.
+     */
+    private boolean parallel = false;
+
     /**
      * Default constructor
      */
@@ -54,12 +59,41 @@ public class ConfigurationAction extends ActionBase
     public void performInstallAction() throws Exception
     {
         logger.fine("Found " + actionTasks.size() + " configuration tasks");
-        for (ConfigurationActionTask task : actionTasks)
+        if (parallel && actionTasks.size() > 1)
+        {
+            new ConfigurationTaskScheduler(actionTasks).execute();
+        }
+        else
         {
-            task.execute();
+            for (ConfigurationActionTask task : actionTasks)
+            {
+                task.execute();
+            }
         }
     }
 
+    /**
+     * Determines if tasks that touch different files may be executed concurrently.
+     *
+     * @return {@code true} if tasks may be executed concurrently
+     */
+    public boolean isParallel()
+    {
+        return parallel;
+    }
+
+    /**
+     * Determines if tasks that touch different files may be executed concurrently.
+     * <p/>
+     * Tasks on the same file are always executed in declared order.
+     *
+     * @param parallel if {@code true}, tasks may be executed concurrently
+     */
+    public void setParallel(boolean parallel)
+    {
+        this.parallel = parallel;
+    }
+
     public List<ConfigurationActionTask> getActionTasks()
     {
         return actionTasks;
@@ -21,10 +21,16 @@
 
 package com.izforge.izpack.event;
 
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.logging.Logger;
 
 import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.util.config.ConfigurableFiles;
 import com.izforge.izpack.util.config.ConfigurableTask;
+import com.izforge.izpack.util.config.DocumentCache;
+import com.izforge.izpack.util.config.DocumentCacheAware;
 
 
 public class ConfigurationActionTask
@@ -34,6 +40,7 @@ public class ConfigurationActionTask
     private String condition;
     private ConfigurableTask task;
     private RulesEngine rules;
+    private DocumentCache cache;
 
 
     public ConfigurationActionTask(ConfigurableTask task, String condition, RulesEngine rules)
@@ -53,6 +60,20 @@ public class ConfigurationActionTask
         this.task = task;
     }
 
+    /**
+     * Sets the cache of documents shared with other tasks.
+     *
+     * @param cache the document cache. May be {@code null}
+     */
+    public void setDocumentCache(DocumentCache cache)
+    {
+        this.cache = cache;
+        if (task instanceof DocumentCacheAware)
+        {
+            ((DocumentCacheAware) task).setDocumentCache(cache);
+        }
+    }
+
     public String getCondition()
     {
         return condition;
@@ -63,16 +84,97 @@ public class ConfigurationActionTask
         this.condition = condition;
     }
 
-    public void execute() throws Exception
+    /**
+     * Determines if the task's condition is met, logging if it isn't.
+     *
+     * @return {@code true} if the task has no condition, or its condition is true
+     */
+    public boolean isConditionTrue()
     {
         if (condition == null || condition.trim().length() == 0 || rules.isConditionTrue(condition))
+        {
+            return true;
+        }
+        logger.fine("Condition " + condition + " not met - skipping configuration task class " + task.getClass().getName());
+        return false;
+    }
+
+    public void execute() throws Exception
+    {
+        if (isConditionTrue())
         {
             logger.fine("Executing configuration task class " + task.getClass().getName());
+            executeTask();
+        }
+    }
+
+    /**
+     * Executes the task, without evaluating its condition.
+     * <p/>
+     * If the task doesn't use the document cache, the cached files it touches are written back first. If it uses the
+     * cache and fails, the files it touches are evicted from the cache, so that its partial changes aren't written.
+     *
+     * @throws Exception if the task fails
+     */
+    public void executeTask() throws Exception
+    {
+        if (cache == null)
+        {
+            this.task.execute();
+        }
+        else if (!(task instanceof DocumentCacheAware))
+        {
+            Set<File> files = getFiles();
+            if (files != null)
+            {
+                cache.flush(files);
+            }
+            else
+            {
+                cache.flush();
+            }
             this.task.execute();
         }
         else
         {
-            logger.fine("Condition " + condition + " not met - skipping configuration task class " + task.getClass().getName());
+            try
+            {
+                this.task.execute();
+            }
+            catch (Exception exception)
+            {
+                Set<File> files = getFiles();
+                if (files != null)
+                {
+                    cache.evict(files);
+                }
+                else
+                {
+                    cache.clear();
+                }
+                throw exception;
+            }
+        }
+    }
+
+    /**
+     * Returns the files read and written by the task.
+     *
+     * @return the files, or {@code null} if they aren't known
+     */
+    private Set<File> getFiles()
+    {
+        Set<File> result = null;
+        if (task instanceof ConfigurableFiles)
+        {
+            Set<File> inputs = ((ConfigurableFiles) task).getInputFiles();
+            Set<File> outputs = ((ConfigurableFiles) task).getOutputFiles();
+            if (inputs != null && outputs != null)
+            {
+                result = new HashSet<File>(inputs);
+                result.addAll(outputs);
+            }
         }
+        return result;
     }
 }
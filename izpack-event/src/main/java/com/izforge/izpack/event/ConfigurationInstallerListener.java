@@ -53,6 +53,7 @@ import com.izforge.izpack.util.file.types.Mapper;
 import com.izforge.izpack.util.helper.SpecHelper;
 
 import java.io.File;
+import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.*;
 import java.util.logging.Level;
@@ -74,6 +75,7 @@ public class ConfigurationInstallerListener extends AbstractProgressInstallerLis
     public static final String CONFIGURABLESET_ATTR = "configurableset";
     public static final String CONFIGURABLE_ATTR = "configurable";
     public static final String CONDITION_ATTR = "condition";
+    public static final String PARALLEL_ATTR = "parallel";
 
     /**
      * The configuration actions.
@@ -98,6 +100,12 @@ public class ConfigurationInstallerListener extends AbstractProgressInstallerLis
 
     private VariableSubstitutor substlocal;
 
+    /**
+     * The cache of configuration files read and written by the actions. Modified files are written back after each
+     * batch of actions.
+     */
+    private final DocumentCache documents = new DocumentCache();
+
 
     /**
      * Constructs a <tt>ConfigurationInstallerListener</tt>.
@@ -314,6 +322,41 @@ public class ConfigurationInstallerListener extends AbstractProgressInstallerLis
         }
 
         logger.fine("Executing all " + order + " configuration actions for " + packName + " ...");
+        boolean success = false;
+        try
+        {
+            performActions(actList, order, listener);
+            success = true;
+        }
+        finally
+        {
+            try
+            {
+                documents.flush();
+            }
+            catch (IOException exception)
+            {
+                if (success)
+                {
+                    throw new InstallerException("Failed to write configuration files", exception);
+                }
+                logger.log(Level.WARNING, "Failed to write configuration files: " + exception.getMessage(),
+                           exception);
+            }
+        }
+    }
+
+    /**
+     * Performs actions.
+     *
+     * @param actList  the actions
+     * @param order    the order
+     * @param listener the progress listener. May be {@code null}
+     * @throws InstallerException if an action fails
+     */
+    private void performActions(List<ConfigurationAction> actList, String order, ProgressListener listener)
+            throws InstallerException
+    {
         for (ConfigurationAction act : actList)
         {
             // Inform progress bar if needed. Works only on AFTER_PACKS
@@ -358,6 +401,8 @@ public class ConfigurationInstallerListener extends AbstractProgressInstallerLis
             throw new InstallerException(e);
         }
 
+        act.setParallel(Boolean.parseBoolean(getAttribute(el, PARALLEL_ATTR)));
+
         // Read specific attributes and nested elements
         substlocal = new VariableSubstitutorImpl(new DefaultVariables(readVariables(el)));
         act.setActionTasks(readConfigurables(el));
@@ -427,8 +472,10 @@ public class ConfigurationInstallerListener extends AbstractProgressInstallerLis
                             "Type '" + configType.getAttribute() + "' currently not allowed for ConfigurableSet");
             }
 
-            configtasks.add(new ConfigurationActionTask(task, getAttribute(el, CONDITION_ATTR),
-                                                        getInstallData().getRules()));
+            ConfigurationActionTask actionTask = new ConfigurationActionTask(task, getAttribute(el, CONDITION_ATTR),
+                                                                             getInstallData().getRules());
+            actionTask.setDocumentCache(documents);
+            configtasks.add(actionTask);
         }
         return configtasks;
     }
@@ -647,8 +694,10 @@ public class ConfigurationInstallerListener extends AbstractProgressInstallerLis
                             "Type '" + configType.getAttribute() + "' currently not allowed for Configurable");
             }
 
-            configtasks.add(new ConfigurationActionTask(task, getAttribute(el, CONDITION_ATTR),
-                                                        getInstallData().getRules()));
+            ConfigurationActionTask actionTask = new ConfigurationActionTask(task, getAttribute(el, CONDITION_ATTR),
+                                                                             getInstallData().getRules());
+            actionTask.setDocumentCache(documents);
+            configtasks.add(actionTask);
         }
         return configtasks;
     }
@@ -0,0 +1,310 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.event;
+
+import com.izforge.izpack.util.config.ConfigurableFiles;
+import com.izforge.izpack.util.config.ConfigurableTask;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+
+/**
+ * Executes the tasks of a {@link ConfigurationAction} concurrently, where they don't touch the same files.
+ * <p/>
+ * The tasks are divided into waves. A task is placed in the wave after the last one containing an earlier task that it
+ * conflicts with, i.e. one that writes a file the task reads or writes, or reads a file the task writes. Tasks that
+ * don't report their files via {@link ConfigurableFiles} conflict with every other task, and so run on their own.
+ * Tasks on the same file therefore always execute in declared order.
+ * <p/>
+ * Waves execute one after another. Conditions are evaluated and logged in declared order before a wave starts, and
+ * if tasks fail, the failure of the first in declared order is rethrown once the wave completes.
+ */
+class ConfigurationTaskScheduler
+{
+    private static final Logger logger = Logger.getLogger(ConfigurationTaskScheduler.class.getName());
+
+    /**
+     * The tasks.
+     */
+    private final List<ConfigurationActionTask> tasks;
+
+    /**
+     * The maximum number of tasks to execute concurrently.
+     */
+    private final int threads;
+
+
+    /**
+     * Constructs a {@code ConfigurationTaskScheduler} that uses up to one thread per available processor.
+     *
+     * @param tasks the tasks, in declared order
+     */
+    public ConfigurationTaskScheduler(List<ConfigurationActionTask> tasks)
+    {
+        this(tasks, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a {@code ConfigurationTaskScheduler}.
+     *
+     * @param tasks   the tasks, in declared order
+     * @param threads the maximum number of tasks to execute concurrently
+     */
+    public ConfigurationTaskScheduler(List<ConfigurationActionTask> tasks, int threads)
+    {
+        this.tasks = tasks;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Divides the tasks into waves of tasks that may execute concurrently.
+     *
+     * @return the waves, in execution order, each holding tasks in declared order
+     */
+    public List<List<ConfigurationActionTask>> getWaves()
+    {
+        List<List<ConfigurationActionTask>> waves = new ArrayList<List<ConfigurationActionTask>>();
+        List<Footprint> footprints = new ArrayList<Footprint>();
+        int[] levels = new int[tasks.size()];
+        for (int i = 0; i < tasks.size(); ++i)
+        {
+            Footprint footprint = new Footprint(tasks.get(i).getConfigurableTask());
+            int level = 0;
+            for (int j = 0; j < i; ++j)
+            {
+                if (levels[j] >= level && footprint.conflicts(footprints.get(j)))
+                {
+                    level = levels[j] + 1;
+                }
+            }
+            levels[i] = level;
+            footprints.add(footprint);
+            if (level == waves.size())
+            {
+                waves.add(new ArrayList<ConfigurationActionTask>());
+            }
+            waves.get(level).add(tasks.get(i));
+        }
+        return waves;
+    }
+
+    /**
+     * Executes the tasks.
+     *
+     * @throws Exception if a task fails
+     */
+    public void execute() throws Exception
+    {
+        List<List<ConfigurationActionTask>> waves = getWaves();
+        logger.fine("Executing " + tasks.size() + " configuration tasks in " + waves.size() + " waves");
+        ExecutorService executor = null;
+        try
+        {
+            for (int i = 0; i < waves.size(); ++i)
+            {
+                List<ConfigurationActionTask> enabled = new ArrayList<ConfigurationActionTask>();
+                for (ConfigurationActionTask task : waves.get(i))
+                {
+                    if (task.isConditionTrue())
+                    {
+                        logger.fine("Executing configuration task class "
+                                            + task.getConfigurableTask().getClass().getName() + " in wave " + (i + 1));
+                        enabled.add(task);
+                    }
+                }
+                if (enabled.size() == 1 || threads == 1)
+                {
+                    for (ConfigurationActionTask task : enabled)
+                    {
+                        task.executeTask();
+                    }
+                }
+                else if (!enabled.isEmpty())
+                {
+                    if (executor == null)
+                    {
+                        executor = createExecutor();
+                    }
+                    execute(enabled, executor);
+                }
+            }
+        }
+        finally
+        {
+            if (executor != null)
+            {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Executes a wave of tasks concurrently, waiting for all of them to complete.
+     *
+     * @param wave     the tasks
+     * @param executor the executor
+     * @throws Exception the failure of the first task, in declared order, that failed
+     */
+    private void execute(List<ConfigurationActionTask> wave, ExecutorService executor) throws Exception
+    {
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        for (final ConfigurationActionTask task : wave)
+        {
+            futures.add(executor.submit(new Callable<Void>()
+            {
+                @Override
+                public Void call() throws Exception
+                {
+                    task.executeTask();
+                    return null;
+                }
+            }));
+        }
+        Throwable failure = null;
+        for (Future<Void> future : futures)
+        {
+            try
+            {
+                future.get();
+            }
+            catch (ExecutionException exception)
+            {
+                if (failure == null)
+                {
+                    failure = exception.getCause();
+                }
+            }
+        }
+        if (failure instanceof Exception)
+        {
+            throw (Exception) failure;
+        }
+        else if (failure instanceof Error)
+        {
+            throw (Error) failure;
+        }
+    }
+
+    /**
+     * Creates the executor.
+     *
+     * @return a new executor
+     */
+    private ExecutorService createExecutor()
+    {
+        return Executors.newFixedThreadPool(Math.min(threads, tasks.size()), new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "izpack-configuration-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * The files read and written by a task.
+     */
+    private static class Footprint
+    {
+        /**
+         * The files read, or {@code null} if unknown.
+         */
+        private final Set<File> inputs;
+
+        /**
+         * The files written, or {@code null} if unknown.
+         */
+        private final Set<File> outputs;
+
+        public Footprint(ConfigurableTask task)
+        {
+            if (task instanceof ConfigurableFiles)
+            {
+                ConfigurableFiles files = (ConfigurableFiles) task;
+                inputs = normalise(files.getInputFiles());
+                outputs = normalise(files.getOutputFiles());
+            }
+            else
+            {
+                inputs = null;
+                outputs = null;
+            }
+        }
+
+        /**
+         * Determines if this task conflicts with another.
+         *
+         * @param other the other task
+         * @return {@code true} if the tasks conflict
+         */
+        public boolean conflicts(Footprint other)
+        {
+            if (inputs == null || outputs == null || other.inputs == null || other.outputs == null)
+            {
+                return true;
+            }
+            return intersects(outputs, other.inputs) || intersects(outputs, other.outputs)
+                    || intersects(inputs, other.outputs);
+        }
+
+        private static boolean intersects(Set<File> set1, Set<File> set2)
+        {
+            for (File file : set1)
+            {
+                if (set2.contains(file))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static Set<File> normalise(Set<File> files)
+        {
+            if (files == null)
+            {
+                return null;
+            }
+            Set<File> result = new HashSet<File>();
+            for (File file : files)
+            {
+                result.add(file.getAbsoluteFile().toPath().normalize().toFile());
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.event;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link AntProjectCache}.
+ */
+public class AntProjectCacheTest
+{
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The build file.
+     */
+    private File buildFile;
+
+    /**
+     * The file written by the build.
+     */
+    private File output;
+
+    /**
+     * Sets up the test case.
+     *
+     * @throws Exception for any error
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        buildFile = temporaryFolder.newFile("build.xml");
+        output = new File(temporaryFolder.getRoot(), "output.txt");
+        FileUtils.writeStringToFile(buildFile,
+                                    "<project>\n"
+                                            + "  <property name=\"parsed\" value=\"yes\"/>\n"
+                                            + "  <target name=\"define\">\n"
+                                            + "    <property name=\"defined\" value=\"yes\"/>\n"
+                                            + "  </target>\n"
+                                            + "  <target name=\"write\">\n"
+                                            + "    <echo file=\"${out}\" message=\"${parsed} ${defined}\"/>\n"
+                                            + "  </target>\n"
+                                            + "</project>\n",
+                                    StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Verifies that a parsed project is reused, and that properties set by a target aren't seen by later targets.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testReuse() throws Exception
+    {
+        AntProjectCache cache = new AntProjectCache();
+        AntAction action = createAction();
+
+        action.performInstallAction(cache);
+        assertEquals("yes ${defined}", FileUtils.readFileToString(output, StandardCharsets.UTF_8));
+        assertEquals(1, cache.size());
+
+        AntProjectCache.CachedProject project = cache.acquire(buildFile, null, action.getProperties());
+        assertEquals(0, cache.size());
+        // the top-level tasks run again before the next target
+        assertNull(project.getProject().getProperty("parsed"));
+        assertNull(project.getProject().getProperty("defined"));
+        project.executeTarget("define");
+        assertEquals("yes", project.getProject().getProperty("parsed"));
+        cache.release(project);
+
+        // the project is reused
+        assertSame(project, cache.acquire(buildFile, null, action.getProperties()));
+        cache.release(project);
+
+        // a project with different properties is not
+        Properties properties = new Properties();
+        properties.setProperty("out", output.getPath() + ".2");
+        AntProjectCache.CachedProject other = cache.acquire(buildFile, null, properties);
+        assertNotSame(project, other);
+        other.configure();
+        cache.release(other);
+        assertEquals(2, cache.size());
+
+        cache.evict(buildFile);
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Verifies that a project isn't reused once its build file has been overwritten.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testBuildFileChanged() throws Exception
+    {
+        AntProjectCache cache = new AntProjectCache();
+        AntAction action = createAction();
+        action.performInstallAction(cache);
+        assertEquals(1, cache.size());
+
+        long lastModified = buildFile.lastModified();
+        FileUtils.writeStringToFile(buildFile,
+                                    "<project>\n"
+                                            + "  <target name=\"define\"/>\n"
+                                            + "  <target name=\"write\">\n"
+                                            + "    <echo file=\"${out}\" message=\"changed\"/>\n"
+                                            + "  </target>\n"
+                                            + "</project>\n",
+                                    StandardCharsets.UTF_8);
+        // ensure the change is detected on file systems with coarse timestamps
+        assertTrue(buildFile.setLastModified(lastModified + 2000));
+
+        action.performInstallAction(cache);
+        assertEquals("changed", FileUtils.readFileToString(output, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Verifies that the top-level tasks of the build file run for each action, rather than once per cached project.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testTopLevelTasksRunForEachAction() throws Exception
+    {
+        File marker = new File(temporaryFolder.getRoot(), "marker");
+        FileUtils.writeStringToFile(buildFile,
+                                    "<project>\n"
+                                            + "  <available property=\"present\" file=\"${marker}\"/>\n"
+                                            + "  <target name=\"define\"/>\n"
+                                            + "  <target name=\"write\">\n"
+                                            + "    <echo file=\"${out}\" message=\"${present}\"/>\n"
+                                            + "  </target>\n"
+                                            + "</project>\n",
+                                    StandardCharsets.UTF_8);
+        AntProjectCache cache = new AntProjectCache();
+        AntAction action = createAction();
+        action.setProperty("marker", marker.getPath());
+
+        action.performInstallAction(cache);
+        assertEquals("${present}", FileUtils.readFileToString(output, StandardCharsets.UTF_8));
+        assertEquals(1, cache.size());
+
+        assertTrue(marker.createNewFile());
+        action.performInstallAction(cache);
+        assertEquals("true", FileUtils.readFileToString(output, StandardCharsets.UTF_8));
+        assertEquals(1, cache.size());
+
+        assertTrue(marker.delete());
+        action.performInstallAction(cache);
+        assertEquals("${present}", FileUtils.readFileToString(output, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Verifies that projects with more targets than the cache holds aren't cached.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testLargeProjectNotCached() throws Exception
+    {
+        AntProjectCache cache = new AntProjectCache(2);
+        AntAction action = createAction();
+        action.performInstallAction(cache);
+        assertEquals("yes ${defined}", FileUtils.readFileToString(output, StandardCharsets.UTF_8));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Creates an action that executes the "define" then "write" targets.
+     *
+     * @return a new action
+     */
+    private AntAction createAction()
+    {
+        AntAction action = new AntAction();
+        action.setBuildFile(buildFile);
+        action.setProperty("out", output.getPath());
+        action.addTarget("define");
+        action.addTarget("write");
+        return action;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.event;
+
+import com.izforge.izpack.api.data.InstallData;
+import com.izforge.izpack.api.data.Pack;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link BSFAction}.
+ */
+public class BSFActionTest
+{
+
+    /**
+     * Verifies that hooks are invoked against a single script context, and that their invocations are timed.
+     */
+    @Test
+    public void testGroovyHooks()
+    {
+        checkHooks("groovy", "count = 0\n"
+                + "beforeFile = { count++; installData.setVariable('count', String.valueOf(count)) }\n");
+    }
+
+    /**
+     * Verifies that hooks are invoked for beanshell scripts, which are run by BSF.
+     */
+    @Test
+    public void testBeanshellHooks()
+    {
+        checkHooks("beanshell", "count = 0;\n"
+                + "void beforeFile() { count++; installData.setVariable(\"count\", String.valueOf(count)); }\n");
+    }
+
+    /**
+     * Verifies that only Groovy scripts are run by their javax.script engine, unless other languages are listed by
+     * the {@link BSFAction#SCRIPT_ENGINE_LANGUAGES} system property.
+     */
+    @Test
+    public void testScriptEngineLanguages()
+    {
+        assertTrue(BSFAction.isScriptEngineLanguage("groovy"));
+        assertFalse(BSFAction.isScriptEngineLanguage("javascript"));
+        assertFalse(BSFAction.isScriptEngineLanguage(null));
+
+        System.setProperty(BSFAction.SCRIPT_ENGINE_LANGUAGES, "jython, JavaScript");
+        try
+        {
+            assertTrue(BSFAction.isScriptEngineLanguage("javascript"));
+            assertTrue(BSFAction.isScriptEngineLanguage("jython"));
+            assertFalse(BSFAction.isScriptEngineLanguage("beanshell"));
+        }
+        finally
+        {
+            System.clearProperty(BSFAction.SCRIPT_ENGINE_LANGUAGES);
+        }
+    }
+
+    /**
+     * Invokes the beforeFile hook of a script, which counts its invocations.
+     *
+     * @param language the script language
+     * @param script   the script
+     */
+    private void checkHooks(String language, String script)
+    {
+        BSFAction action = new BSFAction();
+        action.setLanguage(language);
+        action.setScript(script);
+        InstallData installData = Mockito.mock(InstallData.class);
+        Pack pack = Mockito.mock(Pack.class);
+
+        action.init();
+        for (int i = 0; i < 3; ++i)
+        {
+            action.execute(BSFAction.BEFOREFILE, new Object[]{new File("file" + i), pack}, installData);
+        }
+        action.execute(BSFAction.AFTERFILE, new Object[]{new File("file"), pack}, installData);
+        action.destroy();
+
+        Mockito.verify(installData).setVariable("count", "3");
+        Map<String, BSFAction.HookTiming> timings = action.getTimings();
+        assertEquals(3, timings.get("beforeFile").getCount());
+        assertEquals(1, timings.get("afterFile").getCount());
+        assertFalse(timings.containsKey("afterPack"));
+    }
+}
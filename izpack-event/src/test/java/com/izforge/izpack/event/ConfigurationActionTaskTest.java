@@ -0,0 +1,137 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.event;
+
+import com.izforge.izpack.api.config.Config;
+import com.izforge.izpack.api.config.Ini;
+import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.util.config.ConfigurableFiles;
+import com.izforge.izpack.util.config.ConfigurableTask;
+import com.izforge.izpack.util.config.DocumentCache;
+import com.izforge.izpack.util.config.DocumentCacheAware;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link ConfigurationActionTask}.
+ */
+public class ConfigurationActionTaskTest
+{
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that the cached changes of a task that fails partway aren't written, while those of a task that
+     * succeeds are.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testFailedTaskNotWritten() throws Exception
+    {
+        File failed = temporaryFolder.newFile("failed.ini");
+        File succeeded = temporaryFolder.newFile("succeeded.ini");
+        FileUtils.writeStringToFile(failed, "[section]\nkey=old\n", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(succeeded, "[section]\nkey=old\n", StandardCharsets.UTF_8);
+        DocumentCache cache = new DocumentCache();
+        RulesEngine rules = Mockito.mock(RulesEngine.class);
+
+        ConfigurationActionTask task = new ConfigurationActionTask(new IniTask(failed, true), null, rules);
+        task.setDocumentCache(cache);
+        try
+        {
+            task.execute();
+            fail("Expected the task to fail");
+        }
+        catch (IllegalStateException expected)
+        {
+            // expected
+        }
+        task = new ConfigurationActionTask(new IniTask(succeeded, false), null, rules);
+        task.setDocumentCache(cache);
+        task.execute();
+        cache.flush();
+
+        assertEquals("old", new Ini(failed).get("section", "key"));
+        assertEquals("new", new Ini(succeeded).get("section", "key"));
+    }
+
+    /**
+     * Task that changes an INI file via the document cache, optionally failing before it stores the file.
+     */
+    private static class IniTask implements ConfigurableTask, ConfigurableFiles, DocumentCacheAware
+    {
+        private final File file;
+
+        private final boolean fail;
+
+        private DocumentCache cache;
+
+        IniTask(File file, boolean fail)
+        {
+            this.file = file;
+            this.fail = fail;
+        }
+
+        @Override
+        public void setDocumentCache(DocumentCache cache)
+        {
+            this.cache = cache;
+        }
+
+        @Override
+        public Set<File> getInputFiles()
+        {
+            return Collections.singleton(file);
+        }
+
+        @Override
+        public Set<File> getOutputFiles()
+        {
+            return Collections.singleton(file);
+        }
+
+        @Override
+        public void execute() throws Exception
+        {
+            Ini ini = cache.getIni(file, Config.getGlobal().clone());
+            ini.put("section", "key", "new");
+            if (fail)
+            {
+                throw new IllegalStateException("failed");
+            }
+            cache.putIni(file, ini);
+        }
+    }
+}
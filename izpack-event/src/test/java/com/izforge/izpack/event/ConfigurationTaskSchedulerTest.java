@@ -0,0 +1,184 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.event;
+
+import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.util.config.ConfigurableFiles;
+import com.izforge.izpack.util.config.ConfigurableTask;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link ConfigurationTaskScheduler}.
+ */
+public class ConfigurationTaskSchedulerTest
+{
+    /**
+     * The names of the executed tasks, in order of execution.
+     */
+    private final List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+
+    /**
+     * Verifies that tasks on different files share a wave, and tasks on the same file, or with unknown files, don't.
+     */
+    @Test
+    public void testWaves()
+    {
+        ConfigurationActionTask a = task("a", files("in1"), files("out1"));
+        ConfigurationActionTask b = task("b", files("in2"), files("out2"));
+        ConfigurationActionTask c = task("c", files("out1"), files("out3"));
+        ConfigurationActionTask d = task("d", files("in1"), files("out4"));
+        ConfigurationActionTask e = task("e", null, null);
+        ConfigurationActionTask f = task("f", files("in2"), files("out5"));
+
+        List<List<ConfigurationActionTask>> waves
+                = new ConfigurationTaskScheduler(Arrays.asList(a, b, c, d, e, f)).getWaves();
+        assertEquals(4, waves.size());
+        assertEquals(Arrays.asList(a, b, d), waves.get(0));
+        assertEquals(Arrays.asList(c), waves.get(1));
+        assertEquals(Arrays.asList(e), waves.get(2));
+        assertEquals(Arrays.asList(f), waves.get(3));
+    }
+
+    /**
+     * Verifies that tasks on the same file execute in declared order, and that disabled tasks are skipped.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testExecute() throws Exception
+    {
+        RulesEngine rules = Mockito.mock(RulesEngine.class);
+        Mockito.when(rules.isConditionTrue("skip")).thenReturn(false);
+        List<ConfigurationActionTask> tasks = new ArrayList<ConfigurationActionTask>();
+        for (int i = 0; i < 10; ++i)
+        {
+            tasks.add(task("write" + i, files(), files("out" + (i % 2))));
+        }
+        tasks.add(new ConfigurationActionTask(new Task("skipped", files(), files("other")), "skip", rules));
+
+        new ConfigurationTaskScheduler(tasks, 4).execute();
+
+        assertEquals(10, executed.size());
+        for (int i = 0; i < 2; ++i)
+        {
+            int last = -1;
+            for (int j = i; j < 10; j += 2)
+            {
+                int index = executed.indexOf("write" + j);
+                assertTrue(index > last);
+                last = index;
+            }
+        }
+    }
+
+    /**
+     * Verifies that the failure of the first failing task in declared order is rethrown.
+     */
+    @Test
+    public void testFailure()
+    {
+        List<ConfigurationActionTask> tasks = Arrays.asList(
+                task("a", files(), files("a")), failing("b", "b"), failing("c", "c"));
+        try
+        {
+            new ConfigurationTaskScheduler(tasks, 3).execute();
+            fail("Expected exception");
+        }
+        catch (Exception expected)
+        {
+            assertEquals("b", expected.getMessage());
+        }
+    }
+
+    private ConfigurationActionTask task(String name, Set<File> inputs, Set<File> outputs)
+    {
+        return new ConfigurationActionTask(new Task(name, inputs, outputs), null, null);
+    }
+
+    private ConfigurationActionTask failing(final String name, String output)
+    {
+        return new ConfigurationActionTask(new Task(name, files(), files(output))
+        {
+            @Override
+            public void execute() throws Exception
+            {
+                throw new Exception(name);
+            }
+        }, null, null);
+    }
+
+    private static Set<File> files(String... names)
+    {
+        Set<File> result = new HashSet<File>();
+        for (String name : names)
+        {
+            result.add(new File(name));
+        }
+        return result;
+    }
+
+    /**
+     * Task that records its execution.
+     */
+    private class Task implements ConfigurableTask, ConfigurableFiles
+    {
+        private final String name;
+        private final Set<File> inputs;
+        private final Set<File> outputs;
+
+        public Task(String name, Set<File> inputs, Set<File> outputs)
+        {
+            this.name = name;
+            this.inputs = inputs;
+            this.outputs = outputs;
+        }
+
+        @Override
+        public void execute() throws Exception
+        {
+            executed.add(name);
+        }
+
+        @Override
+        public Set<File> getInputFiles()
+        {
+            return inputs;
+        }
+
+        @Override
+        public Set<File> getOutputFiles()
+        {
+            return outputs;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import com.izforge.izpack.installer.automation.AutomatedInstaller;
 import com.izforge.izpack.installer.console.ConsoleInstallerAction;
 import com.izforge.izpack.installer.container.impl.AutomatedInstallerContainer;
 import com.izforge.izpack.installer.container.impl.InstallerContainer;
+import com.izforge.izpack.installer.unpacker.InstallProfiler;
 import com.izforge.izpack.logging.FileFormatter;
 import com.izforge.izpack.util.Debug;
 import com.izforge.izpack.util.LogUtils;
@@ -65,6 +66,16 @@ public class Installer
      */
     private static int installerMode = 0;
 
+    /**
+     * Determines if automated installations are profiled.
+     */
+    private boolean profile;
+
+    /**
+     * The installation log file name. May be {@code null}.
+     */
+    private String logFileName;
+
     /*
      * The main method (program entry point).
      *
@@ -146,7 +157,6 @@ public class Installer
             String langcode = null;
             String media = null;
             String defaultsFile = null;
-            String logFileName = null;
 
             while (args_it.hasNext())
             {
@@ -157,6 +167,9 @@ public class Installer
                     {
                         logFileName = fetchArgument(args_it, logFileName);
                         checkPath(logFileName);
+                    } else if ("-profile".equalsIgnoreCase(arg))
+                    {
+                        profile = true;
                     } else if ("-debug".equalsIgnoreCase(arg))
                     {
                         Debug.setDEBUG(true);
@@ -322,6 +335,18 @@ public class Installer
             variables.setOverrides(defaults);
         }
 
+        if (profile)
+        {
+            InstallProfiler profiler = container.getComponent(InstallProfiler.class);
+            profiler.setEnabled(true);
+            if (logFileName != null)
+            {
+                // write the report next to the installation log
+                File logFile = new File(FilenameUtils.normalize(logFileName)).getAbsoluteFile();
+                profiler.setReportFile(new File(logFile.getParentFile(), InstallProfiler.REPORT_NAME));
+            }
+        }
+
         AutomatedInstaller automatedInstaller = container.getComponent(AutomatedInstaller.class);
         automatedInstaller.init(path, mediaDir, args);
         automatedInstaller.doInstall();
@@ -16,6 +16,7 @@ import com.izforge.izpack.api.resource.Locales;
 import com.izforge.izpack.api.substitutor.VariableSubstitutor;
 import com.izforge.izpack.core.container.AbstractContainer;
 import com.izforge.izpack.core.container.PlatformProvider;
+import com.izforge.izpack.core.data.ConcurrentProperties;
 import com.izforge.izpack.core.data.DefaultVariables;
 import com.izforge.izpack.core.factory.DefaultObjectFactory;
 import com.izforge.izpack.core.os.RegistryDefaultHandler;
@@ -38,6 +39,7 @@ import com.izforge.izpack.installer.requirement.LockFileChecker;
 import com.izforge.izpack.installer.requirement.RequirementsChecker;
 import com.izforge.izpack.installer.unpacker.FileQueueFactory;
 import com.izforge.izpack.installer.unpacker.IUnpacker;
+import com.izforge.izpack.installer.unpacker.InstallProfiler;
 import com.izforge.izpack.merge.MergeManagerImpl;
 import com.izforge.izpack.merge.resolve.MergeableResolver;
 import com.izforge.izpack.merge.resolve.PathResolver;
@@ -105,11 +107,12 @@ public abstract class InstallerContainer extends AbstractContainer
         addComponent(UninstallData.class);
         addComponent(MutablePicoContainer.class, pico);
         addComponent(ConditionContainer.class);
-        addComponent(Properties.class);
+        addComponent(Properties.class, new ConcurrentProperties());
         addComponent(DefaultVariables.class);
         addComponent(ResourceManager.class);
         addComponent(UninstallDataWriter.class);
         addComponent(ProgressNotifiersImpl.class);
+        addComponent(InstallProfiler.class);
         addComponent(InstallerListeners.class);
         addComponent(CustomDataLoader.class);
         addComponent(Container.class, this);
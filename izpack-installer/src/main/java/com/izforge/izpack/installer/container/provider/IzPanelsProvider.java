@@ -44,7 +44,8 @@ public class IzPanelsProvider extends PanelsProvider
     /**
      * Creates the panels.
      * <p/>
-     * This invokes any pre-construction actions associated with them.
+     * This invokes any pre-construction actions associated with them. The panel classes are loaded in the
+     * background, while the language dialog is displayed.
      *
      * @param factory     the factory for constructing panels
      * @param container   the installer container
@@ -62,7 +63,9 @@ public class IzPanelsProvider extends PanelsProvider
             IzPanelView panelView = new IzPanelView(panel, factory, installData);
             panels.add(panelView);
         }
-        return new IzPanels(panels, container, installData);
+        IzPanels result = new IzPanels(panels, container, installData);
+        result.preload();
+        return result;
     }
 
 }
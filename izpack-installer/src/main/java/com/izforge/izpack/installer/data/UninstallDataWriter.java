@@ -7,6 +7,7 @@ import com.izforge.izpack.data.CustomData;
 import com.izforge.izpack.api.data.ExecutableFile;
 import com.izforge.izpack.merge.resolve.PathResolver;
 import com.izforge.izpack.util.IoHelper;
+import com.izforge.izpack.util.compress.ParallelJarOutputStream;
 import org.apache.commons.io.IOUtils;
 
 import java.io.*;
@@ -523,7 +524,7 @@ public class UninstallDataWriter
 
         // Create the jar file
         jarStream = new FileOutputStream(jarPath);
-        jar = new JarOutputStream(new BufferedOutputStream(jarStream));
+        jar = new ParallelJarOutputStream(new BufferedOutputStream(jarStream));
         jar.setLevel(9);
         uninstallData.addFile(jarPath, true);
     }
@@ -0,0 +1,351 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.event;
+
+import com.izforge.izpack.api.event.ProgressListener;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * A {@link ProgressListener} that coalesces {@link #progress(int, String)} notifications, forwarding only the latest
+ * to the underlying listener at a fixed rate.
+ * <p/>
+ * Unpacking notifies progress for every file, which for installations with many small files floods GUI and console
+ * listeners with updates that are never seen. Here, the caller only records the latest sub-step, without locking or
+ * waiting on the listener. A shared background thread delivers it at most once per interval.
+ * <p/>
+ * All other notifications are forwarded immediately, after first delivering any pending sub-step, so the listener
+ * sees notifications in the order they were made. A sub-step taken for delivery by the background thread just as a
+ * new step or action starts is discarded rather than delivered late.
+ */
+public class CoalescingProgressListener implements ProgressListener
+{
+
+    /**
+     * The default interval between sub-step notifications, in milliseconds.
+     */
+    public static final long DEFAULT_INTERVAL = 40;
+
+    /**
+     * The scheduler used to deliver sub-steps.
+     */
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactory()
+            {
+                @Override
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, "izpack-progress");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(CoalescingProgressListener.class.getName());
+
+    /**
+     * The underlying listener.
+     */
+    private final ProgressListener listener;
+
+    /**
+     * The interval between sub-step notifications, in milliseconds.
+     */
+    private final long interval;
+
+    /**
+     * The latest sub-step not yet delivered.
+     */
+    private final AtomicReference<SubStep> pending = new AtomicReference<SubStep>();
+
+    /**
+     * The lock serialising notification of the underlying listener.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * The current step generation. Incremented each time a step or action starts.
+     */
+    private volatile int generation;
+
+    /**
+     * The scheduled delivery task, or {@code null} if it isn't running. Only updated holding {@link #lock}.
+     */
+    private volatile ScheduledFuture<?> task;
+
+
+    /**
+     * Constructs a {@code CoalescingProgressListener}, delivering sub-steps every {@link #DEFAULT_INTERVAL} ms.
+     *
+     * @param listener the listener to notify
+     */
+    public CoalescingProgressListener(ProgressListener listener)
+    {
+        this(listener, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Constructs a {@code CoalescingProgressListener}.
+     *
+     * @param listener the listener to notify
+     * @param interval the interval between sub-step notifications, in milliseconds
+     */
+    public CoalescingProgressListener(ProgressListener listener, long interval)
+    {
+        this.listener = listener;
+        this.interval = interval;
+    }
+
+    /**
+     * Returns the underlying listener.
+     *
+     * @return the underlying listener
+     */
+    public ProgressListener getListener()
+    {
+        return listener;
+    }
+
+    /**
+     * Invoked when an action starts.
+     *
+     * @param name     the name of the action
+     * @param noOfJobs the number of jobs
+     */
+    @Override
+    public void startAction(String name, int noOfJobs)
+    {
+        synchronized (lock)
+        {
+            flush();
+            ++generation;
+            listener.startAction(name, noOfJobs);
+            start();
+        }
+    }
+
+    /**
+     * Invoked when an action finishes.
+     * <p/>
+     * Any pending sub-step is delivered first.
+     */
+    @Override
+    public void stopAction()
+    {
+        synchronized (lock)
+        {
+            flush();
+            stop();
+            listener.stopAction();
+        }
+    }
+
+    /**
+     * Invoked when an action step starts.
+     *
+     * @param stepName the name of the step
+     * @param step     the step number
+     * @param subSteps the number of sub-steps the step consists of
+     */
+    @Override
+    public void nextStep(String stepName, int step, int subSteps)
+    {
+        synchronized (lock)
+        {
+            flush();
+            ++generation;
+            listener.nextStep(stepName, step, subSteps);
+        }
+    }
+
+    /**
+     * Sets the number of sub-steps.
+     *
+     * @param subSteps the number of sub-steps
+     */
+    @Override
+    public void setSubStepNo(int subSteps)
+    {
+        synchronized (lock)
+        {
+            flush();
+            listener.setSubStepNo(subSteps);
+        }
+    }
+
+    /**
+     * Invoked to notify progress.
+     * <p/>
+     * This increments the current step, and is forwarded immediately.
+     *
+     * @param message a message describing the step
+     */
+    @Override
+    public void progress(String message)
+    {
+        synchronized (lock)
+        {
+            flush();
+            listener.progress(message);
+        }
+    }
+
+    /**
+     * Invoked to notify progress.
+     * <p/>
+     * This only records the sub-step; it is delivered to the underlying listener asynchronously, unless superseded
+     * first.
+     *
+     * @param subStep the sub-step which will be performed next
+     * @param message an additional message describing the sub-step
+     */
+    @Override
+    public void progress(int subStep, String message)
+    {
+        pending.set(new SubStep(subStep, message, generation));
+        if (task == null)
+        {
+            synchronized (lock)
+            {
+                start();
+            }
+        }
+    }
+
+    /**
+     * Invoked when an action restarts.
+     *
+     * @param name           the name of the action
+     * @param overallMessage a message describing the overall progress
+     * @param tip            a tip describing the current progress
+     * @param steps          the number of steps the action consists of
+     */
+    @Override
+    public void restartAction(String name, String overallMessage, String tip, int steps)
+    {
+        synchronized (lock)
+        {
+            flush();
+            ++generation;
+            listener.restartAction(name, overallMessage, tip, steps);
+            start();
+        }
+    }
+
+    /**
+     * Delivers the pending sub-step, if any.
+     */
+    protected void deliver()
+    {
+        synchronized (lock)
+        {
+            flush();
+        }
+    }
+
+    /**
+     * Delivers the pending sub-step, if it belongs to the current step. Must be invoked holding {@link #lock}.
+     */
+    private void flush()
+    {
+        SubStep subStep = pending.getAndSet(null);
+        if (subStep != null && subStep.generation == generation)
+        {
+            listener.progress(subStep.subStep, subStep.message);
+        }
+    }
+
+    /**
+     * Starts the delivery task, if it isn't running. Must be invoked holding {@link #lock}.
+     */
+    private void start()
+    {
+        if (task == null)
+        {
+            task = scheduler.scheduleWithFixedDelay(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        deliver();
+                    }
+                    catch (Throwable exception)
+                    {
+                        // don't let listener failures cancel the task
+                        logger.log(Level.WARNING, exception.getMessage(), exception);
+                    }
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the delivery task. Must be invoked holding {@link #lock}.
+     */
+    private void stop()
+    {
+        if (task != null)
+        {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    /**
+     * A sub-step notification.
+     */
+    private static final class SubStep
+    {
+        /**
+         * The sub-step.
+         */
+        private final int subStep;
+
+        /**
+         * The message.
+         */
+        private final String message;
+
+        /**
+         * The step generation the sub-step belongs to.
+         */
+        private final int generation;
+
+        SubStep(int subStep, String message, int generation)
+        {
+            this.subStep = subStep;
+            this.message = message;
+            this.generation = generation;
+        }
+    }
+}
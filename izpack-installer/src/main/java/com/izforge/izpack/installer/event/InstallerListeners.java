@@ -25,6 +25,8 @@ package com.izforge.izpack.installer.event;
 import com.izforge.izpack.api.data.AutomatedInstallData;
 import com.izforge.izpack.api.data.Pack;
 import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.event.BatchInstallerListener;
+import com.izforge.izpack.api.event.InstalledFile;
 import com.izforge.izpack.api.event.InstallerListener;
 import com.izforge.izpack.api.event.ProgressListener;
 import com.izforge.izpack.api.exception.InstallerException;
@@ -34,9 +36,11 @@ import com.izforge.izpack.api.handler.AbstractUIHandler;
 import com.izforge.izpack.api.handler.Prompt;
 import com.izforge.izpack.api.resource.Messages;
 import com.izforge.izpack.core.handler.PromptUIHandler;
+import com.izforge.izpack.installer.unpacker.InstallProfiler;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 
@@ -59,6 +63,21 @@ public class InstallerListeners
      */
     private final List<InstallerListener> fileListeners = new ArrayList<InstallerListener>();
 
+    /**
+     * The file listeners that receive {@link #afterFile} and {@link #afterDir} notifications in batches.
+     */
+    private final List<BatchInstallerListener> batchListeners = new ArrayList<BatchInstallerListener>();
+
+    /**
+     * The installed files and directories not yet delivered to the batch listeners.
+     */
+    private final List<InstalledFile> pending = new ArrayList<InstalledFile>();
+
+    /**
+     * The maximum no. of installed files and directories to deliver to batch listeners in a single notification.
+     */
+    private static final int BATCH_SIZE = 512;
+
     /**
      * The installation data.
      */
@@ -69,6 +88,11 @@ public class InstallerListeners
      */
     private final Prompt prompt;
 
+    /**
+     * The profiler.
+     */
+    private final InstallProfiler profiler;
+
 
     /**
      * Constructs an {@code InstallerListeners}.
@@ -77,9 +101,32 @@ public class InstallerListeners
      * @param prompt      the prompt
      */
     public InstallerListeners(AutomatedInstallData installData, Prompt prompt)
+    {
+        this(installData, prompt, new InstallProfiler());
+    }
+
+    /**
+     * Constructs an {@code InstallerListeners}.
+     *
+     * @param installData the installation data
+     * @param prompt      the prompt
+     * @param profiler    the profiler, to record the time spent in each listener
+     */
+    public InstallerListeners(AutomatedInstallData installData, Prompt prompt, InstallProfiler profiler)
     {
         this.installData = installData;
         this.prompt = prompt;
+        this.profiler = profiler;
+    }
+
+    /**
+     * Returns the profiler.
+     *
+     * @return the profiler
+     */
+    public InstallProfiler getProfiler()
+    {
+        return profiler;
     }
 
     /**
@@ -138,6 +185,10 @@ public class InstallerListeners
                 if (listener.isFileListener())
                 {
                     fileListeners.add(listener);
+                    if (listener instanceof BatchInstallerListener)
+                    {
+                        batchListeners.add((BatchInstallerListener) listener);
+                    }
                 }
             }
                 catch (IzPackException ize)
@@ -160,7 +211,9 @@ public class InstallerListeners
         {
             try
             {
+                long start = profiler.start();
                 l.beforePacks(packs, listener);
+                profiler.listener(l, start);
             }
                 catch (IzPackException ize)
             {
@@ -182,7 +235,9 @@ public class InstallerListeners
         {
             try
             {
+                long start = profiler.start();
                 l.beforePack(pack);
+                profiler.listener(l, start);
             }
                 catch (IzPackException ize)
             {
@@ -215,7 +270,9 @@ public class InstallerListeners
         {
             try
             {
+                long start = profiler.start();
                 l.beforeDir(dir, packFile, pack);
+                profiler.listener(l, start);
             }
                 catch (IzPackException ize)
             {
@@ -226,6 +283,8 @@ public class InstallerListeners
 
     /**
      * Invoked after a directory is created.
+     * <p/>
+     * {@link BatchInstallerListener}s are notified on the next {@link #afterFiles()}.
      *
      * @param dir      the directory
      * @param packFile corresponding pack file
@@ -236,15 +295,22 @@ public class InstallerListeners
     {
         for (InstallerListener l : fileListeners)
         {
+            if (l instanceof BatchInstallerListener)
+            {
+                continue;
+            }
             try
             {
+                long start = profiler.start();
                 l.afterDir(dir, packFile, pack);
+                profiler.listener(l, start);
             }
                 catch (IzPackException ize)
             {
                 handleError(ize);
             }
         }
+        addPending(new InstalledFile(dir, packFile, pack, true));
     }
 
     /**
@@ -263,7 +329,9 @@ public class InstallerListeners
         {
             try
             {
+                long start = profiler.start();
                 l.beforeFile(file, packFile, pack);
+                profiler.listener(l, start);
             }
                 catch (IzPackException ize)
             {
@@ -276,6 +344,7 @@ public class InstallerListeners
      * Invoked after a file is installed.
      * <p/>
      * This implementation only invokes those listeners whose {@link #isFileListener()} returns <tt>true</tt>.
+     * {@link BatchInstallerListener}s are notified on the next {@link #afterFiles()}.
      *
      * @param file     the file
      * @param packFile corresponding pack file
@@ -286,15 +355,52 @@ public class InstallerListeners
     {
         for (InstallerListener l : fileListeners)
         {
+            if (l instanceof BatchInstallerListener)
+            {
+                continue;
+            }
             try
             {
+                long start = profiler.start();
                 l.afterFile(file, packFile, pack);
+                profiler.listener(l, start);
             }
                 catch (IzPackException ize)
             {
                 handleError(ize);
             }
         }
+        addPending(new InstalledFile(file, packFile, pack, false));
+    }
+
+    /**
+     * Delivers any installed files and directories not yet notified to the {@link BatchInstallerListener}s.
+     * <p/>
+     * This must be invoked once the files of a pack have been extracted.
+     *
+     * @throws InstallerException if a listener throws an exception
+     */
+    public void afterFiles() throws InstallerException
+    {
+        if (pending.isEmpty())
+        {
+            return;
+        }
+        List<InstalledFile> files = new ArrayList<InstalledFile>(pending);
+        pending.clear();
+        for (BatchInstallerListener l : batchListeners)
+        {
+            try
+            {
+                long start = profiler.start();
+                l.afterFiles(Collections.unmodifiableList(files));
+                profiler.listener(l, start);
+            }
+            catch (IzPackException ize)
+            {
+                handleError(ize);
+            }
+        }
     }
 
     /**
@@ -305,11 +411,14 @@ public class InstallerListeners
      */
     public void afterPack(Pack pack) throws InstallerException
     {
+        afterFiles();
         for (InstallerListener l : listeners)
         {
             try
             {
+                long start = profiler.start();
                 l.afterPack(pack);
+                profiler.listener(l, start);
             }
             catch (IzPackException ize)
             {
@@ -331,7 +440,9 @@ public class InstallerListeners
         {
             try
             {
+                long start = profiler.start();
                 l.afterPacks(packs, listener);
+                profiler.listener(l, start);
             }
                 catch (IzPackException ize)
             {
@@ -340,6 +451,24 @@ public class InstallerListeners
         }
     }
 
+    /**
+     * Queues an installed file or directory for the batch listeners, delivering the queue once it is full.
+     *
+     * @param file the installed file or directory
+     * @throws InstallerException if a listener throws an exception
+     */
+    private void addPending(InstalledFile file) throws InstallerException
+    {
+        if (!batchListeners.isEmpty())
+        {
+            pending.add(file);
+            if (pending.size() >= BATCH_SIZE)
+            {
+                afterFiles();
+            }
+        }
+    }
+
     private void handleError(IzPackException ize) throws IzPackException
     {
         Messages messages = installData.getMessages();
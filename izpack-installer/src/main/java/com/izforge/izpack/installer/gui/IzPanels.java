@@ -25,7 +25,10 @@ import com.izforge.izpack.api.container.Container;
 import com.izforge.izpack.installer.data.GUIInstallData;
 import com.izforge.izpack.installer.panel.AbstractPanels;
 
+import javax.swing.*;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 
 /**
@@ -35,6 +38,12 @@ import java.util.List;
  */
 public class IzPanels extends AbstractPanels<IzPanelView, IzPanel>
 {
+    /**
+     * The number of panels to construct by {@link #initialise()}. The remainder are constructed once the first panel
+     * has been displayed.
+     */
+    private static final int INITIAL_PANELS = 2;
+
     /**
      * The installation data.
      */
@@ -55,6 +64,26 @@ public class IzPanels extends AbstractPanels<IzPanelView, IzPanel>
      */
     private boolean isBack = false;
 
+    /**
+     * Determines which panels have had their {@link IzPanel} constructed, indexed on panel index.
+     */
+    private final boolean[] initialised;
+
+    /**
+     * The number of panels yet to have their {@link IzPanel} constructed.
+     */
+    private int pending;
+
+    /**
+     * Determines if the remaining panels have been scheduled for construction.
+     */
+    private boolean scheduled;
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(IzPanels.class.getName());
+
     /**
      * Constructs a {@code IzPanels}.
      *
@@ -67,27 +96,77 @@ public class IzPanels extends AbstractPanels<IzPanelView, IzPanel>
         super(panels, installData);
         this.container = container;
         this.installData = installData;
+        initialised = new boolean[panels.size()];
+        pending = panels.size();
     }
 
     /**
-     * Initialises the {@link IzPanel} instances.
+     * Initialises the {@link IzPanel} instances of the first panels.
+     * <p/>
+     * The remaining panels are constructed one at a time on the event dispatch thread once the first panel has been
+     * displayed, or all at once when navigating away from the first panel. This ensures that
+     * {@link GUIInstallData#getPanels()} is complete from the second panel on.
      */
     public void initialise()
+    {
+        // need to defer creation of the IzPanel until after the InstallerFrame is constructed
+        List<IzPanelView> panels = getPanelViews();
+        for (int i = 0; i < panels.size() && i < INITIAL_PANELS; ++i)
+        {
+            initialise(panels.get(i));
+        }
+    }
+
+    /**
+     * Initialises the {@link IzPanel} instances of all panels not yet initialised.
+     */
+    public synchronized void initialiseAll()
     {
         for (IzPanelView panel : getPanelViews())
         {
-            // need to defer creation of the IzPanel until after the InstallerFrame is constructed
-            IzPanel view = panel.getView();
-            installData.getPanels().add(view);
-            String panelId = panel.getPanelId();
-            if (panelId == null)
+            if (pending == 0)
             {
-                panelId = view.getClass().getName();
+                break;
             }
-            container.addComponent(panelId, view);
+            initialise(panel);
         }
     }
 
+    /**
+     * Loads the panel classes in a background thread, so that their loading and static initialisation overlaps
+     * with the installer start up rather than delaying the display of each panel.
+     * <p/>
+     * This doesn't construct any {@link IzPanel}, as that must be done on the event dispatch thread.
+     */
+    public void preload()
+    {
+        final List<IzPanelView> panels = getPanelViews();
+        Thread thread = new Thread("IzPanels preload")
+        {
+            @Override
+            public void run()
+            {
+                for (IzPanelView panel : panels)
+                {
+                    String className = panel.getPanel().getClassName();
+                    try
+                    {
+                        Class<? extends IzPanel> type = container.getClass(className, IzPanel.class);
+                        Class.forName(type.getName(), true, type.getClassLoader());
+                    }
+                    catch (Throwable exception)
+                    {
+                        // reported when the panel is constructed
+                        logger.log(Level.FINE, "Failed to preload panel class " + className, exception);
+                    }
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
     /**
      * Sets the listener to notify of events.
      *
@@ -122,6 +201,15 @@ public class IzPanels extends AbstractPanels<IzPanelView, IzPanel>
         boolean result = false;
         try
         {
+            if (oldPanel != null)
+            {
+                initialiseAll();
+            }
+            else
+            {
+                initialise(newPanel);
+                scheduleInitialisation();
+            }
             isBack = oldPanel != null && newPanel.getIndex() < oldPanel.getIndex();
             if (listener != null)
             {
@@ -136,4 +224,86 @@ public class IzPanels extends AbstractPanels<IzPanelView, IzPanel>
         return result;
     }
 
+    /**
+     * Initialises the {@link IzPanel} of a panel, and registers it, if it hasn't already been done.
+     *
+     * @param panel the panel
+     */
+    private synchronized void initialise(IzPanelView panel)
+    {
+        int index = panel.getIndex();
+        if (!initialised[index])
+        {
+            IzPanel view = panel.getView();
+
+            // keep the installation data panels in panel order
+            int position = 0;
+            for (int i = 0; i < index; ++i)
+            {
+                if (initialised[i])
+                {
+                    ++position;
+                }
+            }
+            installData.getPanels().add(position, view);
+            String panelId = panel.getPanelId();
+            if (panelId == null)
+            {
+                panelId = view.getClass().getName();
+            }
+            container.addComponent(panelId, view);
+            initialised[index] = true;
+            --pending;
+        }
+    }
+
+    /**
+     * Schedules the remaining panels to be initialised on the event dispatch thread, one per event, so that user
+     * input is processed between them.
+     */
+    private synchronized void scheduleInitialisation()
+    {
+        if (!scheduled && pending > 0)
+        {
+            scheduled = true;
+            SwingUtilities.invokeLater(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    if (initialiseNext())
+                    {
+                        SwingUtilities.invokeLater(this);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Initialises the next panel not yet initialised.
+     *
+     * @return {@code true} if there are further panels to initialise
+     */
+    private synchronized boolean initialiseNext()
+    {
+        for (IzPanelView panel : getPanelViews())
+        {
+            if (!initialised[panel.getIndex()])
+            {
+                try
+                {
+                    initialise(panel);
+                }
+                catch (Exception exception)
+                {
+                    // the failure is reported when the panel is navigated to
+                    logger.log(Level.WARNING, "Failed to construct panel " + panel.getPanelId(), exception);
+                    return false;
+                }
+                break;
+            }
+        }
+        return pending > 0;
+    }
 }
@@ -68,6 +68,11 @@ public abstract class FileUnpacker
      */
     private boolean queued;
 
+    /**
+     * The profiler. May be {@code null}.
+     */
+    private InstallProfiler profiler;
+
     /**
      * The logger.
      */
@@ -98,6 +103,16 @@ public abstract class FileUnpacker
     public abstract void unpack(PackFile file, InputStream packInputStream, File target)
             throws IOException, InstallerException;
 
+    /**
+     * Registers the profiler to record read and write times with.
+     *
+     * @param profiler the profiler. May be {@code null}
+     */
+    public void setProfiler(InstallProfiler profiler)
+    {
+        this.profiler = profiler;
+    }
+
     /**
      * Determines if the file was queued.
      *
@@ -179,12 +194,23 @@ public abstract class FileUnpacker
             throws IOException
     {
         int maxBytes = (int) Math.min(file.length() - bytesCopied, buffer.length);
+        boolean profile = profiler != null && profiler.isEnabled();
+        long start = profile ? profiler.start() : 0;
         int read = read(buffer, in, maxBytes);
         if (read == -1)
         {
             throw new IOException("Unexpected end of stream (installer corrupted?)");
         }
+        if (profile)
+        {
+            profiler.phase(InstallProfiler.Phase.READ, start);
+            start = profiler.start();
+        }
         out.write(buffer, 0, read);
+        if (profile)
+        {
+            profiler.phase(InstallProfiler.Phase.WRITE, start);
+        }
         bytesCopied += read;
 
         return bytesCopied;
@@ -0,0 +1,590 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.event.InstallerListener;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Collects timings of the installation phases, packs, files and listeners, and writes them as a JSON report.
+ * <p/>
+ * Profiling is disabled by default, in which case {@link #start()} returns {@code 0} and the recording methods
+ * return immediately.
+ * <p/>
+ * Usage:
+ * <pre>
+ * long start = profiler.start();
+ * ... // do work
+ * profiler.phase(Phase.PARSE_FILES, start);
+ * </pre>
+ */
+public class InstallProfiler
+{
+    /**
+     * The default name of the report.
+     */
+    public static final String REPORT_NAME = "install-profile.json";
+
+    /**
+     * The installation phases.
+     */
+    public enum Phase
+    {
+        /**
+         * Reading the pack meta-data.
+         */
+        METADATA,
+
+        /**
+         * Evaluating pack and file conditions and OS constraints.
+         */
+        CONDITIONS,
+
+        /**
+         * Skipping files in the pack streams.
+         */
+        SKIP,
+
+        /**
+         * Creating directories.
+         */
+        DIRECTORIES,
+
+        /**
+         * Reading, and decompressing, file data.
+         */
+        READ,
+
+        /**
+         * Writing file data.
+         */
+        WRITE,
+
+        /**
+         * Notifying installer listeners.
+         */
+        LISTENERS,
+
+        /**
+         * Substituting variables in parsable files.
+         */
+        PARSE_FILES,
+
+        /**
+         * Running executable files.
+         */
+        EXECUTE_FILES,
+
+        /**
+         * Performing update checks.
+         */
+        UPDATE_CHECKS,
+
+        /**
+         * Committing the file queue.
+         */
+        FILE_QUEUE,
+
+        /**
+         * Writing the installation information.
+         */
+        INSTALLATION_INFORMATION;
+
+        /**
+         * Returns the name of the phase in the report.
+         *
+         * @return the report name
+         */
+        public String getKey()
+        {
+            return name().toLowerCase(Locale.ENGLISH);
+        }
+    }
+
+    /**
+     * The number of slowest files to report.
+     */
+    private static final int SLOWEST_FILES = 25;
+
+    /**
+     * The number of file time histogram buckets. Bucket {@code i} counts files taking less than {@code 2^i} ms.
+     */
+    private static final int HISTOGRAM_BUCKETS = 16;
+
+    /**
+     * Determines if profiling is enabled.
+     */
+    private volatile boolean enabled;
+
+    /**
+     * The report file, or {@code null} to write it to the installation directory.
+     */
+    private File reportFile;
+
+    /**
+     * The time installation started, in nanoseconds.
+     */
+    private long startTime;
+
+    /**
+     * The time installation ended, in nanoseconds.
+     */
+    private long endTime;
+
+    /**
+     * The phase timings.
+     */
+    private final Stats[] phases = new Stats[Phase.values().length];
+
+    /**
+     * The pack timings, keyed on pack name.
+     */
+    private final Map<String, Stats> packs = new LinkedHashMap<String, Stats>();
+
+    /**
+     * The listener timings, keyed on listener class name.
+     */
+    private final Map<String, Stats> listeners = new LinkedHashMap<String, Stats>();
+
+    /**
+     * The file timing histogram.
+     */
+    private final long[] histogram = new long[HISTOGRAM_BUCKETS];
+
+    /**
+     * The slowest files, with the fastest of them at the head.
+     */
+    private final PriorityQueue<FileTime> slowest = new PriorityQueue<FileTime>();
+
+    /**
+     * The number of files extracted.
+     */
+    private long files;
+
+    /**
+     * The number of bytes extracted.
+     */
+    private long bytes;
+
+    /**
+     * Constructs an {@code InstallProfiler}.
+     */
+    public InstallProfiler()
+    {
+        for (Phase phase : Phase.values())
+        {
+            phases[phase.ordinal()] = new Stats();
+        }
+    }
+
+    /**
+     * Enables or disables profiling.
+     *
+     * @param enabled if {@code true}, enable profiling
+     */
+    public void setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Determines if profiling is enabled.
+     *
+     * @return {@code true} if profiling is enabled
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Sets the file to write the report to.
+     *
+     * @param reportFile the report file, or {@code null} to write it to the installation directory
+     */
+    public void setReportFile(File reportFile)
+    {
+        this.reportFile = reportFile;
+    }
+
+    /**
+     * Returns the file to write the report to.
+     *
+     * @return the report file, or {@code null} to write it to the installation directory
+     */
+    public File getReportFile()
+    {
+        return reportFile;
+    }
+
+    /**
+     * Returns the start time of an operation.
+     *
+     * @return the current time in nanoseconds, or {@code 0} if profiling is disabled
+     */
+    public long start()
+    {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Invoked when installation starts.
+     */
+    public synchronized void begin()
+    {
+        if (enabled)
+        {
+            startTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * Invoked when installation ends.
+     */
+    public synchronized void end()
+    {
+        if (enabled)
+        {
+            endTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * Records the time spent in a phase.
+     *
+     * @param phase the phase
+     * @param start the start time, as returned by {@link #start()}
+     */
+    public synchronized void phase(Phase phase, long start)
+    {
+        if (enabled)
+        {
+            phases[phase.ordinal()].add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records the time spent installing a pack.
+     *
+     * @param pack  the pack
+     * @param start the start time, as returned by {@link #start()}
+     */
+    public synchronized void pack(Pack pack, long start)
+    {
+        if (enabled)
+        {
+            getStats(packs, pack.getName()).add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records the time spent extracting a file.
+     *
+     * @param pack     the pack the file belongs to
+     * @param packFile the file
+     * @param start    the start time, as returned by {@link #start()}
+     */
+    public synchronized void file(Pack pack, PackFile packFile, long start)
+    {
+        if (enabled)
+        {
+            long time = System.nanoTime() - start;
+            long length = packFile.length();
+            ++files;
+            bytes += length;
+            Stats stats = getStats(packs, pack.getName());
+            ++stats.files;
+            stats.bytes += length;
+
+            long millis = time / 1000000;
+            int bucket = 0;
+            while (bucket < HISTOGRAM_BUCKETS - 1 && millis >= (1L << bucket))
+            {
+                ++bucket;
+            }
+            ++histogram[bucket];
+
+            if (slowest.size() < SLOWEST_FILES || slowest.peek().time < time)
+            {
+                slowest.add(new FileTime(packFile.getTargetPath(), length, time));
+                if (slowest.size() > SLOWEST_FILES)
+                {
+                    slowest.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the time spent in a listener.
+     *
+     * @param listener the listener
+     * @param start    the start time, as returned by {@link #start()}
+     */
+    public synchronized void listener(InstallerListener listener, long start)
+    {
+        if (enabled)
+        {
+            long time = System.nanoTime() - start;
+            getStats(listeners, listener.getClass().getName()).add(time);
+            phases[Phase.LISTENERS.ordinal()].add(time);
+        }
+    }
+
+    /**
+     * Writes the report.
+     *
+     * @param file the file to write to
+     * @throws IOException for any I/O error
+     */
+    public void writeReport(File file) throws IOException
+    {
+        FileUtils.writeStringToFile(file, toJSON(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the report.
+     *
+     * @return the report, as JSON
+     */
+    public synchronized String toJSON()
+    {
+        long elapsed = ((endTime != 0) ? endTime : System.nanoTime()) - startTime;
+        StringBuilder json = new StringBuilder(4096);
+        json.append("{\n");
+        json.append("  \"elapsedMillis\": ").append(millis(elapsed)).append(",\n");
+        json.append("  \"files\": ").append(files).append(",\n");
+        json.append("  \"bytes\": ").append(bytes).append(",\n");
+        json.append("  \"filesPerSecond\": ").append(perSecond(files, elapsed)).append(",\n");
+        json.append("  \"bytesPerSecond\": ").append(perSecond(bytes, elapsed)).append(",\n");
+
+        json.append("  \"phases\": {");
+        String separator = "\n";
+        for (Phase phase : Phase.values())
+        {
+            json.append(separator).append("    ");
+            appendString(json, phase.getKey());
+            json.append(": ");
+            phases[phase.ordinal()].append(json);
+            separator = ",\n";
+        }
+        json.append("\n  },\n");
+
+        json.append("  \"packs\": ");
+        append(json, packs);
+        json.append(",\n");
+        json.append("  \"listeners\": ");
+        append(json, listeners);
+        json.append(",\n");
+
+        json.append("  \"fileHistogram\": [");
+        separator = "\n";
+        for (int i = 0; i < HISTOGRAM_BUCKETS; ++i)
+        {
+            if (histogram[i] != 0)
+            {
+                json.append(separator).append("    {\"lessThanMillis\": ");
+                json.append((i < HISTOGRAM_BUCKETS - 1) ? Long.toString(1L << i) : "null");
+                json.append(", \"files\": ").append(histogram[i]).append("}");
+                separator = ",\n";
+            }
+        }
+        json.append("\n  ],\n");
+
+        json.append("  \"slowestFiles\": [");
+        List<FileTime> sorted = new ArrayList<FileTime>(slowest);
+        Collections.sort(sorted, Collections.reverseOrder());
+        separator = "\n";
+        for (FileTime file : sorted)
+        {
+            json.append(separator).append("    {\"path\": ");
+            appendString(json, file.path);
+            json.append(", \"bytes\": ").append(file.length);
+            json.append(", \"millis\": ").append(millis(file.time)).append("}");
+            separator = ",\n";
+        }
+        json.append("\n  ]\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    private static Stats getStats(Map<String, Stats> map, String name)
+    {
+        Stats stats = map.get(name);
+        if (stats == null)
+        {
+            stats = new Stats();
+            map.put(name, stats);
+        }
+        return stats;
+    }
+
+    private static void append(StringBuilder json, Map<String, Stats> map)
+    {
+        json.append("{");
+        String separator = "\n";
+        for (Map.Entry<String, Stats> entry : map.entrySet())
+        {
+            json.append(separator).append("    ");
+            appendString(json, entry.getKey());
+            json.append(": ");
+            entry.getValue().append(json);
+            separator = ",\n";
+        }
+        json.append(map.isEmpty() ? "}" : "\n  }");
+    }
+
+    private static void appendString(StringBuilder json, String value)
+    {
+        json.append('"');
+        for (int i = 0; i < value.length(); ++i)
+        {
+            char c = value.charAt(i);
+            switch (c)
+            {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                    {
+                        json.append(String.format("\\u%04x", (int) c));
+                    }
+                    else
+                    {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    private static String millis(long nanos)
+    {
+        return String.format(Locale.ENGLISH, "%.3f", nanos / 1000000.0);
+    }
+
+    private static String perSecond(long count, long nanos)
+    {
+        return (nanos > 0) ? String.format(Locale.ENGLISH, "%.1f", count * 1000000000.0 / nanos) : "0";
+    }
+
+    /**
+     * Accumulated timings.
+     */
+    private static class Stats
+    {
+        /**
+         * The number of calls.
+         */
+        private long count;
+
+        /**
+         * The total time, in nanoseconds.
+         */
+        private long total;
+
+        /**
+         * The longest time, in nanoseconds.
+         */
+        private long max;
+
+        /**
+         * The number of files, for packs.
+         */
+        private long files;
+
+        /**
+         * The number of bytes, for packs.
+         */
+        private long bytes;
+
+        void add(long time)
+        {
+            ++count;
+            total += time;
+            max = Math.max(max, time);
+        }
+
+        void append(StringBuilder json)
+        {
+            json.append("{\"count\": ").append(count);
+            json.append(", \"totalMillis\": ").append(millis(total));
+            json.append(", \"maxMillis\": ").append(millis(max));
+            if (files != 0)
+            {
+                json.append(", \"files\": ").append(files);
+                json.append(", \"bytes\": ").append(bytes);
+                json.append(", \"bytesPerSecond\": ").append(perSecond(bytes, total));
+            }
+            json.append("}");
+        }
+    }
+
+    /**
+     * The time taken to extract a file.
+     */
+    private static class FileTime implements Comparable<FileTime>
+    {
+        private final String path;
+
+        private final long length;
+
+        private final long time;
+
+        FileTime(String path, long length, long time)
+        {
+            this.path = path;
+            this.length = length;
+            this.time = time;
+        }
+
+        @Override
+        public int compareTo(FileTime other)
+        {
+            return (time < other.time) ? -1 : ((time == other.time) ? 0 : 1);
+        }
+    }
+}
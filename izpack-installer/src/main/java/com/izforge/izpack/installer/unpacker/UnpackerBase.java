@@ -49,7 +49,9 @@ import com.izforge.izpack.core.handler.PromptUIHandler;
 import com.izforge.izpack.core.resource.ResourceManager;
 import com.izforge.izpack.installer.bootstrap.Installer;
 import com.izforge.izpack.installer.data.UninstallData;
+import com.izforge.izpack.installer.event.CoalescingProgressListener;
 import com.izforge.izpack.installer.event.InstallerListeners;
+import com.izforge.izpack.installer.unpacker.InstallProfiler.Phase;
 import com.izforge.izpack.installer.util.InstallPathHelper;
 import com.izforge.izpack.installer.util.PackHelper;
 import com.izforge.izpack.util.FileExecutor;
@@ -205,6 +207,11 @@ public abstract class UnpackerBase implements IUnpacker
      */
     private Messages packMessages;
 
+    /**
+     * The profiler.
+     */
+    private final InstallProfiler profiler;
+
     /**
      * Constructs an <tt>UnpackerBase</tt>.
      *
@@ -236,6 +243,8 @@ public abstract class UnpackerBase implements IUnpacker
         this.matcher = matcher;
         this.variables = installData.getVariables();
         this.messages = installData.getMessages();
+        InstallProfiler listenersProfiler = listeners.getProfiler();
+        this.profiler = (listenersProfiler != null) ? listenersProfiler : new InstallProfiler();
         cancellable = new Cancellable()
         {
             @Override
@@ -248,13 +257,16 @@ public abstract class UnpackerBase implements IUnpacker
 
     /**
      * Sets the progress listener.
+     * <p/>
+     * Sub-step progress is coalesced, so that the listener is notified at a fixed rate rather than for every file.
      *
      * @param listener the progress listener
      */
     @Override
     public void setProgressListener(ProgressListener listener)
     {
-        this.listener = listener;
+        this.listener = (listener instanceof CoalescingProgressListener || listener == null)
+                ? listener : new CoalescingProgressListener(listener);
     }
 
     /**
@@ -303,15 +315,18 @@ public abstract class UnpackerBase implements IUnpacker
         logIntro();
 
         state = State.UNPACKING;
+        profiler.begin();
         ObjectInputStream objIn = null;
         try
         {
             FileQueue queue = queueFactory.isSupported() ? queueFactory.create() : null;
 
+            long start = profiler.start();
             InputStream in = resources.getInputStream("packs.info");
             objIn = new ObjectInputStream(in);
             @SuppressWarnings("unchecked") List<PackInfo> packsInfo = (List<PackInfo>) objIn.readObject();
             objIn.close();
+            profiler.phase(Phase.METADATA, start);
 
             selectedPacks = installData.getSelectedPacks();
 
@@ -375,6 +390,11 @@ public abstract class UnpackerBase implements IUnpacker
             cleanup();
             logEpilog();
             IOUtils.closeQuietly(objIn);
+            if (profiler.isEnabled())
+            {
+                profiler.end();
+                writeProfile();
+            }
         }
     }
 
@@ -495,7 +515,10 @@ public abstract class UnpackerBase implements IUnpacker
             PackInfo packInfo = packs.get(i);
             Pack pack = packInfo.getPack();
 
-            if (shouldUnpack(pack))
+            long packStart = profiler.start();
+            boolean unpack = shouldUnpack(pack);
+            profiler.phase(Phase.CONDITIONS, packStart);
+            if (unpack)
             {
                 List<ParsableFile> parsables = new ArrayList<ParsableFile>();
                 List<ExecutableFile> executables = new ArrayList<ExecutableFile>();
@@ -503,21 +526,29 @@ public abstract class UnpackerBase implements IUnpacker
 
                 listeners.beforePack(pack, i);
                 unpack(packInfo, i, queue, parsables, executables, updateChecks);
+                listeners.afterFiles();
                 checkInterrupt();
 
                 logger.fine("Found " + parsables.size() + " parsable files");
+                long start = profiler.start();
                 parseFiles(parsables);
+                profiler.phase(Phase.PARSE_FILES, start);
                 checkInterrupt();
 
                 logger.fine("Found " + executables.size() + " executable files");
+                start = profiler.start();
                 executeFiles(executables);
+                profiler.phase(Phase.EXECUTE_FILES, start);
                 checkInterrupt();
 
                 // update checks should be done _after_ uninstaller was put, so we don't delete it. TODO
+                start = profiler.start();
                 performUpdateChecks(updateChecks);
+                profiler.phase(Phase.UPDATE_CHECKS, start);
                 checkInterrupt();
 
                 listeners.afterPack(pack);
+                profiler.pack(pack, packStart);
             }
         }
     }
@@ -546,22 +577,36 @@ public abstract class UnpackerBase implements IUnpacker
 
             in = resources.getPackStream(pack.getName());
 
+            long total = 0;
+            for (PackFile packFile : packFiles)
+            {
+                total += getProgressWeight(packFile);
+            }
+            long done = 0;
+
             for (int i = 0; i < len; i++)
             {
                 PackFile packFile = packFiles[i];
+                int subStep = getProgressStep(done, total, len);
+                done += getProgressWeight(packFile);
                 final boolean isDirectory = packFile.isDirectory();
                 logger.fine("Unpacking " + (isDirectory?"directory":"file") + " " + packFile.getTargetPath()
                         + " (backreference: " + packFile.isBackReference() + ")");
-                if (shouldUnpack(packFile))
+                long start = profiler.start();
+                boolean unpack = shouldUnpack(packFile);
+                profiler.phase(Phase.CONDITIONS, start);
+                if (unpack)
                 {
                     // unpack the file
-                    unpack(packFile, in, i + 1, pack, queue);
+                    unpack(packFile, in, subStep, pack, queue);
                 } else
                 {
                     if (!isDirectory)
                     {
                         // condition is not fulfilled, so skip it in main stream
+                        start = profiler.start();
                         skip(packFile, pack, in);
+                        profiler.phase(Phase.SKIP, start);
                     }
                 }
             }
@@ -583,6 +628,33 @@ public abstract class UnpackerBase implements IUnpacker
         }
     }
 
+    /**
+     * Returns the weight of a pack file when reporting progress.
+     * <p/>
+     * This is its length, plus one so that directories and empty files still count.
+     *
+     * @param packFile the pack file
+     * @return the progress weight
+     */
+    private static long getProgressWeight(PackFile packFile)
+    {
+        return packFile.length() + 1;
+    }
+
+    /**
+     * Returns the progress sub-step for a pack file, so that progress through a pack tracks the bytes unpacked rather
+     * than the number of files.
+     *
+     * @param done     the weight of the pack files preceding the pack file
+     * @param total    the total weight of the pack files
+     * @param subSteps the number of sub-steps
+     * @return the sub-step, from {@code 1} to {@code subSteps}
+     */
+    static int getProgressStep(long done, long total, int subSteps)
+    {
+        return (total > 0) ? (int) ((double) done * subSteps / total) + 1 : 1;
+    }
+
     /**
      * Determines if a file should be unpacked.
      *
@@ -608,7 +680,7 @@ public abstract class UnpackerBase implements IUnpacker
      *
      * @param packFile        the pack file
      * @param packInputStream the pack file input stream
-     * @param fileNo          the pack file number
+     * @param fileNo          the progress sub-step. This is the pack file number, weighted by file length
      * @param pack            the pack that the pack file comes from
      * @param queue           the file queue, or {@code null} if queuing is not supported
      * @throws IOException     for any I/O error
@@ -628,7 +700,9 @@ public abstract class UnpackerBase implements IUnpacker
             dir = target.getParentFile();
         }
 
+        long start = profiler.start();
         createDirectory(dir, packFile, pack);
+        profiler.phase(Phase.DIRECTORIES, start);
 
         // Add path to the log
         getUninstallData().addFile(path, pack.isUninstall());
@@ -649,12 +723,16 @@ public abstract class UnpackerBase implements IUnpacker
             {
                 long size = packFile.size();
                 logger.fine("|- No overwrite - skipping pack stream by " + size + " bytes");
+                start = profiler.start();
                 skip(packInputStream, size);
+                profiler.phase(Phase.SKIP, start);
             }
         } else
         {
             handleOverrideRename(packFile, target);
+            start = profiler.start();
             extract(packFile, target, packInputStream, pack, queue);
+            profiler.file(pack, packFile, start);
         }
     }
 
@@ -699,6 +777,7 @@ public abstract class UnpackerBase implements IUnpacker
             }
 
             unpacker = createFileUnpacker(packFile, pack, queue, cancellable);
+            unpacker.setProfiler(profiler);
             logger.fine("|- Extracting file using " + unpacker.getClass().getName() + ")");
             unpacker.unpack(packFile, packStream, target);
             checkInterrupt();
@@ -781,7 +860,9 @@ public abstract class UnpackerBase implements IUnpacker
         // commit the file queue if there are potentially blocked files
         if (queue != null && !queue.isEmpty())
         {
+            long start = profiler.start();
             queue.execute();
+            profiler.phase(Phase.FILE_QUEUE, start);
             installData.setRebootNecessary(queue.isRebootNecessary());
         }
         checkInterrupt();
@@ -790,12 +871,50 @@ public abstract class UnpackerBase implements IUnpacker
         checkInterrupt();
 
         // write installation information
+        long start = profiler.start();
         writeInstallationInformation();
+        profiler.phase(Phase.INSTALLATION_INFORMATION, start);
 
         // unpacking complete
         listener.stopAction();
     }
 
+    /**
+     * Writes the profiler report, to the profiler's report file or else the installation directory.
+     */
+    private void writeProfile()
+    {
+        File file = profiler.getReportFile();
+        if (file == null && installData.getInstallPath() != null)
+        {
+            file = new File(installData.getInstallPath(), InstallProfiler.REPORT_NAME);
+        }
+        if (file == null)
+        {
+            logger.warning("Cannot write installation profile: no installation path");
+            return;
+        }
+        try
+        {
+            profiler.writeReport(file);
+            logger.info("Installation profile written to " + file);
+        }
+        catch (IOException exception)
+        {
+            logger.log(Level.WARNING, "Failed to write installation profile to " + file, exception);
+        }
+    }
+
+    /**
+     * Returns the profiler.
+     *
+     * @return the profiler
+     */
+    protected InstallProfiler getProfiler()
+    {
+        return profiler;
+    }
+
     /**
      * Invoked after unpacking has completed, in order to clean up.
      */
@@ -1068,7 +1187,6 @@ public abstract class UnpackerBase implements IUnpacker
                     }
                 }
                 DirectoryScanner scanner = fileset.getDirectoryScanner();
-                scanner.scan();
                 String[] srcFiles = scanner.getIncludedFiles();
                 String[] srcDirs = scanner.getIncludedDirectories();
 
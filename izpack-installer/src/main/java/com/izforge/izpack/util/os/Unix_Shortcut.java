@@ -55,7 +55,6 @@ package com.izforge.izpack.util.os;
 import com.izforge.izpack.api.data.InstallData;
 import com.izforge.izpack.api.exception.ResourceNotFoundException;
 import com.izforge.izpack.api.resource.Resources;
-import com.izforge.izpack.util.FileExecutor;
 import com.izforge.izpack.util.StringTool;
 import com.izforge.izpack.util.unix.ShellScript;
 import com.izforge.izpack.util.unix.UnixHelper;
@@ -69,7 +68,9 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -126,7 +127,37 @@ public class Unix_Shortcut extends Shortcut
 
     private static ShellScript uninstallScript = null;
 
-    private List<UnixUser> users;
+    /**
+     * Guards {@link #userCommands}, {@link #userUninstallCommands}, {@link #userFiles} and {@link #tempFiles}, which
+     * are shared by all shortcuts.
+     */
+    private static final Object userCommandsLock = new Object();
+
+    /**
+     * Commands to run as other users, keyed on user name. These are batched into one <tt>su</tt> per user by
+     * {@link #execPostAction()}.
+     */
+    private static final Map<String, List<String>> userCommands = new LinkedHashMap<String, List<String>>();
+
+    /**
+     * Commands to uninstall the shortcuts of other users, keyed on user name.
+     */
+    private static final Map<String, List<String>> userUninstallCommands = new LinkedHashMap<String, List<String>>();
+
+    /**
+     * Files copied to the desktops of other users, keyed on user name. Ownership is transferred once copied.
+     */
+    private static final Map<String, List<String>> userFiles = new LinkedHashMap<String, List<String>>();
+
+    /**
+     * Temporary files to remove once the commands of other users have run.
+     */
+    private static final List<String> tempFiles = new ArrayList<String>();
+
+    /**
+     * The users with desktops, shared by all shortcuts.
+     */
+    private static List<UnixUser> users;
 
 
     // ***********************************************************************
@@ -434,10 +465,13 @@ public class Unix_Shortcut extends Shortcut
      */
     private UnixUser getSudoUser()
     {
-        String printEnvCmd = UnixHelper.getCustomCommand("printenv");
-        String sudoUserName = FileExecutor.getExecOutput(
-                new String[]{printEnvCmd, "SUDO_USER"}, true).trim();
-        
+        String sudoUserName = System.getenv("SUDO_USER");
+        if (sudoUserName == null)
+        {
+            return null;
+        }
+        sudoUserName = sudoUserName.trim();
+
         for (UnixUser user : getUsers())
         {
             if (user.getName().equals(sudoUserName))
@@ -580,16 +614,12 @@ public class Unix_Shortcut extends Shortcut
                 FileUtils.copyFile(writtenDesktopFile, myDesktopFile, false);
                 
                 // make sure about permissions and ownership
-                String chmodCmd = UnixHelper.getCustomCommand("chmod");
-                FileExecutor.getExecOutput(new String[]{chmodCmd, "u+x",
-                    StringTool.escapeSpaces(myDesktopFile.getPath())});
-                
+                UnixHelper.addPermissions(myDesktopFile, "u+x");
+
                 if (sudoUser != null)
                 {
                     // transfer ownership of shortcut to sudo user
-                    String chownCmd = UnixHelper.getCustomCommand("chown");
-                    FileExecutor.getExecOutput(new String[]{chownCmd, sudoUser.getName(),
-                        StringTool.escapeSpaces(myDesktopFile.getPath())});
+                    UnixHelper.setOwner(myDesktopFile, sudoUser.getName());
                 }
                 
                 uninstaller.addFile(myDesktopFile.toString(), true);
@@ -729,7 +759,7 @@ public class Unix_Shortcut extends Shortcut
 
         myXdgDesktopIconCmd = shortCutLocation + FS + "IzPackLocaleEnabledXdgDesktopIconScript.sh";
         myXdgDesktopIconScript.write(myXdgDesktopIconCmd);
-        FileExecutor.getExecOutput(new String[]{UnixHelper.getCustomCommand("chmod"), "+x", myXdgDesktopIconCmd}, true);
+        UnixHelper.addPermissions(new File(myXdgDesktopIconCmd), "+x");
     }
 
 
@@ -748,26 +778,12 @@ public class Unix_Shortcut extends Shortcut
                 logger.info("Skipping self-copy: " + user.getHome() + " == " + myHome);
                 continue;
             }
-            try
-            {
-                // / THE Following does such as #> su username -c "xdg-desktopicon install
-                // --novendor /Path/to/Filename\ with\ or\ without\ Space.desktop"
-                rootScript.append(new String[]{getSuCommand(), user.getName(), "-c"});
-                rootScript.appendln(new String[]{"\"" + myXdgDesktopIconCmd, "install", "--novendor",
-                        StringTool.escapeSpaces(writtenDesktopFile.toString()) + "\""});
-
-                uninstallScript.append(new String[]{getSuCommand(), user.getName(), "-c"});
-                uninstallScript
-                        .appendln(new String[]{"\"" + myXdgDesktopIconCmd, "uninstall", "--novendor",
-                                StringTool.escapeSpaces(writtenDesktopFile.toString()) + "\""});
-            }
-            catch (Exception e)
-            {
-                logger.log(Level.WARNING, e.getMessage(), e);
-            }
+            // / THE Following does such as #> su username -c "xdg-desktopicon install
+            // --novendor /Path/to/Filename\ with\ or\ without\ Space.desktop", once all shortcuts are known
+            String file = StringTool.escapeSpaces(writtenDesktopFile.toString());
+            addUserCommand(userCommands, user, myXdgDesktopIconCmd + " install --novendor " + file);
+            addUserCommand(userUninstallCommands, user, myXdgDesktopIconCmd + " uninstall --novendor " + file);
         }
-        logger.fine("==============================");
-        logger.fine(rootScript.getContentAsString());
     }
 
 
@@ -791,7 +807,7 @@ public class Unix_Shortcut extends Shortcut
     }
 
 
-    private List<UnixUser> getUsers()
+    private static synchronized List<UnixUser> getUsers()
     {
         if (users == null)
         {
@@ -801,14 +817,76 @@ public class Unix_Shortcut extends Shortcut
     }
 
 
+    /**
+     * Adds a command to run as a user.
+     *
+     * @param commands the commands, keyed on user name
+     * @param user     the user
+     * @param command  the command
+     */
+    private static void addUserCommand(Map<String, List<String>> commands, UnixUser user, String command)
+    {
+        synchronized (userCommandsLock)
+        {
+            List<String> list = commands.get(user.getName());
+            if (list == null)
+            {
+                list = new ArrayList<String>();
+                commands.put(user.getName(), list);
+            }
+            list.add(command);
+        }
+    }
+
+
+    /**
+     * Appends the commands to run as other users to the root and uninstall scripts, as one <tt>su</tt> per user,
+     * followed by the ownership changes and removal of temporary files.
+     */
+    private void appendUserCommands()
+    {
+        synchronized (userCommandsLock)
+        {
+            for (Map.Entry<String, List<String>> entry : userCommands.entrySet())
+            {
+                String user = entry.getKey();
+                rootScript.append(new String[]{getSuCommand(), user, "-c"});
+                rootScript.appendln("\"" + String.join("; ", entry.getValue()) + "\"");
+
+                List<String> files = userFiles.get(user);
+                if (files != null)
+                {
+                    rootScript.append(new String[]{UnixHelper.getCustomCommand("chown"), user});
+                    rootScript.appendln(String.join(" ", files));
+                }
+            }
+            if (!tempFiles.isEmpty())
+            {
+                rootScript.append(new String[]{UnixHelper.getRmCommand()});
+                rootScript.appendln(String.join(" ", tempFiles));
+            }
+            for (Map.Entry<String, List<String>> entry : userUninstallCommands.entrySet())
+            {
+                uninstallScript.append(new String[]{getSuCommand(), entry.getKey(), "-c"});
+                uninstallScript.appendln("\"" + String.join("; ", entry.getValue()) + "\"");
+            }
+
+            userCommands.clear();
+            userUninstallCommands.clear();
+            userFiles.clear();
+            tempFiles.clear();
+        }
+        logger.fine("==============================");
+        logger.fine(rootScript.getContentAsString());
+    }
+
+
     /**
      * @param writtenDesktopFile User desktop file
      * @throws IOException I/O error occured
      */
     private void copyDesktopFileToAllUsersDesktop(File writtenDesktopFile) throws IOException
     {
-        String chmod = UnixHelper.getCustomCommand("chmod");
-        String chown = UnixHelper.getCustomCommand("chown");
         String rm = UnixHelper.getRmCommand();
         String copy = UnixHelper.getCpCommand();
 
@@ -823,7 +901,7 @@ public class Unix_Shortcut extends Shortcut
 
         // Debug.log("Wrote Tempfile: " + tempFile.toString());
 
-        FileExecutor.getExecOutput(new String[]{chmod, "uga+rwx", tempFile.toString()});
+        UnixHelper.addPermissions(tempFile, "uga+rwx");
 
         // su marc.eppelmann -c "/bin/cp /home/marc.eppelmann/backup.job.out.txt
         // /home/marc.eppelmann/backup.job.out2.txt"
@@ -835,81 +913,29 @@ public class Unix_Shortcut extends Shortcut
                 logger.info("Skipping self-copy: " + user.getHome() + " == " + myHome);
                 continue;
             }
-            try
-            {
-                // aHomePath = userHomesList[idx];
-                dest = new File(user.getHome() + FS + "Desktop" + FS + writtenDesktopFile.getName());
-                //
-                // I'm root and cannot write into Users Home as root;
-                // But I'm Root and I can slip in every users skin :-)
-                //
-                // by# su username
-                //
-                // This works as well
-                // su $username -c "cp /tmp/desktopfile $HOME/Desktop/link.desktop"
-                // chown $username $HOME/Desktop/link.desktop
-
-                // Debug.log("Will Copy: " + tempFile.toString() + " to " + dest.toString());
-
-                rootScript.append(getSuCommand());
-                rootScript.append(S);
-                rootScript.append(user.getName());
-                rootScript.append(S);
-                rootScript.append("-c");
-                rootScript.append(S);
-                rootScript.append('"');
-                rootScript.append(copy);
-                rootScript.append(S);
-                rootScript.append(tempFile.toString());
-                rootScript.append(S);
-                rootScript.append(StringTool.replace(dest.toString(), " ", "\\ "));
-                rootScript.appendln('"');
-
-                rootScript.append('\n');
-
-                // Debug.log("Will exec: " + script.toString());
-
-                rootScript.append(chown);
-                rootScript.append(S);
-                rootScript.append(user.getName());
-                rootScript.append(S);
-                rootScript.appendln(StringTool.replace(dest.toString(), " ", "\\ "));
-                rootScript.append('\n');
-                rootScript.append('\n');
-
-                // Debug.log("Will exec: " + script.toString());
-
-                uninstallScript.append(getSuCommand());
-                uninstallScript.append(S);
-                uninstallScript.append(user.getName());
-                uninstallScript.append(S);
-                uninstallScript.append("-c");
-                uninstallScript.append(S);
-                uninstallScript.append('"');
-                uninstallScript.append(rm);
-                uninstallScript.append(S);
-                uninstallScript.append(StringTool.replace(dest.toString(), " ", "\\ "));
-                uninstallScript.appendln('"');
-                uninstallScript.appendln();
-                // Debug.log("Uninstall will exec: " + uninstallScript.toString());
-            }
-            catch (Exception e)
-            {
-                logger.log(Level.INFO,
-                           "Could not copy as root: " + e.getMessage(),
-                           e);
-
-                /* ignore */
-                // most distros does not allow root to access any user
-                // home (ls -la /home/user drwx------)
-                // But try it anyway...
-            }
+            // aHomePath = userHomesList[idx];
+            dest = new File(user.getHome() + FS + "Desktop" + FS + writtenDesktopFile.getName());
+            //
+            // I'm root and cannot write into Users Home as root;
+            // But I'm Root and I can slip in every users skin :-)
+            //
+            // by# su username
+            //
+            // This works as well
+            // su $username -c "cp /tmp/desktopfile $HOME/Desktop/link.desktop"
+            // chown $username $HOME/Desktop/link.desktop
+            //
+            // The copies of all shortcuts are made by a single su per user, in execPostAction()
+            String destName = StringTool.replace(dest.toString(), " ", "\\ ");
+            addUserCommand(userCommands, user, copy + S + tempFile.toString() + S + destName);
+            addUserCommand(userFiles, user, destName);
+            addUserCommand(userUninstallCommands, user, rm + S + destName);
         }
 
-        rootScript.append(rm);
-        rootScript.append(S);
-        rootScript.appendln(tempFile.toString());
-        rootScript.appendln();
+        synchronized (userCommandsLock)
+        {
+            tempFiles.add(tempFile.toString());
+        }
     }
 
     /**
@@ -921,6 +947,8 @@ public class Unix_Shortcut extends Shortcut
     {
         logger.fine("Launching post execution action");
 
+        appendUserCommands();
+
         String pseudoUnique = this.getClass().getName() + Long.toString(System.currentTimeMillis());
 
         String scriptFilename;
@@ -0,0 +1,102 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.event;
+
+import com.izforge.izpack.api.event.ProgressListener;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+
+/**
+ * Tests the {@link CoalescingProgressListener}.
+ */
+public class CoalescingProgressListenerTest
+{
+
+    /**
+     * Verifies that sub-steps are coalesced, and that the latest sub-step is delivered before the action stops.
+     */
+    @Test
+    public void testCoalesce()
+    {
+        ProgressListener listener = Mockito.mock(ProgressListener.class);
+        CoalescingProgressListener coalescing = new CoalescingProgressListener(listener, 60000);
+
+        coalescing.startAction("Unpacking", 1);
+        coalescing.nextStep("pack", 1, 10000);
+        for (int i = 1; i <= 10000; ++i)
+        {
+            coalescing.progress(i, "file" + i);
+        }
+        coalescing.stopAction();
+
+        InOrder order = Mockito.inOrder(listener);
+        order.verify(listener).startAction("Unpacking", 1);
+        order.verify(listener).nextStep("pack", 1, 10000);
+        order.verify(listener).progress(10000, "file10000");
+        order.verify(listener).stopAction();
+        Mockito.verify(listener, Mockito.times(1)).progress(Mockito.anyInt(), Mockito.anyString());
+    }
+
+    /**
+     * Verifies that a pending sub-step is delivered before the next step starts.
+     */
+    @Test
+    public void testDeliverBeforeNextStep()
+    {
+        ProgressListener listener = Mockito.mock(ProgressListener.class);
+        CoalescingProgressListener coalescing = new CoalescingProgressListener(listener, 60000);
+
+        coalescing.startAction("Unpacking", 2);
+        coalescing.nextStep("pack1", 1, 2);
+        coalescing.progress(1, "a");
+        coalescing.nextStep("pack2", 2, 2);
+        coalescing.progress(2, "b");
+        coalescing.deliver();
+        coalescing.stopAction();
+
+        InOrder order = Mockito.inOrder(listener);
+        order.verify(listener).nextStep("pack1", 1, 2);
+        order.verify(listener).progress(1, "a");
+        order.verify(listener).nextStep("pack2", 2, 2);
+        order.verify(listener).progress(2, "b");
+        order.verify(listener).stopAction();
+    }
+
+    /**
+     * Verifies that sub-steps are delivered by the background thread.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testDeliverAsynchronously() throws Exception
+    {
+        ProgressListener listener = Mockito.mock(ProgressListener.class);
+        CoalescingProgressListener coalescing = new CoalescingProgressListener(listener, 10);
+
+        coalescing.startAction("Unpacking", 1);
+        coalescing.nextStep("pack", 1, 1);
+        coalescing.progress(1, "file");
+        Mockito.verify(listener, Mockito.timeout(5000)).progress(1, "file");
+        coalescing.stopAction();
+        Mockito.verify(listener).stopAction();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.event;
+
+import com.izforge.izpack.api.data.AutomatedInstallData;
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.event.BatchInstallerListener;
+import com.izforge.izpack.api.event.InstalledFile;
+import com.izforge.izpack.api.event.InstallerListener;
+import com.izforge.izpack.api.handler.Prompt;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Tests the {@link InstallerListeners}.
+ */
+public class InstallerListenersTest
+{
+
+    /**
+     * Verifies that file listeners are notified of each file, and batch listeners of files in batches, flushed on
+     * {@link InstallerListeners#afterFiles()} and before {@link InstallerListeners#afterPack(Pack)}.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBatchListener()
+    {
+        InstallerListener fileListener = Mockito.mock(InstallerListener.class);
+        BatchInstallerListener batchListener = Mockito.mock(BatchInstallerListener.class);
+        Mockito.when(fileListener.isFileListener()).thenReturn(true);
+        Mockito.when(batchListener.isFileListener()).thenReturn(true);
+
+        InstallerListeners listeners = new InstallerListeners(Mockito.mock(AutomatedInstallData.class),
+                                                              Mockito.mock(Prompt.class));
+        listeners.add(fileListener);
+        listeners.add(batchListener);
+        listeners.initialise();
+
+        Pack pack = Mockito.mock(Pack.class);
+        PackFile packFile = Mockito.mock(PackFile.class);
+        File dir = new File("dir");
+        listeners.beforeDir(dir, packFile, pack);
+        listeners.afterDir(dir, packFile, pack);
+        for (int i = 0; i < 600; ++i)
+        {
+            File file = new File(dir, "file" + i);
+            listeners.beforeFile(file, packFile, pack);
+            listeners.afterFile(file, packFile, pack);
+        }
+
+        Mockito.verify(fileListener, Mockito.times(600)).afterFile(Mockito.any(File.class), Mockito.eq(packFile),
+                                                                   Mockito.eq(pack));
+        Mockito.verify(fileListener).afterDir(dir, packFile, pack);
+        Mockito.verify(batchListener, Mockito.times(600)).beforeFile(Mockito.any(File.class), Mockito.eq(packFile),
+                                                                     Mockito.eq(pack));
+        Mockito.verify(batchListener).beforeDir(dir, packFile, pack);
+        Mockito.verify(batchListener, Mockito.never()).afterFile(Mockito.any(File.class), Mockito.any(PackFile.class),
+                                                                 Mockito.any(Pack.class));
+        Mockito.verify(batchListener, Mockito.never()).afterDir(Mockito.any(File.class), Mockito.any(PackFile.class),
+                                                                Mockito.any(Pack.class));
+
+        // the first batch is delivered once full
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(batchListener).afterFiles(captor.capture());
+        List<InstalledFile> first = captor.getValue();
+        assertEquals(512, first.size());
+        assertTrue(first.get(0).isDirectory());
+        assertSame(dir, first.get(0).getFile());
+        assertFalse(first.get(1).isDirectory());
+        assertEquals(new File(dir, "file0"), first.get(1).getFile());
+
+        // the remainder is delivered when the pack completes
+        listeners.afterPack(pack);
+        captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(batchListener, Mockito.times(2)).afterFiles(captor.capture());
+        List<InstalledFile> second = captor.getAllValues().get(1);
+        assertEquals(89, second.size());
+        assertEquals(new File(dir, "file599"), second.get(88).getFile());
+        Mockito.verify(batchListener).afterPack(pack);
+
+        // nothing is pending
+        listeners.afterFiles();
+        Mockito.verify(batchListener, Mockito.times(2)).afterFiles(Mockito.anyList());
+    }
+}
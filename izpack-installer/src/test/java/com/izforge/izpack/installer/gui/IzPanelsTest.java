@@ -0,0 +1,184 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.izforge.izpack.installer.gui;
+
+import com.izforge.izpack.api.container.Container;
+import com.izforge.izpack.api.data.LocaleDatabase;
+import com.izforge.izpack.api.data.Panel;
+import com.izforge.izpack.api.factory.ObjectFactory;
+import com.izforge.izpack.api.resource.Messages;
+import com.izforge.izpack.api.resource.Resources;
+import com.izforge.izpack.api.rules.RulesEngine;
+import com.izforge.izpack.core.container.DefaultContainer;
+import com.izforge.izpack.core.data.DefaultVariables;
+import com.izforge.izpack.core.factory.DefaultObjectFactory;
+import com.izforge.izpack.core.resource.DefaultLocales;
+import com.izforge.izpack.core.rules.ConditionContainer;
+import com.izforge.izpack.core.rules.RulesEngineImpl;
+import com.izforge.izpack.installer.data.GUIInstallData;
+import com.izforge.izpack.util.Platforms;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the lazy construction of {@link IzPanel}s by {@link IzPanels}.
+ */
+public class IzPanelsTest
+{
+
+    /**
+     * The installation data.
+     */
+    private final GUIInstallData installData;
+
+    /**
+     * Factory for creating IzPanels.
+     */
+    private final ObjectFactory factory;
+
+    /**
+     * The container.
+     */
+    private final Container container;
+
+
+    /**
+     * Constructs an {@code IzPanelsTest}.
+     */
+    public IzPanelsTest()
+    {
+        final InstallerFrame frame = Mockito.mock(InstallerFrame.class);
+        installData = new GUIInstallData(new DefaultVariables(), Platforms.WINDOWS);
+        RulesEngine rules = new RulesEngineImpl(Mockito.mock(ConditionContainer.class), Platforms.WINDOWS);
+        installData.setRules(rules);
+        final Resources resources = Mockito.mock(Resources.class);
+        installData.setMessages(new LocaleDatabase((Messages) null, new DefaultLocales(resources)));
+
+        container = new DefaultContainer()
+        {
+            {
+                getContainer().addComponent(frame);
+                getContainer().addComponent(resources);
+                getContainer().addComponent(installData);
+            }
+        };
+        factory = new DefaultObjectFactory(container);
+    }
+
+    /**
+     * Verifies that only the first panels are constructed by {@link IzPanels#initialise()}, and that the remainder
+     * are constructed in panel order once the first panel has been displayed.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testLazyInitialisation() throws Exception
+    {
+        final IzPanels panels = createPanels(5);
+        panels.initialise();
+        assertEquals(2, installData.getPanels().size());
+
+        // display the first panel, and wait for the remaining panels to be constructed on the event dispatch thread
+        SwingUtilities.invokeAndWait(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                assertTrue(panels.next());
+            }
+        });
+        for (int i = 0; i < 100 && installData.getPanels().size() != 5; ++i)
+        {
+            SwingUtilities.invokeAndWait(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                }
+            });
+        }
+        checkPanels(panels);
+    }
+
+    /**
+     * Verifies that all panels are constructed when navigating away from the first panel.
+     */
+    @Test
+    public void testInitialiseOnNavigation()
+    {
+        IzPanels panels = createPanels(5);
+        panels.initialise();
+        panels.initialiseAll();
+        checkPanels(panels);
+
+        // initialising again is a no-op
+        panels.initialiseAll();
+        checkPanels(panels);
+    }
+
+    /**
+     * Verifies that the installation data contains each panel's view, in panel order.
+     *
+     * @param panels the panels
+     */
+    private void checkPanels(IzPanels panels)
+    {
+        List<IzPanelView> views = panels.getPanelViews();
+        assertEquals(views.size(), installData.getPanels().size());
+        for (int i = 0; i < views.size(); ++i)
+        {
+            assertSame(views.get(i).getView(), installData.getPanels().get(i));
+        }
+    }
+
+    /**
+     * Creates a {@link IzPanels} with the specified no. of panels.
+     *
+     * @param count the no. of panels
+     * @return a new {@link IzPanels} with {@code count} panels
+     */
+    private IzPanels createPanels(int count)
+    {
+        List<IzPanelView> views = new ArrayList<IzPanelView>();
+        for (int i = 0; i < count; ++i)
+        {
+            Panel panel = new Panel();
+            panel.setClassName(TestIzPanel.class.getName());
+            panel.setPanelId(TestIzPanel.class.getSimpleName() + i);
+            views.add(new IzPanelView(panel, factory, installData));
+        }
+        IzPanels panels = new IzPanels(views, container, installData);
+        panels.setListener(new IzPanelsListener()
+        {
+            @Override
+            public void switchPanel(IzPanelView newPanel, IzPanelView oldPanel)
+            {
+            }
+        });
+        return panels;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.installer.unpacker;
+
+import com.izforge.izpack.api.data.Blockable;
+import com.izforge.izpack.api.data.OverrideType;
+import com.izforge.izpack.api.data.Pack;
+import com.izforge.izpack.api.data.PackFile;
+import com.izforge.izpack.api.event.InstallerListener;
+import com.izforge.izpack.installer.unpacker.InstallProfiler.Phase;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Tests the {@link InstallProfiler}.
+ */
+public class InstallProfilerTest
+{
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that phases, packs, listeners and files are reported.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testReport() throws Exception
+    {
+        InstallProfiler profiler = new InstallProfiler();
+        profiler.setEnabled(true);
+        profiler.begin();
+
+        Pack pack = Mockito.mock(Pack.class);
+        Mockito.when(pack.getName()).thenReturn("core");
+        File baseDir = temporaryFolder.getRoot();
+        File source = new File(baseDir, "core \"1\".jar");
+        FileUtils.writeByteArrayToFile(source, new byte[1024]);
+        PackFile file = new PackFile(baseDir, source, "lib/core \"1\".jar", null, OverrideType.OVERRIDE_TRUE, null,
+                                     Blockable.BLOCKABLE_NONE, null);
+        InstallerListener listener = Mockito.mock(InstallerListener.class);
+
+        long start = profiler.start();
+        assertTrue(start != 0);
+        profiler.phase(Phase.METADATA, start);
+        profiler.file(pack, file, profiler.start());
+        profiler.listener(listener, profiler.start());
+        profiler.pack(pack, start);
+        profiler.end();
+
+        File report = new File(temporaryFolder.getRoot(), InstallProfiler.REPORT_NAME);
+        profiler.writeReport(report);
+        String json = FileUtils.readFileToString(report, StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"files\": 1,"));
+        assertTrue(json.contains("\"bytes\": 1024,"));
+        assertTrue(json.contains("\"metadata\": {\"count\": 1"));
+        assertTrue(json.contains("\"listeners\": {\"count\": 1"));
+        assertTrue(json.contains("\"core\": "));
+        assertTrue(json.contains(listener.getClass().getName()));
+        assertTrue(json.contains("\"path\": \"lib/core \\\"1\\\".jar\""));
+    }
+
+    /**
+     * Verifies that nothing is recorded when profiling is disabled.
+     */
+    @Test
+    public void testDisabled()
+    {
+        InstallProfiler profiler = new InstallProfiler();
+        assertFalse(profiler.isEnabled());
+        assertEquals(0, profiler.start());
+
+        Pack pack = Mockito.mock(Pack.class);
+        profiler.phase(Phase.READ, 0);
+        profiler.pack(pack, 0);
+        Mockito.verifyZeroInteractions(pack);
+        assertTrue(profiler.toJSON().contains("\"files\": 0,"));
+        assertTrue(profiler.toJSON().contains("\"read\": {\"count\": 0"));
+    }
+}
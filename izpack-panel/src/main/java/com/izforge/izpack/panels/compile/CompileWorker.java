@@ -31,11 +31,23 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
@@ -84,6 +96,8 @@ public class CompileWorker implements Runnable
 
     private static final String ECLIPSE_COMPILER_CLASS = "org.eclipse.jdt.internal.compiler.batch.Main";
 
+    private static final String JAVAX_COMPILER_NAME = "Integrated Java Compiler";
+
     private VariableSubstitutor vs;
 
     private IXMLElement spec;
@@ -314,6 +328,10 @@ public class CompileWorker implements Runnable
         {
             this.compilerList.add("javac");
             this.compilerList.add("jikes");
+            if (InProcessCompiler.isAvailable())
+            {
+                this.compilerList.add(JAVAX_COMPILER_NAME);
+            }
         }
 
         if (this.compilerArgumentsList.size() == 0)
@@ -367,6 +385,14 @@ public class CompileWorker implements Runnable
                             // ignore, just don't add it as a choice
                         }
                     }
+                    else if (value.equalsIgnoreCase(JAVAX_COMPILER_NAME))
+                    {
+                        // only available if running on a JDK
+                        if (InProcessCompiler.isAvailable())
+                        {
+                            choiceList.add(value);
+                        }
+                    }
                     else
                     {
                         try
@@ -426,6 +452,11 @@ public class CompileWorker implements Runnable
 
         this.handler.startAction("Compilation", this.jobs.size());
 
+        if (this.compilerToUse.equalsIgnoreCase(JAVAX_COMPILER_NAME))
+        {
+            return compileJobsInProcess(args);
+        }
+
         // check whether compiler is valid (but only if there are jobs)
         if (job_it.hasNext())
         {
@@ -459,6 +490,179 @@ public class CompileWorker implements Runnable
         return new CompileResult();
     }
 
+    /**
+     * Performs the compilation using the in-process compiler.
+     * <p/>
+     * Each job is compiled in a single task. Jobs that don't read or write the directories written by other jobs
+     * are compiled concurrently, with progress and errors reported in job order.
+     *
+     * @param args the compiler arguments
+     * @return the result
+     */
+    private CompileResult compileJobsInProcess(ArrayList<String> args)
+    {
+        Messages messages = this.idata.getMessages();
+        InProcessCompiler compiler = InProcessCompiler.create();
+        if (compiler == null)
+        {
+            List<String> cmdline = new ArrayList<String>(args);
+            cmdline.add(0, JAVAX_COMPILER_NAME);
+            CompileResult result = new CompileResult(messages.get("CompilePanel.error.compilernotfound"), cmdline,
+                                                     "", "");
+            this.handler.handleCompileError(result);
+            return result.isContinue() ? new CompileResult() : result;
+        }
+
+        ExecutorService executor = null;
+        try
+        {
+            if (!this.jobs.isEmpty())
+            {
+                List<String> options = this.jobs.get(0).getOptions(args);
+                String error = compiler.checkOptions(options);
+                if (error != null)
+                {
+                    options.add(0, JAVAX_COMPILER_NAME);
+                    CompileResult result = new CompileResult(messages.get("CompilePanel.error.invalidarguments"),
+                                                             options, "", error);
+                    this.handler.handleCompileError(result);
+                    if (!result.isContinue())
+                    {
+                        return result;
+                    }
+                }
+            }
+
+            List<List<CompilationJob>> waves = getWaves(args);
+            int threads = Math.min(Runtime.getRuntime().availableProcessors(), this.jobs.size());
+            if (threads > 1 && waves.size() < this.jobs.size())
+            {
+                executor = createExecutor(threads);
+            }
+            logger.fine("Compiling " + this.jobs.size() + " jobs in " + waves.size() + " waves");
+
+            int job_no = 0;
+            for (List<CompilationJob> wave : waves)
+            {
+                List<Future<CompileResult>> futures = new ArrayList<Future<CompileResult>>();
+                if (executor != null && wave.size() > 1)
+                {
+                    for (CompilationJob job : wave)
+                    {
+                        futures.add(executor.submit(job.compileTask(compiler, args)));
+                    }
+                }
+
+                for (int i = 0; i < wave.size(); ++i)
+                {
+                    CompilationJob job = wave.get(i);
+                    this.handler.nextStep(job.getName(), job.getSize(), job_no++);
+
+                    CompileResult job_result;
+                    if (futures.isEmpty())
+                    {
+                        job_result = job.compile(compiler, args);
+                    }
+                    else
+                    {
+                        job_result = futures.get(i).get();
+                    }
+                    this.handler.progress(job.getSize(), job.getName());
+
+                    if (!job_result.isSuccess())
+                    {
+                        this.handler.handleCompileError(job_result);
+                        if (!job_result.isContinue())
+                        {
+                            for (Future<CompileResult> future : futures)
+                            {
+                                future.cancel(false);
+                            }
+                            return job_result;
+                        }
+                    }
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return new CompileResult(e);
+        }
+        catch (ExecutionException e)
+        {
+            return new CompileResult(e);
+        }
+        finally
+        {
+            if (executor != null)
+            {
+                executor.shutdown();
+            }
+            compiler.close();
+        }
+
+        logger.fine("Compilation finished");
+        return new CompileResult();
+    }
+
+    /**
+     * Divides the jobs into waves of jobs that may be compiled concurrently.
+     * <p/>
+     * A job is placed in the wave after the last one containing an earlier job that it conflicts with. If the
+     * arguments redirect output or sources, all jobs conflict.
+     *
+     * @param args the compiler arguments
+     * @return the waves, in compilation order, each holding jobs in declared order
+     */
+    private List<List<CompilationJob>> getWaves(List<String> args)
+    {
+        boolean redirected = args.contains("-d") || args.contains("-sourcepath") || args.contains("--source-path");
+        List<List<CompilationJob>> waves = new ArrayList<List<CompilationJob>>();
+        int[] levels = new int[this.jobs.size()];
+        for (int i = 0; i < this.jobs.size(); ++i)
+        {
+            CompilationJob job = this.jobs.get(i);
+            int level = 0;
+            for (int j = 0; j < i; ++j)
+            {
+                if (levels[j] >= level && (redirected || job.conflicts(this.jobs.get(j))))
+                {
+                    level = levels[j] + 1;
+                }
+            }
+            levels[i] = level;
+            if (level == waves.size())
+            {
+                waves.add(new ArrayList<CompilationJob>());
+            }
+            waves.get(level).add(job);
+        }
+        return waves;
+    }
+
+    /**
+     * Creates the executor used to compile jobs concurrently.
+     *
+     * @param threads the number of threads
+     * @return a new executor
+     */
+    private static ExecutorService createExecutor(int threads)
+    {
+        return Executors.newFixedThreadPool(threads, new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "izpack-compilation-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
     private CompilationJob collectJobsRecursive(IXMLElement node, List<String> classpath)
             throws Exception
     {
@@ -645,6 +849,11 @@ public class CompileWorker implements Runnable
 
         private InstallData idata;
 
+        /**
+         * The normalised paths of the files, used to detect conflicts between jobs. Lazily initialised.
+         */
+        private Set<Path> sources;
+
         // XXX: figure that out (on runtime?)
         private static final int MAX_CMDLINE_SIZE = 4096;
 
@@ -909,6 +1118,160 @@ public class CompileWorker implements Runnable
             return new CompileResult();
         }
 
+        /**
+         * Perform this job using the in-process compiler.
+         * <p/>
+         * Unlike {@link #perform}, this doesn't report progress or errors to the listener, so it may be invoked
+         * concurrently.
+         *
+         * @param compiler  The compiler to use.
+         * @param arguments The compiler arguments to use.
+         * @return The result.
+         */
+        public CompileResult compile(InProcessCompiler compiler, List<String> arguments)
+        {
+            logger.fine("starting job " + this.name);
+            List<String> options = getOptions(arguments);
+            InProcessCompiler.Result result = compiler.compile(options, this.files);
+            if (result.isSuccess())
+            {
+                logger.fine("Job " + this.name + " done (" + this.files.size() + " files compiled)");
+                return new CompileResult();
+            }
+
+            List<String> cmdline = new ArrayList<String>(options);
+            cmdline.add(0, JAVAX_COMPILER_NAME);
+            for (File file : this.files)
+            {
+                cmdline.add(file.getAbsolutePath());
+            }
+            return new CompileResult(messages.get("CompilePanel.error"), cmdline, result.getOutput(),
+                                     result.getDiagnostics());
+        }
+
+        /**
+         * Returns a task that performs this job using the in-process compiler.
+         *
+         * @param compiler  The compiler to use.
+         * @param arguments The compiler arguments to use.
+         * @return The task.
+         */
+        public Callable<CompileResult> compileTask(final InProcessCompiler compiler, final List<String> arguments)
+        {
+            return new Callable<CompileResult>()
+            {
+                @Override
+                public CompileResult call()
+                {
+                    return compile(compiler, arguments);
+                }
+            };
+        }
+
+        /**
+         * Returns the options for the in-process compiler.
+         * <p/>
+         * The class path is always specified, as the in-process compiler would otherwise use that of the installer.
+         * Like the command line compiler, it defaults to the CLASSPATH environment variable, or the current
+         * directory.
+         *
+         * @param arguments The compiler arguments to use.
+         * @return The options.
+         */
+        public List<String> getOptions(List<String> arguments)
+        {
+            List<String> options = new ArrayList<String>(arguments);
+            options.add("-classpath");
+            options.add(getClassPath());
+            return options;
+        }
+
+        /**
+         * Determines if this job conflicts with another, i.e. either reads classes the other writes, or both compile
+         * the same sources.
+         *
+         * @param other The other job.
+         * @return true if the jobs conflict.
+         */
+        public boolean conflicts(CompilationJob other)
+        {
+            try
+            {
+                return reads(other) || other.reads(this) || !Collections.disjoint(getSources(), other.getSources());
+            }
+            catch (InvalidPathException e)
+            {
+                // e.g. wildcard class path entries. Assume the worst
+                return true;
+            }
+        }
+
+        /**
+         * Determines if this job may read classes written by another.
+         * <p/>
+         * Classes are written alongside their sources, and sources on the class path are compiled implicitly, so
+         * this is the case if a class path entry contains any of the other job's sources.
+         */
+        private boolean reads(CompilationJob other)
+        {
+            for (String entry : getClassPath().split(File.pathSeparator))
+            {
+                Path path = new File(entry).getAbsoluteFile().toPath().normalize();
+                for (Path source : other.getSources())
+                {
+                    if (source.startsWith(path))
+                    {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Returns the normalised paths of the sources.
+         *
+         * @return The sources.
+         * @throws InvalidPathException if a path is invalid
+         */
+        private Set<Path> getSources()
+        {
+            if (this.sources == null)
+            {
+                Set<Path> result = new HashSet<Path>();
+                for (File file : this.files)
+                {
+                    result.add(file.getAbsoluteFile().toPath().normalize());
+                }
+                this.sources = result;
+            }
+            return this.sources;
+        }
+
+        /**
+         * Returns the class path for the in-process compiler.
+         *
+         * @return The class path.
+         */
+        private String getClassPath()
+        {
+            StringBuilder result = new StringBuilder();
+            for (String cp : this.classpath)
+            {
+                if (result.length() > 0)
+                {
+                    result.append(File.pathSeparatorChar);
+                }
+                result.append(new File(cp).getAbsolutePath());
+            }
+            if (result.length() == 0)
+            {
+                String env = System.getenv("CLASSPATH");
+                result.append((env != null && env.length() > 0) ? env : ".");
+            }
+            return result.toString();
+        }
+
         /**
          * Internal helper method.
          *
@@ -0,0 +1,311 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.compile;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Compiles sources in-process, using the {@link JavaCompiler} of the running JVM.
+ * <p/>
+ * This avoids starting a compiler process for each command line worth of sources. Whole jobs are compiled in a
+ * single task, and tasks may run concurrently.
+ * <p/>
+ * File managers cache the contents of the platform classes and class path archives, so they are reused across tasks.
+ * As they aren't thread safe, and class path options are applied to them, each concurrently running task uses its own
+ * file manager, taken from a pool.
+ */
+class InProcessCompiler
+{
+    private static final Logger logger = Logger.getLogger(InProcessCompiler.class.getName());
+
+    /**
+     * The compiler.
+     */
+    private final JavaCompiler compiler;
+
+    /**
+     * The idle file managers.
+     */
+    private final Deque<StandardJavaFileManager> fileManagers = new ArrayDeque<StandardJavaFileManager>();
+
+
+    /**
+     * Constructs an {@code InProcessCompiler}.
+     *
+     * @param compiler the compiler
+     */
+    public InProcessCompiler(JavaCompiler compiler)
+    {
+        this.compiler = compiler;
+    }
+
+    /**
+     * Creates a compiler using the system Java compiler.
+     *
+     * @return a new compiler, or {@code null} if the JVM doesn't provide one
+     */
+    public static InProcessCompiler create()
+    {
+        JavaCompiler compiler = getSystemJavaCompiler();
+        return (compiler != null) ? new InProcessCompiler(compiler) : null;
+    }
+
+    /**
+     * Determines if the JVM provides a Java compiler.
+     *
+     * @return {@code true} if in-process compilation is available
+     */
+    public static boolean isAvailable()
+    {
+        return getSystemJavaCompiler() != null;
+    }
+
+    /**
+     * Checks compiler options.
+     *
+     * @param options the options
+     * @return {@code null} if the options are valid, otherwise a message describing the invalid option
+     */
+    public String checkOptions(List<String> options)
+    {
+        StandardJavaFileManager fileManager = acquire();
+        try
+        {
+            compiler.getTask(null, fileManager, null, options, null, null);
+            return null;
+        }
+        catch (IllegalArgumentException exception)
+        {
+            return exception.getMessage();
+        }
+        finally
+        {
+            release(fileManager);
+        }
+    }
+
+    /**
+     * Compiles sources.
+     * <p/>
+     * This may be invoked concurrently.
+     *
+     * @param options the compiler options
+     * @param files   the source files
+     * @return the result of the compilation
+     */
+    public Result compile(List<String> options, List<File> files)
+    {
+        final Result result = new Result();
+        StandardJavaFileManager fileManager = acquire();
+        try
+        {
+            Iterable<? extends JavaFileObject> sources = fileManager.getJavaFileObjectsFromFiles(files);
+            JavaCompiler.CompilationTask task = compiler.getTask(
+                    result.output, fileManager, new DiagnosticListener<JavaFileObject>()
+                    {
+                        @Override
+                        public void report(Diagnostic<? extends JavaFileObject> diagnostic)
+                        {
+                            result.report(diagnostic);
+                        }
+                    }, options, null, sources);
+            result.success = task.call();
+        }
+        catch (IllegalArgumentException exception)
+        {
+            result.diagnostics.append(exception.getMessage()).append('\n');
+            result.success = false;
+        }
+        catch (RuntimeException exception)
+        {
+            // the compiler failed, as opposed to the sources
+            logger.log(Level.WARNING, exception.getMessage(), exception);
+            result.diagnostics.append(exception).append('\n');
+            result.success = false;
+        }
+        finally
+        {
+            release(fileManager);
+        }
+        return result;
+    }
+
+    /**
+     * Closes the file managers.
+     */
+    public synchronized void close()
+    {
+        for (StandardJavaFileManager fileManager : fileManagers)
+        {
+            try
+            {
+                fileManager.close();
+            }
+            catch (IOException exception)
+            {
+                logger.log(Level.FINE, exception.getMessage(), exception);
+            }
+        }
+        fileManagers.clear();
+    }
+
+    /**
+     * Takes an idle file manager from the pool, creating one if none is available.
+     *
+     * @return the file manager
+     */
+    private StandardJavaFileManager acquire()
+    {
+        synchronized (this)
+        {
+            StandardJavaFileManager result = fileManagers.poll();
+            if (result != null)
+            {
+                return result;
+            }
+        }
+        return compiler.getStandardFileManager(null, Locale.getDefault(), null);
+    }
+
+    /**
+     * Returns a file manager to the pool.
+     *
+     * @param fileManager the file manager
+     */
+    private synchronized void release(StandardJavaFileManager fileManager)
+    {
+        fileManagers.push(fileManager);
+    }
+
+    /**
+     * Returns the system Java compiler.
+     *
+     * @return the compiler, or {@code null} if the JVM doesn't provide one
+     */
+    private static JavaCompiler getSystemJavaCompiler()
+    {
+        try
+        {
+            return ToolProvider.getSystemJavaCompiler();
+        }
+        catch (Throwable exception)
+        {
+            logger.log(Level.FINE, "No system Java compiler: " + exception.getMessage(), exception);
+            return null;
+        }
+    }
+
+    /**
+     * The result of a compilation.
+     */
+    public static class Result
+    {
+        /**
+         * Additional output from the compiler.
+         */
+        private final StringWriter output = new StringWriter();
+
+        /**
+         * The diagnostics, in the order they were reported.
+         */
+        private final StringBuilder diagnostics = new StringBuilder();
+
+        /**
+         * The number of errors.
+         */
+        private int errors;
+
+        /**
+         * Determines if compilation succeeded.
+         */
+        private boolean success;
+
+        /**
+         * Determines if compilation succeeded.
+         *
+         * @return {@code true} if compilation succeeded
+         */
+        public boolean isSuccess()
+        {
+            return success;
+        }
+
+        /**
+         * Returns the number of errors reported.
+         *
+         * @return the number of errors
+         */
+        public int getErrors()
+        {
+            return errors;
+        }
+
+        /**
+         * Returns the additional output from the compiler.
+         *
+         * @return the output
+         */
+        public String getOutput()
+        {
+            return output.toString();
+        }
+
+        /**
+         * Returns the diagnostics, formatted as the command line compiler would.
+         *
+         * @return the diagnostics
+         */
+        public String getDiagnostics()
+        {
+            return diagnostics.toString();
+        }
+
+        /**
+         * Records a diagnostic.
+         *
+         * @param diagnostic the diagnostic
+         */
+        private void report(Diagnostic<? extends JavaFileObject> diagnostic)
+        {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR)
+            {
+                ++errors;
+            }
+            String message = diagnostic.toString();
+            logger.fine(message);
+            diagnostics.append(message).append('\n');
+        }
+    }
+}
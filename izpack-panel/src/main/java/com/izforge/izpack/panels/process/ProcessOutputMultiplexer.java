@@ -0,0 +1,309 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.process;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+
+/**
+ * Multiplexes the output of concurrently running processing jobs to a single {@link AbstractUIProcessHandler}.
+ * <p/>
+ * Each job writes to its own {@link JobOutput}. The underlying handler sees the jobs one at a time, each as a
+ * contiguous {@code startProcess(name)}, output, {@code finishProcess()} sequence, so that output from different jobs
+ * is never interleaved.
+ * <p/>
+ * At most one job owns the handler at a time. Output of other jobs is buffered until they complete, and then replayed
+ * in completion order. A job that needs to interact with the user takes ownership first, waiting for the current owner
+ * to complete if need be, and then streams its output directly to the handler until it completes.
+ */
+class ProcessOutputMultiplexer
+{
+    /**
+     * The underlying handler.
+     */
+    private final AbstractUIProcessHandler handler;
+
+    /**
+     * Completed jobs waiting for the current owner to complete.
+     */
+    private final Deque<JobOutput> completed = new ArrayDeque<JobOutput>();
+
+    /**
+     * The job that owns the handler, or {@code null} if it is free.
+     */
+    private JobOutput owner;
+
+
+    /**
+     * Constructs a {@code ProcessOutputMultiplexer}.
+     *
+     * @param handler the underlying handler
+     */
+    public ProcessOutputMultiplexer(AbstractUIProcessHandler handler)
+    {
+        this.handler = handler;
+    }
+
+    /**
+     * Creates the output for a job.
+     *
+     * @param name the job name
+     * @return the job output. It must be {@link JobOutput#close() closed} when the job completes
+     */
+    public JobOutput open(String name)
+    {
+        return new JobOutput(name);
+    }
+
+    /**
+     * Releases the handler, first replaying the output of any jobs that completed while it was owned.
+     * Must be invoked holding the multiplexer lock.
+     */
+    private void release()
+    {
+        owner = null;
+        JobOutput output;
+        while ((output = completed.poll()) != null)
+        {
+            output.replay();
+            handler.finishProcess();
+        }
+        notifyAll();
+    }
+
+    /**
+     * The output of a single job.
+     * <p/>
+     * The job-level notifications {@link #startProcessing}, {@link #startProcess}, {@link #finishProcess} and
+     * {@link #finishProcessing} are managed by the multiplexer, and are ignored if invoked by the job itself.
+     */
+    class JobOutput implements AbstractUIProcessHandler
+    {
+        /**
+         * The job name.
+         */
+        private final String name;
+
+        /**
+         * Output buffered while the job doesn't own the handler.
+         */
+        private final List<Line> buffer = new ArrayList<Line>();
+
+        /**
+         * Determines if the job has completed.
+         */
+        private boolean closed;
+
+        private JobOutput(String name)
+        {
+            this.name = name;
+        }
+
+        /**
+         * Takes ownership of the underlying handler, waiting for the current owner to complete if need be.
+         * <p/>
+         * On taking ownership, the job start and any buffered output is passed to the handler. This may be invoked
+         * more than once.
+         */
+        public void claim()
+        {
+            synchronized (ProcessOutputMultiplexer.this)
+            {
+                boolean interrupted = false;
+                while (owner != null && owner != this)
+                {
+                    try
+                    {
+                        ProcessOutputMultiplexer.this.wait();
+                    }
+                    catch (InterruptedException exception)
+                    {
+                        interrupted = true;
+                    }
+                }
+                if (owner == null)
+                {
+                    owner = this;
+                    replay();
+                }
+                if (interrupted)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        /**
+         * Completes the job.
+         * <p/>
+         * If the job owns the handler, or the handler is free, the job output is completed immediately. Otherwise, it
+         * is completed once the current owner releases the handler.
+         */
+        public void close()
+        {
+            synchronized (ProcessOutputMultiplexer.this)
+            {
+                if (closed)
+                {
+                    return;
+                }
+                closed = true;
+                if (owner == this)
+                {
+                    handler.finishProcess();
+                    release();
+                }
+                else if (owner == null)
+                {
+                    replay();
+                    handler.finishProcess();
+                }
+                else
+                {
+                    completed.add(this);
+                }
+            }
+        }
+
+        /**
+         * Log the given message.
+         * <p/>
+         * The message is passed to the handler if the job owns it, otherwise it is buffered.
+         *
+         * @param message the message
+         * @param stderr  true if this is a message received from a program via stderr
+         */
+        @Override
+        public void logOutput(String message, boolean stderr)
+        {
+            synchronized (ProcessOutputMultiplexer.this)
+            {
+                if (owner == this)
+                {
+                    handler.logOutput(message, stderr);
+                }
+                else
+                {
+                    buffer.add(new Line(message, stderr));
+                }
+            }
+        }
+
+        @Override
+        public void startProcessing(int no_of_processes)
+        {
+        }
+
+        @Override
+        public void startProcess(String name)
+        {
+        }
+
+        @Override
+        public void finishProcess()
+        {
+        }
+
+        @Override
+        public void finishProcessing(boolean unlockPrev, boolean unlockNext)
+        {
+        }
+
+        @Override
+        public void emitNotification(String message)
+        {
+            claim();
+            handler.emitNotification(message);
+        }
+
+        @Override
+        public boolean emitWarning(String title, String message)
+        {
+            claim();
+            return handler.emitWarning(title, message);
+        }
+
+        @Override
+        public void emitError(String title, String message)
+        {
+            claim();
+            handler.emitError(title, message);
+        }
+
+        @Override
+        public int askQuestion(String title, String question, int choices)
+        {
+            claim();
+            return handler.askQuestion(title, question, choices);
+        }
+
+        @Override
+        public int askQuestion(String title, String question, int choices, int default_choice)
+        {
+            claim();
+            return handler.askQuestion(title, question, choices, default_choice);
+        }
+
+        @Override
+        public int askWarningQuestion(String title, String question, int choices, int default_choice)
+        {
+            claim();
+            return handler.askWarningQuestion(title, question, choices, default_choice);
+        }
+
+        /**
+         * Passes the job start and buffered output to the handler. Must be invoked holding the multiplexer lock.
+         */
+        private void replay()
+        {
+            handler.startProcess(name);
+            for (Line line : buffer)
+            {
+                handler.logOutput(line.message, line.stderr);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * A buffered line of output.
+     */
+    private static class Line
+    {
+        /**
+         * The message.
+         */
+        private final String message;
+
+        /**
+         * Determines if the message was received via stderr.
+         */
+        private final boolean stderr;
+
+        Line(String message, boolean stderr)
+        {
+            this.message = message;
+            this.stderr = stderr;
+        }
+    }
+}
@@ -60,6 +60,11 @@ public class ProcessPanelWorker implements Runnable
      */
     private ArrayList<ProcessPanelWorker.ProcessingJob> finalJobs = new ArrayList<ProcessPanelWorker.ProcessingJob>();
 
+    /**
+     * The maximum number of parallel jobs to run concurrently.
+     */
+    private int threads;
+
     private boolean result = true;
 
     private PrintWriter logfile = null;
@@ -139,6 +144,19 @@ public class ProcessPanelWorker implements Runnable
             return false;
         }
 
+        threads = Runtime.getRuntime().availableProcessors();
+        if (spec.hasAttribute("threads"))
+        {
+            try
+            {
+                threads = Integer.parseInt(spec.getAttribute("threads"));
+            }
+            catch (NumberFormatException e)
+            {
+                logger.warning("Invalid \"threads\" attribute: " + spec.getAttribute("threads"));
+            }
+        }
+
         // Handle logfile
         IXMLElement logFileDirElement = spec.getFirstChildNamed("logfiledir");
         if (logFileDirElement != null)
@@ -236,6 +254,18 @@ public class ProcessPanelWorker implements Runnable
                 Boolean isCatch = job_el.hasAttribute("catch") && Boolean.parseBoolean(job_el.getAttribute("catch"));
                 Boolean isFinal = job_el.hasAttribute("final") && Boolean.parseBoolean(job_el.getAttribute("final"));
 
+                // jobs with dependencies are parallel unless stated otherwise
+                List<String> depends = new ArrayList<String>();
+                for (String depend : job_el.getAttribute("depends", "").split(","))
+                {
+                    if (depend.trim().length() > 0)
+                    {
+                        depends.add(depend.trim());
+                    }
+                }
+                boolean isParallel = job_el.hasAttribute("parallel")
+                        ? Boolean.parseBoolean(job_el.getAttribute("parallel")) : !depends.isEmpty();
+
                 if (ef_list.isEmpty())
                 {
                     logger.fine("Nothing to do for job '" + job_name + "'");
@@ -247,7 +277,7 @@ public class ProcessPanelWorker implements Runnable
                     } else if (isFinal) {
                         this.finalJobs.add(new ProcessingJob(job_name, ef_list));
                     } else {
-                        this.jobs.add(new ProcessingJob(job_name, ef_list));
+                        this.jobs.add(new ProcessingJob(job_name, ef_list, isParallel, depends));
                     }
                 }
             }
@@ -345,20 +375,25 @@ public class ProcessPanelWorker implements Runnable
         /**
          * Process panel jobs.
          */
-        for (ProcessPanelWorker.ProcessingJob processingJob : this.jobs)
+        if (ProcessingJobScheduler.isConcurrent(this.jobs))
         {
-            this.result = runJob(processingJob);
-
+            this.result = new ProcessingJobScheduler(this.jobs, threads).run(this.handler, idata.getVariables());
             if (!this.result)
             {
-                /**
-                 * Jobs run in event of failure.
-                 */
-                for (ProcessPanelWorker.ProcessingJob catchJob : this.catchJobs)
+                runCatchJobs();
+            }
+        }
+        else
+        {
+            for (ProcessPanelWorker.ProcessingJob processingJob : this.jobs)
+            {
+                this.result = runJob(processingJob);
+
+                if (!this.result)
                 {
-                    runJob(catchJob);
+                    runCatchJobs();
+                    break;
                 }
-                break;
             }
         }
 
@@ -419,6 +454,17 @@ public class ProcessPanelWorker implements Runnable
         return val;
     }
 
+    /**
+     * Runs the jobs run in event of failure.
+     */
+    private void runCatchJobs()
+    {
+        for (ProcessPanelWorker.ProcessingJob catchJob : this.catchJobs)
+        {
+            runJob(catchJob);
+        }
+    }
+
     /**
      * Start the compilation in a separate thread.
      */
@@ -450,17 +496,55 @@ public class ProcessPanelWorker implements Runnable
         public boolean run(AbstractUIProcessHandler handler, Variables variables);
     }
 
-    private static class ProcessingJob implements ProcessPanelWorker.Processable
+    static class ProcessingJob implements ProcessPanelWorker.Processable
     {
 
         public String name;
 
         private List<ProcessPanelWorker.Processable> processables;
 
+        /**
+         * Determines if the job may run concurrently with other jobs.
+         */
+        private final boolean parallel;
+
+        /**
+         * The names of the earlier jobs that must complete before this job starts.
+         */
+        private final List<String> depends;
+
         public ProcessingJob(String name, List<ProcessPanelWorker.Processable> processables)
+        {
+            this(name, processables, false, Collections.<String>emptyList());
+        }
+
+        public ProcessingJob(String name, List<ProcessPanelWorker.Processable> processables, boolean parallel,
+                             List<String> depends)
         {
             this.name = name;
             this.processables = processables;
+            this.parallel = parallel;
+            this.depends = depends;
+        }
+
+        /**
+         * Determines if the job may run concurrently with other jobs.
+         *
+         * @return {@code true} if the job may run concurrently
+         */
+        public boolean isParallel()
+        {
+            return parallel;
+        }
+
+        /**
+         * Returns the names of the earlier jobs that must complete before this job starts.
+         *
+         * @return the job names
+         */
+        public List<String> getDepends()
+        {
+            return depends;
         }
 
         @Override
@@ -577,6 +661,11 @@ public class ProcessPanelWorker implements Runnable
                     if (exitStatus != 0)
                     {
                         if (this.errorHandlingStrategy == ErrorHandlingStrategy.ASK) {
+                            if (handler instanceof ProcessOutputMultiplexer.JobOutput)
+                            {
+                                // take over the UI before asking on the event thread, so it never waits on other jobs
+                                ((ProcessOutputMultiplexer.JobOutput) handler).claim();
+                            }
                             QuestionErrorDisplayer myErrorAlter = new QuestionErrorDisplayer(handler);
                             SwingUtilities.invokeAndWait(myErrorAlter);
                             return myErrorAlter.shouldContinue();
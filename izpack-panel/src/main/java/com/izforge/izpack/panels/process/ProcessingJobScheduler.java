@@ -0,0 +1,288 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.process;
+
+import com.izforge.izpack.api.data.Variables;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+
+/**
+ * Runs processing jobs concurrently, subject to their declared dependencies.
+ * <p/>
+ * A job that isn't {@link ProcessPanelWorker.ProcessingJob#isParallel() parallel} acts as a barrier: it starts once
+ * all earlier jobs have completed, and all later jobs wait for it. A parallel job starts once the jobs it
+ * {@link ProcessPanelWorker.ProcessingJob#getDepends() depends} on and the last barrier before it have completed.
+ * Dependencies can only refer to earlier jobs, so the jobs always form an acyclic graph, and declared order is a
+ * valid execution order.
+ * <p/>
+ * Jobs that are ready are started in declared order, up to the maximum number of concurrent jobs. Once a job fails,
+ * no more jobs are started, and the running jobs are allowed to complete. Job output is passed to the handler via a
+ * {@link ProcessOutputMultiplexer}, so that the output of each job is reported contiguously.
+ */
+class ProcessingJobScheduler
+{
+    private static final Logger logger = Logger.getLogger(ProcessingJobScheduler.class.getName());
+
+    /**
+     * The jobs, in declared order.
+     */
+    private final List<ProcessPanelWorker.ProcessingJob> jobs;
+
+    /**
+     * The maximum number of jobs to run concurrently.
+     */
+    private final int threads;
+
+
+    /**
+     * Constructs a {@code ProcessingJobScheduler}.
+     *
+     * @param jobs    the jobs, in declared order
+     * @param threads the maximum number of jobs to run concurrently
+     */
+    public ProcessingJobScheduler(List<ProcessPanelWorker.ProcessingJob> jobs, int threads)
+    {
+        this.jobs = jobs;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Determines if any of the jobs may run concurrently with another.
+     *
+     * @param jobs the jobs
+     * @return {@code true} if at least one job is parallel
+     */
+    public static boolean isConcurrent(List<ProcessPanelWorker.ProcessingJob> jobs)
+    {
+        for (ProcessPanelWorker.ProcessingJob job : jobs)
+        {
+            if (job.isParallel())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the jobs that each job must wait for.
+     *
+     * @return the indexes of the prerequisite jobs, for each job
+     */
+    public List<TreeSet<Integer>> getPrerequisites()
+    {
+        List<TreeSet<Integer>> result = new ArrayList<TreeSet<Integer>>();
+        int barrier = -1;
+        for (int i = 0; i < jobs.size(); ++i)
+        {
+            ProcessPanelWorker.ProcessingJob job = jobs.get(i);
+            TreeSet<Integer> prerequisites = new TreeSet<Integer>();
+            if (!job.isParallel())
+            {
+                for (int j = 0; j < i; ++j)
+                {
+                    prerequisites.add(j);
+                }
+                barrier = i;
+            }
+            else
+            {
+                if (barrier != -1)
+                {
+                    prerequisites.add(barrier);
+                }
+                for (String name : job.getDepends())
+                {
+                    boolean found = false;
+                    for (int j = 0; j < i; ++j)
+                    {
+                        if (name.equals(jobs.get(j).name))
+                        {
+                            prerequisites.add(j);
+                            found = true;
+                        }
+                    }
+                    if (!found)
+                    {
+                        logger.warning("Job '" + job.name + "' depends on unknown or later job '" + name
+                                               + "'. The dependency will be ignored");
+                    }
+                }
+            }
+            result.add(prerequisites);
+        }
+        return result;
+    }
+
+    /**
+     * Runs the jobs.
+     *
+     * @param handler   the handler to send output to
+     * @param variables the variables
+     * @return {@code true} if all jobs succeeded, {@code false} if a job failed
+     */
+    public boolean run(AbstractUIProcessHandler handler, final Variables variables)
+    {
+        List<TreeSet<Integer>> prerequisites = getPrerequisites();
+        final ProcessOutputMultiplexer multiplexer = new ProcessOutputMultiplexer(handler);
+        boolean[] started = new boolean[jobs.size()];
+        boolean[] completed = new boolean[jobs.size()];
+        boolean result = true;
+        Throwable failure = null;
+        int running = 0;
+
+        ExecutorService executor = createExecutor();
+        CompletionService<Boolean> service = new ExecutorCompletionService<Boolean>(executor);
+        List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+        for (int i = 0; i < jobs.size(); ++i)
+        {
+            futures.add(null);
+        }
+        try
+        {
+            while (true)
+            {
+                for (int i = 0; result && i < jobs.size() && running < threads; ++i)
+                {
+                    if (!started[i] && isReady(prerequisites.get(i), completed))
+                    {
+                        final ProcessPanelWorker.ProcessingJob job = jobs.get(i);
+                        logger.fine("Starting job '" + job.name + "'");
+                        started[i] = true;
+                        ++running;
+                        futures.set(i, service.submit(new Callable<Boolean>()
+                        {
+                            @Override
+                            public Boolean call()
+                            {
+                                ProcessOutputMultiplexer.JobOutput output = multiplexer.open(job.name);
+                                try
+                                {
+                                    return job.run(output, variables);
+                                }
+                                finally
+                                {
+                                    output.close();
+                                }
+                            }
+                        }));
+                    }
+                }
+                if (running == 0)
+                {
+                    break;
+                }
+                Future<Boolean> future = service.take();
+                --running;
+                int index = futures.indexOf(future);
+                completed[index] = true;
+                try
+                {
+                    if (!future.get())
+                    {
+                        logger.fine("Job '" + jobs.get(index).name + "' failed");
+                        result = false;
+                    }
+                }
+                catch (ExecutionException exception)
+                {
+                    if (failure == null)
+                    {
+                        failure = exception.getCause();
+                    }
+                    result = false;
+                }
+            }
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            return false;
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        if (failure instanceof RuntimeException)
+        {
+            throw (RuntimeException) failure;
+        }
+        else if (failure instanceof Error)
+        {
+            throw (Error) failure;
+        }
+        return result;
+    }
+
+    /**
+     * Determines if all the prerequisites of a job have completed.
+     *
+     * @param prerequisites the prerequisites
+     * @param completed     the completed jobs
+     * @return {@code true} if the job is ready to start
+     */
+    private static boolean isReady(TreeSet<Integer> prerequisites, boolean[] completed)
+    {
+        for (int index : prerequisites)
+        {
+            if (!completed[index])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates the executor.
+     *
+     * @return a new executor
+     */
+    private ExecutorService createExecutor()
+    {
+        return Executors.newFixedThreadPool(Math.min(threads, Math.max(1, jobs.size())), new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "izpack-processing-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.compile;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Tests the {@link InProcessCompiler}.
+ */
+public class InProcessCompilerTest
+{
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The compiler.
+     */
+    private InProcessCompiler compiler;
+
+    /**
+     * Sets up the test case. Skipped if the JVM doesn't provide a compiler.
+     */
+    @Before
+    public void setUp()
+    {
+        compiler = InProcessCompiler.create();
+        Assume.assumeNotNull(compiler);
+    }
+
+    /**
+     * Cleans up after the test case.
+     */
+    @After
+    public void tearDown()
+    {
+        if (compiler != null)
+        {
+            compiler.close();
+        }
+    }
+
+    /**
+     * Verifies that sources are compiled alongside their sources, including when compiled concurrently.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCompile() throws Exception
+    {
+        final List<File> files1 = Arrays.asList(source("a", "A", "public class A { B b; }"),
+                                                source("a", "B", "public class B { }"));
+        final List<File> files2 = Arrays.asList(source("b", "C", "public class C { }"));
+        final List<String> options = Arrays.asList("-g:none", "-classpath", temporaryFolder.getRoot().getPath());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            List<Future<InProcessCompiler.Result>> futures = new ArrayList<Future<InProcessCompiler.Result>>();
+            for (final List<File> files : Arrays.asList(files1, files2, files1))
+            {
+                futures.add(executor.submit(new Callable<InProcessCompiler.Result>()
+                {
+                    @Override
+                    public InProcessCompiler.Result call()
+                    {
+                        return compiler.compile(options, files);
+                    }
+                }));
+            }
+            for (Future<InProcessCompiler.Result> future : futures)
+            {
+                InProcessCompiler.Result result = future.get();
+                assertTrue(result.getDiagnostics(), result.isSuccess());
+                assertEquals(0, result.getErrors());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        assertTrue(new File(temporaryFolder.getRoot(), "a/A.class").exists());
+        assertTrue(new File(temporaryFolder.getRoot(), "a/B.class").exists());
+        assertTrue(new File(temporaryFolder.getRoot(), "b/C.class").exists());
+    }
+
+    /**
+     * Verifies that errors are reported as diagnostics.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testErrors() throws Exception
+    {
+        File file = source("c", "D", "public class D { Missing m; int i = \"x\"; }");
+        List<String> options = Arrays.asList("-classpath", temporaryFolder.getRoot().getPath());
+
+        InProcessCompiler.Result result = compiler.compile(options, Arrays.asList(file));
+        assertFalse(result.isSuccess());
+        assertEquals(2, result.getErrors());
+        assertTrue(result.getDiagnostics().contains("D.java"));
+        assertTrue(result.getDiagnostics().contains("Missing"));
+        assertFalse(new File(file.getParentFile(), "D.class").exists());
+    }
+
+    /**
+     * Verifies that invalid options are detected.
+     */
+    @Test
+    public void testCheckOptions()
+    {
+        assertNull(compiler.checkOptions(Arrays.asList("-g", "-classpath", ".")));
+        assertNotNull(compiler.checkOptions(Arrays.asList("-no-such-option")));
+    }
+
+    /**
+     * Creates a source file.
+     *
+     * @param dir     the directory, relative to the temporary folder
+     * @param name    the class name
+     * @param content the source
+     * @return the source file
+     * @throws Exception for any error
+     */
+    private File source(String dir, String name, String content) throws Exception
+    {
+        File file = new File(new File(temporaryFolder.getRoot(), dir), name + ".java");
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
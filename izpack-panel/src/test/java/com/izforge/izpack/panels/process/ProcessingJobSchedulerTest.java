@@ -0,0 +1,315 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.panels.process;
+
+import com.izforge.izpack.api.data.Variables;
+import com.izforge.izpack.api.handler.AbstractUIHandler;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Tests the {@link ProcessingJobScheduler}.
+ */
+public class ProcessingJobSchedulerTest
+{
+    /**
+     * The variables.
+     */
+    private final Variables variables = Mockito.mock(Variables.class);
+
+    /**
+     * Verifies that barriers and dependencies are resolved to earlier jobs only.
+     */
+    @Test
+    public void testPrerequisites()
+    {
+        List<ProcessPanelWorker.ProcessingJob> jobs = Arrays.asList(
+                job("a", false, null), job("b", true, null), job("c", true, null, "b"),
+                job("d", true, null, "e"), job("e", false, null), job("f", true, null));
+        List<TreeSet<Integer>> prerequisites = new ProcessingJobScheduler(jobs, 4).getPrerequisites();
+
+        assertEquals(set(), prerequisites.get(0));
+        assertEquals(set(0), prerequisites.get(1));
+        assertEquals(set(0, 1), prerequisites.get(2));
+        assertEquals(set(0), prerequisites.get(3));
+        assertEquals(set(0, 1, 2, 3), prerequisites.get(4));
+        assertEquals(set(4), prerequisites.get(5));
+    }
+
+    /**
+     * Verifies that parallel jobs run concurrently, that dependent jobs wait, and that the output of each job is
+     * passed to the handler contiguously.
+     */
+    @Test
+    public void testConcurrentJobs()
+    {
+        final CountDownLatch latch = new CountDownLatch(2);
+        Processable rendezvous = new Processable()
+        {
+            @Override
+            public boolean run(AbstractUIProcessHandler handler, Variables variables)
+            {
+                handler.logOutput("waiting", false);
+                latch.countDown();
+                try
+                {
+                    return latch.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException exception)
+                {
+                    return false;
+                }
+            }
+        };
+        List<ProcessPanelWorker.ProcessingJob> jobs = Arrays.asList(
+                job("a", true, rendezvous), job("b", true, rendezvous), job("c", true, null, "a", "b"));
+        RecordingHandler handler = new RecordingHandler();
+
+        assertTrue(new ProcessingJobScheduler(jobs, 4).run(handler, variables));
+
+        List<String> events = handler.getEvents();
+        assertEquals(9, events.size());
+        for (int i = 0; i < 6; i += 3)
+        {
+            assertTrue(events.get(i).equals("start a") || events.get(i).equals("start b"));
+            assertEquals("log waiting", events.get(i + 1));
+            assertEquals("finish", events.get(i + 2));
+        }
+        assertFalse(events.get(0).equals(events.get(3)));
+        assertEquals(Arrays.asList("start c", "log c", "finish"), events.subList(6, 9));
+    }
+
+    /**
+     * Verifies that no more jobs are started once a job fails.
+     */
+    @Test
+    public void testFailure()
+    {
+        Processable fail = new Processable()
+        {
+            @Override
+            public boolean run(AbstractUIProcessHandler handler, Variables variables)
+            {
+                return false;
+            }
+        };
+        List<ProcessPanelWorker.ProcessingJob> jobs = Arrays.asList(
+                job("a", true, fail), job("b", true, null), job("c", false, null));
+        RecordingHandler handler = new RecordingHandler();
+
+        assertFalse(new ProcessingJobScheduler(jobs, 1).run(handler, variables));
+        assertEquals(Arrays.asList("start a", "finish"), handler.getEvents());
+    }
+
+    /**
+     * Verifies that a job asking a question takes over the handler, and that output of jobs completing meanwhile is
+     * passed on once it completes.
+     */
+    @Test
+    public void testQuestion()
+    {
+        final CountDownLatch asked = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        Processable ask = new Processable()
+        {
+            @Override
+            public boolean run(AbstractUIProcessHandler handler, Variables variables)
+            {
+                handler.logOutput("before", true);
+                boolean result = handler.askQuestion("title", "question", AbstractUIHandler.CHOICES_YES_NO)
+                        == AbstractUIHandler.ANSWER_YES;
+                asked.countDown();
+                try
+                {
+                    done.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException exception)
+                {
+                    return false;
+                }
+                handler.logOutput("after", false);
+                return result;
+            }
+        };
+        Processable other = new Processable()
+        {
+            @Override
+            public boolean run(AbstractUIProcessHandler handler, Variables variables)
+            {
+                try
+                {
+                    asked.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException exception)
+                {
+                    return false;
+                }
+                handler.logOutput("other", false);
+                done.countDown();
+                return true;
+            }
+        };
+        List<ProcessPanelWorker.ProcessingJob> jobs = Arrays.asList(job("a", true, ask), job("b", true, other));
+        RecordingHandler handler = new RecordingHandler();
+
+        assertTrue(new ProcessingJobScheduler(jobs, 2).run(handler, variables));
+        assertEquals(Arrays.asList("start a", "log before", "ask question", "log after", "finish",
+                                   "start b", "log other", "finish"), handler.getEvents());
+    }
+
+    /**
+     * Creates a job.
+     *
+     * @param name        the job name
+     * @param parallel    determines if the job is parallel
+     * @param processable the processable to run. If {@code null}, the job logs its name
+     * @param depends     the jobs it depends on
+     * @return a new job
+     */
+    private static ProcessPanelWorker.ProcessingJob job(final String name, boolean parallel, Processable processable,
+                                                        String... depends)
+    {
+        if (processable == null)
+        {
+            processable = new Processable()
+            {
+                @Override
+                public boolean run(AbstractUIProcessHandler handler, Variables variables)
+                {
+                    handler.logOutput(name, false);
+                    return true;
+                }
+            };
+        }
+        List<ProcessPanelWorker.Processable> processables = new ArrayList<ProcessPanelWorker.Processable>();
+        processables.add(processable);
+        return new ProcessPanelWorker.ProcessingJob(name, processables, parallel, Arrays.asList(depends));
+    }
+
+    /**
+     * Creates a set of job indexes.
+     *
+     * @param values the indexes
+     * @return a new set
+     */
+    private static Set<Integer> set(Integer... values)
+    {
+        return new TreeSet<Integer>(Arrays.asList(values));
+    }
+
+    /**
+     * Shorthand for the processable interface.
+     */
+    private interface Processable extends ProcessPanelWorker.Processable
+    {
+    }
+
+    /**
+     * Handler that records the calls made to it.
+     */
+    private static class RecordingHandler implements AbstractUIProcessHandler
+    {
+        private final List<String> events = new ArrayList<String>();
+
+        public synchronized List<String> getEvents()
+        {
+            return new ArrayList<String>(events);
+        }
+
+        @Override
+        public synchronized void logOutput(String message, boolean stderr)
+        {
+            events.add("log " + message);
+        }
+
+        @Override
+        public void startProcessing(int no_of_processes)
+        {
+        }
+
+        @Override
+        public synchronized void startProcess(String name)
+        {
+            events.add("start " + name);
+        }
+
+        @Override
+        public synchronized void finishProcess()
+        {
+            events.add("finish");
+        }
+
+        @Override
+        public void finishProcessing(boolean unlockPrev, boolean unlockNext)
+        {
+        }
+
+        @Override
+        public void emitNotification(String message)
+        {
+        }
+
+        @Override
+        public boolean emitWarning(String title, String message)
+        {
+            return true;
+        }
+
+        @Override
+        public void emitError(String title, String message)
+        {
+        }
+
+        @Override
+        public int askQuestion(String title, String question, int choices)
+        {
+            synchronized (this)
+            {
+                events.add("ask " + question);
+            }
+            return ANSWER_YES;
+        }
+
+        @Override
+        public int askQuestion(String title, String question, int choices, int default_choice)
+        {
+            return askQuestion(title, question, choices);
+        }
+
+        @Override
+        public int askWarningQuestion(String title, String question, int choices, int default_choice)
+        {
+            return askQuestion(title, question, choices);
+        }
+    }
+}
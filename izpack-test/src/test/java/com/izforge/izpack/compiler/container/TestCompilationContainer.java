@@ -71,7 +71,7 @@ public class TestCompilationContainer extends CompilerContainer
     /**
      * Constructs a <tt>TestCompilationContainer</tt>.
      *
-     * @param installFile the install file path
+     * @param installFile the install file path, either absolute or relative to the class path
      * @param targetDir   the directory to write the compile targets to
      */
     public TestCompilationContainer(String installFile, File targetDir)
@@ -145,12 +145,17 @@ public class TestCompilationContainer extends CompilerContainer
     {
         super.fillContainer(container);
         deleteLock();
-        URL resource = getClass().getClassLoader().getResource(installFile);
-        if (resource == null)
+        File file = new File(installFile);
+        if (!file.isAbsolute() || !file.isFile())
         {
-            throw new IllegalStateException("Cannot find install file: " + installFile);
+            // locate the install file on the class path
+            URL resource = getClass().getClassLoader().getResource(installFile);
+            if (resource == null)
+            {
+                throw new IllegalStateException("Cannot find install file: " + installFile);
+            }
+            file = FileUtil.convertUrlToFile(resource);
         }
-        File file = FileUtil.convertUrlToFile(resource);
         baseDir = file.getParentFile();
 
         if (targetDir == null)
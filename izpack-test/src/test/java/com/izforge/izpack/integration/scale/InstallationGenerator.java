@@ -0,0 +1,422 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.integration.scale;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Generates installation projects of configurable size, to test how IzPack scales.
+ * <p/>
+ * A generated project consists of:
+ * <ul>
+ * <li>an {@code install.xml}, with one fileset per pack</li>
+ * <li>the pack sources, spread over nested directories</li>
+ * <li>conditional files, half of whose conditions are true</li>
+ * <li>parsable files, referencing static and dynamic variables</li>
+ * <li>an automated installation record, {@code auto.xml}, selecting all packs</li>
+ * </ul>
+ * The content is generated from a fixed seed, so that the same settings always give the same project.
+ */
+public class InstallationGenerator
+{
+    /**
+     * The application name. This matches that expected by the test containers.
+     */
+    public static final String APPNAME = "Test Installation";
+
+    /**
+     * The install file name.
+     */
+    public static final String INSTALL_FILE = "install.xml";
+
+    /**
+     * The automated installation record file name.
+     */
+    public static final String AUTO_INSTALL_FILE = "auto.xml";
+
+    /**
+     * The number of packs.
+     */
+    private int packs = 5;
+
+    /**
+     * The number of files per pack.
+     */
+    private int filesPerPack = 200;
+
+    /**
+     * The directory depth of the pack files.
+     */
+    private int depth = 3;
+
+    /**
+     * The size of each pack file, in bytes.
+     */
+    private int fileSize = 16 * 1024;
+
+    /**
+     * The number of conditions, each guarding a file.
+     */
+    private int conditions = 20;
+
+    /**
+     * The number of parsable files.
+     */
+    private int parsables = 20;
+
+    /**
+     * The number of dynamic variables.
+     */
+    private int dynamicVariables = 20;
+
+    /**
+     * The number of files the installation installs, excluding the uninstaller.
+     */
+    private int installedFiles;
+
+    /**
+     * The number of bytes the installation installs, excluding the uninstaller.
+     */
+    private long installedBytes;
+
+    /**
+     * Sets the number of packs.
+     *
+     * @param packs the number of packs
+     * @return this generator
+     */
+    public InstallationGenerator setPacks(int packs)
+    {
+        this.packs = packs;
+        return this;
+    }
+
+    /**
+     * Sets the number of files per pack.
+     *
+     * @param filesPerPack the number of files per pack
+     * @return this generator
+     */
+    public InstallationGenerator setFilesPerPack(int filesPerPack)
+    {
+        this.filesPerPack = filesPerPack;
+        return this;
+    }
+
+    /**
+     * Sets the directory depth of the pack files.
+     *
+     * @param depth the directory depth
+     * @return this generator
+     */
+    public InstallationGenerator setDepth(int depth)
+    {
+        this.depth = depth;
+        return this;
+    }
+
+    /**
+     * Sets the size of each pack file.
+     *
+     * @param fileSize the file size, in bytes
+     * @return this generator
+     */
+    public InstallationGenerator setFileSize(int fileSize)
+    {
+        this.fileSize = fileSize;
+        return this;
+    }
+
+    /**
+     * Sets the number of conditions.
+     *
+     * @param conditions the number of conditions
+     * @return this generator
+     */
+    public InstallationGenerator setConditions(int conditions)
+    {
+        this.conditions = conditions;
+        return this;
+    }
+
+    /**
+     * Sets the number of parsable files.
+     *
+     * @param parsables the number of parsable files
+     * @return this generator
+     */
+    public InstallationGenerator setParsables(int parsables)
+    {
+        this.parsables = parsables;
+        return this;
+    }
+
+    /**
+     * Returns the number of parsable files.
+     *
+     * @return the number of parsable files
+     */
+    public int getParsables()
+    {
+        return parsables;
+    }
+
+    /**
+     * Sets the number of dynamic variables.
+     *
+     * @param dynamicVariables the number of dynamic variables
+     * @return this generator
+     */
+    public InstallationGenerator setDynamicVariables(int dynamicVariables)
+    {
+        this.dynamicVariables = dynamicVariables;
+        return this;
+    }
+
+    /**
+     * Returns the number of files the last generated project installs, excluding the uninstaller.
+     *
+     * @return the number of installed files
+     */
+    public int getInstalledFiles()
+    {
+        return installedFiles;
+    }
+
+    /**
+     * Returns the number of bytes the last generated project installs, excluding the uninstaller.
+     *
+     * @return the number of installed bytes
+     */
+    public long getInstalledBytes()
+    {
+        return installedBytes;
+    }
+
+    /**
+     * Generates a project.
+     *
+     * @param dir         the directory to generate the project in
+     * @param installPath the installation path to record in the automated installation record
+     * @return the install file
+     * @throws IOException for any I/O error
+     */
+    public File generate(File dir, File installPath) throws IOException
+    {
+        Random random = new Random(42);
+        installedFiles = 0;
+        installedBytes = 0;
+
+        File installFile = new File(dir, INSTALL_FILE);
+        try (PrintWriter xml = new PrintWriter(new OutputStreamWriter(
+                FileUtils.openOutputStream(installFile), StandardCharsets.UTF_8)))
+        {
+            xml.println("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>");
+            xml.println("<izpack:installation version=\"5.0\" xmlns:izpack=\"http://izpack.org/schema/installation\">");
+            xml.println("  <info>");
+            xml.println("    <appname>" + APPNAME + "</appname>");
+            xml.println("    <appversion>1.0</appversion>");
+            xml.println("  </info>");
+            xml.println("  <locale>");
+            xml.println("    <langpack iso3=\"eng\"/>");
+            xml.println("  </locale>");
+
+            xml.println("  <variables>");
+            for (int i = 0; i < Math.max(conditions, Math.max(parsables, dynamicVariables)); ++i)
+            {
+                xml.println("    <variable name=\"static." + i + "\" value=\"value" + i + "\"/>");
+                xml.println("    <variable name=\"flag." + i + "\" value=\"" + ((i % 2 == 0) ? "yes" : "no") + "\"/>");
+            }
+            xml.println("  </variables>");
+
+            xml.println("  <dynamicvariables>");
+            for (int i = 0; i < dynamicVariables; ++i)
+            {
+                xml.println("    <variable name=\"dynamic." + i + "\" value=\"$INSTALL_PATH/${static." + i + "}\"/>");
+            }
+            xml.println("  </dynamicvariables>");
+
+            xml.println("  <conditions>");
+            for (int i = 0; i < conditions; ++i)
+            {
+                xml.println("    <condition type=\"variable\" id=\"condition." + i + "\">");
+                xml.println("      <name>flag." + i + "</name>");
+                xml.println("      <value>yes</value>");
+                xml.println("    </condition>");
+            }
+            xml.println("  </conditions>");
+
+            xml.println("  <panels>");
+            xml.println("    <panel classname=\"TargetPanel\" id=\"panel.target\"/>");
+            xml.println("    <panel classname=\"PacksPanel\" id=\"panel.packs\"/>");
+            xml.println("    <panel classname=\"InstallPanel\" id=\"panel.install\"/>");
+            xml.println("    <panel classname=\"FinishPanel\" id=\"panel.finish\"/>");
+            xml.println("  </panels>");
+
+            xml.println("  <packs>");
+            for (int pack = 0; pack < packs; ++pack)
+            {
+                xml.println("    <pack name=\"pack" + pack + "\" required=\"" + (pack == 0 ? "yes" : "no") + "\">");
+                xml.println("      <description>Pack " + pack + "</description>");
+                generatePackFiles(new File(dir, "pack" + pack), random);
+                xml.println("      <fileset dir=\"pack" + pack + "\" targetdir=\"$INSTALL_PATH/pack" + pack + "\"/>");
+                if (pack == 0)
+                {
+                    generateConditionalFiles(dir, xml);
+                    generateParsableFiles(dir, xml);
+                }
+                xml.println("    </pack>");
+            }
+            xml.println("  </packs>");
+            xml.println("</izpack:installation>");
+        }
+
+        generateAutoInstallRecord(new File(dir, AUTO_INSTALL_FILE), installPath);
+        return installFile;
+    }
+
+    /**
+     * Generates the files of a pack.
+     *
+     * @param dir    the pack directory
+     * @param random the random number generator
+     * @throws IOException for any I/O error
+     */
+    private void generatePackFiles(File dir, Random random) throws IOException
+    {
+        byte[] data = new byte[fileSize];
+        for (int i = 0; i < filesPerPack; ++i)
+        {
+            // spread the files over a tree of the configured depth, with 4 subdirectories per level
+            StringBuilder path = new StringBuilder();
+            int index = i;
+            for (int level = 1; level < depth; ++level)
+            {
+                path.append("dir").append(index % 4).append(File.separatorChar);
+                index /= 4;
+            }
+            path.append("file").append(i).append(".dat");
+
+            // half text, half random, so that the files compress moderately
+            for (int j = 0; j < data.length; ++j)
+            {
+                data[j] = (j < data.length / 2) ? (byte) ('a' + (j % 26)) : (byte) random.nextInt();
+            }
+            try (OutputStream out = FileUtils.openOutputStream(new File(dir, path.toString())))
+            {
+                out.write(data);
+            }
+            ++installedFiles;
+            installedBytes += data.length;
+        }
+    }
+
+    /**
+     * Generates a file for each condition.
+     *
+     * @param dir the project directory
+     * @param xml the install file writer
+     * @throws IOException for any I/O error
+     */
+    private void generateConditionalFiles(File dir, PrintWriter xml) throws IOException
+    {
+        for (int i = 0; i < conditions; ++i)
+        {
+            String name = "conditional" + i + ".txt";
+            String content = "conditional " + i;
+            FileUtils.writeStringToFile(new File(dir, "conditional/" + name), content, StandardCharsets.UTF_8);
+            xml.println("      <file src=\"conditional/" + name + "\" targetdir=\"$INSTALL_PATH/conditional\""
+                                + " condition=\"condition." + i + "\"/>");
+            if (i % 2 == 0)
+            {
+                // only the files with even indexes have their condition met
+                ++installedFiles;
+                installedBytes += content.length();
+            }
+        }
+    }
+
+    /**
+     * Generates parsable files, referencing static and dynamic variables.
+     *
+     * @param dir the project directory
+     * @param xml the install file writer
+     * @throws IOException for any I/O error
+     */
+    private void generateParsableFiles(File dir, PrintWriter xml) throws IOException
+    {
+        for (int i = 0; i < parsables; ++i)
+        {
+            String name = "parsable" + i + ".properties";
+            StringBuilder content = new StringBuilder();
+            for (int j = 0; j < 100; ++j)
+            {
+                content.append("key").append(j).append("=${static.").append(j % Math.max(1, parsables)).append('}');
+                if (dynamicVariables > 0)
+                {
+                    content.append(" ${dynamic.").append(j % dynamicVariables).append('}');
+                }
+                content.append('\n');
+            }
+            FileUtils.writeStringToFile(new File(dir, "parsable/" + name), content.toString(), StandardCharsets.UTF_8);
+            xml.println("      <file src=\"parsable/" + name + "\" targetdir=\"$INSTALL_PATH/parsable\"/>");
+            xml.println("      <parsable targetfile=\"$INSTALL_PATH/parsable/" + name + "\"/>");
+            ++installedFiles;
+            installedBytes += content.length();
+        }
+    }
+
+    /**
+     * Generates the automated installation record.
+     *
+     * @param file        the file to write to
+     * @param installPath the installation path
+     * @throws IOException for any I/O error
+     */
+    private void generateAutoInstallRecord(File file, File installPath) throws IOException
+    {
+        try (PrintWriter xml = new PrintWriter(new OutputStreamWriter(
+                FileUtils.openOutputStream(file), StandardCharsets.UTF_8)))
+        {
+            xml.println("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>");
+            xml.println("<AutomatedInstallation langpack=\"eng\">");
+            xml.println("<com.izforge.izpack.panels.target.TargetPanel id=\"panel.target\">");
+            xml.println("  <installpath>" + installPath.getAbsolutePath() + "</installpath>");
+            xml.println("</com.izforge.izpack.panels.target.TargetPanel>");
+            xml.println("<com.izforge.izpack.panels.packs.PacksPanel id=\"panel.packs\">");
+            for (int pack = 0; pack < packs; ++pack)
+            {
+                xml.println("  <pack index=\"" + pack + "\" name=\"pack" + pack + "\" selected=\"true\"/>");
+            }
+            xml.println("</com.izforge.izpack.panels.packs.PacksPanel>");
+            xml.println("<com.izforge.izpack.panels.install.InstallPanel id=\"panel.install\"/>");
+            xml.println("<com.izforge.izpack.panels.finish.FinishPanel id=\"panel.finish\"/>");
+            xml.println("</AutomatedInstallation>");
+        }
+    }
+}
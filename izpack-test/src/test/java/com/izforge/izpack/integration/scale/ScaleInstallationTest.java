@@ -0,0 +1,245 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.integration.scale;
+
+import static com.izforge.izpack.test.util.TestHelper.assertFileNotExists;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.NameFileFilter;
+import org.apache.commons.io.filefilter.NotFileFilter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.izforge.izpack.api.data.InstallData;
+import com.izforge.izpack.compiler.container.TestAutomatedInstallerContainer;
+import com.izforge.izpack.compiler.container.TestCompilationContainer;
+import com.izforge.izpack.installer.automation.AutomatedInstaller;
+import com.izforge.izpack.installer.container.impl.InstallerContainer;
+import com.izforge.izpack.installer.unpacker.InstallProfiler;
+import com.izforge.izpack.integration.UninstallHelper;
+
+
+/**
+ * Compiles, installs and uninstalls a generated installation, recording its throughput.
+ * <p/>
+ * The installation size and the optional throughput floors are configured with system properties, e.g.
+ * {@code mvn test -Dtest=ScaleInstallationTest -Dizpack.scale.filesPerPack=5000 -Dizpack.scale.minFilesPerSecond=500}:
+ * <ul>
+ * <li>{@code izpack.scale.packs}, {@code izpack.scale.filesPerPack}, {@code izpack.scale.depth},
+ * {@code izpack.scale.fileSize}, {@code izpack.scale.conditions}, {@code izpack.scale.parsables},
+ * {@code izpack.scale.dynamicVariables} - the size of the installation</li>
+ * <li>{@code izpack.scale.minFilesPerSecond}, {@code izpack.scale.minMBPerSecond} - the minimum installation
+ * throughput</li>
+ * <li>{@code izpack.scale.maxPeakHeapMB} - the maximum peak heap usage</li>
+ * </ul>
+ * The floors are only checked when set, as timings depend on the machine running the test. The measurements are
+ * logged.
+ * The installation runs with the {@link AutomatedInstaller}, so no display is required.
+ */
+public class ScaleInstallationTest
+{
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Number of bytes in a megabyte.
+     */
+    private static final double MB = 1024 * 1024;
+
+    private static final Logger logger = Logger.getLogger(ScaleInstallationTest.class.getName());
+
+    /**
+     * Compiles, installs and uninstalls the generated installation, and verifies any throughput floors are met.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testThroughput() throws Exception
+    {
+        File projectDir = temporaryFolder.newFolder("project");
+        File targetDir = temporaryFolder.newFolder("target");
+        File installPath = new File(temporaryFolder.getRoot(), "install");
+
+        InstallationGenerator generator = new InstallationGenerator()
+                .setPacks(Integer.getInteger("izpack.scale.packs", 5))
+                .setFilesPerPack(Integer.getInteger("izpack.scale.filesPerPack", 200))
+                .setDepth(Integer.getInteger("izpack.scale.depth", 3))
+                .setFileSize(Integer.getInteger("izpack.scale.fileSize", 16 * 1024))
+                .setConditions(Integer.getInteger("izpack.scale.conditions", 20))
+                .setParsables(Integer.getInteger("izpack.scale.parsables", 20))
+                .setDynamicVariables(Integer.getInteger("izpack.scale.dynamicVariables", 20));
+        File installFile = generator.generate(projectDir, installPath);
+
+        // compilation adds the installer to the context class loader. Restore it, as the installer is deleted with
+        // the temporary folder
+        Thread thread = Thread.currentThread();
+        ClassLoader loader = thread.getContextClassLoader();
+        try
+        {
+            run(generator, installFile, projectDir, targetDir, installPath);
+        }
+        finally
+        {
+            thread.setContextClassLoader(loader);
+        }
+    }
+
+    /**
+     * Compiles, installs and uninstalls the generated installation, and verifies any throughput floors are met.
+     *
+     * @param generator   the generator
+     * @param installFile the generated install file
+     * @param projectDir  the generated project directory
+     * @param targetDir   the directory to write the installer to
+     * @param installPath the installation path
+     * @throws Exception for any error
+     */
+    private void run(InstallationGenerator generator, File installFile, File projectDir, File targetDir,
+                     File installPath) throws Exception
+    {
+        resetPeakHeap();
+        long start = System.nanoTime();
+        TestCompilationContainer compiler = new TestCompilationContainer(installFile.getAbsolutePath(), targetDir);
+        compiler.launchCompilation();
+        long compileTime = System.nanoTime() - start;
+
+        InstallerContainer container = new TestAutomatedInstallerContainer();
+        InstallData installData = container.getComponent(InstallData.class);
+        InstallProfiler profiler = container.getComponent(InstallProfiler.class);
+        profiler.setEnabled(true);
+        profiler.setReportFile(new File(targetDir, InstallProfiler.REPORT_NAME));
+        AutomatedInstaller installer = container.getComponent(AutomatedInstaller.class);
+
+        start = System.nanoTime();
+        installer.init(new File(projectDir, InstallationGenerator.AUTO_INSTALL_FILE).getAbsolutePath(), null,
+                       new String[0]);
+        installer.doInstall();
+        long installTime = System.nanoTime() - start;
+
+        verifyInstallation(generator, installPath);
+
+        start = System.nanoTime();
+        UninstallHelper.uninstall(installData);
+        long uninstallTime = System.nanoTime() - start;
+        assertFileNotExists(installPath);
+
+        long peakHeap = getPeakHeap();
+        double filesPerSecond = generator.getInstalledFiles() / seconds(installTime);
+        double mbPerSecond = generator.getInstalledBytes() / MB / seconds(installTime);
+        logger.info(String.format(
+                Locale.ENGLISH,
+                "Installed %d files (%.1f MB): compile %.2fs, install %.2fs (%.1f files/s, %.2f MB/s), "
+                        + "uninstall %.2fs, peak heap %.1f MB. Profile: %s",
+                generator.getInstalledFiles(), generator.getInstalledBytes() / MB, seconds(compileTime),
+                seconds(installTime), filesPerSecond, mbPerSecond, seconds(uninstallTime), peakHeap / MB,
+                profiler.getReportFile()));
+
+        double minFilesPerSecond = getDouble("izpack.scale.minFilesPerSecond", 0);
+        double minMBPerSecond = getDouble("izpack.scale.minMBPerSecond", 0);
+        double maxPeakHeapMB = getDouble("izpack.scale.maxPeakHeapMB", 0);
+        assertTrue("Installed " + filesPerSecond + " files/s, expected at least " + minFilesPerSecond,
+                   minFilesPerSecond <= 0 || filesPerSecond >= minFilesPerSecond);
+        assertTrue("Installed " + mbPerSecond + " MB/s, expected at least " + minMBPerSecond,
+                   minMBPerSecond <= 0 || mbPerSecond >= minMBPerSecond);
+        assertTrue("Peak heap " + peakHeap / MB + " MB, expected at most " + maxPeakHeapMB,
+                   maxPeakHeapMB <= 0 || peakHeap / MB <= maxPeakHeapMB);
+    }
+
+    /**
+     * Verifies the expected files were installed, and the parsable files substituted.
+     *
+     * @param generator   the generator
+     * @param installPath the installation path
+     * @throws Exception for any error
+     */
+    private void verifyInstallation(InstallationGenerator generator, File installPath) throws Exception
+    {
+        Collection<File> files = FileUtils.listFiles(
+                installPath, new NotFileFilter(new NameFileFilter(InstallData.INSTALLATION_INFORMATION)),
+                new NotFileFilter(new NameFileFilter("Uninstaller")));
+        assertEquals(generator.getInstalledFiles(), files.size());
+        assertFileNotExists(installPath, "conditional/conditional1.txt");
+
+        if (generator.getParsables() > 0)
+        {
+            File parsable = new File(installPath, "parsable/parsable0.properties");
+            assertTrue(parsable + " not installed", parsable.exists());
+            String content = FileUtils.readFileToString(parsable, StandardCharsets.UTF_8);
+            assertFalse(content.contains("${"));
+            assertTrue(content.contains("=value0"));
+        }
+    }
+
+    private static double seconds(long nanos)
+    {
+        return Math.max(nanos, 1) / 1e9;
+    }
+
+    private static double getDouble(String name, double defaultValue)
+    {
+        String value = System.getProperty(name);
+        return (value != null) ? Double.parseDouble(value) : defaultValue;
+    }
+
+    private static void resetPeakHeap()
+    {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            if (pool.getType() == MemoryType.HEAP)
+            {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Returns the peak heap usage since {@link #resetPeakHeap()}, summed over the heap memory pools.
+     *
+     * @return the peak heap usage, in bytes
+     */
+    private static long getPeakHeap()
+    {
+        long result = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            if (pool.getType() == MemoryType.HEAP)
+            {
+                result += pool.getPeakUsage().getUsed();
+            }
+        }
+        return result;
+    }
+}
@@ -20,7 +20,11 @@
  */
 package com.izforge.izpack.util;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -28,6 +32,14 @@ import com.izforge.izpack.api.data.binding.OsModel;
 
 /**
  * Helper to match {@link Platform Platforms}s to {@link OsModel OsModels}.
+ * <p/>
+ * The current platform doesn't change, so the results of matching lists of models against it are cached, keyed on the
+ * value of the list. Each distinct list is therefore only matched once, however many files it applies to.
+ * <p/>
+ * Lookups aren't identity based: each one hashes the list passed in, and compares it element by element with the
+ * cached copy. {@link OsModel#hashCode()} and {@link OsModel#equals(Object)} compare fields without allocating, and
+ * constraint lists typically hold one or two models, so this is much cheaper than matching. Keying on value rather
+ * than identity means that callers which build a new list for each check don't grow the cache.
  *
  * @author Tim Anderson
  */
@@ -44,6 +56,11 @@ public class PlatformModelMatcher
      */
     private final Platform platform;
 
+    /**
+     * The results of matching lists of models against the current platform, keyed on unmodifiable copies of the lists.
+     */
+    private final ConcurrentMap<List<OsModel>, Boolean> results = new ConcurrentHashMap<List<OsModel>, Boolean>();
+
     /**
      * The logger.
      */
@@ -134,7 +151,18 @@ public class PlatformModelMatcher
      */
     public boolean matchesCurrentPlatform(List<OsModel> models)
     {
-        return matches(platform, models);
+        if (models == null || models.isEmpty())
+        {
+            return true;
+        }
+        Boolean result = results.get(models);
+        if (result == null)
+        {
+            result = matches(platform, models);
+            // copy the key, as the list may be modified by the caller
+            results.putIfAbsent(Collections.unmodifiableList(new ArrayList<OsModel>(models)), result);
+        }
+        return result;
     }
 
     /**
@@ -0,0 +1,1019 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.compress;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * A {@link JarOutputStream} that compresses entries concurrently.
+ * <p/>
+ * Entries are scattered: the data of each entry is buffered when the entry is closed, and deflated by a pool of
+ * threads. They are then gathered: the compressed entries are written in the order they were added, so the output is
+ * the same regardless of the no. of threads, and only depends on the entries and the compression level.
+ * <p/>
+ * Entries larger than the buffer limit, such as pack data, are compressed and written as they are streamed, once the
+ * entries before them have been written. {@link #STORED} entries larger than the buffer limit must declare their size
+ * and CRC-32, as for {@link JarOutputStream}, and are written as is. The sizes of streamed compressed entries aren't known when the local header is written, so a streamed
+ * compressed entry of 4GB or more must declare its size via {@link ZipEntry#setSize(long)}, so that the local header includes
+ * a ZIP64 extra field. Streamed entries that reach 4GB without doing so are rejected.
+ * <p/>
+ * As for {@link JarOutputStream}, the first entry is marked with the jar extra field id, {@code 0xCAFE}.
+ * <p/>
+ * The compression threads are daemon threads, and exit once idle, so a stream that isn't closed doesn't keep them
+ * alive.
+ * <p/>
+ * This only uses the JDK, as it is used by the installer to write the uninstaller, and the installer doesn't
+ * necessarily include commons-compress.
+ */
+public class ParallelJarOutputStream extends JarOutputStream
+{
+    /**
+     * The size above which an entry is streamed rather than buffered.
+     */
+    private static final int BUFFER_LIMIT = 4 * 1024 * 1024;
+
+    /**
+     * The maximum size of the uncompressed data of entries waiting to be written.
+     */
+    private static final long MAX_PENDING_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * The time, in seconds, that idle compression threads are kept alive.
+     */
+    private static final long KEEP_ALIVE = 10;
+
+    private static final long LOCSIG = 0x04034b50L;
+    private static final long EXTSIG = 0x08074b50L;
+    private static final long CENSIG = 0x02014b50L;
+    private static final long ENDSIG = 0x06054b50L;
+    private static final long ZIP64_ENDSIG = 0x06064b50L;
+    private static final long ZIP64_LOCSIG = 0x07064b50L;
+    private static final long ZIP64_MAGICVAL = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGICCOUNT = 0xFFFF;
+    private static final int ZIP64_EXTID = 0x0001;
+    private static final int JAR_MAGIC = 0xCAFE;
+    private static final int FLAG_DATA_DESCRIPTOR = 0x08;
+    private static final int FLAG_UTF8 = 0x800;
+
+    /**
+     * The underlying stream.
+     */
+    private final OutputStream output;
+
+    /**
+     * The pool compressing entries, or <tt>null</tt> if entries are compressed on the calling thread.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The entries being compressed, in the order they were added.
+     */
+    private final Deque<Future<Entry>> pending = new ArrayDeque<Future<Entry>>();
+
+    /**
+     * The written entries, for the central directory.
+     */
+    private final List<Entry> written = new ArrayList<Entry>();
+
+    /**
+     * The names of the entries, to detect duplicates.
+     */
+    private final Set<String> names = new HashSet<String>();
+
+    /**
+     * The deflaters used by the compression threads.
+     */
+    private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<Deflater>();
+
+    /**
+     * The deflater of the current compression thread.
+     */
+    private final ThreadLocal<Deflater> deflater = new ThreadLocal<Deflater>();
+
+    /**
+     * The current entry, or <tt>null</tt> if there is no open entry.
+     */
+    private Entry current;
+
+    /**
+     * The buffered data of the current entry. <tt>null</tt> if the entry is being streamed.
+     */
+    private Buffer buffer;
+
+    /**
+     * The CRC of the current entry, when streamed.
+     */
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * The uncompressed size of the pending entries.
+     */
+    private long pendingBytes;
+
+    /**
+     * The buffer used to compress streamed entries.
+     */
+    private final byte[] chunk = new byte[8192];
+
+    /**
+     * The no. of bytes written to the underlying stream.
+     */
+    private long position;
+
+    /**
+     * The compression method for entries that don't specify one.
+     */
+    private int method = DEFLATED;
+
+    /**
+     * The compression level.
+     */
+    private int level = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * The archive comment. May be <tt>null</tt>.
+     */
+    private byte[] comment;
+
+    /**
+     * Determines if the archive has been finished.
+     */
+    private boolean finished;
+
+    /**
+     * Determines if the stream has been closed.
+     */
+    private boolean closed;
+
+    /**
+     * Constructs a <tt>ParallelJarOutputStream</tt> that uses one thread per available processor.
+     *
+     * @param out the stream to write to
+     * @throws IOException for any I/O error
+     */
+    public ParallelJarOutputStream(OutputStream out) throws IOException
+    {
+        this(out, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a <tt>ParallelJarOutputStream</tt>.
+     *
+     * @param out     the stream to write to
+     * @param threads the no. of compression threads. If <tt>1</tt> or less, entries are compressed on the calling
+     *                thread
+     * @throws IOException for any I/O error
+     */
+    public ParallelJarOutputStream(OutputStream out, int threads) throws IOException
+    {
+        super(out);
+        this.output = out;
+        if (threads > 1)
+        {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE, TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<Runnable>(),
+                                                             new DeflaterThreadFactory());
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+        else
+        {
+            executor = null;
+        }
+    }
+
+    /**
+     * Sets the compression level for subsequent entries.
+     *
+     * @param level the compression level, from 0-9 or {@link Deflater#DEFAULT_COMPRESSION}
+     * @throws IllegalArgumentException if the level is invalid
+     */
+    @Override
+    public void setLevel(int level)
+    {
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < 0 || level > 9))
+        {
+            throw new IllegalArgumentException("invalid compression level");
+        }
+        this.level = level;
+    }
+
+    /**
+     * Sets the compression method for subsequent entries that don't specify one.
+     *
+     * @param method the compression method. One of {@link #DEFLATED} or {@link #STORED}
+     * @throws IllegalArgumentException if the method is invalid
+     */
+    @Override
+    public void setMethod(int method)
+    {
+        if (method != DEFLATED && method != STORED)
+        {
+            throw new IllegalArgumentException("invalid compression method");
+        }
+        this.method = method;
+    }
+
+    /**
+     * Sets the archive comment.
+     *
+     * @param comment the comment. May be <tt>null</tt>
+     */
+    @Override
+    public void setComment(String comment)
+    {
+        this.comment = (comment != null) ? comment.getBytes(StandardCharsets.UTF_8) : null;
+        if (this.comment != null && this.comment.length > 0xFFFF)
+        {
+            throw new IllegalArgumentException("ZIP file comment too long.");
+        }
+    }
+
+    /**
+     * Begins a new entry, closing the current entry if there is one.
+     *
+     * @param entry the entry
+     * @throws ZipException if the entry is a duplicate
+     * @throws IOException  for any I/O error
+     */
+    @Override
+    public void putNextEntry(ZipEntry entry) throws IOException
+    {
+        ensureOpen();
+        if (finished)
+        {
+            throw new ZipException("ZIP archive has been finished");
+        }
+        if (current != null)
+        {
+            closeEntry();
+        }
+        boolean first = names.isEmpty();
+        if (!names.add(entry.getName()))
+        {
+            throw new ZipException("duplicate entry: " + entry.getName());
+        }
+        current = new Entry(entry, (entry.getMethod() != -1) ? entry.getMethod() : method, level, first);
+        buffer = new Buffer();
+    }
+
+    /**
+     * Writes data to the current entry.
+     *
+     * @param b the byte to write
+     * @throws IOException for any I/O error
+     */
+    @Override
+    public void write(int b) throws IOException
+    {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    /**
+     * Writes data to the current entry.
+     *
+     * @param b   the data
+     * @param off the start offset in the data
+     * @param len the no. of bytes to write
+     * @throws IOException for any I/O error
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        ensureOpen();
+        if (off < 0 || len < 0 || off > b.length - len)
+        {
+            throw new IndexOutOfBoundsException();
+        }
+        if (current == null)
+        {
+            throw new ZipException("no current ZIP entry");
+        }
+        if (len == 0)
+        {
+            return;
+        }
+        if (buffer != null)
+        {
+            if (buffer.size() + len > BUFFER_LIMIT)
+            {
+                startStreaming();
+            }
+            else
+            {
+                buffer.write(b, off, len);
+                return;
+            }
+        }
+        if (current.method == STORED)
+        {
+            current.streamedSize += len;
+            if (current.streamedSize > current.size)
+            {
+                throw new ZipException("invalid entry size (expected " + current.size + " but got "
+                                               + current.streamedSize + " bytes)");
+            }
+            crc.update(b, off, len);
+            output.write(b, off, len);
+            position += len;
+            return;
+        }
+        if (!current.zip64 && current.size + len >= ZIP64_MAGICVAL)
+        {
+            throw tooLarge(current);
+        }
+        crc.update(b, off, len);
+        current.size += len;
+        def.setInput(b, off, len);
+        while (!def.needsInput())
+        {
+            deflate(current);
+        }
+    }
+
+    /**
+     * Closes the current entry.
+     * <p/>
+     * Buffered entries are queued for compression, and written once compressed.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Override
+    public void closeEntry() throws IOException
+    {
+        ensureOpen();
+        if (current == null)
+        {
+            return;
+        }
+        Entry entry = current;
+        current = null;
+        if (buffer != null)
+        {
+            Buffer data = buffer;
+            buffer = null;
+            submit(entry, data);
+        }
+        else if (entry.method == STORED)
+        {
+            if (entry.streamedSize != entry.size)
+            {
+                throw new ZipException("invalid entry size (expected " + entry.size + " but got "
+                                               + entry.streamedSize + " bytes)");
+            }
+            if (crc.getValue() != entry.crc)
+            {
+                throw new ZipException("invalid entry crc-32 (expected 0x" + Long.toHexString(entry.crc)
+                                               + " but got 0x" + Long.toHexString(crc.getValue()) + ")");
+            }
+            written.add(entry);
+        }
+        else
+        {
+            def.finish();
+            while (!def.finished())
+            {
+                deflate(entry);
+            }
+            entry.crc = crc.getValue();
+            writeDataDescriptor(entry);
+            written.add(entry);
+        }
+    }
+
+    /**
+     * Writes the entries that have been compressed, and flushes the underlying stream.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        ensureOpen();
+        while (!pending.isEmpty() && pending.peekFirst().isDone())
+        {
+            writeNext();
+        }
+        output.flush();
+    }
+
+    /**
+     * Finishes writing the archive, without closing the underlying stream.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Override
+    public void finish() throws IOException
+    {
+        ensureOpen();
+        if (finished)
+        {
+            return;
+        }
+        if (current != null)
+        {
+            closeEntry();
+        }
+        while (!pending.isEmpty())
+        {
+            writeNext();
+        }
+        writeCentralDirectory();
+        finished = true;
+        output.flush();
+    }
+
+    /**
+     * Finishes writing the archive, and closes the underlying stream.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (closed)
+        {
+            return;
+        }
+        try
+        {
+            finish();
+        }
+        finally
+        {
+            closed = true;
+            if (executor != null)
+            {
+                executor.shutdownNow();
+            }
+            for (Deflater deflater : deflaters)
+            {
+                deflater.end();
+            }
+            def.end();
+            output.close();
+        }
+    }
+
+    /**
+     * Queues an entry for compression, writing earlier entries if too much data is pending.
+     *
+     * @param entry the entry
+     * @param data  the entry data
+     * @throws IOException for any I/O error
+     */
+    private void submit(final Entry entry, final Buffer data) throws IOException
+    {
+        Callable<Entry> task = new Callable<Entry>()
+        {
+            @Override
+            public Entry call() throws Exception
+            {
+                return compress(entry, data);
+            }
+        };
+        if (executor != null)
+        {
+            pending.addLast(executor.submit(task));
+        }
+        else
+        {
+            FutureTask<Entry> future = new FutureTask<Entry>(task);
+            future.run();
+            pending.addLast(future);
+        }
+        pendingBytes += data.size();
+        while (!pending.isEmpty() && (pendingBytes > MAX_PENDING_BYTES || pending.peekFirst().isDone()))
+        {
+            writeNext();
+        }
+    }
+
+    /**
+     * Compresses the data of an entry.
+     *
+     * @param entry the entry
+     * @param data  the uncompressed data
+     * @return the entry
+     */
+    private Entry compress(Entry entry, Buffer data)
+    {
+        CRC32 checksum = new CRC32();
+        checksum.update(data.array(), 0, data.size());
+        entry.crc = checksum.getValue();
+        entry.size = data.size();
+        if (entry.method == STORED)
+        {
+            entry.data = data;
+        }
+        else
+        {
+            Deflater compressor = getDeflater();
+            compressor.reset();
+            compressor.setLevel(entry.level);
+            compressor.setInput(data.array(), 0, data.size());
+            compressor.finish();
+            Buffer compressed = new Buffer(Math.max(64, data.size() / 2));
+            byte[] block = new byte[8192];
+            while (!compressor.finished())
+            {
+                int count = compressor.deflate(block);
+                compressed.write(block, 0, count);
+            }
+            entry.data = compressed;
+        }
+        entry.compressedSize = entry.data.size();
+        return entry;
+    }
+
+    /**
+     * Writes the next pending entry, waiting for it to be compressed if required.
+     *
+     * @throws IOException for any I/O error
+     */
+    private void writeNext() throws IOException
+    {
+        Future<Entry> future = pending.removeFirst();
+        Entry entry;
+        try
+        {
+            entry = future.get();
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing jar entries", exception);
+        }
+        catch (ExecutionException exception)
+        {
+            throw new IOException("Failed to compress jar entry", exception.getCause());
+        }
+        pendingBytes -= entry.size;
+        writeLocalHeader(entry);
+        writeBytes(entry.data.array(), entry.data.size());
+        entry.data = null;
+        written.add(entry);
+    }
+
+    /**
+     * Switches the current entry from buffering to streaming, once all pending entries have been written.
+     * <p/>
+     * Compressed entries are written with a data descriptor. Stored entries are written with the size and CRC-32
+     * they declared.
+     *
+     * @throws ZipException if the entry is stored, and doesn't declare its size and CRC-32
+     * @throws IOException  for any I/O error
+     */
+    private void startStreaming() throws IOException
+    {
+        if (current.method == STORED && (current.declaredSize == -1 || current.declaredCrc == -1))
+        {
+            throw new ZipException("STORED entry " + new String(current.name, StandardCharsets.UTF_8)
+                                           + " is larger than " + BUFFER_LIMIT
+                                           + " bytes; its size and crc-32 must be set before it is added");
+        }
+        while (!pending.isEmpty())
+        {
+            writeNext();
+        }
+        if (current.method == STORED)
+        {
+            current.size = current.declaredSize;
+            current.compressedSize = current.declaredSize;
+            current.crc = current.declaredCrc;
+            writeLocalHeader(current);
+        }
+        else
+        {
+            current.flag |= FLAG_DATA_DESCRIPTOR;
+            writeLocalHeader(current);
+            def.reset();
+            def.setLevel(current.level);
+        }
+        crc.reset();
+        Buffer data = buffer;
+        buffer = null;
+        if (data.size() > 0)
+        {
+            write(data.array(), 0, data.size());
+        }
+    }
+
+    /**
+     * Writes compressed data of a streamed entry.
+     *
+     * @param entry the entry
+     * @throws IOException for any I/O error
+     */
+    private void deflate(Entry entry) throws IOException
+    {
+        int count = def.deflate(chunk, 0, chunk.length);
+        if (count > 0)
+        {
+            if (!entry.zip64 && entry.compressedSize + count >= ZIP64_MAGICVAL)
+            {
+                throw tooLarge(entry);
+            }
+            writeBytes(chunk, count);
+            entry.compressedSize += count;
+        }
+    }
+
+    /**
+     * Creates the exception thrown when a streamed entry reaches 4GB without declaring its size.
+     *
+     * @param entry the entry
+     * @return a new exception
+     */
+    private static ZipException tooLarge(Entry entry)
+    {
+        return new ZipException("entry " + new String(entry.name, StandardCharsets.UTF_8)
+                                        + " is 4GB or more; its size must be set before it is added to enable ZIP64");
+    }
+
+    /**
+     * Returns the deflater of the current thread.
+     *
+     * @return the deflater
+     */
+    private Deflater getDeflater()
+    {
+        Deflater result = deflater.get();
+        if (result == null)
+        {
+            result = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            deflater.set(result);
+            deflaters.add(result);
+        }
+        return result;
+    }
+
+    private void writeLocalHeader(Entry entry) throws IOException
+    {
+        entry.offset = position;
+        boolean streamed = (entry.flag & FLAG_DATA_DESCRIPTOR) != 0;
+        boolean zip64 = streamed ? entry.zip64
+                                 : (entry.size >= ZIP64_MAGICVAL || entry.compressedSize >= ZIP64_MAGICVAL);
+        writeInt(LOCSIG);
+        writeShort(version(entry, zip64));
+        writeShort(entry.flag);
+        writeShort(entry.method);
+        writeInt(entry.dosTime);
+        if (streamed)
+        {
+            // the sizes follow the data, in the data descriptor
+            writeInt(0);
+            writeInt(zip64 ? ZIP64_MAGICVAL : 0);
+            writeInt(zip64 ? ZIP64_MAGICVAL : 0);
+        }
+        else
+        {
+            writeInt(entry.crc);
+            writeInt(zip64 ? ZIP64_MAGICVAL : entry.compressedSize);
+            writeInt(zip64 ? ZIP64_MAGICVAL : entry.size);
+        }
+        writeShort(entry.name.length);
+        writeShort(entry.extra.length + (zip64 ? 20 : 0));
+        writeBytes(entry.name, entry.name.length);
+        if (zip64)
+        {
+            writeShort(ZIP64_EXTID);
+            writeShort(16);
+            writeLong(entry.size);
+            writeLong(entry.compressedSize);
+        }
+        writeBytes(entry.extra, entry.extra.length);
+    }
+
+    private void writeDataDescriptor(Entry entry) throws IOException
+    {
+        writeInt(EXTSIG);
+        writeInt(entry.crc);
+        if (entry.zip64)
+        {
+            writeLong(entry.compressedSize);
+            writeLong(entry.size);
+        }
+        else
+        {
+            writeInt(entry.compressedSize);
+            writeInt(entry.size);
+        }
+    }
+
+    private void writeCentralDirectory() throws IOException
+    {
+        long start = position;
+        for (Entry entry : written)
+        {
+            boolean zip64 = entry.size >= ZIP64_MAGICVAL || entry.compressedSize >= ZIP64_MAGICVAL
+                    || entry.offset >= ZIP64_MAGICVAL;
+            writeInt(CENSIG);
+            writeShort(version(entry, zip64));
+            writeShort(version(entry, zip64));
+            writeShort(entry.flag);
+            writeShort(entry.method);
+            writeInt(entry.dosTime);
+            writeInt(entry.crc);
+            writeInt(zip64 ? ZIP64_MAGICVAL : entry.compressedSize);
+            writeInt(zip64 ? ZIP64_MAGICVAL : entry.size);
+            writeShort(entry.name.length);
+            writeShort(entry.extra.length + (zip64 ? 28 : 0));
+            writeShort(entry.comment.length);
+            writeShort(0); // disk number
+            writeShort(0); // internal attributes
+            writeInt(0); // external attributes
+            writeInt(zip64 ? ZIP64_MAGICVAL : entry.offset);
+            writeBytes(entry.name, entry.name.length);
+            if (zip64)
+            {
+                writeShort(ZIP64_EXTID);
+                writeShort(24);
+                writeLong(entry.size);
+                writeLong(entry.compressedSize);
+                writeLong(entry.offset);
+            }
+            writeBytes(entry.extra, entry.extra.length);
+            writeBytes(entry.comment, entry.comment.length);
+        }
+        long size = position - start;
+        int count = written.size();
+        boolean zip64 = count >= ZIP64_MAGICCOUNT || start >= ZIP64_MAGICVAL || size >= ZIP64_MAGICVAL;
+        if (zip64)
+        {
+            long end = position;
+            writeInt(ZIP64_ENDSIG);
+            writeLong(44);
+            writeShort(45);
+            writeShort(45);
+            writeInt(0);
+            writeInt(0);
+            writeLong(count);
+            writeLong(count);
+            writeLong(size);
+            writeLong(start);
+            writeInt(ZIP64_LOCSIG);
+            writeInt(0);
+            writeLong(end);
+            writeInt(1);
+        }
+        writeInt(ENDSIG);
+        writeShort(0);
+        writeShort(0);
+        writeShort(zip64 ? ZIP64_MAGICCOUNT : count);
+        writeShort(zip64 ? ZIP64_MAGICCOUNT : count);
+        writeInt(zip64 ? ZIP64_MAGICVAL : size);
+        writeInt(zip64 ? ZIP64_MAGICVAL : start);
+        if (comment != null)
+        {
+            writeShort(comment.length);
+            writeBytes(comment, comment.length);
+        }
+        else
+        {
+            writeShort(0);
+        }
+    }
+
+    private static int version(Entry entry, boolean zip64)
+    {
+        return zip64 ? 45 : (entry.method == DEFLATED ? 20 : 10);
+    }
+
+    private void writeShort(int value) throws IOException
+    {
+        output.write(value & 0xff);
+        output.write((value >>> 8) & 0xff);
+        position += 2;
+    }
+
+    private void writeInt(long value) throws IOException
+    {
+        writeShort((int) (value & 0xffff));
+        writeShort((int) ((value >>> 16) & 0xffff));
+    }
+
+    private void writeLong(long value) throws IOException
+    {
+        writeInt(value & 0xffffffffL);
+        writeInt(value >>> 32);
+    }
+
+    private void writeBytes(byte[] data, int length) throws IOException
+    {
+        output.write(data, 0, length);
+        position += length;
+    }
+
+    private void ensureOpen() throws IOException
+    {
+        if (closed)
+        {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    /**
+     * Converts a Java time to an MS-DOS date and time.
+     *
+     * @param time the time, in milliseconds since the epoch
+     * @return the MS-DOS date and time
+     */
+    private static long toDosTime(long time)
+    {
+        LocalDateTime date = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+        int year = date.getYear() - 1980;
+        if (year < 0)
+        {
+            return (1 << 21) | (1 << 16);
+        }
+        return ((long) year << 25 | date.getMonthValue() << 21 | date.getDayOfMonth() << 16 | date.getHour() << 11
+                | date.getMinute() << 5 | date.getSecond() >> 1) & 0xffffffffL;
+    }
+
+    /**
+     * An entry, and its compressed data until it is written.
+     */
+    private static class Entry
+    {
+        private final byte[] name;
+        private final byte[] extra;
+        private final byte[] comment;
+        private final long dosTime;
+        private final int method;
+        private final int level;
+
+        /**
+         * Determines if the entry declared a size of 4GB or more. If so, and the entry is streamed, its local header
+         * has a ZIP64 extra field, and its data descriptor has 8 byte sizes.
+         */
+        private final boolean zip64;
+
+        /**
+         * The size declared by the entry, or {@code -1} if it wasn't set.
+         */
+        private final long declaredSize;
+
+        /**
+         * The CRC-32 declared by the entry, or {@code -1} if it wasn't set.
+         */
+        private final long declaredCrc;
+
+        /**
+         * The no. of bytes written, for streamed stored entries.
+         */
+        private long streamedSize;
+        private int flag = FLAG_UTF8;
+        private long crc;
+        private long size;
+        private long compressedSize;
+        private long offset;
+        private Buffer data;
+
+        public Entry(ZipEntry entry, int method, int level, boolean first) throws ZipException
+        {
+            name = entry.getName().getBytes(StandardCharsets.UTF_8);
+            if (name.length > 0xFFFF)
+            {
+                throw new IllegalArgumentException("name too long");
+            }
+            byte[] bytes = (entry.getExtra() != null) ? entry.getExtra() : new byte[0];
+            extra = (first && !hasJarMagic(bytes)) ? addJarMagic(bytes) : bytes;
+            comment = (entry.getComment() != null) ? entry.getComment().getBytes(StandardCharsets.UTF_8)
+                    : new byte[0];
+            long time = entry.getTime();
+            dosTime = toDosTime((time != -1) ? time : System.currentTimeMillis());
+            if (method != DEFLATED && method != STORED)
+            {
+                throw new ZipException("invalid compression method");
+            }
+            this.method = method;
+            this.level = level;
+            declaredSize = entry.getSize();
+            declaredCrc = entry.getCrc();
+            zip64 = declaredSize >= ZIP64_MAGICVAL;
+        }
+
+        /**
+         * Determines if extra field data contains the jar extra field id.
+         *
+         * @param extra the extra field data
+         * @return <tt>true</tt> if the data contains the jar id
+         */
+        private static boolean hasJarMagic(byte[] extra)
+        {
+            int i = 0;
+            while (i + 4 <= extra.length)
+            {
+                int id = (extra[i] & 0xff) | ((extra[i + 1] & 0xff) << 8);
+                if (id == JAR_MAGIC)
+                {
+                    return true;
+                }
+                i += 4 + ((extra[i + 2] & 0xff) | ((extra[i + 3] & 0xff) << 8));
+            }
+            return false;
+        }
+
+        /**
+         * Prepends an empty jar extra field to extra field data.
+         *
+         * @param extra the extra field data
+         * @return the new extra field data
+         */
+        private static byte[] addJarMagic(byte[] extra)
+        {
+            byte[] result = new byte[extra.length + 4];
+            result[0] = (byte) (JAR_MAGIC & 0xff);
+            result[1] = (byte) (JAR_MAGIC >>> 8);
+            System.arraycopy(extra, 0, result, 4, extra.length);
+            return result;
+        }
+    }
+
+    /**
+     * A byte array output stream that exposes its buffer.
+     */
+    private static class Buffer extends ByteArrayOutputStream
+    {
+        public Buffer()
+        {
+            super(512);
+        }
+
+        public Buffer(int size)
+        {
+            super(size);
+        }
+
+        public byte[] array()
+        {
+            return buf;
+        }
+    }
+
+    /**
+     * Creates daemon threads for compressing entries.
+     */
+    private static class DeflaterThreadFactory implements ThreadFactory
+    {
+        private static final AtomicInteger POOL = new AtomicInteger();
+
+        private final String prefix = "izpack-deflate-" + POOL.incrementAndGet() + "-";
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
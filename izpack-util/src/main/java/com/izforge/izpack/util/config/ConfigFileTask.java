@@ -23,9 +23,11 @@
 package com.izforge.izpack.util.config;
 
 import java.io.File;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
-public abstract class ConfigFileTask extends SingleConfigurableTask
+public abstract class ConfigFileTask extends SingleConfigurableTask implements ConfigurableFiles
 {
     protected File oldFile;
 
@@ -90,6 +92,36 @@ public abstract class ConfigFileTask extends SingleConfigurableTask
         return this.comment;
     }
 
+    @Override
+    public Set<File> getInputFiles()
+    {
+        Set<File> result = new LinkedHashSet<File>();
+        addFile(result, oldFile);
+        addFile(result, newFile);
+        addFile(result, toFile);
+        return result;
+    }
+
+    @Override
+    public Set<File> getOutputFiles()
+    {
+        Set<File> result = new LinkedHashSet<File>();
+        addFile(result, toFile);
+        if (cleanup)
+        {
+            addFile(result, oldFile);
+        }
+        return result;
+    }
+
+    private static void addFile(Set<File> files, File file)
+    {
+        if (file != null)
+        {
+            files.add(file);
+        }
+    }
+
     @Override
     protected void checkAttributes() throws Exception
     {
@@ -0,0 +1,44 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.config;
+
+import java.io.File;
+import java.util.Set;
+
+/**
+ * Implemented by {@link ConfigurableTask}s that can report the files they read and write, so that tasks touching
+ * different files can be executed concurrently.
+ */
+public interface ConfigurableFiles
+{
+    /**
+     * Returns the files read by the task.
+     *
+     * @return the files read, or {@code null} if they cannot be determined before the task executes
+     */
+    Set<File> getInputFiles();
+
+    /**
+     * Returns the files created, modified or deleted by the task.
+     *
+     * @return the files written, or {@code null} if they cannot be determined before the task executes
+     */
+    Set<File> getOutputFiles();
+}
@@ -0,0 +1,410 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.config;
+
+import com.izforge.izpack.api.config.Config;
+import com.izforge.izpack.api.config.Ini;
+import com.izforge.izpack.util.xmlmerge.ConfigurationException;
+import com.izforge.izpack.util.xmlmerge.ParseException;
+import com.izforge.izpack.util.xmlmerge.XmlMerge;
+import com.izforge.izpack.util.xmlmerge.config.ConfigurableXmlMerge;
+import com.izforge.izpack.util.xmlmerge.config.PropertyXPathConfigurer;
+import org.jdom2.Document;
+import org.jdom2.input.SAXBuilder;
+import org.jdom2.input.sax.XMLReaders;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+
+/**
+ * Caches the XML documents and INI files read and written by configuration tasks, so that a file patched by several
+ * tasks is only parsed and written once.
+ * <p/>
+ * Documents are keyed on absolute file. A document stored by a task is marked as modified, and is only written back
+ * when the cache is {@link #flush() flushed}. Tasks that don't use the cache must flush the files they touch before
+ * executing.
+ * <p/>
+ * The cache also holds a configured {@link XmlMerge} per set of XML merge properties, so that XPath expressions are
+ * only compiled once.
+ */
+public class DocumentCache
+{
+    private static final Logger logger = Logger.getLogger(DocumentCache.class.getName());
+
+    /**
+     * The cached documents, in order of first access.
+     */
+    private final Map<File, CachedDocument> documents = new LinkedHashMap<File, CachedDocument>();
+
+    /**
+     * The XML merge engines, keyed on merge properties.
+     */
+    private final Map<Map<String, String>, XmlMerge> merges = new HashMap<Map<String, String>, XmlMerge>();
+
+
+    /**
+     * Determines if a file exists, either in the cache or on disk.
+     *
+     * @param file the file
+     * @return {@code true} if the file exists
+     */
+    public synchronized boolean exists(File file)
+    {
+        return documents.containsKey(getKey(file)) || file.exists();
+    }
+
+    /**
+     * Returns a copy of an XML document.
+     *
+     * @param file the XML file
+     * @return a copy of the document, which the caller may modify
+     * @throws ParseException if the file cannot be parsed
+     */
+    public synchronized Document getXml(File file) throws ParseException
+    {
+        File key = getKey(file);
+        CachedDocument cached = documents.get(key);
+        if (cached != null && !(cached.document instanceof Document))
+        {
+            documents.remove(key);
+            try
+            {
+                flush(key, cached);
+            }
+            catch (IOException exception)
+            {
+                throw new ParseException(exception);
+            }
+            cached = null;
+        }
+        if (cached == null)
+        {
+            logger.fine("Loading XML file: " + key);
+            try
+            {
+                cached = new CachedDocument(createBuilder().build(key), null);
+            }
+            catch (Exception exception)
+            {
+                throw new ParseException(exception);
+            }
+            documents.put(key, cached);
+        }
+        return ((Document) cached.document).clone();
+    }
+
+    /**
+     * Stores a modified XML document.
+     * <p/>
+     * The cache takes ownership of the document; the caller must not modify it further.
+     *
+     * @param file     the XML file
+     * @param document the document
+     */
+    public synchronized void putXml(File file, Document document)
+    {
+        put(file, new CachedDocument(document, null));
+    }
+
+    /**
+     * Returns an INI file.
+     * <p/>
+     * If the file was cached using a different configuration, it is written back if modified, and re-read.
+     *
+     * @param file   the INI file
+     * @param config the configuration used to parse and write the file
+     * @return the INI file, which is shared with other users of the cache, or {@code null} if it doesn't exist
+     * @throws IOException if the file cannot be read
+     */
+    public synchronized Ini getIni(File file, Config config) throws IOException
+    {
+        File key = getKey(file);
+        String settings = getSettings(config);
+        CachedDocument cached = documents.get(key);
+        if (cached != null && !settings.equals(cached.settings))
+        {
+            documents.remove(key);
+            flush(key, cached);
+            cached = null;
+        }
+        if (cached == null)
+        {
+            if (!key.exists())
+            {
+                return null;
+            }
+            logger.fine("Loading INI file: " + key);
+            cached = new CachedDocument(new Ini(key, config), settings);
+            documents.put(key, cached);
+        }
+        return (Ini) cached.document;
+    }
+
+    /**
+     * Stores a modified INI file.
+     *
+     * @param file the INI file
+     * @param ini  the INI file contents
+     */
+    public synchronized void putIni(File file, Ini ini)
+    {
+        put(file, new CachedDocument(ini, getSettings(ini.getConfig())));
+    }
+
+    /**
+     * Returns an XML merge engine for the given merge properties.
+     * <p/>
+     * The engine is shared; callers must synchronize on it while merging.
+     *
+     * @param properties the XML merge properties
+     * @return the XML merge engine
+     * @throws ConfigurationException if the properties are invalid
+     */
+    public synchronized XmlMerge getXmlMerge(Properties properties) throws ConfigurationException
+    {
+        Map<String, String> key = new HashMap<String, String>();
+        for (String name : properties.stringPropertyNames())
+        {
+            key.put(name, properties.getProperty(name));
+        }
+        XmlMerge result = merges.get(key);
+        if (result == null)
+        {
+            result = new ConfigurableXmlMerge(new PropertyXPathConfigurer(properties));
+            merges.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Removes a file from the cache without writing it, e.g. because it is about to be deleted.
+     *
+     * @param file the file
+     */
+    public synchronized void evict(File file)
+    {
+        documents.remove(getKey(file));
+    }
+
+    /**
+     * Removes files from the cache without writing them, e.g. because the task modifying them failed.
+     *
+     * @param files the files
+     */
+    public synchronized void evict(Collection<File> files)
+    {
+        for (File file : files)
+        {
+            documents.remove(getKey(file));
+        }
+    }
+
+    /**
+     * Removes all files from the cache without writing them.
+     */
+    public synchronized void clear()
+    {
+        documents.clear();
+    }
+
+    /**
+     * Writes back the given files if they have been modified, and removes them from the cache.
+     *
+     * @param files the files
+     * @throws IOException if a file cannot be written
+     */
+    public synchronized void flush(Collection<File> files) throws IOException
+    {
+        for (File file : files)
+        {
+            File key = getKey(file);
+            CachedDocument cached = documents.remove(key);
+            if (cached != null)
+            {
+                flush(key, cached);
+            }
+        }
+    }
+
+    /**
+     * Writes back all modified files, and clears the cache.
+     * <p/>
+     * All files are attempted, even if one cannot be written.
+     *
+     * @throws IOException if a file cannot be written
+     */
+    public synchronized void flush() throws IOException
+    {
+        IOException failure = null;
+        Iterator<Map.Entry<File, CachedDocument>> iterator = documents.entrySet().iterator();
+        while (iterator.hasNext())
+        {
+            Map.Entry<File, CachedDocument> entry = iterator.next();
+            iterator.remove();
+            try
+            {
+                flush(entry.getKey(), entry.getValue());
+            }
+            catch (IOException exception)
+            {
+                if (failure == null)
+                {
+                    failure = exception;
+                }
+            }
+        }
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+
+    /**
+     * Returns the modified files.
+     *
+     * @return the modified files, in order of first access
+     */
+    public synchronized List<File> getModifiedFiles()
+    {
+        List<File> result = new ArrayList<File>();
+        for (Map.Entry<File, CachedDocument> entry : documents.entrySet())
+        {
+            if (entry.getValue().modified)
+            {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    private void put(File file, CachedDocument document)
+    {
+        document.modified = true;
+        documents.put(getKey(file), document);
+    }
+
+    /**
+     * Writes a document if it has been modified.
+     *
+     * @param file     the file to write to
+     * @param document the document
+     * @throws IOException if the file cannot be written
+     */
+    private void flush(File file, CachedDocument document) throws IOException
+    {
+        if (!document.modified)
+        {
+            return;
+        }
+        logger.fine("Writing configuration file: " + file);
+        if (document.document instanceof Ini)
+        {
+            Ini ini = (Ini) document.document;
+            ini.setFile(file);
+            ini.store();
+        }
+        else
+        {
+            Format format = Format.getPrettyFormat();
+            // Use system line separator to avoid problems
+            // with carriage return under linux
+            format.setLineSeparator(System.getProperty("line.separator"));
+            OutputStream stream = new BufferedOutputStream(new FileOutputStream(file));
+            try
+            {
+                new XMLOutputter(format).output((Document) document.document, stream);
+            }
+            finally
+            {
+                stream.close();
+            }
+        }
+        document.modified = false;
+    }
+
+    private static File getKey(File file)
+    {
+        return file.getAbsoluteFile().toPath().normalize().toFile();
+    }
+
+    private static SAXBuilder createBuilder()
+    {
+        SAXBuilder builder = new SAXBuilder(XMLReaders.NONVALIDATING);
+        // Xerces-specific - see: http://xerces.apache.org/xerces-j/features.html
+        builder.setFeature("http://apache.org/xml/features/nonvalidating/load-dtd-grammar", false);
+        builder.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        return builder;
+    }
+
+    /**
+     * Returns the INI settings that affect how a file is parsed and written.
+     *
+     * @param config the INI configuration
+     * @return the settings
+     */
+    private static String getSettings(Config config)
+    {
+        return config.isEscape() + ":" + config.isEscapeNewline() + ":" + config.isHeaderComment() + ":"
+                + config.isEmptyLines() + ":" + config.isAutoNumbering() + ":" + config.getFileEncoding() + ":"
+                + config.getOperator();
+    }
+
+    /**
+     * A cached document.
+     */
+    private static class CachedDocument
+    {
+        /**
+         * The JDOM document or INI file.
+         */
+        private final Object document;
+
+        /**
+         * The INI settings, or {@code null} for XML documents.
+         */
+        private final String settings;
+
+        /**
+         * Determines if the document has been modified since it was read.
+         */
+        private boolean modified;
+
+        public CachedDocument(Object document, String settings)
+        {
+            this.document = document;
+            this.settings = settings;
+        }
+    }
+}
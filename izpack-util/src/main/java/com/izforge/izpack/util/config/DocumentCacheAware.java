@@ -0,0 +1,33 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.config;
+
+/**
+ * Implemented by {@link ConfigurableTask}s that can read and write their files via a {@link DocumentCache}.
+ */
+public interface DocumentCacheAware
+{
+    /**
+     * Sets the cache to read and write files with.
+     *
+     * @param cache the cache. If {@code null}, files are read and written directly
+     */
+    void setDocumentCache(DocumentCache cache);
+}
@@ -51,6 +51,11 @@ public abstract class SingleConfigurableTask implements ConfigurableTask
 {
     private static final Logger logger = Logger.getLogger(SingleConfigurableTask.class.getName());
 
+    /**
+     * Guards the global ini4j configuration, which is copied by configurables when they are read.
+     */
+    private static final Object CONFIG_LOCK = new Object();
+
     private boolean patchPreserveEntries = true;
 
     private boolean patchPreserveValues = true;
@@ -202,16 +207,19 @@ public abstract class SingleConfigurableTask implements ConfigurableTask
     @Override
     public void execute() throws Exception
     {
-        Config.getGlobal().setHeaderComment(headerComment);
-        Config.getGlobal().setEmptyLines(emptyLines);
-        Config.getGlobal().setAutoNumbering(autoNumbering);
-        Config.getGlobal().setEscape(escape);
-        Config.getGlobal().setEscapeNewline(escapeNewLine);
-        Config.getGlobal().setOperator(operator);
-        Config.getGlobal().setFileEncoding(encoding);
-        checkAttributes();
-        readConfigurable();
-        readSourceConfigurable();
+        synchronized (CONFIG_LOCK)
+        {
+            Config.getGlobal().setHeaderComment(headerComment);
+            Config.getGlobal().setEmptyLines(emptyLines);
+            Config.getGlobal().setAutoNumbering(autoNumbering);
+            Config.getGlobal().setEscape(escape);
+            Config.getGlobal().setEscapeNewline(escapeNewLine);
+            Config.getGlobal().setOperator(operator);
+            Config.getGlobal().setFileEncoding(encoding);
+            checkAttributes();
+            readConfigurable();
+            readSourceConfigurable();
+        }
         patchConfigurable();
         executeNestedEntries();
         writeConfigurable();
@@ -24,14 +24,27 @@ package com.izforge.izpack.util.config;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.logging.Logger;
 
+import com.izforge.izpack.api.config.Config;
 import com.izforge.izpack.api.config.Ini;
 
-public class SingleIniFileTask extends ConfigFileTask
+public class SingleIniFileTask extends ConfigFileTask implements DocumentCacheAware
 {
     private static final Logger logger = Logger.getLogger(SingleIniFileTask.class.getName());
 
+    /**
+     * The document cache. May be {@code null}.
+     */
+    private DocumentCache cache;
+
+    @Override
+    public void setDocumentCache(DocumentCache cache)
+    {
+        this.cache = cache;
+    }
+
     @Override
     protected void readSourceConfigurable() throws Exception
     {
@@ -39,7 +52,7 @@ public class SingleIniFileTask extends ConfigFileTask
         {
             try
             {
-                if (!oldFile.exists())
+                if (!exists(oldFile))
                 {
                     logger.warning("INI file " + oldFile.getAbsolutePath()
                             + " to patch from could not be found, no patches will be applied");
@@ -47,7 +60,21 @@ public class SingleIniFileTask extends ConfigFileTask
                 }
                 logger.fine("Loading INI file: " + oldFile.getAbsolutePath());
                 // Configuration file type must be the same as the target type
-                fromConfigurable = new Ini(this.oldFile);
+                if (cache != null)
+                {
+                    Ini ini = cache.getIni(oldFile, Config.getGlobal().clone());
+                    if (ini == configurable)
+                    {
+                        // patching a file from itself, so read a separate copy
+                        cache.flush(Collections.singleton(oldFile));
+                        ini = new Ini(oldFile);
+                    }
+                    fromConfigurable = ini;
+                }
+                else
+                {
+                    fromConfigurable = new Ini(this.oldFile);
+                }
             }
             catch (IOException ioe)
             {
@@ -59,6 +86,10 @@ public class SingleIniFileTask extends ConfigFileTask
     @Override
     protected void readConfigurable() throws Exception
     {
+        if (cache != null && newFile != null)
+        {
+            cache.flush(Collections.singleton(newFile));
+        }
         if (newFile != null && newFile.exists())
         {
             try
@@ -71,12 +102,12 @@ public class SingleIniFileTask extends ConfigFileTask
                 throw new Exception("Error opening original configuration file: " + ioe.toString());
             }
         }
-        else if (toFile != null && toFile.exists())
+        else if (toFile != null && exists(toFile))
         {
             try
             {
                 logger.fine("Loading target configuration file: " + toFile.getAbsolutePath());
-                configurable = new Ini(toFile);
+                configurable = (cache != null) ? cache.getIni(toFile, Config.getGlobal().clone()) : new Ini(toFile);
             }
             catch (IOException ioe)
             {
@@ -95,7 +126,7 @@ public class SingleIniFileTask extends ConfigFileTask
 
         try
         {
-            if (!toFile.exists())
+            if (!exists(toFile))
             {
                 if (createConfigurable)
                 {
@@ -117,19 +148,35 @@ public class SingleIniFileTask extends ConfigFileTask
             Ini ini = (Ini) configurable;
             ini.setFile(toFile);
             ini.setHeaderComment(getComment());
-            ini.store();
+            if (cache != null)
+            {
+                cache.putIni(toFile, ini);
+            }
+            else
+            {
+                ini.store();
+            }
         }
         catch (IOException ioe)
         {
             throw new Exception(ioe);
         }
 
-        if (cleanup && oldFile.exists())
+        if (cleanup && exists(oldFile))
         {
+            if (cache != null)
+            {
+                cache.evict(oldFile);
+            }
             if (!oldFile.delete())
             {
                 logger.warning("File " + oldFile + " could not be cleant up");
             }
         }
     }
+
+    private boolean exists(File file)
+    {
+        return (cache != null) ? cache.exists(file) : file.exists();
+    }
 }
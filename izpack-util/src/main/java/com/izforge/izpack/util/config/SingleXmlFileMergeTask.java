@@ -27,12 +27,16 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.jdom2.Document;
+
 import com.izforge.izpack.util.file.DirectoryScanner;
 import com.izforge.izpack.util.file.types.FileSet;
 import com.izforge.izpack.util.xmlmerge.AbstractXmlMergeException;
@@ -41,7 +45,7 @@ import com.izforge.izpack.util.xmlmerge.XmlMerge;
 import com.izforge.izpack.util.xmlmerge.config.ConfigurableXmlMerge;
 import com.izforge.izpack.util.xmlmerge.config.PropertyXPathConfigurer;
 
-public class SingleXmlFileMergeTask implements ConfigurableTask
+public class SingleXmlFileMergeTask implements ConfigurableTask, ConfigurableFiles, DocumentCacheAware
 {
     private static final Logger logger = Logger.getLogger(SingleXmlFileMergeTask.class.getName());
 
@@ -53,6 +57,11 @@ public class SingleXmlFileMergeTask implements ConfigurableTask
 
     protected Properties confProps = new Properties();
 
+    /**
+     * The document cache. May be {@code null}.
+     */
+    private DocumentCache cache;
+
 
     public void setOriginalFile(File origfile)
     {
@@ -76,6 +85,12 @@ public class SingleXmlFileMergeTask implements ConfigurableTask
         this.conffile = confFile;
     }
 
+    @Override
+    public void setDocumentCache(DocumentCache cache)
+    {
+        this.cache = cache;
+    }
+
     /**
      * Whether to delete the patchfiles after the operation
      * @param cleanup True, if the patchfiles should be deleted after the operation
@@ -125,6 +140,55 @@ public class SingleXmlFileMergeTask implements ConfigurableTask
         }
     }
 
+    /**
+     * Returns the files read by the merge.
+     *
+     * @return the files read, or {@code null} if file sets are used
+     */
+    @Override
+    public Set<File> getInputFiles()
+    {
+        if (!filesets.isEmpty())
+        {
+            return null;
+        }
+        Set<File> result = new LinkedHashSet<File>();
+        addFile(result, origfile);
+        addFile(result, patchfile);
+        addFile(result, conffile);
+        return result;
+    }
+
+    /**
+     * Returns the files written by the merge, including the merged files deleted on cleanup.
+     *
+     * @return the files written, or {@code null} if file sets are used
+     */
+    @Override
+    public Set<File> getOutputFiles()
+    {
+        if (!filesets.isEmpty())
+        {
+            return null;
+        }
+        Set<File> result = new LinkedHashSet<File>();
+        addFile(result, tofile);
+        if (cleanup)
+        {
+            addFile(result, origfile);
+            addFile(result, patchfile);
+        }
+        return result;
+    }
+
+    private static void addFile(Set<File> files, File file)
+    {
+        if (file != null)
+        {
+            files.add(file);
+        }
+    }
+
     @Override
     public void execute() throws Exception {
         validate();
@@ -134,7 +198,7 @@ public class SingleXmlFileMergeTask implements ConfigurableTask
 
         if (origfile != null)
         {
-            if (origfile.exists())
+            if (exists(origfile))
             {
                 filesToMerge.add(origfile);
             }
@@ -150,7 +214,7 @@ public class SingleXmlFileMergeTask implements ConfigurableTask
             return;
         }
 
-        if (patchfile != null && patchfile.exists())
+        if (patchfile != null && exists(patchfile))
             filesToMerge.add(patchfile);
 
         for (FileSet fs : filesets) {
@@ -188,26 +252,37 @@ public class SingleXmlFileMergeTask implements ConfigurableTask
             }
         }
 
-        // Create the XmlMerge instance and execute the merge
-        XmlMerge xmlMerge;
-        try {
-            xmlMerge = new ConfigurableXmlMerge(new PropertyXPathConfigurer(confProps));
-        } catch (ConfigurationException e) {
-            throw new Exception(e);
+        if (cache != null)
+        {
+            mergeCached(filesToMerge);
         }
+        else
+        {
+            // Create the XmlMerge instance and execute the merge
+            XmlMerge xmlMerge;
+            try {
+                xmlMerge = new ConfigurableXmlMerge(new PropertyXPathConfigurer(confProps));
+            } catch (ConfigurationException e) {
+                throw new Exception(e);
+            }
 
-        try {
-            xmlMerge.merge(filesToMerge.toArray(new File[filesToMerge.size()]), tofile);
-        } catch (AbstractXmlMergeException e) {
-            throw new Exception(e);
+            try {
+                xmlMerge.merge(filesToMerge.toArray(new File[filesToMerge.size()]), tofile);
+            } catch (AbstractXmlMergeException e) {
+                throw new Exception(e);
+            }
         }
 
         if (cleanup)
         {
             for (File file : filesToMerge)
             {
-                if (file.exists() && !file.equals(tofile))
+                if (exists(file) && !file.equals(tofile))
                 {
+                    if (cache != null)
+                    {
+                        cache.evict(file);
+                    }
                     if (!file.delete())
                     {
                         logger.warning("File " + file + " could not be cleant up");
@@ -216,4 +291,38 @@ public class SingleXmlFileMergeTask implements ConfigurableTask
             }
         }
     }
+
+    /**
+     * Merges documents using the document cache, storing the result in the cache.
+     *
+     * @param filesToMerge the files to merge. The first is the original file to apply patches against
+     * @throws Exception if the documents cannot be parsed or merged
+     */
+    private void mergeCached(List<File> filesToMerge) throws Exception
+    {
+        try
+        {
+            XmlMerge xmlMerge = cache.getXmlMerge(confProps);
+            Document[] documents = new Document[filesToMerge.size()];
+            for (int i = 0; i < documents.length; ++i)
+            {
+                documents[i] = cache.getXml(filesToMerge.get(i));
+            }
+            Document result;
+            synchronized (xmlMerge)
+            {
+                result = xmlMerge.merge(documents);
+            }
+            cache.putXml(tofile, result);
+        }
+        catch (AbstractXmlMergeException e)
+        {
+            throw new Exception(e);
+        }
+    }
+
+    private boolean exists(File file)
+    {
+        return (cache != null) ? cache.exists(file) : file.exists();
+    }
 }
@@ -21,6 +21,8 @@ import com.izforge.izpack.api.data.InstallData;
 import com.izforge.izpack.util.file.types.Resource;
 import com.izforge.izpack.util.file.types.ResourceFactory;
 import com.izforge.izpack.util.file.types.selectors.FileSelector;
+import com.izforge.izpack.util.file.types.selectors.PathPattern;
+import com.izforge.izpack.util.file.types.selectors.PathPatternSet;
 import com.izforge.izpack.util.file.types.selectors.SelectorUtils;
 
 import java.io.File;
@@ -167,17 +169,22 @@ public class DirectoryScanner
      */
     private static final boolean[] CS_THEN_NON_CS = new boolean[]{true, false};
 
+    /**
+     * Patterns which should be excluded by default, by scanners created subsequently.
+     *
+     * @see #addDefaultExclude(String)
+     */
+    private static final List<String> globalDefaultExcludes = new Vector<String>(Arrays.asList(DEFAULTEXCLUDES));
+
     /**
      * Patterns which should be excluded by default.
+     * <p/>
+     * Each scanner has its own copy of the global default excludes, so that scanners used by concurrent
+     * compilations don't affect each other.
      *
      * @see #addDefaultExcludes()
      */
-    private static Vector<String> defaultExcludes = new Vector<String>();
-
-    static
-    {
-        resetDefaultExcludes();
-    }
+    private final List<String> defaultExcludes = copyGlobalDefaultExcludes();
 
     /**
      * The base directory to be scanned.
@@ -277,54 +284,22 @@ public class DirectoryScanner
     private final Set<String> scannedDirs = new HashSet<String>();
 
     /**
-     * Set of all include patterns that are full file names and don't
-     * contain any wildcards.
-     * <p/>
-     * <p>If this instance is not case sensitive, the file names get
-     * turned to lower case.</p>
+     * The compiled include patterns.
      * <p/>
      * <p>Gets lazily initialized on the first invocation of
      * isIncluded or isExcluded and cleared at the end of the scan
      * method (cleared in clearCaches, actually).</p>
      */
-    private final Set<String> includeNonPatterns = new HashSet<String>();
+    private PathPatternSet includePatterns;
 
     /**
-     * Set of all include patterns that are full file names and don't
-     * contain any wildcards.
-     * <p/>
-     * <p>If this instance is not case sensitive, the file names get
-     * turned to lower case.</p>
+     * The compiled exclude patterns.
      * <p/>
      * <p>Gets lazily initialized on the first invocation of
      * isIncluded or isExcluded and cleared at the end of the scan
      * method (cleared in clearCaches, actually).</p>
      */
-    private final Set<String> excludeNonPatterns = new HashSet<String>();
-
-    /**
-     * Array of all include patterns that contain wildcards.
-     * <p/>
-     * <p>Gets lazily initialized on the first invocation of
-     * isIncluded or isExcluded and cleared at the end of the scan
-     * method (cleared in clearCaches, actually).</p>
-     */
-    private String[] includePatterns;
-
-    /**
-     * Array of all exclude patterns that contain wildcards.
-     * <p/>
-     * <p>Gets lazily initialized on the first invocation of
-     * isIncluded or isExcluded and cleared at the end of the scan
-     * method (cleared in clearCaches, actually).</p>
-     */
-    private String[] excludePatterns;
-
-    /**
-     * Have the non-pattern sets and pattern arrays for in- and
-     * excludes been initialized?
-     */
-    private boolean areNonPatternSetsReady = false;
+    private PathPatternSet excludePatterns;
 
     /**
      * Scanning flag.
@@ -479,25 +454,24 @@ public class DirectoryScanner
      *
      * @return An array of <code>String</code> based on the current
      *         contents of the <code>defaultExcludes</code>
-     *         <code>Vector</code>.
+     *         <code>List</code>.
      */
-    private static String[] getDefaultExcludes()
+    private synchronized String[] getDefaultExcludes()
     {
-        return defaultExcludes.toArray(new String[defaultExcludes
-                .size()]);
+        return defaultExcludes.toArray(new String[defaultExcludes.size()]);
     }
 
     /**
-     * Add a pattern to the default excludes unless it is already a
+     * Add a pattern to the default excludes of this scanner unless it is already a
      * default exclude.
      *
      * @param s A string to add as an exclude pattern.
      * @return <code>true</code> if the string was added;
      *         <code>false</code> if it already existed.
      */
-    public static boolean addDefaultExclude(String s)
+    public synchronized boolean addScannerDefaultExclude(String s)
     {
-        if (defaultExcludes.indexOf(s) == -1)
+        if (!defaultExcludes.contains(s))
         {
             defaultExcludes.add(s);
             return true;
@@ -506,7 +480,7 @@ public class DirectoryScanner
     }
 
     /**
-     * Remove a string if it is a default exclude.
+     * Remove a string from the default excludes of this scanner, if it is a default exclude.
      *
      * @param s The string to attempt to remove.
      * @return <code>true</code> if <code>s</code> was a default
@@ -514,19 +488,64 @@ public class DirectoryScanner
      *         <code>false</code> if <code>s</code> was not
      *         in the default excludes list to begin with.
      */
-    public static boolean removeDefaultExclude(String s)
+    public synchronized boolean removeScannerDefaultExclude(String s)
     {
         return defaultExcludes.remove(s);
     }
 
     /**
-     * Go back to the hardwired default exclude patterns.
+     * Add a pattern to the global default excludes unless it is already a
+     * default exclude. Only scanners created subsequently are affected.
+     *
+     * @param s A string to add as an exclude pattern.
+     * @return <code>true</code> if the string was added;
+     *         <code>false</code> if it already existed.
+     * @deprecated this affects all scanners in the JVM, including those used by concurrent compilations. Use
+     *             {@link #addScannerDefaultExclude(String)} instead.
+     */
+    @Deprecated
+    public static boolean addDefaultExclude(String s)
+    {
+        synchronized (globalDefaultExcludes)
+        {
+            if (!globalDefaultExcludes.contains(s))
+            {
+                globalDefaultExcludes.add(s);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Remove a string from the global default excludes, if it is a default exclude.
+     * Only scanners created subsequently are affected.
      *
+     * @param s The string to attempt to remove.
+     * @return <code>true</code> if <code>s</code> was a default
+     *         exclude (and thus was removed);
+     *         <code>false</code> if <code>s</code> was not
+     *         in the default excludes list to begin with.
+     * @deprecated this affects all scanners in the JVM, including those used by concurrent compilations. Use
+     *             {@link #removeScannerDefaultExclude(String)} instead.
      */
-    private static void resetDefaultExcludes()
+    @Deprecated
+    public static boolean removeDefaultExclude(String s)
     {
-        defaultExcludes = new Vector<String>();
-        defaultExcludes.addAll(Arrays.asList(DEFAULTEXCLUDES));
+        return globalDefaultExcludes.remove(s);
+    }
+
+    /**
+     * Returns a copy of the global default excludes.
+     *
+     * @return the global default excludes
+     */
+    private static List<String> copyGlobalDefaultExcludes()
+    {
+        synchronized (globalDefaultExcludes)
+        {
+            return new ArrayList<String>(globalDefaultExcludes);
+        }
     }
 
     /**
@@ -573,7 +592,7 @@ public class DirectoryScanner
      *
      * @return whether or not the scanning is case sensitive.
      */
-    private synchronized boolean isCaseSensitive()
+    protected synchronized boolean isCaseSensitive()
     {
         return isCaseSensitive;
     }
@@ -667,6 +686,26 @@ public class DirectoryScanner
         }
     }
 
+    /**
+     * Returns the normalized include patterns.
+     *
+     * @return the include patterns, or <code>null</code> if all files should be included
+     */
+    protected synchronized String[] getIncludes()
+    {
+        return includes;
+    }
+
+    /**
+     * Returns the normalized exclude patterns, including any default excludes that have been added.
+     *
+     * @return the exclude patterns, or <code>null</code> if no files should be excluded
+     */
+    protected synchronized String[] getExcludes()
+    {
+        return excludes;
+    }
+
     /**
      * Add to the list of exclude patterns to use. All '/' and '\'
      * characters are replaced by <code>File.separatorChar</code>, so
@@ -1254,22 +1293,8 @@ public class DirectoryScanner
      */
     private boolean isIncluded(String name)
     {
-        ensureNonPatternSetsReady();
-
-        if (isCaseSensitive()
-                ? includeNonPatterns.contains(name)
-                : includeNonPatterns.contains(name.toUpperCase()))
-        {
-            return true;
-        }
-        for (String includePattern : includePatterns)
-        {
-            if (matchPath(includePattern, name, isCaseSensitive()))
-            {
-                return true;
-            }
-        }
-        return false;
+        ensurePatternSetsReady();
+        return includePatterns.matchPath(name);
     }
 
     /**
@@ -1304,9 +1329,8 @@ public class DirectoryScanner
      */
     private boolean isDeeper(String pattern, String name)
     {
-        Vector<?> p = SelectorUtils.tokenizePath(pattern);
-        Vector<?> n = SelectorUtils.tokenizePath(name);
-        return p.contains("**") || p.size() > n.size();
+        PathPattern p = SelectorUtils.getPathPattern(pattern, isCaseSensitive());
+        return p.isDeep() || p.getDepth() > PathPattern.tokenize(name).length;
     }
 
     /**
@@ -1367,22 +1391,8 @@ public class DirectoryScanner
      */
     private boolean isExcluded(String name)
     {
-        ensureNonPatternSetsReady();
-
-        if (isCaseSensitive()
-                ? excludeNonPatterns.contains(name)
-                : excludeNonPatterns.contains(name.toUpperCase()))
-        {
-            return true;
-        }
-        for (String excludePattern : excludePatterns)
-        {
-            if (matchPath(excludePattern, name, isCaseSensitive()))
-            {
-                return true;
-            }
-        }
-        return false;
+        ensurePatternSetsReady();
+        return excludePatterns.matchPath(name);
     }
 
     /**
@@ -1393,7 +1403,7 @@ public class DirectoryScanner
      * @return <code>false</code> when the selectors says that the file
      *         should not be selected, <code>true</code> otherwise.
      */
-    private boolean isSelected(String name, File file) throws Exception
+    protected boolean isSelected(String name, File file) throws Exception
     {
         if (selectors != null)
         {
@@ -1588,13 +1598,13 @@ public class DirectoryScanner
     public synchronized void addDefaultExcludes()
     {
         int excludesLength = excludes == null ? 0 : excludes.length;
+        String[] defaultExcludesTemp = getDefaultExcludes();
         String[] newExcludes;
-        newExcludes = new String[excludesLength + defaultExcludes.size()];
+        newExcludes = new String[excludesLength + defaultExcludesTemp.length];
         if (excludesLength > 0)
         {
             System.arraycopy(excludes, 0, newExcludes, 0, excludesLength);
         }
-        String[] defaultExcludesTemp = getDefaultExcludes();
         for (int i = 0; i < defaultExcludesTemp.length; i++)
         {
             newExcludes[i + excludesLength] =
@@ -1763,50 +1773,21 @@ public class DirectoryScanner
     private synchronized void clearCaches()
     {
         fileListMap.clear();
-        includeNonPatterns.clear();
-        excludeNonPatterns.clear();
         includePatterns = null;
         excludePatterns = null;
-        areNonPatternSetsReady = false;
     }
 
     /**
      * Ensure that the in|exclude &quot;patterns&quot;
-     * have been properly divided up.
+     * have been compiled.
      */
-    private synchronized void ensureNonPatternSetsReady()
+    private synchronized void ensurePatternSetsReady()
     {
-        if (!areNonPatternSetsReady)
+        if (includePatterns == null)
         {
-            includePatterns = fillNonPatternSet(includeNonPatterns, includes);
-            excludePatterns = fillNonPatternSet(excludeNonPatterns, excludes);
-            areNonPatternSetsReady = true;
-        }
-    }
-
-    /**
-     * Add all patterns that are not real patterns (do not contain
-     * wildcards) to the set and returns the real patterns.
-     *
-     * @param set      Set to populate.
-     * @param patterns String[] of patterns.
-     */
-    private String[] fillNonPatternSet(Set<String> set, String[] patterns)
-    {
-        ArrayList<String> al = new ArrayList<String>(patterns.length);
-        for (String pattern : patterns)
-        {
-            if (!SelectorUtils.hasWildcards(pattern))
-            {
-                set.add(isCaseSensitive() ? pattern : pattern.toUpperCase());
-            }
-            else
-            {
-                al.add(pattern);
-            }
+            includePatterns = new PathPatternSet(includes, isCaseSensitive());
+            excludePatterns = new PathPatternSet(excludes, isCaseSensitive());
         }
-        return set.size() == 0 ? patterns
-                : al.toArray(new String[al.size()]);
     }
 
 }
@@ -0,0 +1,652 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.file;
+
+import com.izforge.izpack.util.file.types.selectors.PathPattern;
+import com.izforge.izpack.util.file.types.selectors.PathPatternSet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A {@link DirectoryScanner} that walks the base directory using NIO and scans sub-directories concurrently
+ * on a fork-join pool.
+ * <p/>
+ * Include and exclude patterns are compiled once per scan into {@link PathPatternSet}s, and each path is
+ * matched against its pre-split segments, so no pattern or path tokenization happens per file. The scanner
+ * returns the same included files and directories as {@link DirectoryScanner}; like a fast scan of the latter,
+ * it does not descend into directories that cannot hold included files. The not-included, excluded and
+ * deselected lists trigger a complete walk.
+ * <p/>
+ * {@link #isSelected(String, File)} is called concurrently by the scanning threads, so overrides must be thread
+ * safe, and must not synchronize on the scanner.
+ * <p/>
+ * When symbolic links are followed, a directory that resolves to one of its own ancestors is reported, but not
+ * walked again, so link loops don't cause an endless walk.
+ *
+ * @see DirectoryScanner
+ */
+public class ParallelDirectoryScanner extends DirectoryScanner
+{
+
+    /**
+     * The result categories.
+     */
+    private enum Kind
+    {
+        FILE_INCLUDED, FILE_NOT_INCLUDED, FILE_EXCLUDED, FILE_DESELECTED, DIR_INCLUDED, DIR_NOT_INCLUDED,
+        DIR_EXCLUDED, DIR_DESELECTED
+    }
+
+    /**
+     * The pool to scan directories on.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The results of the last scan, or {@code null} if no scan has been performed.
+     */
+    private Results results;
+
+    /**
+     * Determines if the results were built by a complete walk.
+     */
+    private boolean haveFullResults;
+
+    /**
+     * Constructs a {@code ParallelDirectoryScanner} that scans using the common fork-join pool.
+     */
+    public ParallelDirectoryScanner()
+    {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a {@code ParallelDirectoryScanner}.
+     *
+     * @param pool the pool to scan directories on
+     */
+    public ParallelDirectoryScanner(ForkJoinPool pool)
+    {
+        this.pool = pool;
+    }
+
+    /**
+     * Scans the base directory for files which match at least one include pattern and don't match any exclude
+     * patterns.
+     *
+     * @throws Exception if the base directory was set incorrectly (i.e. if it is <code>null</code>, doesn't exist,
+     *                   or isn't a directory), or the directory cannot be read
+     */
+    @Override
+    public synchronized void scan() throws Exception
+    {
+        results = walk(true);
+        haveFullResults = false;
+    }
+
+    @Override
+    public synchronized boolean isEverythingIncluded()
+    {
+        return results == null ? getBasedir() != null : results.everythingIncluded;
+    }
+
+    @Override
+    public synchronized String[] getIncludedFiles() throws Exception
+    {
+        return sorted(getResults(false).get(Kind.FILE_INCLUDED));
+    }
+
+    @Override
+    public synchronized int getIncludedFilesCount() throws Exception
+    {
+        return getResults(false).get(Kind.FILE_INCLUDED).size();
+    }
+
+    @Override
+    public synchronized String[] getNotIncludedFiles() throws Exception
+    {
+        return toArray(getResults(true).get(Kind.FILE_NOT_INCLUDED));
+    }
+
+    @Override
+    public synchronized String[] getExcludedFiles() throws Exception
+    {
+        return toArray(getResults(true).get(Kind.FILE_EXCLUDED));
+    }
+
+    @Override
+    public synchronized String[] getDeselectedFiles() throws Exception
+    {
+        return toArray(getResults(true).get(Kind.FILE_DESELECTED));
+    }
+
+    @Override
+    public synchronized String[] getIncludedDirectories() throws Exception
+    {
+        return sorted(getResults(false).get(Kind.DIR_INCLUDED));
+    }
+
+    @Override
+    public synchronized int getIncludedDirsCount() throws Exception
+    {
+        return getResults(false).get(Kind.DIR_INCLUDED).size();
+    }
+
+    @Override
+    public synchronized String[] getNotIncludedDirectories() throws Exception
+    {
+        return toArray(getResults(true).get(Kind.DIR_NOT_INCLUDED));
+    }
+
+    @Override
+    public synchronized String[] getExcludedDirectories() throws Exception
+    {
+        return toArray(getResults(true).get(Kind.DIR_EXCLUDED));
+    }
+
+    @Override
+    public synchronized String[] getDeselectedDirectories() throws Exception
+    {
+        return toArray(getResults(true).get(Kind.DIR_DESELECTED));
+    }
+
+    /**
+     * Returns the scan results.
+     *
+     * @param full if {@code true}, the results of a complete walk are required
+     * @return the results
+     * @throws Exception if no scan has been performed or the complete walk fails
+     */
+    private Results getResults(boolean full) throws Exception
+    {
+        if (results == null)
+        {
+            throw new Exception("Directory " + getBasedir() + " has not been scanned");
+        }
+        if (full && !haveFullResults)
+        {
+            results = walk(false);
+            haveFullResults = true;
+        }
+        return results;
+    }
+
+    /**
+     * Walks the base directory.
+     *
+     * @param fast if {@code true}, directories that cannot hold included files are not walked
+     * @return the results
+     * @throws Exception if the base directory is invalid or cannot be read
+     */
+    private Results walk(boolean fast) throws Exception
+    {
+        File basedir = getBasedir();
+        if (basedir == null)
+        {
+            throw new Exception("No basedir set");
+        }
+        if (!basedir.exists())
+        {
+            throw new Exception("basedir " + basedir + " does not exist");
+        }
+        if (!basedir.isDirectory())
+        {
+            throw new Exception("basedir " + basedir + " is not a directory");
+        }
+
+        Matcher matcher = new Matcher(this, getIncludes(), getExcludes(), isCaseSensitive());
+        Results result = new Results();
+        String[] root = new String[0];
+        if (matcher.isIncluded(root, 0))
+        {
+            if (matcher.isExcluded(root, 0))
+            {
+                result.add(Kind.DIR_EXCLUDED, "");
+            }
+            else
+            {
+                result.add(isSelected("", basedir) ? Kind.DIR_INCLUDED : Kind.DIR_DESELECTED, "");
+            }
+        }
+        else
+        {
+            result.add(Kind.DIR_NOT_INCLUDED, "");
+        }
+
+        Path dir = basedir.toPath();
+        Ancestor ancestor = isFollowSymlinks()
+                ? new Ancestor(Ancestor.getKey(dir, Files.readAttributes(dir, BasicFileAttributes.class)), null)
+                : null;
+        ScanTask task = new ScanTask(dir, "", root, 0, fast, matcher, ancestor);
+        try
+        {
+            pool.invoke(task);
+        }
+        catch (ScanException exception)
+        {
+            throw new Exception(exception.getMessage(), exception.getCause());
+        }
+        task.collect(result);
+        return result;
+    }
+
+    private static String[] sorted(List<String> names)
+    {
+        String[] result = toArray(names);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static String[] toArray(List<String> names)
+    {
+        return names.toArray(new String[names.size()]);
+    }
+
+    /**
+     * The results of a walk, in walk order.
+     */
+    private static class Results
+    {
+        private final List<List<String>> names = new ArrayList<List<String>>();
+
+        private boolean everythingIncluded = true;
+
+        Results()
+        {
+            for (int i = 0; i < Kind.values().length; i++)
+            {
+                names.add(new ArrayList<String>());
+            }
+        }
+
+        void add(Kind kind, String name)
+        {
+            names.get(kind.ordinal()).add(name);
+            everythingIncluded &= (kind == Kind.FILE_INCLUDED || kind == Kind.DIR_INCLUDED);
+        }
+
+        List<String> get(Kind kind)
+        {
+            return names.get(kind.ordinal());
+        }
+    }
+
+    /**
+     * Matches relative paths, given as their segments, against the compiled include and exclude patterns.
+     * <p/>
+     * Instances are immutable and shared between all scan tasks.
+     */
+    private static class Matcher
+    {
+        private final DirectoryScanner scanner;
+
+        private final PathPattern[] includes;
+
+        private final PathPatternSet includeSet;
+
+        private final PathPatternSet excludeSet;
+
+        /**
+         * Exclude patterns ending in '**', without the trailing '**'.
+         */
+        private final PathPatternSet contentExcludes;
+
+        /**
+         * Paths that are excluded with all of their contents, i.e. exclude patterns of the form <em>path/**</em>
+         * without the trailing '/**'.
+         */
+        private final Set<String> excludedTrees = new HashSet<String>();
+
+        Matcher(DirectoryScanner scanner, String[] includes, String[] excludes, boolean caseSensitive)
+        {
+            this.scanner = scanner;
+            includes = (includes == null) ? new String[]{"**"} : includes;
+            excludes = (excludes == null) ? new String[0] : excludes;
+            this.includes = PathPattern.compile(includes, caseSensitive);
+            this.includeSet = new PathPatternSet(this.includes, caseSensitive);
+            this.excludeSet = new PathPatternSet(excludes, caseSensitive);
+            List<String> contents = new ArrayList<String>();
+            String treeSuffix = File.separator + "**";
+            for (String exclude : excludes)
+            {
+                if (exclude.endsWith("**"))
+                {
+                    contents.add(exclude.substring(0, exclude.length() - 2));
+                }
+                if (exclude.endsWith(treeSuffix))
+                {
+                    excludedTrees.add(exclude.substring(0, exclude.length() - treeSuffix.length()));
+                }
+            }
+            contentExcludes = new PathPatternSet(contents.toArray(new String[contents.size()]), caseSensitive);
+        }
+
+        boolean isIncluded(String[] names, int length)
+        {
+            return includeSet.matchPath(names, length);
+        }
+
+        boolean isExcluded(String[] names, int length)
+        {
+            return excludeSet.matchPath(names, length);
+        }
+
+        /**
+         * Determines if an included, non-excluded path is selected by the scanner.
+         *
+         * @throws ScanException if the selectors fail
+         */
+        boolean isSelected(String name, Path file)
+        {
+            try
+            {
+                return scanner.isSelected(name, file.toFile());
+            }
+            catch (Exception exception)
+            {
+                throw new ScanException("Failed to select " + file.toAbsolutePath(), exception);
+            }
+        }
+
+        /**
+         * Determines if a directory could hold included files or directories.
+         *
+         * @see DirectoryScanner
+         */
+        boolean couldHoldIncluded(String name, String[] names, int length)
+        {
+            if (excludedTrees.contains(name))
+            {
+                // an exclude pattern is more powerful than any include pattern
+                return false;
+            }
+            for (PathPattern include : includes)
+            {
+                if (include.matchPatternStart(names, length) && (include.isDeep() || include.getDepth() > length))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Determines if all contents of a directory are excluded.
+         */
+        boolean contentsExcluded(String[] names, int length)
+        {
+            return contentExcludes.matchPath(names, length);
+        }
+    }
+
+    /**
+     * A directory being walked, and its ancestors, used to detect symbolic link loops.
+     */
+    private static class Ancestor
+    {
+        /**
+         * The file key or real path of the directory.
+         */
+        private final Object key;
+
+        private final Ancestor parent;
+
+        Ancestor(Object key, Ancestor parent)
+        {
+            this.key = key;
+            this.parent = parent;
+        }
+
+        /**
+         * Determines if this directory or one of its ancestors has the given key.
+         */
+        boolean contains(Object key)
+        {
+            for (Ancestor ancestor = this; ancestor != null; ancestor = ancestor.parent)
+            {
+                if (ancestor.key.equals(key))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Returns the key identifying a directory: its file key if the file system provides one, else its real path.
+         */
+        static Object getKey(Path dir, BasicFileAttributes attrs) throws IOException
+        {
+            Object key = attrs.fileKey();
+            return (key != null) ? key : dir.toRealPath();
+        }
+    }
+
+    /**
+     * Thrown by a scan task when a directory cannot be read.
+     */
+    private static class ScanException extends RuntimeException
+    {
+        ScanException(String message, Throwable cause)
+        {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * Scans a single directory, forking a task for each sub-directory that needs to be walked.
+     */
+    private static class ScanTask extends RecursiveAction
+    {
+        private final Path dir;
+
+        private final String vpath;
+
+        private final String[] segments;
+
+        private final int depth;
+
+        private final boolean fast;
+
+        private final Matcher matcher;
+
+        /**
+         * The directory and its ancestors, or {@code null} if symbolic links aren't followed.
+         */
+        private final Ancestor ancestor;
+
+        /**
+         * The entries of the directory, in directory order.
+         */
+        private final List<String> names = new ArrayList<String>();
+
+        /**
+         * The kind of each entry.
+         */
+        private final List<Kind> kinds = new ArrayList<Kind>();
+
+        /**
+         * The sub-directory task of each entry, or {@code null} if the entry isn't walked.
+         */
+        private final List<ScanTask> children = new ArrayList<ScanTask>();
+
+        ScanTask(Path dir, String vpath, String[] segments, int depth, boolean fast, Matcher matcher,
+                 Ancestor ancestor)
+        {
+            this.dir = dir;
+            this.vpath = vpath;
+            this.segments = segments;
+            this.depth = depth;
+            this.fast = fast;
+            this.matcher = matcher;
+            this.ancestor = ancestor;
+        }
+
+        @Override
+        protected void compute()
+        {
+            final List<ScanTask> subdirs = new ArrayList<ScanTask>();
+            Set<FileVisitOption> options = (ancestor != null)
+                    ? EnumSet.of(FileVisitOption.FOLLOW_LINKS) : Collections.<FileVisitOption>emptySet();
+            try
+            {
+                Files.walkFileTree(dir, options, 1, new SimpleFileVisitor<Path>()
+                {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException
+                    {
+                        ScanTask child = visit(file, attrs);
+                        if (child != null)
+                        {
+                            subdirs.add(child);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exception) throws IOException
+                    {
+                        if (file.equals(dir))
+                        {
+                            throw exception;
+                        }
+                        // e.g. a dangling link; it is neither a file nor a directory
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+            catch (IOException exception)
+            {
+                throw new ScanException("IO error scanning directory " + dir.toAbsolutePath(), exception);
+            }
+            invokeAll(subdirs);
+        }
+
+        /**
+         * Classifies a directory entry.
+         *
+         * @param file  the entry
+         * @param attrs the entry attributes
+         * @return the task to walk the entry, or {@code null} if it isn't walked
+         * @throws IOException if the key of a linked directory cannot be determined
+         */
+        private ScanTask visit(Path file, BasicFileAttributes attrs) throws IOException
+        {
+            String fileName = file.getFileName().toString();
+            String name = vpath + fileName;
+            if (attrs.isSymbolicLink())
+            {
+                // only reported when links are not followed
+                add(name, Files.isDirectory(file) ? Kind.DIR_EXCLUDED : Kind.FILE_EXCLUDED, null);
+                return null;
+            }
+
+            String[] names = Arrays.copyOf(segments, depth + 1);
+            names[depth] = fileName;
+            int length = depth + 1;
+            if (attrs.isDirectory())
+            {
+                boolean walk;
+                Kind kind;
+                if (matcher.isIncluded(names, length))
+                {
+                    kind = matcher.isExcluded(names, length) ? Kind.DIR_EXCLUDED
+                            : matcher.isSelected(name, file) ? Kind.DIR_INCLUDED : Kind.DIR_DESELECTED;
+                    walk = !fast || (matcher.couldHoldIncluded(name, names, length)
+                            && !matcher.contentsExcluded(names, length));
+                }
+                else
+                {
+                    kind = Kind.DIR_NOT_INCLUDED;
+                    walk = !fast || matcher.couldHoldIncluded(name, names, length);
+                }
+                Ancestor child = null;
+                if (walk && ancestor != null)
+                {
+                    Object key = Ancestor.getKey(file, attrs);
+                    // don't walk a directory linking back to an ancestor
+                    walk = !ancestor.contains(key);
+                    child = new Ancestor(key, ancestor);
+                }
+                ScanTask task = walk
+                        ? new ScanTask(file, name + File.separator, names, length, fast, matcher, child)
+                        : null;
+                add(name, kind, task);
+                return task;
+            }
+            else if (attrs.isRegularFile())
+            {
+                Kind kind;
+                if (matcher.isIncluded(names, length))
+                {
+                    kind = matcher.isExcluded(names, length) ? Kind.FILE_EXCLUDED
+                            : matcher.isSelected(name, file) ? Kind.FILE_INCLUDED : Kind.FILE_DESELECTED;
+                }
+                else
+                {
+                    kind = Kind.FILE_NOT_INCLUDED;
+                }
+                add(name, kind, null);
+            }
+            return null;
+        }
+
+        private void add(String name, Kind kind, ScanTask child)
+        {
+            names.add(name);
+            kinds.add(kind);
+            children.add(child);
+        }
+
+        /**
+         * Adds the entries of this directory and its walked sub-directories to the results, depth first.
+         *
+         * @param results the results to add to
+         */
+        void collect(Results results)
+        {
+            for (int i = 0; i < names.size(); i++)
+            {
+                results.add(kinds.get(i), names.get(i));
+                ScanTask child = children.get(i);
+                if (child != null)
+                {
+                    child.collect(results);
+                }
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@ import java.util.logging.Logger;
 
 import com.izforge.izpack.util.file.DirectoryScanner;
 import com.izforge.izpack.util.file.FileScanner;
+import com.izforge.izpack.util.file.ParallelDirectoryScanner;
 import com.izforge.izpack.util.file.types.selectors.*;
 
 /**
@@ -187,6 +188,8 @@ public class FileSet extends DataType
 
     /**
      * Returns the directory scanner needed to access the files to process.
+     * <p/>
+     * The returned scanner has already scanned the directory.
      *
      * @return a <code>DirectoryScanner</code> instance.
      */
@@ -205,7 +208,7 @@ public class FileSet extends DataType
             throw new Exception(dir.getAbsolutePath()
                     + " is not a directory.");
         }
-        DirectoryScanner ds = new DirectoryScanner();
+        DirectoryScanner ds = new ParallelDirectoryScanner();
         setupDirectoryScanner(ds);
         ds.setFollowSymlinks(followSymlinks);
         ds.scan();
@@ -0,0 +1,628 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.file.types.selectors;
+
+import java.io.File;
+
+/**
+ * A compiled Ant-style path pattern.
+ * <p/>
+ * The pattern is parsed once into its path segments. Each segment is either a literal, a wildcard segment
+ * ('*' and '?') or '**', which matches zero or more path segments. A path is matched by simulating the segment
+ * automaton, i.e. by tracking the set of pattern positions reachable after each path segment, so '**' never needs
+ * backtracking. Paths may be passed as already split segments, which allows directory walkers to build them
+ * incrementally instead of splitting every relative path.
+ * <p/>
+ * Matching follows the rules of {@link SelectorUtils#matchPath(String, String, boolean)} and
+ * {@link SelectorUtils#matchPatternStart(String, String, boolean)}.
+ * <p/>
+ * Instances are immutable and may be shared between threads.
+ */
+public final class PathPattern
+{
+    /**
+     * The '**' token.
+     */
+    private static final String DEEP = "**";
+
+    /**
+     * Segment type of a literal segment.
+     */
+    private static final byte LITERAL = 0;
+
+    /**
+     * Segment type of a segment containing '*' or '?'.
+     */
+    private static final byte WILDCARD = 1;
+
+    /**
+     * Segment type of '**'.
+     */
+    private static final byte ANY_DEPTH = 2;
+
+    /**
+     * The original pattern.
+     */
+    private final String pattern;
+
+    /**
+     * The pattern path segments.
+     */
+    private final String[] segments;
+
+    /**
+     * The pattern path segments as characters, upper cased if matching is case insensitive.
+     */
+    private final char[][] chars;
+
+    /**
+     * The type of each segment.
+     */
+    private final byte[] types;
+
+    /**
+     * The number of leading literal segments.
+     */
+    private final int literalPrefix;
+
+    /**
+     * Determines if the pattern starts with a {@code File.separator}.
+     */
+    private final boolean absolute;
+
+    /**
+     * Determines if the pattern contains a '**' segment.
+     */
+    private final boolean deep;
+
+    /**
+     * Determines if matching is case sensitive.
+     */
+    private final boolean caseSensitive;
+
+    /**
+     * Constructs a {@code PathPattern}.
+     *
+     * @param pattern       the pattern, using {@code File.separator} as separator
+     * @param caseSensitive whether or not matching should be performed case sensitively
+     */
+    private PathPattern(String pattern, boolean caseSensitive)
+    {
+        this.pattern = pattern;
+        this.caseSensitive = caseSensitive;
+        this.absolute = pattern.startsWith(File.separator);
+        this.segments = tokenize(pattern);
+        this.chars = new char[segments.length][];
+        this.types = new byte[segments.length];
+        boolean hasDeep = false;
+        int prefix = -1;
+        for (int i = 0; i < segments.length; i++)
+        {
+            String segment = segments[i];
+            chars[i] = caseSensitive ? segment.toCharArray() : toUpperCase(segment);
+            if (DEEP.equals(segment))
+            {
+                types[i] = ANY_DEPTH;
+                hasDeep = true;
+            }
+            else
+            {
+                types[i] = SelectorUtils.hasWildcards(segment) ? WILDCARD : LITERAL;
+            }
+            if (prefix == -1 && types[i] != LITERAL)
+            {
+                prefix = i;
+            }
+        }
+        this.literalPrefix = (prefix == -1) ? segments.length : prefix;
+        this.deep = hasDeep;
+    }
+
+    /**
+     * Compiles a pattern.
+     *
+     * @param pattern       the pattern, using {@code File.separator} as separator
+     * @param caseSensitive whether or not matching should be performed case sensitively
+     * @return the compiled pattern
+     */
+    public static PathPattern compile(String pattern, boolean caseSensitive)
+    {
+        return new PathPattern(pattern, caseSensitive);
+    }
+
+    /**
+     * Compiles a set of patterns.
+     *
+     * @param patterns      the patterns. May be {@code null}
+     * @param caseSensitive whether or not matching should be performed case sensitively
+     * @return the compiled patterns
+     */
+    public static PathPattern[] compile(String[] patterns, boolean caseSensitive)
+    {
+        if (patterns == null)
+        {
+            return new PathPattern[0];
+        }
+        PathPattern[] result = new PathPattern[patterns.length];
+        for (int i = 0; i < patterns.length; i++)
+        {
+            result[i] = compile(patterns[i], caseSensitive);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the original pattern.
+     *
+     * @return the pattern
+     */
+    public String getPattern()
+    {
+        return pattern;
+    }
+
+    /**
+     * Determines if matching is case sensitive.
+     *
+     * @return {@code true} if matching is case sensitive
+     */
+    public boolean isCaseSensitive()
+    {
+        return caseSensitive;
+    }
+
+    /**
+     * Determines if the pattern starts with a {@code File.separator}.
+     *
+     * @return {@code true} if the pattern is absolute
+     */
+    public boolean isAbsolute()
+    {
+        return absolute;
+    }
+
+    /**
+     * Determines if the pattern contains a '**' segment.
+     *
+     * @return {@code true} if the pattern contains '**'
+     */
+    public boolean isDeep()
+    {
+        return deep;
+    }
+
+    /**
+     * Determines if the pattern contains no wildcards at all.
+     *
+     * @return {@code true} if every segment of the pattern is a literal
+     */
+    public boolean isLiteral()
+    {
+        return literalPrefix == segments.length;
+    }
+
+    /**
+     * Returns the number of path segments of the pattern.
+     *
+     * @return the number of segments
+     */
+    public int getDepth()
+    {
+        return segments.length;
+    }
+
+    /**
+     * Returns the number of leading segments that contain no wildcards.
+     *
+     * @return the length of the literal prefix
+     */
+    public int getLiteralPrefixLength()
+    {
+        return literalPrefix;
+    }
+
+    /**
+     * Returns a pattern segment.
+     *
+     * @param index the segment index
+     * @return the segment
+     */
+    public String getSegment(int index)
+    {
+        return segments[index];
+    }
+
+    /**
+     * Tests whether or not a path matches this pattern.
+     *
+     * @param path the path to match. Must not be {@code null}
+     * @return {@code true} if the path matches
+     */
+    public boolean matchPath(String path)
+    {
+        if (path.startsWith(File.separator) != absolute)
+        {
+            return false;
+        }
+        String[] names = tokenize(path);
+        return run(names, 0, 0, names.length);
+    }
+
+    /**
+     * Tests whether or not a relative path, given as its segments, matches this pattern.
+     *
+     * @param names the path segments. Only the first {@code length} elements are examined
+     * @param length the number of path segments
+     * @return {@code true} if the path matches
+     */
+    public boolean matchPath(String[] names, int length)
+    {
+        return !absolute && run(names, 0, 0, length);
+    }
+
+    /**
+     * Tests whether or not the remainder of a path matches this pattern, given that its first {@code offset}
+     * segments are already known to match the literal prefix of the pattern.
+     *
+     * @param names  the path segments
+     * @param offset the number of path segments already matched. Must not exceed the literal prefix length
+     * @param length the number of path segments
+     * @return {@code true} if the path matches
+     */
+    boolean matchPathFrom(String[] names, int offset, int length)
+    {
+        return run(names, offset, offset, length);
+    }
+
+    /**
+     * Tests whether or not a path matches the start of this pattern up to the first "**".
+     * <p/>
+     * This is not a general purpose test and should only be used if you can live with false positives.
+     *
+     * @param path the path to match. Must not be {@code null}
+     * @return {@code true} if the path matches the start of the pattern
+     */
+    public boolean matchPatternStart(String path)
+    {
+        if (path.startsWith(File.separator) != absolute)
+        {
+            return false;
+        }
+        String[] names = tokenize(path);
+        return matchStart(names, names.length);
+    }
+
+    /**
+     * Tests whether or not a relative path, given as its segments, matches the start of this pattern up to the
+     * first "**".
+     *
+     * @param names  the path segments. Only the first {@code length} elements are examined
+     * @param length the number of path segments
+     * @return {@code true} if the path matches the start of the pattern
+     */
+    public boolean matchPatternStart(String[] names, int length)
+    {
+        return !absolute && matchStart(names, length);
+    }
+
+    /**
+     * Breaks a path up into its segments, tokenizing on {@code File.separatorChar}.
+     * Empty segments are dropped.
+     *
+     * @param path the path to tokenize
+     * @return the path segments
+     */
+    public static String[] tokenize(String path)
+    {
+        char sep = File.separatorChar;
+        int len = path.length();
+        int count = 0;
+        int start = 0;
+        for (int pos = 0; pos < len; pos++)
+        {
+            if (path.charAt(pos) == sep)
+            {
+                if (pos != start)
+                {
+                    count++;
+                }
+                start = pos + 1;
+            }
+        }
+        if (len != start)
+        {
+            count++;
+        }
+        String[] result = new String[count];
+        count = 0;
+        start = 0;
+        for (int pos = 0; pos < len; pos++)
+        {
+            if (path.charAt(pos) == sep)
+            {
+                if (pos != start)
+                {
+                    result[count++] = path.substring(start, pos);
+                }
+                start = pos + 1;
+            }
+        }
+        if (len != start)
+        {
+            result[count] = path.substring(start);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the key of a path segment, for indexing literal segments. If matching is case insensitive, this
+     * folds the segment to upper case the same way segments are compared.
+     *
+     * @param name          the path segment
+     * @param caseSensitive whether or not matching is case sensitive
+     * @return the key
+     */
+    static String key(String name, boolean caseSensitive)
+    {
+        return caseSensitive ? name : new String(toUpperCase(name));
+    }
+
+    @Override
+    public String toString()
+    {
+        return pattern;
+    }
+
+    /**
+     * Simulates the segment automaton.
+     *
+     * @param names  the path segments
+     * @param state  the initial pattern position
+     * @param offset the index of the first path segment to consume
+     * @param length the number of path segments
+     * @return {@code true} if the final pattern position is reachable
+     */
+    private boolean run(String[] names, int state, int offset, int length)
+    {
+        int n = segments.length;
+        if (n < Long.SIZE)
+        {
+            return runSingleWord(names, state, offset, length);
+        }
+        long[] current = new long[(n >> 6) + 1];
+        long[] next = new long[current.length];
+        set(current, state);
+        closure(current);
+        for (int s = offset; s < length; s++)
+        {
+            String name = names[s];
+            boolean any = false;
+            clear(next);
+            for (int i = 0; i < n; i++)
+            {
+                if (!isSet(current, i))
+                {
+                    continue;
+                }
+                if (types[i] == ANY_DEPTH)
+                {
+                    set(next, i);
+                    any = true;
+                }
+                else if (matchSegment(i, name))
+                {
+                    set(next, i + 1);
+                    any = true;
+                }
+            }
+            if (!any)
+            {
+                return false;
+            }
+            long[] tmp = current;
+            current = next;
+            next = tmp;
+            closure(current);
+        }
+        return isSet(current, n);
+    }
+
+    /**
+     * Simulates the segment automaton for patterns with less than 64 segments, with the pattern positions held
+     * in a single word.
+     */
+    private boolean runSingleWord(String[] names, int state, int offset, int length)
+    {
+        long current = closure(1L << state);
+        for (int s = offset; s < length; s++)
+        {
+            String name = names[s];
+            long next = 0;
+            long states = current;
+            while (states != 0)
+            {
+                int i = Long.numberOfTrailingZeros(states);
+                states &= states - 1;
+                if (i == segments.length)
+                {
+                    continue;
+                }
+                if (types[i] == ANY_DEPTH)
+                {
+                    next |= 1L << i;
+                }
+                else if (matchSegment(i, name))
+                {
+                    next |= 1L << (i + 1);
+                }
+            }
+            if (next == 0)
+            {
+                return false;
+            }
+            current = closure(next);
+        }
+        return (current & (1L << segments.length)) != 0;
+    }
+
+    /**
+     * Adds the positions reachable without consuming a path segment, i.e. skipping '**' segments.
+     */
+    private long closure(long states)
+    {
+        for (int i = 0; i < segments.length; i++)
+        {
+            if (types[i] == ANY_DEPTH && (states & (1L << i)) != 0)
+            {
+                states |= 1L << (i + 1);
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Adds the positions reachable without consuming a path segment, i.e. skipping '**' segments.
+     */
+    private void closure(long[] states)
+    {
+        for (int i = 0; i < segments.length; i++)
+        {
+            if (types[i] == ANY_DEPTH && isSet(states, i))
+            {
+                set(states, i + 1);
+            }
+        }
+    }
+
+    private boolean matchStart(String[] names, int length)
+    {
+        int patIdx = 0;
+        int strIdx = 0;
+        while (patIdx < segments.length && strIdx < length)
+        {
+            if (types[patIdx] == ANY_DEPTH)
+            {
+                break;
+            }
+            if (!matchSegment(patIdx, names[strIdx]))
+            {
+                return false;
+            }
+            patIdx++;
+            strIdx++;
+        }
+        // either the path is exhausted, or the pattern now holds '**'
+        return strIdx >= length || patIdx < segments.length;
+    }
+
+    /**
+     * Matches a path segment against a pattern segment.
+     *
+     * @param index the pattern segment index
+     * @param name  the path segment
+     * @return {@code true} if they match
+     */
+    private boolean matchSegment(int index, String name)
+    {
+        char[] pat = chars[index];
+        if (types[index] == LITERAL)
+        {
+            if (pat.length != name.length())
+            {
+                return false;
+            }
+            for (int i = 0; i < pat.length; i++)
+            {
+                if (!same(pat[i], name.charAt(i)))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // '*' and '?' matching, remembering the last star to resume from on mismatch
+        int p = 0;
+        int s = 0;
+        int star = -1;
+        int mark = 0;
+        int len = name.length();
+        while (s < len)
+        {
+            if (p < pat.length && pat[p] != '*' && (pat[p] == '?' || same(pat[p], name.charAt(s))))
+            {
+                p++;
+                s++;
+            }
+            else if (p < pat.length && pat[p] == '*')
+            {
+                star = p++;
+                mark = s;
+            }
+            else if (star != -1)
+            {
+                p = star + 1;
+                s = ++mark;
+            }
+            else
+            {
+                return false;
+            }
+        }
+        while (p < pat.length && pat[p] == '*')
+        {
+            p++;
+        }
+        return p == pat.length;
+    }
+
+    private boolean same(char patternChar, char ch)
+    {
+        return patternChar == ch || (!caseSensitive && patternChar == Character.toUpperCase(ch));
+    }
+
+    private static char[] toUpperCase(String value)
+    {
+        char[] result = value.toCharArray();
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] = Character.toUpperCase(result[i]);
+        }
+        return result;
+    }
+
+    private static void set(long[] states, int index)
+    {
+        states[index >> 6] |= 1L << index;
+    }
+
+    private static boolean isSet(long[] states, int index)
+    {
+        return (states[index >> 6] & (1L << index)) != 0;
+    }
+
+    private static void clear(long[] states)
+    {
+        for (int i = 0; i < states.length; i++)
+        {
+            states[i] = 0;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.file.types.selectors;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of compiled path patterns, matching a path if any of the patterns matches it.
+ * <p/>
+ * The literal prefixes of the patterns, i.e. their leading segments without wildcards, are indexed in a trie.
+ * A path is only tested against the patterns whose literal prefix it starts with, and patterns without any
+ * wildcards are matched by the trie alone.
+ * <p/>
+ * Instances are immutable and may be shared between threads.
+ */
+public final class PathPatternSet
+{
+    /**
+     * The trie of relative patterns.
+     */
+    private final Node relative = new Node();
+
+    /**
+     * The trie of patterns starting with a {@code File.separator}.
+     */
+    private final Node absolute = new Node();
+
+    /**
+     * Determines if matching is case sensitive.
+     */
+    private final boolean caseSensitive;
+
+    /**
+     * The number of patterns.
+     */
+    private final int size;
+
+    /**
+     * Constructs a {@code PathPatternSet}.
+     *
+     * @param patterns      the patterns, using {@code File.separator} as separator. May be {@code null}
+     * @param caseSensitive whether or not matching should be performed case sensitively
+     */
+    public PathPatternSet(String[] patterns, boolean caseSensitive)
+    {
+        this(PathPattern.compile(patterns, caseSensitive), caseSensitive);
+    }
+
+    /**
+     * Constructs a {@code PathPatternSet}.
+     *
+     * @param patterns      the compiled patterns
+     * @param caseSensitive whether or not matching should be performed case sensitively. All patterns must
+     *                      have been compiled with the same setting
+     */
+    public PathPatternSet(PathPattern[] patterns, boolean caseSensitive)
+    {
+        this.caseSensitive = caseSensitive;
+        for (PathPattern pattern : patterns)
+        {
+            if (pattern.isCaseSensitive() != caseSensitive)
+            {
+                throw new IllegalArgumentException("Pattern " + pattern + " has different case sensitivity");
+            }
+            add(pattern);
+        }
+        this.size = patterns.length;
+    }
+
+    /**
+     * Determines if the set holds no patterns.
+     *
+     * @return {@code true} if the set is empty
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Tests whether or not a path matches any of the patterns.
+     *
+     * @param path the path to match. Must not be {@code null}
+     * @return {@code true} if the path matches
+     */
+    public boolean matchPath(String path)
+    {
+        String[] names = PathPattern.tokenize(path);
+        return match(path.startsWith(File.separator) ? absolute : relative, names, names.length);
+    }
+
+    /**
+     * Tests whether or not a relative path, given as its segments, matches any of the patterns.
+     *
+     * @param names  the path segments. Only the first {@code length} elements are examined
+     * @param length the number of path segments
+     * @return {@code true} if the path matches
+     */
+    public boolean matchPath(String[] names, int length)
+    {
+        return match(relative, names, length);
+    }
+
+    private boolean match(Node root, String[] names, int length)
+    {
+        Node node = root;
+        int depth = 0;
+        while (node != null)
+        {
+            for (PathPattern pattern : node.patterns)
+            {
+                if (pattern.matchPathFrom(names, depth, length))
+                {
+                    return true;
+                }
+            }
+            if (depth == length)
+            {
+                return node.literal;
+            }
+            node = node.children.isEmpty() ? null
+                    : node.children.get(PathPattern.key(names[depth], caseSensitive));
+            depth++;
+        }
+        return false;
+    }
+
+    private void add(PathPattern pattern)
+    {
+        Node node = pattern.isAbsolute() ? absolute : relative;
+        int prefix = pattern.getLiteralPrefixLength();
+        for (int i = 0; i < prefix; i++)
+        {
+            String key = PathPattern.key(pattern.getSegment(i), caseSensitive);
+            Node child = node.children.get(key);
+            if (child == null)
+            {
+                child = new Node();
+                node.children.put(key, child);
+            }
+            node = child;
+        }
+        if (pattern.isLiteral())
+        {
+            node.literal = true;
+        }
+        else
+        {
+            node.patterns.add(pattern);
+        }
+    }
+
+    /**
+     * A trie node, for a literal prefix.
+     */
+    private static class Node
+    {
+        /**
+         * The child nodes, keyed on the next literal segment.
+         */
+        private final Map<String, Node> children = new HashMap<String, Node>(4);
+
+        /**
+         * The patterns whose literal prefix ends at this node.
+         */
+        private final List<PathPattern> patterns = new ArrayList<PathPattern>(2);
+
+        /**
+         * Determines if a pattern consisting of the literal prefix only ends at this node.
+         */
+        private boolean literal;
+    }
+}
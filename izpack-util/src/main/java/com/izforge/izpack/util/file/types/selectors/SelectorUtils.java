@@ -20,6 +20,8 @@ package com.izforge.izpack.util.file.types.selectors;
 import java.io.File;
 import java.util.StringTokenizer;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.izforge.izpack.util.file.types.Resource;
 
@@ -29,12 +31,30 @@ import com.izforge.izpack.util.file.types.Resource;
  * DirectoryScanner exposed these as protected methods. Thus we have to
  * support any subclasses of DirectoryScanner that may access these methods.
  * </p>
- * <p>This is a Singleton.</p>
+ * <p>This is a Singleton. It holds no state other than the caches of compiled patterns, which are thread safe and
+ * independent of the caller, so it may be shared by concurrent compilations.</p>
  */
 public final class SelectorUtils
 {
 
-    private static SelectorUtils instance = new SelectorUtils();
+    private static final SelectorUtils instance = new SelectorUtils();
+
+    /**
+     * The maximum number of compiled patterns to cache per case sensitivity.
+     */
+    private static final int MAX_CACHED_PATTERNS = 1024;
+
+    /**
+     * Compiled case sensitive patterns, keyed on pattern.
+     */
+    private static final ConcurrentMap<String, PathPattern> CASE_SENSITIVE_PATTERNS
+            = new ConcurrentHashMap<String, PathPattern>();
+
+    /**
+     * Compiled case insensitive patterns, keyed on pattern.
+     */
+    private static final ConcurrentMap<String, PathPattern> CASE_INSENSITIVE_PATTERNS
+            = new ConcurrentHashMap<String, PathPattern>();
 
     /**
      * Private Constructor
@@ -93,56 +113,7 @@ public final class SelectorUtils
     public static boolean matchPatternStart(String pattern, String str,
                                             boolean isCaseSensitive)
     {
-        // When str starts with a File.separator, pattern has to start with a
-        // File.separator.
-        // When pattern starts with a File.separator, str has to start with a
-        // File.separator.
-        if (str.startsWith(File.separator)
-                != pattern.startsWith(File.separator))
-        {
-            return false;
-        }
-
-        String[] patDirs = tokenizePathAsArray(pattern);
-        String[] strDirs = tokenizePathAsArray(str);
-
-        int patIdxStart = 0;
-        int patIdxEnd = patDirs.length - 1;
-        int strIdxStart = 0;
-        int strIdxEnd = strDirs.length - 1;
-
-        // up to first '**'
-        while (patIdxStart <= patIdxEnd && strIdxStart <= strIdxEnd)
-        {
-            String patDir = patDirs[patIdxStart];
-            if (patDir.equals("**"))
-            {
-                break;
-            }
-            if (!match(patDir, strDirs[strIdxStart], isCaseSensitive))
-            {
-                return false;
-            }
-            patIdxStart++;
-            strIdxStart++;
-        }
-
-        if (strIdxStart > strIdxEnd)
-        {
-            // String is exhausted
-            return true;
-        }
-        else if (patIdxStart > patIdxEnd)
-        {
-            // String not exhausted, but pattern is. Failure.
-            return false;
-        }
-        else
-        {
-            // pattern now holds ** while string is not exhausted
-            // this will generate false positives but we can live with that.
-            return true;
-        }
+        return getPathPattern(pattern, isCaseSensitive).matchPatternStart(str);
     }
 
     /**
@@ -175,159 +146,35 @@ public final class SelectorUtils
     public static boolean matchPath(String pattern, String str,
                                     boolean isCaseSensitive)
     {
-        // When str starts with a File.separator, pattern has to start with a
-        // File.separator.
-        // When pattern starts with a File.separator, str has to start with a
-        // File.separator.
-        if (str.startsWith(File.separator)
-                != pattern.startsWith(File.separator))
-        {
-            return false;
-        }
-
-        String[] patDirs = tokenizePathAsArray(pattern);
-        String[] strDirs = tokenizePathAsArray(str);
-
-        int patIdxStart = 0;
-        int patIdxEnd = patDirs.length - 1;
-        int strIdxStart = 0;
-        int strIdxEnd = strDirs.length - 1;
-
-        // up to first '**'
-        while (patIdxStart <= patIdxEnd && strIdxStart <= strIdxEnd)
-        {
-            String patDir = patDirs[patIdxStart];
-            if (patDir.equals("**"))
-            {
-                break;
-            }
-            if (!match(patDir, strDirs[strIdxStart], isCaseSensitive))
-            {
-                patDirs = null;
-                strDirs = null;
-                return false;
-            }
-            patIdxStart++;
-            strIdxStart++;
-        }
-        if (strIdxStart > strIdxEnd)
-        {
-            // String is exhausted
-            for (int i = patIdxStart; i <= patIdxEnd; i++)
-            {
-                if (!patDirs[i].equals("**"))
-                {
-                    patDirs = null;
-                    strDirs = null;
-                    return false;
-                }
-            }
-            return true;
-        }
-        else
-        {
-            if (patIdxStart > patIdxEnd)
-            {
-                // String not exhausted, but pattern is. Failure.
-                patDirs = null;
-                strDirs = null;
-                return false;
-            }
-        }
-
-        // up to last '**'
-        while (patIdxStart <= patIdxEnd && strIdxStart <= strIdxEnd)
-        {
-            String patDir = patDirs[patIdxEnd];
-            if (patDir.equals("**"))
-            {
-                break;
-            }
-            if (!match(patDir, strDirs[strIdxEnd], isCaseSensitive))
-            {
-                patDirs = null;
-                strDirs = null;
-                return false;
-            }
-            patIdxEnd--;
-            strIdxEnd--;
-        }
-        if (strIdxStart > strIdxEnd)
-        {
-            // String is exhausted
-            for (int i = patIdxStart; i <= patIdxEnd; i++)
-            {
-                if (!patDirs[i].equals("**"))
-                {
-                    patDirs = null;
-                    strDirs = null;
-                    return false;
-                }
-            }
-            return true;
-        }
-
-        while (patIdxStart != patIdxEnd && strIdxStart <= strIdxEnd)
-        {
-            int patIdxTmp = -1;
-            for (int i = patIdxStart + 1; i <= patIdxEnd; i++)
-            {
-                if (patDirs[i].equals("**"))
-                {
-                    patIdxTmp = i;
-                    break;
-                }
-            }
-            if (patIdxTmp == patIdxStart + 1)
-            {
-                // '**/**' situation, so skip one
-                patIdxStart++;
-                continue;
-            }
-            // Find the pattern between padIdxStart & padIdxTmp in str between
-            // strIdxStart & strIdxEnd
-            int patLength = (patIdxTmp - patIdxStart - 1);
-            int strLength = (strIdxEnd - strIdxStart + 1);
-            int foundIdx = -1;
-            strLoop:
-            for (int i = 0; i <= strLength - patLength; i++)
-            {
-                for (int j = 0; j < patLength; j++)
-                {
-                    String subPat = patDirs[patIdxStart + j + 1];
-                    String subStr = strDirs[strIdxStart + i + j];
-                    if (!match(subPat, subStr, isCaseSensitive))
-                    {
-                        continue strLoop;
-                    }
-                }
-
-                foundIdx = strIdxStart + i;
-                break;
-            }
-
-            if (foundIdx == -1)
-            {
-                patDirs = null;
-                strDirs = null;
-                return false;
-            }
-
-            patIdxStart = patIdxTmp;
-            strIdxStart = foundIdx + patLength;
-        }
+        return getPathPattern(pattern, isCaseSensitive).matchPath(str);
+    }
 
-        for (int i = patIdxStart; i <= patIdxEnd; i++)
+    /**
+     * Returns the compiled form of a path pattern.
+     * <p/>
+     * Compiled patterns are cached, so that repeatedly matching paths against the same pattern parses the
+     * pattern only once.
+     *
+     * @param pattern         the pattern. Must not be <code>null</code>.
+     * @param isCaseSensitive Whether or not matching should be performed
+     *                        case sensitively.
+     * @return the compiled pattern
+     */
+    public static PathPattern getPathPattern(String pattern, boolean isCaseSensitive)
+    {
+        ConcurrentMap<String, PathPattern> cache = isCaseSensitive ? CASE_SENSITIVE_PATTERNS
+                : CASE_INSENSITIVE_PATTERNS;
+        PathPattern result = cache.get(pattern);
+        if (result == null)
         {
-            if (!patDirs[i].equals("**"))
+            if (cache.size() >= MAX_CACHED_PATTERNS)
             {
-                patDirs = null;
-                strDirs = null;
-                return false;
+                cache.clear();
             }
+            result = PathPattern.compile(pattern, isCaseSensitive);
+            cache.put(pattern, result);
         }
-
-        return true;
+        return result;
     }
 
     /**
@@ -580,54 +427,6 @@ public final class SelectorUtils
         return ret;
     }
 
-    /**
-     * Same as {@link #tokenizePath tokenizePath} but hopefully faster.
-     */
-    private static String[] tokenizePathAsArray(String path)
-    {
-        char sep = File.separatorChar;
-        int start = 0;
-        int len = path.length();
-        int count = 0;
-        for (int pos = 0; pos < len; pos++)
-        {
-            if (path.charAt(pos) == sep)
-            {
-                if (pos != start)
-                {
-                    count++;
-                }
-                start = pos + 1;
-            }
-        }
-        if (len != start)
-        {
-            count++;
-        }
-        String[] l = new String[count];
-        count = 0;
-        start = 0;
-        for (int pos = 0; pos < len; pos++)
-        {
-            if (path.charAt(pos) == sep)
-            {
-                if (pos != start)
-                {
-                    String tok = path.substring(start, pos);
-                    l[count++] = tok;
-                }
-                start = pos + 1;
-            }
-        }
-        if (len != start)
-        {
-            String tok = path.substring(start);
-            l[count/*++*/] = tok;
-        }
-        return l;
-    }
-
-
     /**
      * Returns dependency information on these two files. If src has been
      * modified later than target, it returns true. If target doesn't exist,
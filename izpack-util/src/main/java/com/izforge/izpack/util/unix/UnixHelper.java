@@ -21,7 +21,20 @@ package com.izforge.izpack.util.unix;
 import com.izforge.izpack.util.FileExecutor;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.UserPrincipal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Helper Methods for unix-systems and derived.
@@ -34,11 +47,22 @@ public class UnixHelper
 
     // ~ Static fields/initializers *********************************************************
 
+    private static final Logger logger = Logger.getLogger(UnixHelper.class.getName());
+
+    /**
+     * The resolved absolute paths of commands, keyed on command name. Only commands that were found are cached.
+     */
+    private static final ConcurrentMap<String, String> commands = new ConcurrentHashMap<String, String>();
+
+    /**
+     * The directories of the <tt>PATH</tt> environment variable, or {@code null} if it isn't set.
+     */
+    private static final List<String> path = getPath(System.getenv("PATH"));
+
     /**
      * whichCommand = "/usr/bin/which" or /bin/which
      */
-    public static String whichCommand = FileExecutor.getExecOutput(
-            new String[]{"/usr/bin/env", "which", "which"}, false).trim();
+    public static String whichCommand = getCustomCommand("which");
 
     public final static String VERSION = "$Revision$";
 
@@ -176,7 +200,7 @@ public class UnixHelper
      */
     public static String getCpCommand()
     {
-        return FileExecutor.getExecOutput(new String[]{getWhichCommand(), "cp"}).trim();
+        return getCustomCommand("cp");
     }
 
     /**
@@ -187,7 +211,7 @@ public class UnixHelper
      */
     public static String getSuCommand()
     {
-        return FileExecutor.getExecOutput(new String[]{getWhichCommand(), "su"}).trim();
+        return getCustomCommand("su");
     }
 
     /**
@@ -198,7 +222,7 @@ public class UnixHelper
      */
     public static String getRmCommand()
     {
-        return FileExecutor.getExecOutput(new String[]{whichCommand, "rm"}).trim();
+        return getCustomCommand("rm");
     }
 
     /**
@@ -209,20 +233,198 @@ public class UnixHelper
      */
     public static String getYpCatCommand()
     {
-        return FileExecutor.getExecOutput(new String[]{whichCommand, "ypcat"}).trim();
+        return getCustomCommand("ypcat");
     }
 
     /**
      * Gets the absolute Pathe to the given custom command. This is necessary, because the command
      * may be located at /bin on linux but in /usr/bin on Sun Solaris. Which can locate it in your
      * $PATH for you.
+     * <p/>
+     * The <tt>PATH</tt> is scanned in-process, like <tt>which</tt> does, and commands that are found are cached.
+     * <tt>which</tt> is only run if <tt>PATH</tt> isn't set.
      *
      * @param aCommand a Custom Command
-     * @return /bin/aCommand on linux /usr/bin/aCommand on solaris
+     * @return /bin/aCommand on linux /usr/bin/aCommand on solaris, or an empty string if it cannot be found
      */
     public static String getCustomCommand(String aCommand)
     {
-        return FileExecutor.getExecOutput(new String[]{whichCommand, aCommand}).trim();
+        String result = commands.get(aCommand);
+        if (result == null)
+        {
+            if (path != null)
+            {
+                result = resolve(aCommand, path);
+            }
+            else
+            {
+                result = FileExecutor.getExecOutput(new String[]{"/usr/bin/env", "which", aCommand}).trim();
+            }
+            if (result.length() > 0)
+            {
+                commands.putIfAbsent(aCommand, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds permissions to a file, like <tt>chmod</tt> with a symbolic mode such as <tt>u+x</tt> or
+     * <tt>uga+rwx</tt>.
+     * <p/>
+     * The permissions are changed in-process where possible. <tt>chmod</tt> is only run if the mode isn't of the
+     * form <tt>[ugoa]+\+[rwx]+</tt>, or the file system doesn't support POSIX permissions. In particular, modes
+     * without users such as <tt>+x</tt> are left to <tt>chmod</tt>, as it masks them with the umask.
+     *
+     * @param file the file
+     * @param mode the symbolic mode
+     */
+    public static void addPermissions(File file, String mode)
+    {
+        Set<PosixFilePermission> permissions = getPermissions(mode);
+        if (permissions != null)
+        {
+            try
+            {
+                Path target = file.toPath();
+                Set<PosixFilePermission> current = Files.getPosixFilePermissions(target);
+                if (!current.containsAll(permissions))
+                {
+                    current.addAll(permissions);
+                    Files.setPosixFilePermissions(target, current);
+                }
+                return;
+            }
+            catch (UnsupportedOperationException exception)
+            {
+                logger.log(Level.FINE, "Cannot set permissions of " + file + ": " + exception.getMessage());
+            }
+            catch (IOException exception)
+            {
+                logger.log(Level.FINE, "Cannot set permissions of " + file + ": " + exception.getMessage());
+            }
+        }
+        FileExecutor.getExecOutput(new String[]{getCustomCommand("chmod"), mode, file.getPath()}, true);
+    }
+
+    /**
+     * Changes the owner of a file, like <tt>chown</tt>.
+     * <p/>
+     * The owner is changed in-process where possible. <tt>chown</tt> is only run if the file system doesn't support
+     * file owners.
+     *
+     * @param file the file
+     * @param user the user name of the new owner
+     */
+    public static void setOwner(File file, String user)
+    {
+        Path target = file.toPath();
+        try
+        {
+            UserPrincipal owner = target.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(user);
+            Files.setOwner(target, owner);
+            return;
+        }
+        catch (UnsupportedOperationException exception)
+        {
+            logger.log(Level.FINE, "Cannot set owner of " + file + ": " + exception.getMessage());
+        }
+        catch (IOException exception)
+        {
+            logger.log(Level.FINE, "Cannot set owner of " + file + ": " + exception.getMessage());
+        }
+        FileExecutor.getExecOutput(new String[]{getCustomCommand("chown"), user, file.getPath()});
+    }
+
+    /**
+     * Splits a <tt>PATH</tt> into its directories.
+     *
+     * @param path the path. May be {@code null}
+     * @return the directories, or {@code null} if the path is {@code null}
+     */
+    static List<String> getPath(String path)
+    {
+        if (path == null)
+        {
+            return null;
+        }
+        return Collections.unmodifiableList(Arrays.asList(path.split(File.pathSeparator, -1)));
+    }
+
+    /**
+     * Resolves a command against the directories of a <tt>PATH</tt>, like <tt>which</tt>.
+     *
+     * @param command the command
+     * @param path    the directories to search
+     * @return the path of the first executable found, or an empty string if none is found
+     */
+    static String resolve(String command, List<String> path)
+    {
+        if (command.indexOf('/') != -1)
+        {
+            File file = new File(command);
+            return file.isFile() && file.canExecute() ? command : "";
+        }
+        for (String dir : path)
+        {
+            File file = new File(dir.length() == 0 ? "." : dir, command);
+            if (file.isFile() && file.canExecute())
+            {
+                return file.getPath();
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Parses a symbolic mode that adds permissions.
+     *
+     * @param mode the mode
+     * @return the permissions, or {@code null} if the mode isn't supported
+     */
+    private static Set<PosixFilePermission> getPermissions(String mode)
+    {
+        int index = mode.indexOf('+');
+        if (index <= 0 || index == mode.length() - 1)
+        {
+            // without users, the permissions depend on the umask, which only chmod knows
+            return null;
+        }
+        String who = mode.substring(0, index);
+        String what = mode.substring(index + 1);
+        Set<PosixFilePermission> result = EnumSet.noneOf(PosixFilePermission.class);
+        for (char w : who.toCharArray())
+        {
+            if ("ugoa".indexOf(w) == -1)
+            {
+                return null;
+            }
+            for (char p : what.toCharArray())
+            {
+                if ("rwx".indexOf(p) == -1)
+                {
+                    return null;
+                }
+                if (w == 'u' || w == 'a')
+                {
+                    result.add(PosixFilePermission.valueOf("OWNER_" + getPermissionName(p)));
+                }
+                if (w == 'g' || w == 'a')
+                {
+                    result.add(PosixFilePermission.valueOf("GROUP_" + getPermissionName(p)));
+                }
+                if (w == 'o' || w == 'a')
+                {
+                    result.add(PosixFilePermission.valueOf("OTHERS_" + getPermissionName(p)));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String getPermissionName(char permission)
+    {
+        return (permission == 'r') ? "READ" : (permission == 'w') ? "WRITE" : "EXECUTE";
     }
 
     /**
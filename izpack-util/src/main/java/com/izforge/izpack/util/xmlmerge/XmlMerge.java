@@ -25,6 +25,9 @@ package com.izforge.izpack.util.xmlmerge;
 import java.io.File;
 import java.io.InputStream;
 
+import org.jdom2.JDOMException;
+import org.jdom2.input.DOMBuilder;
+import org.jdom2.output.DOMOutputter;
 import org.w3c.dom.Document;
 
 /**
@@ -63,6 +66,36 @@ public interface XmlMerge
      */
     public Document merge(Document[] sources) throws AbstractXmlMergeException;
 
+    /**
+     * Merges the given JDOM Document sources.
+     * <p/>
+     * The sources may be modified; the first is typically returned as the merged result.
+     * <p/>
+     * This implementation converts the sources to DOM, and merges them with {@link #merge(Document[])}.
+     * Implementations that merge JDOM documents directly should override it to avoid the conversions.
+     *
+     * @param sources Array of JDOM Document sources to merge
+     * @return JDOM Document corresponding to the merged sources
+     * @throws AbstractXmlMergeException If an error occurred during the merge
+     */
+    public default org.jdom2.Document merge(org.jdom2.Document[] sources) throws AbstractXmlMergeException
+    {
+        DOMOutputter outputter = new DOMOutputter();
+        Document[] documents = new Document[sources.length];
+        for (int i = 0; i < sources.length; i++)
+        {
+            try
+            {
+                documents[i] = outputter.output(sources[i]);
+            }
+            catch (JDOMException e)
+            {
+                throw new DocumentException(sources[i], e);
+            }
+        }
+        return new DOMBuilder().build(merge(documents));
+    }
+
     /**
      * Merges the given String sources.
      *
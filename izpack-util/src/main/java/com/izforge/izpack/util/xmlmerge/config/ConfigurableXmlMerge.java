@@ -91,6 +91,12 @@ public class ConfigurableXmlMerge implements XmlMerge
         return m_wrappedXmlMerge.merge(sources);
     }
 
+    @Override
+    public org.jdom2.Document merge(org.jdom2.Document[] sources) throws AbstractXmlMergeException
+    {
+        return m_wrappedXmlMerge.merge(sources);
+    }
+
     @Override
     public String merge(String[] sources) throws AbstractXmlMergeException
     {
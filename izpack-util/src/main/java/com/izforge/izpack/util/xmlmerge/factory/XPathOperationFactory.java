@@ -23,6 +23,7 @@
 package com.izforge.izpack.util.xmlmerge.factory;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.jdom2.Element;
@@ -51,6 +52,11 @@ public class XPathOperationFactory implements OperationFactory
      */
     Map<String, Operation> m_map = new HashMap<String, Operation>();
 
+    /**
+     * The compiled XPath expressions, in operation map order. Compiled on first use.
+     */
+    private Map<String, XPathExpression<Element>> m_compiled;
+
     /**
      * The default operation returned by this factory.
      */
@@ -64,6 +70,7 @@ public class XPathOperationFactory implements OperationFactory
     public void setOperationMap(Map<String, Operation> map)
     {
         this.m_map = map;
+        this.m_compiled = null;
     }
 
     /**
@@ -80,25 +87,44 @@ public class XPathOperationFactory implements OperationFactory
     public Operation getOperation(Element originalElement, Element patchElement)
             throws AbstractXmlMergeException
     {
-        for (String xPath : m_map.keySet())
+        for (Map.Entry<String, XPathExpression<Element>> entry : getCompiledExpressions().entrySet())
         {
-            XPathExpression<Element> compiledExpression;
-            try
-            {
-                compiledExpression = XPathFactory.instance().compile(xPath, Filters.element());
-            }
-            catch (IllegalArgumentException e)
-            {
-                throw new ConfigurationException(e.getMessage(), e);
-            }
+            XPathExpression<Element> compiledExpression = entry.getValue();
             if (matches(originalElement, compiledExpression) || matches(patchElement, compiledExpression))
             {
-                return m_map.get(xPath);
+                return m_map.get(entry.getKey());
             }
         }
         return m_defaultOperation;
     }
 
+    /**
+     * Returns the compiled XPath expressions, compiling them if required.
+     *
+     * @return the compiled expressions, keyed on XPath string, in operation map order
+     * @throws ConfigurationException If an XPath expression is invalid
+     */
+    private Map<String, XPathExpression<Element>> getCompiledExpressions() throws ConfigurationException
+    {
+        if (m_compiled == null)
+        {
+            Map<String, XPathExpression<Element>> compiled = new LinkedHashMap<String, XPathExpression<Element>>();
+            for (String xPath : m_map.keySet())
+            {
+                try
+                {
+                    compiled.put(xPath, XPathFactory.instance().compile(xPath, Filters.element()));
+                }
+                catch (IllegalArgumentException e)
+                {
+                    throw new ConfigurationException(e.getMessage(), e);
+                }
+            }
+            m_compiled = compiled;
+        }
+        return m_compiled;
+    }
+
     /**
      * Detects whether the given element matches the given XPath string.
      *
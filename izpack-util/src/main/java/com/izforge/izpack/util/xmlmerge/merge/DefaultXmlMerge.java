@@ -242,6 +242,12 @@ public class DefaultXmlMerge implements XmlMerge
         }
     }
 
+    @Override
+    public Document merge(Document[] sources) throws AbstractXmlMergeException
+    {
+        return doMerge(sources);
+    }
+
     /**
      * Performs the actual merge.
      *
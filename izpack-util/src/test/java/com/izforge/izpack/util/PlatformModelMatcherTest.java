@@ -26,11 +26,14 @@ import static com.izforge.izpack.util.Platform.Arch.X86;
 import static com.izforge.izpack.util.Platform.Name.SUNOS;
 import static com.izforge.izpack.util.Platform.Name.UNIX;
 import static com.izforge.izpack.util.Platform.Name.WINDOWS;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import org.junit.Test;
 
@@ -193,6 +196,40 @@ public class PlatformModelMatcherTest
         assertTrue(matcher.matches(platform, Arrays.asList(osx, os2, sunos)));
         assertFalse(matcher.matches(platform, Arrays.asList(sunos, os2)));
     }
+    /**
+     * Verifies that {@link PlatformModelMatcher#matchesCurrentPlatform(List)} only matches each distinct list of
+     * models once.
+     */
+    @Test
+    public void testMatchesCurrentPlatformCached()
+    {
+        final int[] count = {0};
+        PlatformModelMatcher matcher = new PlatformModelMatcher(platforms, Platforms.WINDOWS)
+        {
+            @Override
+            public boolean matches(Platform platform, List<OsModel> models)
+            {
+                ++count[0];
+                return super.matches(platform, models);
+            }
+        };
+        List<OsModel> windows = new ArrayList<OsModel>(Arrays.asList(new OsModel(null, "windows", null, null, null)));
+        List<OsModel> unix = Arrays.asList(new OsModel(null, "unix", null, null, null));
+
+        assertTrue(matcher.matchesCurrentPlatform(windows));
+        assertTrue(matcher.matchesCurrentPlatform(windows));
+        assertTrue(matcher.matchesCurrentPlatform(Arrays.asList(new OsModel(null, "windows", null, null, null))));
+        assertFalse(matcher.matchesCurrentPlatform(unix));
+        assertFalse(matcher.matchesCurrentPlatform(unix));
+        assertTrue(matcher.matchesCurrentPlatform(Collections.<OsModel>emptyList()));
+        assertEquals(2, count[0]);
+
+        // results are cached against a copy, so a list changed after matching is looked up by its new value
+        windows.set(0, new OsModel(null, "unix", null, null, null));
+        assertFalse(matcher.matchesCurrentPlatform(windows));
+        assertEquals(2, count[0]);
+    }
+
     /**
      * Verifies that a platform matches the expected model.
      *
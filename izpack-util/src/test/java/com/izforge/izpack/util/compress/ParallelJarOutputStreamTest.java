@@ -0,0 +1,372 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.compress;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarInputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link ParallelJarOutputStream}.
+ */
+public class ParallelJarOutputStreamTest
+{
+    /**
+     * Temporary folder for the jars.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verifies that the written jar can be read using both the central directory, and the local headers.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testWrite() throws Exception
+    {
+        Map<String, byte[]> entries = createEntries();
+        File file = temporaryFolder.newFile("test.jar");
+        write(entries, new FileOutputStream(file), 4);
+
+        JarFile jar = new JarFile(file);
+        try
+        {
+            Enumeration<JarEntry> iterator = jar.entries();
+            for (Map.Entry<String, byte[]> expected : entries.entrySet())
+            {
+                JarEntry entry = iterator.nextElement();
+                assertEquals(expected.getKey(), entry.getName());
+                try (InputStream in = jar.getInputStream(entry))
+                {
+                    assertArrayEquals(expected.getValue(), IOUtils.toByteArray(in));
+                }
+            }
+        }
+        finally
+        {
+            jar.close();
+        }
+
+        try (JarInputStream in = new JarInputStream(new ByteArrayInputStream(IOUtils.toByteArray(file.toURI()))))
+        {
+            for (Map.Entry<String, byte[]> expected : entries.entrySet())
+            {
+                ZipEntry entry = in.getNextEntry();
+                assertNotNull(entry);
+                assertEquals(expected.getKey(), entry.getName());
+                assertArrayEquals(expected.getValue(), IOUtils.toByteArray(in));
+            }
+            assertNull(in.getNextEntry());
+        }
+    }
+
+    /**
+     * Verifies that the output doesn't depend on the no. of compression threads.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testReproducible() throws Exception
+    {
+        Map<String, byte[]> entries = createEntries();
+        ByteArrayOutputStream single = new ByteArrayOutputStream();
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        write(entries, single, 1);
+        write(entries, parallel, 8);
+        assertArrayEquals(single.toByteArray(), parallel.toByteArray());
+    }
+
+    /**
+     * Verifies that duplicate entries are rejected.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testDuplicateEntry() throws Exception
+    {
+        ParallelJarOutputStream out = new ParallelJarOutputStream(new ByteArrayOutputStream(), 2);
+        try
+        {
+            out.putNextEntry(new ZipEntry("a.txt"));
+            out.closeEntry();
+            out.putNextEntry(new ZipEntry("a.txt"));
+            fail("Expected ZipException");
+        }
+        catch (ZipException expected)
+        {
+            // expected
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Verifies that the first entry is marked with the jar extra field id, as {@code JarOutputStream} does.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testJarMagic() throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        write(createEntries(), bytes, 2);
+
+        try (JarInputStream in = new JarInputStream(new ByteArrayInputStream(bytes.toByteArray())))
+        {
+            assertArrayEquals(new byte[]{(byte) 0xFE, (byte) 0xCA, 0, 0}, in.getNextEntry().getExtra());
+            assertNull(in.getNextEntry().getExtra());
+        }
+    }
+
+    /**
+     * Verifies that stored entries larger than the buffer limit are written as they are streamed, and can be read
+     * using both the central directory, and the local headers.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testStoredStreamed() throws Exception
+    {
+        byte[] data = new byte[6 * 1024 * 1024];
+        new Random(42).nextBytes(data);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        File file = temporaryFolder.newFile("stored.jar");
+        ParallelJarOutputStream out = new ParallelJarOutputStream(new FileOutputStream(file), 2);
+        try
+        {
+            out.putNextEntry(new ZipEntry("a.txt"));
+            out.write("a".getBytes());
+            ZipEntry entry = new ZipEntry("resources/packs/pack-stored");
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(data.length);
+            entry.setCrc(crc.getValue());
+            out.putNextEntry(entry);
+            out.write(data);
+            out.closeEntry();
+        }
+        finally
+        {
+            out.close();
+        }
+
+        JarFile jar = new JarFile(file);
+        try
+        {
+            JarEntry entry = jar.getJarEntry("resources/packs/pack-stored");
+            assertEquals(ZipEntry.STORED, entry.getMethod());
+            try (InputStream in = jar.getInputStream(entry))
+            {
+                assertArrayEquals(data, IOUtils.toByteArray(in));
+            }
+        }
+        finally
+        {
+            jar.close();
+        }
+        try (JarInputStream in = new JarInputStream(new FileInputStream(file)))
+        {
+            assertEquals("a.txt", in.getNextEntry().getName());
+            assertEquals("resources/packs/pack-stored", in.getNextEntry().getName());
+            assertArrayEquals(data, IOUtils.toByteArray(in));
+        }
+    }
+
+    /**
+     * Verifies that stored entries larger than the buffer limit are rejected if they don't declare their size and
+     * CRC-32, or if their data doesn't match.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testStoredInvalid() throws Exception
+    {
+        byte[] data = new byte[6 * 1024 * 1024];
+        ParallelJarOutputStream out = new ParallelJarOutputStream(new ByteArrayOutputStream(), 2);
+        try
+        {
+            ZipEntry entry = new ZipEntry("undeclared");
+            entry.setMethod(ZipEntry.STORED);
+            out.putNextEntry(entry);
+            out.write(data);
+            fail("Expected ZipException");
+        }
+        catch (ZipException expected)
+        {
+            // expected
+        }
+
+        out = new ParallelJarOutputStream(new ByteArrayOutputStream(), 2);
+        try
+        {
+            ZipEntry entry = new ZipEntry("wrong-crc");
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(data.length);
+            entry.setCrc(0);
+            out.putNextEntry(entry);
+            out.write(data);
+            out.closeEntry();
+            fail("Expected ZipException");
+        }
+        catch (ZipException expected)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Verifies that a streamed entry that declares a size of 4GB or more has a ZIP64 extra field in its local header.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testDeclaredZip64() throws Exception
+    {
+        byte[] data = new byte[6 * 1024 * 1024];
+        new Random(42).nextBytes(data);
+        File file = temporaryFolder.newFile("zip64.jar");
+        ParallelJarOutputStream out = new ParallelJarOutputStream(new FileOutputStream(file), 2);
+        try
+        {
+            ZipEntry entry = new ZipEntry("resources/packs/pack-huge");
+            entry.setSize(5L * 1024 * 1024 * 1024);
+            out.putNextEntry(entry);
+            out.write(data);
+            out.closeEntry();
+        }
+        finally
+        {
+            out.close();
+        }
+
+        byte[] header = new byte[30];
+        try (InputStream in = new FileInputStream(file))
+        {
+            IOUtils.readFully(in, header);
+        }
+        assertEquals(45, header[4]);
+        for (int i = 18; i < 26; ++i)
+        {
+            assertEquals((byte) 0xFF, header[i]);
+        }
+        assertEquals(4 + 20, header[28]);
+
+        JarFile jar = new JarFile(file);
+        try
+        {
+            JarEntry entry = jar.getJarEntry("resources/packs/pack-huge");
+            assertEquals(data.length, entry.getSize());
+            try (InputStream in = jar.getInputStream(entry))
+            {
+                assertArrayEquals(data, IOUtils.toByteArray(in));
+            }
+        }
+        finally
+        {
+            jar.close();
+        }
+    }
+
+    /**
+     * Writes entries to a stream.
+     *
+     * @param entries the entries
+     * @param stream  the stream
+     * @param threads the no. of compression threads
+     * @throws IOException for any I/O error
+     */
+    private static void write(Map<String, byte[]> entries, OutputStream stream, int threads)
+            throws IOException
+    {
+        ParallelJarOutputStream out = new ParallelJarOutputStream(stream, threads);
+        try
+        {
+            out.setLevel(9);
+            for (Map.Entry<String, byte[]> entry : entries.entrySet())
+            {
+                ZipEntry zipEntry = new ZipEntry(entry.getKey());
+                zipEntry.setTime(1262304000000L);
+                out.putNextEntry(zipEntry);
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Creates entries of varying sizes, including one large enough to be streamed.
+     *
+     * @return the entry data, keyed on name
+     */
+    private static Map<String, byte[]> createEntries()
+    {
+        Random random = new Random(42);
+        Map<String, byte[]> result = new LinkedHashMap<String, byte[]>();
+        result.put("com/example/", new byte[0]);
+        for (int i = 0; i < 200; ++i)
+        {
+            byte[] data = new byte[random.nextInt(20000)];
+            for (int j = 0; j < data.length; ++j)
+            {
+                data[j] = (byte) ('a' + random.nextInt(4));
+            }
+            result.put("com/example/Entry" + i + ".class", data);
+        }
+        byte[] large = new byte[6 * 1024 * 1024];
+        random.nextBytes(large);
+        result.put("resources/packs/pack-large", large);
+        result.put("resources/empty", new byte[0]);
+        result.put("resources/été.txt", "summer".getBytes());
+        return result;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.config;
+
+import com.izforge.izpack.api.config.Ini;
+import com.izforge.izpack.util.config.SingleConfigurableTask.Entry;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link DocumentCache}.
+ */
+public class DocumentCacheTest
+{
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    /**
+     * Verifies that XML merges of the same file are applied to the cached document, and only written on flush.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testXmlMerge() throws Exception
+    {
+        File server = write("server.xml", "<server><a/></server>");
+        File patch1 = write("patch1.xml", "<server><b/></server>");
+        File patch2 = write("patch2.xml", "<server><c/></server>");
+
+        DocumentCache cache = new DocumentCache();
+        merge(cache, server, patch1);
+        merge(cache, server, patch2);
+
+        assertEquals("<server><a/></server>", FileUtils.readFileToString(server, StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList(server.getAbsoluteFile()), cache.getModifiedFiles());
+
+        cache.flush();
+        String merged = FileUtils.readFileToString(server, StandardCharsets.UTF_8);
+        assertTrue(merged.contains("<a />"));
+        assertTrue(merged.contains("<b />"));
+        assertTrue(merged.contains("<c />"));
+        assertTrue(cache.getModifiedFiles().isEmpty());
+    }
+
+    /**
+     * Verifies that INI file tasks on the same file share the cached model, and it is only written on flush.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testIni() throws Exception
+    {
+        File file = write("test.ini", "[section]\nkey1=value1\n");
+
+        DocumentCache cache = new DocumentCache();
+        setEntry(cache, file, "key2", "value2");
+        setEntry(cache, file, "key3", "value3");
+        assertEquals(null, new Ini(file).get("section", "key2"));
+
+        cache.flush();
+        Ini ini = new Ini(file);
+        assertEquals("value1", ini.get("section", "key1"));
+        assertEquals("value2", ini.get("section", "key2"));
+        assertEquals("value3", ini.get("section", "key3"));
+    }
+
+    private void merge(DocumentCache cache, File file, File patch) throws Exception
+    {
+        SingleXmlFileMergeTask task = new SingleXmlFileMergeTask();
+        task.setOriginalFile(file);
+        task.setToFile(file);
+        task.setPatchFile(patch);
+        task.setDocumentCache(cache);
+        task.execute();
+    }
+
+    private void setEntry(DocumentCache cache, File file, String key, String value) throws Exception
+    {
+        SingleIniFileTask task = new SingleIniFileTask();
+        task.setToFile(file);
+        task.setDocumentCache(cache);
+        Entry entry = new Entry();
+        entry.setSection("section");
+        entry.setKey(key);
+        entry.setValue(value);
+        task.addEntry(entry);
+        task.execute();
+    }
+
+    private File write(String name, String content) throws Exception
+    {
+        File file = tmpDir.newFile(name);
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
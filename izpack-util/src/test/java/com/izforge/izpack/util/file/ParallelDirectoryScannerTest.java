@@ -0,0 +1,292 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the {@link ParallelDirectoryScanner}, comparing its results with those of {@link DirectoryScanner}.
+ */
+public class ParallelDirectoryScannerTest
+{
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The directory to scan.
+     */
+    private File basedir;
+
+    /**
+     * Creates the directory tree to scan.
+     *
+     * @throws IOException for any I/O error
+     */
+    @Before
+    public void setUp() throws IOException
+    {
+        basedir = temporaryFolder.newFolder("base");
+        create("a.txt", "b.jar", "lib/x.jar", "lib/y.jar", "lib/sub/z.jar", "lib/sub/z.txt", "doc/readme.TXT",
+               "doc/CVS/Entries", "doc/api/index.html", "src/main/java/A.java", "src/test/java/ATest.java",
+               "empty/");
+    }
+
+    /**
+     * Verifies that the default include pattern and default excludes give the same results.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testDefaults() throws Exception
+    {
+        checkScan(null, null, true, true);
+        checkScan(null, null, true, false);
+
+        DirectoryScanner scanner = scan(new ParallelDirectoryScanner(), null, null, true, false);
+        assertTrue(scanner.isEverythingIncluded());
+        scanner = scan(new ParallelDirectoryScanner(), null, null, true, true);
+        assertFalse(scanner.isEverythingIncluded());
+    }
+
+    /**
+     * Verifies that include and exclude patterns give the same results.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testPatterns() throws Exception
+    {
+        checkScan(new String[]{"**/*.jar"}, null, true, true);
+        checkScan(new String[]{"lib/**"}, new String[]{"lib/sub/**"}, true, true);
+        checkScan(new String[]{"lib/"}, new String[]{"**/z.*"}, true, true);
+        checkScan(new String[]{"a.txt", "doc/api/index.html"}, null, true, true);
+        checkScan(new String[]{"src/**/java/*.java"}, new String[]{"**/*Test.java"}, true, true);
+        checkScan(new String[]{"**/sub/**", "doc/*"}, new String[]{"doc"}, true, true);
+        checkScan(new String[]{"*"}, new String[]{"lib"}, true, true);
+    }
+
+    /**
+     * Verifies that case insensitive matching gives the same results.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testCaseInsensitive() throws Exception
+    {
+        checkScan(new String[]{"**/*.txt"}, null, false, true);
+        checkScan(new String[]{"LIB/**"}, new String[]{"**/Z.JAR"}, false, true);
+    }
+
+    /**
+     * Verifies that the not-included and excluded lists hold at least the entries reported by
+     * {@link DirectoryScanner}. The latter doesn't revisit excluded directories that could hold included files.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testFullResults() throws Exception
+    {
+        String[] includes = {"**/*.jar", "doc/**"};
+        String[] excludes = {"lib/sub/**"};
+        DirectoryScanner expected = scan(new DirectoryScanner(), includes, excludes, true, true);
+        DirectoryScanner actual = scan(new ParallelDirectoryScanner(), includes, excludes, true, true);
+
+        assertEquals(toSet(expected.getNotIncludedFiles()), toSet(actual.getNotIncludedFiles()));
+        assertEquals(toSet(expected.getNotIncludedDirectories()), toSet(actual.getNotIncludedDirectories()));
+        assertTrue(toSet(actual.getExcludedFiles()).containsAll(toSet(expected.getExcludedFiles())));
+        assertTrue(toSet(actual.getExcludedFiles()).contains("doc" + File.separator + "CVS" + File.separator
+                                                                     + "Entries"));
+        assertEquals(toSet(expected.getExcludedDirectories()), toSet(actual.getExcludedDirectories()));
+        assertArrayEquals(expected.getIncludedFiles(), actual.getIncludedFiles());
+    }
+
+    /**
+     * Verifies that included paths rejected by {@link DirectoryScanner#isSelected(String, File)} are reported as
+     * deselected.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testDeselected() throws Exception
+    {
+        DirectoryScanner expected = scan(new DirectoryScanner()
+        {
+            @Override
+            protected boolean isSelected(String name, File file)
+            {
+                return !name.startsWith("lib");
+            }
+        }, null, null, true, true);
+        DirectoryScanner actual = scan(new ParallelDirectoryScanner()
+        {
+            @Override
+            protected boolean isSelected(String name, File file)
+            {
+                return !name.startsWith("lib");
+            }
+        }, null, null, true, true);
+
+        String[] files = expected.getDeselectedFiles();
+        assertEquals(4, files.length);
+        assertEquals(toSet(files), toSet(actual.getDeselectedFiles()));
+        assertEquals(toSet(expected.getDeselectedDirectories()), toSet(actual.getDeselectedDirectories()));
+        assertTrue(toSet(actual.getDeselectedDirectories()).contains("lib"));
+        assertArrayEquals(expected.getIncludedFiles(), actual.getIncludedFiles());
+        assertFalse(actual.isEverythingIncluded());
+    }
+
+    /**
+     * Verifies that following a symbolic link to an ancestor directory doesn't walk it again.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testSymlinkLoop() throws Exception
+    {
+        Path link = new File(basedir, "lib/sub/loop").toPath();
+        try
+        {
+            Files.createSymbolicLink(link, basedir.toPath());
+        }
+        catch (UnsupportedOperationException | IOException exception)
+        {
+            Assume.assumeNoException(exception);
+        }
+
+        DirectoryScanner scanner = scan(new ParallelDirectoryScanner(), null, null, true, true);
+        Set<String> dirs = toSet(scanner.getIncludedDirectories());
+        String loop = "lib" + File.separator + "sub" + File.separator + "loop";
+        assertTrue(dirs.contains(loop));
+        assertFalse(dirs.contains(loop + File.separator + "lib"));
+        assertTrue(toSet(scanner.getNotIncludedFiles()).isEmpty());
+    }
+
+    /**
+     * Verifies that scanning a non-existent directory fails.
+     *
+     * @throws Exception expected
+     */
+    @Test(expected = Exception.class)
+    public void testMissingBasedir() throws Exception
+    {
+        DirectoryScanner scanner = new ParallelDirectoryScanner();
+        scanner.setBasedir(new File(basedir, "missing"));
+        scanner.scan();
+    }
+
+    /**
+     * Verifies that scanner default excludes only affect their scanner, and that global default excludes affect
+     * scanners created subsequently.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testDefaultExcludes() throws Exception
+    {
+        DirectoryScanner scanner = new DirectoryScanner();
+        assertTrue(scanner.addScannerDefaultExclude("**/*.jar"));
+        assertFalse(scanner.addScannerDefaultExclude("**/*.jar"));
+        assertFalse(toSet(scan(scanner, null, null, true, true).getIncludedFiles()).contains("b.jar"));
+        assertTrue(toSet(scan(new DirectoryScanner(), null, null, true, true).getIncludedFiles()).contains("b.jar"));
+
+        assertTrue(DirectoryScanner.addDefaultExclude("**/*.txt"));
+        try
+        {
+            assertFalse(toSet(scan(new DirectoryScanner(), null, null, true, true).getIncludedFiles())
+                                .contains("a.txt"));
+        }
+        finally
+        {
+            assertTrue(DirectoryScanner.removeDefaultExclude("**/*.txt"));
+        }
+        assertTrue(toSet(scan(new DirectoryScanner(), null, null, true, true).getIncludedFiles()).contains("a.txt"));
+    }
+
+    private void checkScan(String[] includes, String[] excludes, boolean caseSensitive, boolean defaultExcludes)
+            throws Exception
+    {
+        DirectoryScanner expected = scan(new DirectoryScanner(), includes, excludes, caseSensitive,
+                                         defaultExcludes);
+        DirectoryScanner actual = scan(new ParallelDirectoryScanner(), includes, excludes, caseSensitive,
+                                       defaultExcludes);
+        String message = Arrays.toString(includes) + " - " + Arrays.toString(excludes);
+        assertArrayEquals(message, expected.getIncludedFiles(), actual.getIncludedFiles());
+        assertArrayEquals(message, expected.getIncludedDirectories(), actual.getIncludedDirectories());
+    }
+
+    private DirectoryScanner scan(DirectoryScanner scanner, String[] includes, String[] excludes,
+                                  boolean caseSensitive, boolean defaultExcludes) throws Exception
+    {
+        scanner.setBasedir(basedir);
+        scanner.setIncludes(includes);
+        scanner.setExcludes(excludes);
+        scanner.setCaseSensitive(caseSensitive);
+        if (defaultExcludes)
+        {
+            scanner.addDefaultExcludes();
+        }
+        scanner.scan();
+        return scanner;
+    }
+
+    private void create(String... paths) throws IOException
+    {
+        for (String path : paths)
+        {
+            File file = new File(basedir, path);
+            if (path.endsWith("/"))
+            {
+                assertTrue(file.mkdirs());
+            }
+            else
+            {
+                file.getParentFile().mkdirs();
+                assertTrue(file.createNewFile());
+            }
+        }
+    }
+
+    private static Set<String> toSet(String[] values)
+    {
+        return new HashSet<String>(Arrays.asList(values));
+    }
+}
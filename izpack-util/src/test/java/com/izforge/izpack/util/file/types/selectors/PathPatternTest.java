@@ -0,0 +1,157 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.file.types.selectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link PathPattern} and {@link PathPatternSet}.
+ */
+public class PathPatternTest
+{
+
+    /**
+     * Tests matching of single segments with '*' and '?'.
+     */
+    @Test
+    public void testSegmentWildcards()
+    {
+        checkMatch("*.java", "A.java", true);
+        checkMatch("*.java", ".java", true);
+        checkMatch("*.java", "A.jav", false);
+        checkMatch("a??.txt", "abc.txt", true);
+        checkMatch("a??.txt", "ab.txt", false);
+        checkMatch("*a*b*", "xaxxbx", true);
+        checkMatch("*a*b*", "xbxxax", false);
+        checkMatch("*", "anything", true);
+        checkMatch("**", "", true);
+    }
+
+    /**
+     * Tests matching of '**'.
+     */
+    @Test
+    public void testDeep()
+    {
+        checkMatch("**/*.class", "A.class", true);
+        checkMatch("**/*.class", path("a", "b", "A.class"), true);
+        checkMatch("**/*.class", path("a", "b", "A.java"), false);
+        checkMatch("**/test/**/XYZ*", path("abc", "test", "def", "ghi", "XYZ123"), true);
+        checkMatch("**/test/**/XYZ*", path("abc", "test", "XYZ123"), true);
+        checkMatch("**/test/**/XYZ*", path("abc", "tst", "XYZ123"), false);
+        checkMatch("a/**", "a", true);
+        checkMatch("a/**", path("a", "b", "c"), true);
+        checkMatch("a/**/b/**/c", path("a", "x", "b", "y", "b", "z", "c"), true);
+        checkMatch("a/**/**/c", path("a", "c"), true);
+        checkMatch("a/**/b/*/c", path("a", "b", "c"), false);
+    }
+
+    /**
+     * Tests the leading separator rules.
+     */
+    @Test
+    public void testAbsolute()
+    {
+        checkMatch("/a/*", File.separator + "a" + File.separator + "b", true);
+        checkMatch("/a/*", path("a", "b"), false);
+        checkMatch("a/*", File.separator + "a" + File.separator + "b", false);
+    }
+
+    /**
+     * Tests case insensitive matching.
+     */
+    @Test
+    public void testCaseInsensitive()
+    {
+        assertTrue(SelectorUtils.matchPath(normalize("**/*.TXT"), path("doc", "readme.txt"), false));
+        assertFalse(SelectorUtils.matchPath(normalize("**/*.TXT"), path("doc", "readme.txt"), true));
+        assertTrue(SelectorUtils.matchPath(normalize("DOC/Readme.txt"), path("doc", "README.TXT"), false));
+        PathPatternSet set = new PathPatternSet(new String[]{normalize("LIB/*.jar")}, false);
+        assertTrue(set.matchPath(path("lib", "a.JAR")));
+        assertFalse(set.matchPath(path("lib", "sub", "a.jar")));
+    }
+
+    /**
+     * Tests {@link PathPattern#matchPatternStart(String)}.
+     */
+    @Test
+    public void testMatchPatternStart()
+    {
+        assertTrue(PathPattern.compile(normalize("a/b/**/c"), true).matchPatternStart(path("a", "b", "x")));
+        assertTrue(PathPattern.compile(normalize("a/b/c"), true).matchPatternStart("a"));
+        assertFalse(PathPattern.compile(normalize("a/b/c"), true).matchPatternStart(path("a", "c")));
+        assertFalse(PathPattern.compile(normalize("a/b"), true).matchPatternStart(path("a", "b", "c")));
+    }
+
+    /**
+     * Tests that a {@link PathPatternSet} matches a path if any of its patterns does, using the literal prefix
+     * index.
+     */
+    @Test
+    public void testPatternSet()
+    {
+        PathPatternSet set = new PathPatternSet(new String[]{normalize("lib/*.jar"), normalize("lib/ext/**"),
+                normalize("bin/run.sh"), normalize("**/CVS"), normalize("/opt/**")}, true);
+        assertTrue(set.matchPath(path("lib", "a.jar")));
+        assertTrue(set.matchPath("lib" + File.separator + "ext"));
+        assertTrue(set.matchPath(path("lib", "ext", "x", "y.txt")));
+        assertTrue(set.matchPath(path("bin", "run.sh")));
+        assertTrue(set.matchPath(path("src", "CVS")));
+        assertTrue(set.matchPath(File.separator + "opt" + File.separator + "x"));
+        assertFalse(set.matchPath(path("bin", "run.bat")));
+        assertFalse(set.matchPath("bin"));
+        assertFalse(set.matchPath(path("opt", "x")));
+        assertFalse(set.matchPath(path("lib", "a.zip")));
+        assertFalse(new PathPatternSet((String[]) null, true).matchPath("a"));
+    }
+
+    private static void checkMatch(String pattern, String path, boolean expected)
+    {
+        String normalized = normalize(pattern);
+        assertEquals(pattern + " ~ " + path, expected, PathPattern.compile(normalized, true).matchPath(path));
+        assertEquals(pattern + " ~ " + path, expected,
+                     new PathPatternSet(new String[]{normalized}, true).matchPath(path));
+    }
+
+    private static String normalize(String pattern)
+    {
+        return pattern.replace('/', File.separatorChar);
+    }
+
+    private static String path(String... names)
+    {
+        StringBuilder result = new StringBuilder();
+        for (String name : names)
+        {
+            if (result.length() != 0)
+            {
+                result.append(File.separatorChar);
+            }
+            result.append(name);
+        }
+        return result.toString();
+    }
+}
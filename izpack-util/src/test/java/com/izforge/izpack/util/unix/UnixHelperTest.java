@@ -0,0 +1,141 @@
+/*
+ * IzPack - Copyright 2001-2016 The IzPack project team.
+ * All Rights Reserved.
+ *
+ * http://izpack.org/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.izforge.izpack.util.unix;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Tests the {@link UnixHelper}.
+ */
+public class UnixHelperTest
+{
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Tests {@link UnixHelper#resolve(String, List)}.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testResolve() throws Exception
+    {
+        assumePosix();
+        File dir1 = temporaryFolder.newFolder("dir1");
+        File dir2 = temporaryFolder.newFolder("dir2");
+        File plain = new File(dir1, "cmd");
+        File executable = new File(dir2, "cmd");
+        assertEquals(true, plain.createNewFile());
+        assertEquals(true, executable.createNewFile());
+        assertEquals(true, executable.setExecutable(true));
+
+        List<String> path = Arrays.asList(dir1.getPath(), dir2.getPath());
+        assertEquals(executable.getPath(), UnixHelper.resolve("cmd", path));
+        assertEquals("", UnixHelper.resolve("missing", path));
+        assertEquals(executable.getPath(), UnixHelper.resolve(executable.getPath(), path));
+        assertEquals("", UnixHelper.resolve(plain.getPath(), path));
+    }
+
+    /**
+     * Tests {@link UnixHelper#getPath(String)}.
+     */
+    @Test
+    public void testGetPath()
+    {
+        assertNull(UnixHelper.getPath(null));
+        assertEquals(Arrays.asList("a", "", "b"),
+                     UnixHelper.getPath("a" + File.pathSeparator + File.pathSeparator + "b"));
+    }
+
+    /**
+     * Tests {@link UnixHelper#addPermissions(File, String)}.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testAddPermissions() throws Exception
+    {
+        assumePosix();
+        File file = temporaryFolder.newFile("file");
+        Files.setPosixFilePermissions(file.toPath(), PosixFilePermissions.fromString("rw-------"));
+
+        UnixHelper.addPermissions(file, "u+x");
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file.toPath())));
+
+        UnixHelper.addPermissions(file, "go+r");
+        assertEquals("rwxr--r--", PosixFilePermissions.toString(Files.getPosixFilePermissions(file.toPath())));
+
+        UnixHelper.addPermissions(file, "a+x");
+        assertEquals("rwxr-xr-x", PosixFilePermissions.toString(Files.getPosixFilePermissions(file.toPath())));
+
+        UnixHelper.addPermissions(file, "uga+rwx");
+        assertEquals(EnumSet.allOf(PosixFilePermission.class), Files.getPosixFilePermissions(file.toPath()));
+    }
+
+    /**
+     * Verifies that {@link UnixHelper#addPermissions(File, String)} applies the umask to modes without users, like
+     * <tt>chmod</tt>, rather than granting the permissions to everybody.
+     *
+     * @throws Exception for any error
+     */
+    @Test
+    public void testAddPermissionsWithoutUsers() throws Exception
+    {
+        assumePosix();
+        Assume.assumeTrue(UnixHelper.getCustomCommand("chmod").length() > 0);
+        File file = temporaryFolder.newFile("file");
+        Files.setPosixFilePermissions(file.toPath(), PosixFilePermissions.fromString("r--r--r--"));
+
+        UnixHelper.addPermissions(file, "+w");
+        Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(file.toPath());
+        assertTrue(permissions.contains(PosixFilePermission.OWNER_WRITE));
+        assertFalse(permissions.contains(PosixFilePermission.OTHERS_WRITE));
+    }
+
+    /**
+     * Skips the test if the file system doesn't support POSIX permissions.
+     */
+    private static void assumePosix()
+    {
+        Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+    }
+}